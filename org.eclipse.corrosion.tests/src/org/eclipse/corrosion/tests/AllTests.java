@@ -26,7 +26,20 @@ import org.junit.runners.Suite.SuiteClasses;
 	TestDebugConfiguration.class,
 	TestExportCargoProjectWizard.class,
 	TestLSPExtensions.class,
-	TestSnippetContentAssistProcessor.class
+	TestSnippetContentAssistProcessor.class,
+	TestJsonRpcMessageParser.class,
+	TestImplementationsCache.class,
+	TestSnippetIndex.class,
+	TestLexicalStateCache.class,
+	TestCargoMessageFilter.class,
+	TestBuildFingerprint.class,
+	TestLibtestOutputParser.class,
+	TestFailedTestsStore.class,
+	TestTestDurationHistory.class,
+	TestShardedTestRunner.class,
+	TestSharedLanguageServer.class,
+	TestCargoWorkspaceRoot.class,
+	TestLaunchConfigurationIndex.class
 })
 public class AllTests {
 
@@ -0,0 +1,102 @@
+/*********************************************************************
+ * Copyright (c) 2019 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Red Hat Inc. - Initial implementation
+ *******************************************************************************/
+package org.eclipse.corrosion.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.corrosion.debug.BuildFingerprint;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestBuildFingerprint {
+	private static final List<String> BUILD = Arrays.asList("cargo", "build");
+
+	private Path crate;
+
+	@Before
+	public void setUp() throws IOException {
+		crate = Files.createTempDirectory("corrosion-test");
+		write("Cargo.toml", "[package]\nname = \"basic\"\n");
+		write("src/main.rs", "fn main() {}\n");
+	}
+
+	@Test
+	public void testUnchangedCrate() throws IOException {
+		assertEquals(BuildFingerprint.compute(crate.toFile(), BUILD), BuildFingerprint.compute(crate.toFile(), BUILD));
+	}
+
+	@Test
+	public void testBuildOutputIsIgnored() throws IOException {
+		String fingerprint = BuildFingerprint.compute(crate.toFile(), BUILD);
+		write("target/debug/basic", "binary");
+		write(".git/HEAD", "ref: refs/heads/master");
+		assertEquals(fingerprint, BuildFingerprint.compute(crate.toFile(), BUILD));
+	}
+
+	@Test
+	public void testChangesAreDetected() throws IOException {
+		String fingerprint = BuildFingerprint.compute(crate.toFile(), BUILD);
+		assertNotEquals(fingerprint, BuildFingerprint.compute(crate.toFile(), Arrays.asList("cargo", "build", "--release")));
+		write("src/lib.rs", "");
+		String withLib = BuildFingerprint.compute(crate.toFile(), BUILD);
+		assertNotEquals(fingerprint, withLib);
+		write("src/main.rs", "fn main() { println!(\"changed\"); }\n");
+		assertNotEquals(withLib, BuildFingerprint.compute(crate.toFile(), BUILD));
+	}
+
+	@Test
+	public void testToolchainAndEnvironmentChangesAreDetected() throws IOException {
+		File directory = crate.toFile();
+		Map<String, String> environment = Collections.singletonMap("HOME", "/home/user");
+		String fingerprint = BuildFingerprint.compute(directory, BUILD, "stable", environment);
+		assertEquals(fingerprint, BuildFingerprint.compute(directory, BUILD, "stable",
+				Collections.singletonMap("HOME", "/home/other")));
+		assertNotEquals(fingerprint, BuildFingerprint.compute(directory, BUILD, "nightly", environment));
+		Map<String, String> withFlags = new HashMap<>(environment);
+		withFlags.put("RUSTFLAGS", "-C target-cpu=native");
+		assertNotEquals(fingerprint, BuildFingerprint.compute(directory, BUILD, "stable", withFlags));
+		Map<String, String> withTargetDir = new HashMap<>(environment);
+		withTargetDir.put("CARGO_TARGET_DIR", "/tmp/target");
+		assertNotEquals(fingerprint, BuildFingerprint.compute(directory, BUILD, "stable", withTargetDir));
+	}
+
+	@Test
+	public void testStamp() throws IOException {
+		File executable = crate.resolve("target/debug/basic").toFile();
+		assertNull(BuildFingerprint.stamp(executable));
+		write("target/debug/basic", "binary");
+		String stamp = BuildFingerprint.stamp(executable);
+		write("target/debug/basic", "a larger binary");
+		assertNotEquals(stamp, BuildFingerprint.stamp(executable));
+		assertNull(BuildFingerprint.stamp(crate.toFile()));
+	}
+
+	private void write(String path, String content) throws IOException {
+		Path file = crate.resolve(path);
+		Files.createDirectories(file.getParent());
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+	}
+}
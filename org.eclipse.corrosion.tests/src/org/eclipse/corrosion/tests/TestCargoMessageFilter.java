@@ -0,0 +1,70 @@
+/*********************************************************************
+ * Copyright (c) 2019 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Red Hat Inc. - Initial implementation
+ *******************************************************************************/
+package org.eclipse.corrosion.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.corrosion.cargo.core.CargoMessageFilter;
+import org.eclipse.corrosion.cargo.core.CargoMessageFilter.Diagnostic;
+import org.junit.Test;
+
+public class TestCargoMessageFilter {
+	private static final File ROOT = new File("/work/project");
+	private static final String WARNING = "{\"reason\":\"compiler-message\",\"package_id\":\"basic 0.1.0\","
+			+ "\"message\":{\"message\":\"unused variable: `x`\",\"code\":{\"code\":\"unused_variables\",\"explanation\":null},"
+			+ "\"level\":\"warning\",\"spans\":[{\"file_name\":\"src/main.rs\",\"byte_start\":20,\"byte_end\":21,"
+			+ "\"line_start\":2,\"line_end\":2,\"column_start\":9,\"column_end\":10,\"is_primary\":true},"
+			+ "{\"file_name\":\"src/lib.rs\",\"line_start\":7,\"is_primary\":false}],"
+			+ "\"children\":[],\"rendered\":\"warning: unused variable: `x`\\n --> src/main.rs:2:9\\n\"}}";
+	private static final String ERROR = "{\"reason\":\"compiler-message\",\"message\":{\"message\":\"mismatched types\","
+			+ "\"code\":null,\"level\":\"error\",\"spans\":[{\"file_name\":\"/abs/src/lib.rs\",\"line_start\":5,"
+			+ "\"is_primary\":true}],\"rendered\":\"error[E0308]: mismatched types\\n\"}}";
+
+	@Test
+	public void testCompilerMessagesBecomeDiagnostics() {
+		List<Diagnostic> diagnostics = new ArrayList<>();
+		CargoMessageFilter filter = new CargoMessageFilter(ROOT, diagnostics::add);
+		assertEquals("warning: unused variable: `x`\n --> src/main.rs:2:9", filter.filter(WARNING));
+		assertEquals("error[E0308]: mismatched types", filter.filter(ERROR));
+
+		assertEquals(2, diagnostics.size());
+		Diagnostic warning = diagnostics.get(0);
+		assertEquals(new File(ROOT, "src/main.rs"), warning.getFile());
+		assertEquals(2, warning.getLine());
+		assertEquals(IMarker.SEVERITY_WARNING, warning.getSeverity());
+		assertEquals("unused variable: `x` [unused_variables]", warning.getMessage());
+		Diagnostic error = diagnostics.get(1);
+		assertEquals(new File("/abs/src/lib.rs"), error.getFile());
+		assertEquals(IMarker.SEVERITY_ERROR, error.getSeverity());
+		assertEquals("mismatched types", error.getMessage());
+	}
+
+	@Test
+	public void testOtherLines() {
+		List<Diagnostic> diagnostics = new ArrayList<>();
+		CargoMessageFilter filter = new CargoMessageFilter(ROOT, diagnostics::add);
+		assertNull(filter.filter("{\"reason\":\"compiler-artifact\",\"package_id\":\"basic 0.1.0\"}"));
+		assertNull(filter.filter("{\"reason\":\"build-finished\",\"success\":true}"));
+		assertEquals("Hello, world!", filter.filter("Hello, world!"));
+		assertEquals("{\"program\": \"output\"}", filter.filter("{\"program\": \"output\"}"));
+		assertEquals("{ not json \"reason\"", filter.filter("{ not json \"reason\""));
+		assertTrue(diagnostics.isEmpty());
+	}
+}
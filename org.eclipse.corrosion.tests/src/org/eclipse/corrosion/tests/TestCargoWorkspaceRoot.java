@@ -0,0 +1,70 @@
+/*********************************************************************
+ * Copyright (c) 2019 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Red Hat Inc. - Initial implementation
+ *******************************************************************************/
+package org.eclipse.corrosion.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.eclipse.corrosion.cargo.core.CargoTools;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestCargoWorkspaceRoot {
+	private Path workspace;
+
+	@Before
+	public void setUp() throws IOException {
+		workspace = Files.createTempDirectory("corrosion-test");
+		for (String crate : new String[] { "app", "crates/core", "crates/experimental", "examples/demo" }) {
+			write(crate + "/Cargo.toml", "[package]\nname = \"" + crate.replace('/', '-') + "\"\n");
+		}
+	}
+
+	@Test
+	public void testMembersAndExclude() throws IOException {
+		write("Cargo.toml", "[workspace] # all the crates\nmembers = [\n  \"app\",\n  \"crates/*\", # libraries\n]\n"
+				+ "exclude = [\"crates/experimental\"]\n");
+		assertEquals(workspace.toFile(), root(""));
+		assertEquals(workspace.toFile(), root("app"));
+		assertEquals(workspace.toFile(), root("crates/core"));
+		assertEquals(workspace.resolve("crates/experimental").toFile(), root("crates/experimental"));
+		assertEquals(workspace.resolve("examples/demo").toFile(), root("examples/demo"));
+	}
+
+	@Test
+	public void testWorkspaceWithoutMembers() throws IOException {
+		write("Cargo.toml", "[package]\nname = \"root\"\n\n[ workspace ]\n");
+		assertEquals(workspace.toFile(), root("examples/demo"));
+	}
+
+	@Test
+	public void testNoWorkspace() throws IOException {
+		write("Cargo.toml", "[package]\nname = \"root\"\n\n[dependencies]\nworkspace = \"1.0\"\n");
+		assertEquals(workspace.resolve("app").toFile(), root("app"));
+	}
+
+	private File root(String crate) {
+		return CargoTools.findWorkspaceRoot(workspace.resolve(crate).toFile());
+	}
+
+	private void write(String path, String content) throws IOException {
+		Path file = workspace.resolve(path);
+		Files.createDirectories(file.getParent());
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,42 @@
+/*********************************************************************
+ * Copyright (c) 2019 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Red Hat Inc. - Initial implementation
+ *******************************************************************************/
+package org.eclipse.corrosion.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.eclipse.corrosion.test.FailedTestsStore;
+import org.junit.After;
+import org.junit.Test;
+
+public class TestFailedTestsStore {
+	private static final String CONFIGURATION = "basic tests/with: odd*characters";
+
+	@After
+	public void tearDown() {
+		FailedTestsStore.save(CONFIGURATION, Collections.emptyList());
+	}
+
+	@Test
+	public void testSaveAndLoad() {
+		assertTrue(FailedTestsStore.load(CONFIGURATION).isEmpty());
+		FailedTestsStore.save(CONFIGURATION, Arrays.asList("tests::fails", "src/lib.rs - foo (line 5)"));
+		assertEquals(Arrays.asList("tests::fails", "src/lib.rs - foo (line 5)"), FailedTestsStore.load(CONFIGURATION));
+		assertTrue(FailedTestsStore.load("another configuration").isEmpty());
+		FailedTestsStore.save(CONFIGURATION, Collections.emptyList());
+		assertTrue(FailedTestsStore.load(CONFIGURATION).isEmpty());
+	}
+}
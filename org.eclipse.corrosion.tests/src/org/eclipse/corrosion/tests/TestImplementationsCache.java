@@ -0,0 +1,141 @@
+/*********************************************************************
+ * Copyright (c) 2019 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Red Hat Inc. - Initial implementation
+ *******************************************************************************/
+package org.eclipse.corrosion.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.core.filebuffers.FileBuffers;
+import org.eclipse.core.filebuffers.ITextFileBufferManager;
+import org.eclipse.core.filebuffers.LocationKind;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.corrosion.extensions.ImplementationsCache;
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.lsp4e.LSPEclipseUtils;
+import org.eclipse.lsp4j.Location;
+import org.eclipse.lsp4j.Position;
+import org.eclipse.lsp4j.Range;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestImplementationsCache {
+	private static final String URI = "file:///project/src/main.rs";
+
+	private ImplementationsCache cache;
+	private IProject project;
+
+	@Before
+	public void setUp() throws CoreException {
+		cache = ImplementationsCache.getInstance();
+		cache.install();
+		cache.invalidate();
+		project = ResourcesPlugin.getWorkspace().getRoot().getProject("implementationsCache");
+		project.create(null);
+		project.open(null);
+	}
+
+	@After
+	public void tearDown() throws CoreException {
+		project.delete(true, null);
+	}
+
+	private void write(String name, String content) throws CoreException {
+		IFile file = project.getFile(name);
+		ByteArrayInputStream source = new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+		if (file.exists()) {
+			file.setContents(source, true, false, null);
+		} else {
+			file.create(source, true, null);
+		}
+	}
+
+	private static List<Location> locations() {
+		return Collections.singletonList(new Location(URI, new Range(new Position(1, 0), new Position(1, 4))));
+	}
+
+	@Test
+	public void testHitOnSameVersionAndPosition() {
+		cache.put(cache.getGeneration(), URI, 3, new Position(1, 2), locations());
+		assertEquals(locations(), cache.get(URI, 3, new Position(1, 2)));
+		assertNull(cache.get(URI, 4, new Position(1, 2)));
+		assertNull(cache.get(URI, 3, new Position(1, 3)));
+	}
+
+	@Test
+	public void testSourceChangeInvalidates() throws CoreException {
+		write("main.rs", "fn main() {}");
+		cache.put(cache.getGeneration(), URI, 3, new Position(1, 2), locations());
+		write("README.md", "# Implementations");
+		assertNotNull(cache.get(URI, 3, new Position(1, 2)));
+		write("main.rs", "fn main() { }");
+		assertNull(cache.get(URI, 3, new Position(1, 2)));
+	}
+
+	@Test
+	public void testResultOfRequestSentBeforeChangeIsDropped() throws CoreException {
+		long generation = cache.getGeneration();
+		write("Cargo.toml", "[package]\nname = \"implementations\"\n");
+		cache.put(generation, URI, 3, new Position(1, 2), locations());
+		assertNull(cache.get(URI, 3, new Position(1, 2)));
+	}
+
+	@Test
+	public void testLeastRecentlyUsedIsEvicted() {
+		long generation = cache.getGeneration();
+		for (int i = 0; i < 100; i++) {
+			cache.put(generation, URI, 3, new Position(i, 0), locations());
+			assertNotNull(cache.get(URI, 3, new Position(0, 0)));
+		}
+		assertNotNull(cache.get(URI, 3, new Position(0, 0)));
+		assertNotNull(cache.get(URI, 3, new Position(99, 0)));
+		assertNull(cache.get(URI, 3, new Position(1, 0)));
+	}
+
+	@Test
+	public void testDocumentEditChangesVersionAndInvalidates() throws CoreException, BadLocationException {
+		write("lib.rs", "pub trait Shape {}");
+		IFile file = project.getFile("lib.rs");
+		String uri = LSPEclipseUtils.toUri(file).toString();
+		ITextFileBufferManager manager = FileBuffers.getTextFileBufferManager();
+		long version = cache.getVersion(uri);
+		cache.put(cache.getGeneration(), uri, version, new Position(0, 10), locations());
+
+		manager.connect(file.getFullPath(), LocationKind.IFILE, null);
+		try {
+			IDocument document = manager.getTextFileBuffer(file.getFullPath(), LocationKind.IFILE).getDocument();
+			document.replace(0, 0, " ");
+		} finally {
+			manager.disconnect(file.getFullPath(), LocationKind.IFILE, null);
+		}
+		long editedVersion = cache.getVersion(uri);
+		assertNotEquals(version, editedVersion);
+		assertNull(cache.get(uri, version, new Position(0, 10)));
+
+		// Reopening the file does not restart its version
+		manager.connect(file.getFullPath(), LocationKind.IFILE, null);
+		manager.disconnect(file.getFullPath(), LocationKind.IFILE, null);
+		assertEquals(editedVersion, cache.getVersion(uri));
+	}
+}
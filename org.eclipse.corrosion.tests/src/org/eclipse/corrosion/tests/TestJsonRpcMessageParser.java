@@ -0,0 +1,98 @@
+/*********************************************************************
+ * Copyright (c) 2019 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Red Hat Inc. - Initial implementation
+ *******************************************************************************/
+package org.eclipse.corrosion.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.corrosion.edit.JsonRpcMessage;
+import org.eclipse.corrosion.edit.JsonRpcMessageParser;
+import org.eclipse.corrosion.edit.LanguageServerStatistics;
+import org.eclipse.corrosion.edit.LanguageServerStatistics.MethodStatistics;
+import org.junit.Test;
+
+public class TestJsonRpcMessageParser {
+
+	private static byte[] frame(String content) {
+		byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+		String header = "Content-Length: " + bytes.length + "\r\nContent-Type: application/vscode-jsonrpc\r\n\r\n";
+		byte[] headerBytes = header.getBytes(StandardCharsets.US_ASCII);
+		byte[] result = new byte[headerBytes.length + bytes.length];
+		System.arraycopy(headerBytes, 0, result, 0, headerBytes.length);
+		System.arraycopy(bytes, 0, result, headerBytes.length, bytes.length);
+		return result;
+	}
+
+	@Test
+	public void testMessagesSplitAcrossChunks() {
+		List<JsonRpcMessage> messages = new ArrayList<>();
+		JsonRpcMessageParser parser = new JsonRpcMessageParser(messages::add);
+		byte[] first = frame(
+				"{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"textDocument/hover\",\"params\":{\"x\":\"\u00e9\"}}");
+		byte[] second = frame("{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":{\"contents\":[]}}");
+		byte[] stream = new byte[first.length + second.length];
+		System.arraycopy(first, 0, stream, 0, first.length);
+		System.arraycopy(second, 0, stream, first.length, second.length);
+		for (int i = 0; i < stream.length; i += 7) {
+			parser.feed(stream, i, Math.min(7, stream.length - i));
+		}
+		assertEquals(2, messages.size());
+		JsonRpcMessage request = messages.get(0);
+		assertTrue(request.isRequest());
+		assertEquals("1", request.getId());
+		assertEquals("textDocument/hover", request.getMethod());
+		JsonRpcMessage response = messages.get(1);
+		assertTrue(response.isResponse());
+		assertNull(response.getMethod());
+		assertEquals("1", response.getId());
+	}
+
+	@Test
+	public void testNotification() {
+		List<JsonRpcMessage> messages = new ArrayList<>();
+		JsonRpcMessageParser parser = new JsonRpcMessageParser(messages::add);
+		byte[] bytes = frame("{\"jsonrpc\":\"2.0\",\"method\":\"textDocument/didOpen\",\"params\":{}}");
+		parser.feed(bytes, 0, bytes.length);
+		assertEquals(1, messages.size());
+		assertTrue(messages.get(0).isNotification());
+		assertFalse(messages.get(0).isRequest());
+	}
+
+	@Test
+	public void testStatisticsMatchResponsesById() {
+		LanguageServerStatistics.Connection connection = LanguageServerStatistics.getInstance().newConnection();
+		connection.messageSent(JsonRpcMessage.parse("{\"id\":\"test-42\",\"method\":\"corrosion/testMethod\"}", 10));
+		assertEquals(1, getStatistics("corrosion/testMethod").getInFlightCount());
+		// a response to an unknown request is ignored
+		connection.messageReceived(JsonRpcMessage.parse("{\"id\":\"test-43\",\"result\":null}", 20));
+		assertEquals(1, getStatistics("corrosion/testMethod").getInFlightCount());
+		connection.messageReceived(JsonRpcMessage.parse("{\"id\":\"test-42\",\"result\":null}", 20));
+		MethodStatistics statistics = getStatistics("corrosion/testMethod");
+		assertEquals(0, statistics.getInFlightCount());
+		assertEquals(1, statistics.getCompletedCount());
+		assertEquals(10, statistics.getBytesSent());
+		assertEquals(20, statistics.getBytesReceived());
+		assertTrue(LanguageServerStatistics.getInstance().toCSV().contains("\"corrosion/testMethod\",1,0,0,"));
+	}
+
+	private static MethodStatistics getStatistics(String method) {
+		return LanguageServerStatistics.getInstance().getMethodStatistics().stream()
+				.filter(statistics -> statistics.getMethod().equals(method)).findFirst().get();
+	}
+}
@@ -64,6 +64,37 @@ public class TestLSPExtensions {
 		assertEquals(rustJob.getResult().getCode(), IStatus.OK);
 	}
 
+	@Test
+	public void testConcurrentStreamsShareOneJob() {
+		String jobType = "Analyzing";
+		RLSClientImplementation clientImplementation = new RLSClientImplementation();
+		IJobManager jobManager = Job.getJobManager();
+		clientImplementation.progress(new ProgressParams(PROGRESS_ID_1, jobType));
+		clientImplementation.progress(new ProgressParams(PROGRESS_ID_2, jobType));
+		waitUntilJobIsStarted(jobManager, jobType);
+
+		Job rustJob = getRustDiagnosticsJob(jobManager, jobType);
+		assertNotNull(rustJob);
+		assertEquals(1, countRustDiagnosticsJobs(jobManager, jobType));
+
+		clientImplementation.progress(new ProgressParams(PROGRESS_ID_1, jobType, true));
+		assertEquals(1, countRustDiagnosticsJobs(jobManager, jobType));
+
+		clientImplementation.progress(new ProgressParams(PROGRESS_ID_2, jobType, true));
+		waitUntilJobIsDone(jobManager, jobType);
+		assertEquals(rustJob.getResult().getCode(), IStatus.OK);
+	}
+
+	private static int countRustDiagnosticsJobs(IJobManager jobManager, String jobType) {
+		int count = 0;
+		for (Job job : jobManager.find(null)) {
+			if (jobType.equals(job.getName())) {
+				count++;
+			}
+		}
+		return count;
+	}
+
 	private static void waitUntilJobIsStarted(IJobManager jobManager, String jobType) {
 		new DisplayHelper() {
 			@Override
@@ -0,0 +1,86 @@
+/*********************************************************************
+ * Copyright (c) 2019 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Red Hat Inc. - Initial implementation
+ *******************************************************************************/
+package org.eclipse.corrosion.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.corrosion.launch.LaunchConfigurationIndex;
+import org.eclipse.debug.core.DebugPlugin;
+import org.eclipse.debug.core.ILaunchConfiguration;
+import org.eclipse.debug.core.ILaunchConfigurationType;
+import org.eclipse.debug.core.ILaunchConfigurationWorkingCopy;
+import org.eclipse.debug.core.ILaunchManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestLaunchConfigurationIndex {
+	private static final String FIRST_PROJECT = "indexFirst";
+	private static final String SECOND_PROJECT = "indexSecond";
+
+	private ILaunchConfigurationType type;
+	private final List<ILaunchConfiguration> configurations = new ArrayList<>();
+
+	@Before
+	public void setUp() {
+		ILaunchManager launchManager = DebugPlugin.getDefault().getLaunchManager();
+		type = launchManager.getLaunchConfigurationType("org.eclipse.corrosion.run.CargoRunDelegate");
+	}
+
+	@After
+	public void tearDown() throws CoreException {
+		for (ILaunchConfiguration configuration : configurations) {
+			configuration.delete();
+		}
+	}
+
+	@Test
+	public void testIndexFollowsChanges() throws CoreException {
+		LaunchConfigurationIndex index = LaunchConfigurationIndex.getInstance();
+		assertNull(index.find(type, FIRST_PROJECT));
+		ILaunchConfiguration first = create(FIRST_PROJECT);
+		ILaunchConfiguration second = create(FIRST_PROJECT);
+		assertEquals(first, index.find(type, FIRST_PROJECT));
+
+		// a change keeping the project keeps the order
+		ILaunchConfigurationWorkingCopy copy = first.getWorkingCopy();
+		copy.setAttribute("BUILD_COMMAND", "--release");
+		copy.doSave();
+		assertEquals(first, index.find(type, FIRST_PROJECT));
+
+		copy = first.getWorkingCopy();
+		copy.setAttribute("PROJECT", SECOND_PROJECT);
+		copy.doSave();
+		assertEquals(second, index.find(type, FIRST_PROJECT));
+		assertEquals(first, index.find(type, SECOND_PROJECT));
+
+		second.delete();
+		configurations.remove(second);
+		assertNull(index.find(type, FIRST_PROJECT));
+	}
+
+	private ILaunchConfiguration create(String projectName) throws CoreException {
+		ILaunchManager launchManager = DebugPlugin.getDefault().getLaunchManager();
+		ILaunchConfigurationWorkingCopy copy = type.newInstance(null,
+				launchManager.generateLaunchConfigurationName(projectName));
+		copy.setAttribute("PROJECT", projectName);
+		ILaunchConfiguration configuration = copy.doSave();
+		configurations.add(configuration);
+		return configuration;
+	}
+}
@@ -0,0 +1,65 @@
+/*********************************************************************
+ * Copyright (c) 2019 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Red Hat Inc. - Initial implementation
+ *******************************************************************************/
+package org.eclipse.corrosion.tests;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.eclipse.corrosion.snippet.LexicalStateCache;
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+import org.junit.Test;
+
+public class TestLexicalStateCache {
+
+	private static boolean isInCommentOrString(IDocument document, String marker) throws BadLocationException {
+		return LexicalStateCache.forDocument(document).isInCommentOrString(document, document.get().indexOf(marker));
+	}
+
+	@Test
+	public void testCommentsAndStrings() throws BadLocationException {
+		IDocument document = new Document("fn main() { // line A\n" //
+				+ "/* block /* nested */ B\n" //
+				+ "still C */ D\n" //
+				+ "let s = \"E\n" //
+				+ "F\" ; G\n" //
+				+ "let r = r#\"H \" I\"# ; J\n" //
+				+ "let c = '\"'; fn f<'a>(x: &'a str) K\n" //
+				+ "}");
+		assertTrue(isInCommentOrString(document, "A"));
+		assertTrue(isInCommentOrString(document, "B"));
+		assertTrue(isInCommentOrString(document, "C"));
+		assertFalse(isInCommentOrString(document, "D"));
+		assertTrue(isInCommentOrString(document, "E"));
+		assertTrue(isInCommentOrString(document, "F"));
+		assertFalse(isInCommentOrString(document, "G"));
+		assertTrue(isInCommentOrString(document, "H"));
+		assertTrue(isInCommentOrString(document, "I"));
+		assertFalse(isInCommentOrString(document, "J"));
+		assertFalse(isInCommentOrString(document, "K"));
+	}
+
+	@Test
+	public void testStatesFollowEdits() throws BadLocationException {
+		IDocument document = new Document("let a = 1;\nlet b = 2;\nlet c = 3;");
+		assertFalse(isInCommentOrString(document, "c ="));
+		document.replace(0, 0, "/* ");
+		assertTrue(isInCommentOrString(document, "c ="));
+		document.replace(document.get().indexOf("let b"), 0, "*/ ");
+		assertFalse(isInCommentOrString(document, "c ="));
+		assertTrue(isInCommentOrString(document, "a ="));
+		document.replace(0, 3, "");
+		assertFalse(isInCommentOrString(document, "a ="));
+	}
+}
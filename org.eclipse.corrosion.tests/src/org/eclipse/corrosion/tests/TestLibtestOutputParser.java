@@ -0,0 +1,134 @@
+/*********************************************************************
+ * Copyright (c) 2019 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Red Hat Inc. - Initial implementation
+ *******************************************************************************/
+package org.eclipse.corrosion.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.eclipse.corrosion.test.LibtestOutputParser;
+import org.eclipse.corrosion.test.TestResult;
+import org.eclipse.corrosion.test.TestResult.Status;
+import org.eclipse.corrosion.test.TestRunSession;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestLibtestOutputParser {
+	private TestRunSession session;
+	private LibtestOutputParser parser;
+
+	@Before
+	public void setUp() {
+		session = new TestRunSession("basic", null);
+		parser = new LibtestOutputParser(session, "basic");
+	}
+
+	@Test
+	public void testTextFormat() {
+		parse("", "running 3 tests", "test tests::passes ... ok", "test tests::skipped ... ignored",
+				"test tests::fails ... FAILED", "", "failures:", "", "---- tests::fails stdout ----",
+				"thread 'tests::fails' panicked at 'assertion failed: false', src/lib.rs:12:9", "", "",
+				"failures:", "    tests::fails", "",
+				"test result: FAILED. 1 passed; 1 failed; 1 ignored; 0 measured; 0 filtered out");
+		assertEquals(3, session.getExpectedCount());
+		assertEquals(1, session.getPassedCount());
+		assertEquals(1, session.getFailedCount());
+		assertEquals(1, session.getIgnoredCount());
+		TestResult[] results = session.getResults();
+		assertEquals(3, results.length);
+		assertEquals("tests::passes", results[0].getName());
+		assertEquals(Status.PASSED, results[0].getStatus());
+		// estimated from the time elapsed since the previous result
+		assertTrue(results[0].getDurationMillis() >= 0);
+		assertTrue(session.hasEstimatedDurations());
+		assertEquals(Status.IGNORED, results[1].getStatus());
+		assertEquals(Status.FAILED, results[2].getStatus());
+		assertEquals("thread 'tests::fails' panicked at 'assertion failed: false', src/lib.rs:12:9",
+				results[2].getOutput());
+	}
+
+	@Test
+	public void testTextFormatWithTimes() {
+		parse("running 1 test", "test slow ... ok <1.250s>");
+		assertEquals(1250, session.getResults()[0].getDurationMillis());
+		assertFalse(session.hasEstimatedDurations());
+	}
+
+	@Test
+	public void testTextFormatWithoutSuiteStart() {
+		parse("test orphan ... ok");
+		assertEquals(-1, session.getResults()[0].getDurationMillis());
+		assertFalse(session.hasEstimatedDurations());
+	}
+
+	@Test
+	public void testChangedResults() {
+		parse("running 2 tests", "test first ... ok");
+		long seen = session.getModificationCount();
+		assertTrue(session.getResultsChangedSince(seen).isEmpty());
+		parse("test second ... FAILED");
+		List<TestResult> changed = session.getResultsChangedSince(seen);
+		assertEquals(1, changed.size());
+		assertEquals("second", changed.get(0).getName());
+		assertEquals(2, session.getResultsChangedSince(-1).size());
+	}
+
+	@Test
+	public void testSuitesAreDistinguished() {
+		parse("running 1 test", "test it_works ... ok", "running 1 test", "test it_works ... FAILED");
+		TestResult[] results = session.getResults();
+		assertEquals(2, results.length);
+		assertEquals("basic", results[0].getSuite());
+		assertEquals("basic #2", results[1].getSuite());
+		assertEquals(2, session.getExpectedCount());
+	}
+
+	@Test
+	public void testJsonFormat() {
+		assertEquals("\nrunning 2 tests", parser.apply("{ \"type\": \"suite\", \"event\": \"started\", \"test_count\": 2 }"));
+		assertNull(parser.apply("{ \"type\": \"test\", \"event\": \"started\", \"name\": \"tests::passes\" }"));
+		assertEquals(Status.RUNNING, session.getResults()[0].getStatus());
+		assertEquals("test tests::passes ... ok",
+				parser.apply("{ \"type\": \"test\", \"name\": \"tests::passes\", \"event\": \"ok\", \"exec_time\": 0.042 }"));
+		String failure = parser.apply("{ \"type\": \"test\", \"name\": \"tests::fails\", \"event\": \"failed\", "
+				+ "\"stdout\": \"thread 'tests::fails' panicked at src/lib.rs:12:9\\n\" }");
+		assertEquals("test tests::fails ... FAILED\n---- tests::fails stdout ----\n"
+				+ "thread 'tests::fails' panicked at src/lib.rs:12:9", failure);
+		assertTrue(parser.apply("{ \"type\": \"suite\", \"event\": \"failed\", \"passed\": 1, \"failed\": 1, "
+				+ "\"ignored\": 0, \"measured\": 0, \"filtered_out\": 0 }").contains("test result: failed. 1 passed; 1 failed"));
+
+		TestResult[] results = session.getResults();
+		assertEquals(2, results.length);
+		assertEquals(42, results[0].getDurationMillis());
+		assertEquals(Status.FAILED, results[1].getStatus());
+		assertEquals("thread 'tests::fails' panicked at src/lib.rs:12:9\n", results[1].getOutput());
+		assertEquals(1, session.getPassedCount());
+		assertEquals(1, session.getFailedCount());
+	}
+
+	@Test
+	public void testOtherOutputIsKept() {
+		assertEquals("   Compiling basic v0.1.0", parser.apply("   Compiling basic v0.1.0"));
+		assertEquals("{\"program\": \"output\"}", parser.apply("{\"program\": \"output\"}"));
+		assertEquals(0, session.getResults().length);
+	}
+
+	private void parse(String... lines) {
+		for (String line : lines) {
+			assertEquals(line, parser.apply(line));
+		}
+	}
+}
@@ -0,0 +1,120 @@
+/*********************************************************************
+ * Copyright (c) 2019 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Red Hat Inc. - Initial implementation
+ *******************************************************************************/
+package org.eclipse.corrosion.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.eclipse.corrosion.test.ShardedTestRunner;
+import org.eclipse.corrosion.test.ShardedTestRunner.TestExecutable;
+import org.junit.Test;
+
+public class TestShardedTestRunner {
+	private static final String TEST_ARTIFACT = "{\"reason\":\"compiler-artifact\",\"package_id\":\"basic 0.1.0\","
+			+ "\"manifest_path\":\"/work/basic/Cargo.toml\",\"target\":{\"kind\":[\"test\"],\"crate_types\":[\"bin\"],"
+			+ "\"name\":\"integration\",\"src_path\":\"/work/basic/tests/integration.rs\"},"
+			+ "\"profile\":{\"opt_level\":\"0\",\"debuginfo\":2,\"test\":true},\"features\":[],"
+			+ "\"filenames\":[\"/work/basic/target/debug/deps/integration-1a2b\"],"
+			+ "\"executable\":\"/work/basic/target/debug/deps/integration-1a2b\",\"fresh\":true}";
+	private static final String LIBRARY_ARTIFACT = "{\"reason\":\"compiler-artifact\",\"package_id\":\"basic 0.1.0\","
+			+ "\"manifest_path\":\"/work/basic/Cargo.toml\",\"target\":{\"kind\":[\"lib\"],\"name\":\"basic\"},"
+			+ "\"profile\":{\"test\":false},\"filenames\":[\"/work/basic/target/debug/libbasic.rlib\"],"
+			+ "\"executable\":null,\"fresh\":true}";
+
+	@Test
+	public void testTestBinariesAreFound() {
+		TestExecutable executable = ShardedTestRunner.parseTestExecutable(TEST_ARTIFACT);
+		assertEquals("integration (test)", executable.getName());
+		assertEquals("/work/basic/target/debug/deps/integration-1a2b", executable.getPath());
+		assertEquals(new File("/work/basic").getAbsoluteFile(), executable.getManifestDirectory());
+		assertEquals("basic", executable.getPackageName());
+		assertEquals("0.1.0", executable.getPackageVersion());
+	}
+
+	@Test
+	public void testPackageIdFormats() {
+		TestExecutable named = ShardedTestRunner.parseTestExecutable(TEST_ARTIFACT.replace("basic 0.1.0",
+				"path+file:///work/basic#basic-crate@0.2.0-beta.1"));
+		assertEquals("basic-crate", named.getPackageName());
+		assertEquals("0.2.0-beta.1", named.getPackageVersion());
+		TestExecutable unnamed = ShardedTestRunner.parseTestExecutable(TEST_ARTIFACT.replace("basic 0.1.0",
+				"path+file:///work/basic#0.3.0"));
+		assertEquals("basic", unnamed.getPackageName());
+		assertEquals("0.3.0", unnamed.getPackageVersion());
+	}
+
+	@Test
+	public void testEnvironment() throws IOException {
+		Path crate = Files.createTempDirectory("corrosion-test");
+		Files.write(crate.resolve("Cargo.toml"),
+				("[package]\nname = \"basic\"\nversion = \"1.2.3-rc.1\"\nauthors = [\n  \"A <a@b.c>\",\n  'B',\n]\n"
+						+ "description = \"A crate\" # comment\n\n[dependencies]\nlicense = \"MIT\"\n")
+						.getBytes(StandardCharsets.UTF_8));
+		File deps = crate.resolve("target/debug/deps").toFile();
+		TestExecutable executable = new TestExecutable("basic (lib)", new File(deps, "basic-1a2b").getPath(),
+				crate.toFile(), "basic", "1.2.3-rc.1");
+		Map<String, String> environment = ShardedTestRunner.getEnvironment(executable, "/sysroot");
+		assertEquals(crate.toFile().getAbsolutePath(), environment.get("CARGO_MANIFEST_DIR"));
+		assertEquals("basic", environment.get("CARGO_PKG_NAME"));
+		assertEquals("1.2.3-rc.1", environment.get("CARGO_PKG_VERSION"));
+		assertEquals("1", environment.get("CARGO_PKG_VERSION_MAJOR"));
+		assertEquals("2", environment.get("CARGO_PKG_VERSION_MINOR"));
+		assertEquals("3", environment.get("CARGO_PKG_VERSION_PATCH"));
+		assertEquals("rc.1", environment.get("CARGO_PKG_VERSION_PRE"));
+		assertEquals("A <a@b.c>:B", environment.get("CARGO_PKG_AUTHORS"));
+		assertEquals("A crate", environment.get("CARGO_PKG_DESCRIPTION"));
+		assertEquals("", environment.get("CARGO_PKG_LICENSE"));
+		String libraryPath = environment.entrySet().stream()
+				.filter(variable -> variable.getKey().matches("(?i)LD_LIBRARY_PATH|DYLD_FALLBACK_LIBRARY_PATH|PATH")
+						&& variable.getValue().startsWith(deps.getPath()))
+				.map(Map.Entry::getValue).findFirst().orElse("");
+		assertTrue(libraryPath.startsWith(deps.getPath() + File.pathSeparator + deps.getParent() + File.pathSeparator
+				+ new File("/sysroot", "lib").getPath()));
+	}
+
+	@Test
+	public void testEnvironmentWithWorkspaceInheritance() throws IOException {
+		Path workspace = Files.createTempDirectory("corrosion-test");
+		Files.write(workspace.resolve("Cargo.toml"),
+				("[workspace]\nmembers = [\"member\"]\n\n[workspace.package]\nauthors = [\"W <w@b.c>\"]\n"
+						+ "homepage = \"https://example.org\"\n").getBytes(StandardCharsets.UTF_8));
+		Path crate = Files.createDirectory(workspace.resolve("member"));
+		Files.write(crate.resolve("Cargo.toml"),
+				("[package]\nname = \"member\"\nversion = \"0.1.0\"\nauthors.workspace = true\n"
+						+ "homepage = { workspace = true }\nlicense.workspace = true\n").getBytes(StandardCharsets.UTF_8));
+		TestExecutable executable = new TestExecutable("member (lib)",
+				crate.resolve("target/debug/deps/member-1a2b").toString(), crate.toFile(), "member", "0.1.0");
+		Map<String, String> environment = ShardedTestRunner.getEnvironment(executable, "");
+		assertEquals("W <w@b.c>", environment.get("CARGO_PKG_AUTHORS"));
+		assertEquals("https://example.org", environment.get("CARGO_PKG_HOMEPAGE"));
+		// inherited but not declared by the workspace
+		assertNull(environment.get("CARGO_PKG_LICENSE"));
+		assertEquals("", environment.get("CARGO_PKG_DESCRIPTION"));
+	}
+
+	@Test
+	public void testOtherLinesAreIgnored() {
+		assertNull(ShardedTestRunner.parseTestExecutable(LIBRARY_ARTIFACT));
+		assertNull(ShardedTestRunner.parseTestExecutable("{\"reason\":\"build-finished\",\"success\":true}"));
+		assertNull(ShardedTestRunner.parseTestExecutable("   Compiling basic v0.1.0 (/work/basic)"));
+		assertNull(ShardedTestRunner.parseTestExecutable("{\"reason\":\"compiler-artifact\", broken"));
+	}
+}
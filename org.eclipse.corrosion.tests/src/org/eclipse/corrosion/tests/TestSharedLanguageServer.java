@@ -0,0 +1,329 @@
+/*********************************************************************
+ * Copyright (c) 2019 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Red Hat Inc. - Initial implementation
+ *******************************************************************************/
+package org.eclipse.corrosion.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.corrosion.edit.JsonRpcMessageParser;
+import org.eclipse.corrosion.edit.SharedLanguageServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+public class TestSharedLanguageServer {
+	private static final long TIMEOUT_SECONDS = 5;
+
+	private Path workspace;
+	private FakeServer server;
+	private final AtomicInteger starts = new AtomicInteger();
+	private final List<TestClient> clients = new ArrayList<>();
+
+	@Before
+	public void setUp() throws IOException {
+		workspace = Files.createTempDirectory("corrosion-test");
+		write("Cargo.toml", "[workspace]\nmembers = [\"a\", \"b\"]\n");
+		write("a/Cargo.toml", "[package]\nname = \"a\"\n");
+		write("b/Cargo.toml", "[package]\nname = \"b\"\n");
+		server = new FakeServer();
+	}
+
+	@After
+	public void tearDown() {
+		for (TestClient client : clients) {
+			client.client.close();
+		}
+	}
+
+	@Test
+	public void testRequestIdsAreRewritten() throws Exception {
+		TestClient first = connect("a");
+		TestClient second = connect("b");
+		assertEquals(1, starts.get());
+
+		first.send(request(7, "textDocument/hover"));
+		second.send(request(7, "textDocument/hover"));
+		JsonObject firstHover = server.next();
+		JsonObject secondHover = server.next();
+		assertNotEquals(firstHover.get("id"), secondHover.get("id"));
+
+		// a cancellation without id is dropped without stopping the forwarding
+		first.send(notification("$/cancelRequest", "{}"));
+		first.send(notification("$/cancelRequest", "{\"id\":7}"));
+		JsonObject cancel = server.next();
+		assertEquals("$/cancelRequest", cancel.get("method").getAsString());
+		assertEquals(firstHover.get("id"), cancel.getAsJsonObject("params").get("id"));
+
+		server.send(response(secondHover.get("id"), "\"second\""));
+		server.send(response(firstHover.get("id"), "\"first\""));
+		JsonObject firstAnswer = first.next();
+		assertEquals(7, firstAnswer.get("id").getAsInt());
+		assertEquals("first", firstAnswer.get("result").getAsString());
+		JsonObject secondAnswer = second.next();
+		assertEquals(7, secondAnswer.get("id").getAsInt());
+		assertEquals("second", secondAnswer.get("result").getAsString());
+	}
+
+	@Test
+	public void testDiagnosticsGoToTheDocumentOwner() throws Exception {
+		TestClient first = connect("a");
+		TestClient second = connect("b");
+		String library = workspace.resolve("b/src/lib.rs").toUri().toString();
+		String main = workspace.resolve("a/src/main.rs").toUri().toString();
+		second.send(notification("textDocument/didOpen",
+				"{\"textDocument\":{\"uri\":\"" + library + "\",\"languageId\":\"rust\",\"version\":1,\"text\":\"\"}}"));
+		assertEquals("textDocument/didOpen", server.next().get("method").getAsString());
+
+		server.send(diagnostics(library));
+		server.send(diagnostics(main));
+		server.send("{\"jsonrpc\":\"2.0\",\"method\":\"window/logMessage\",\"params\":{\"type\":3,\"message\":\"ready\"}}");
+
+		assertEquals(main, first.next().getAsJsonObject("params").get("uri").getAsString());
+		assertEquals("window/logMessage", first.next().get("method").getAsString());
+		assertEquals(library, second.next().getAsJsonObject("params").get("uri").getAsString());
+		assertEquals("window/logMessage", second.next().get("method").getAsString());
+	}
+
+	@Test
+	public void testServerRequestsAreRouted() throws Exception {
+		TestClient first = connect("a");
+		server.send("{\"jsonrpc\":\"2.0\",\"id\":\"register\",\"method\":\"client/registerCapability\",\"params\":"
+				+ "{\"registrations\":[{\"id\":\"watch\",\"method\":\"workspace/didChangeWatchedFiles\"}]}}");
+		JsonObject registration = first.next();
+		assertEquals("client/registerCapability", registration.get("method").getAsString());
+		first.send(response(registration.get("id"), "null"));
+		assertEquals("register", server.next().get("id").getAsString());
+
+		// a client joining later gets the registrations, its answer stays local
+		TestClient second = connect("b");
+		JsonObject replay = second.next();
+		assertEquals("client/registerCapability", replay.get("method").getAsString());
+		assertEquals("watch", replay.getAsJsonObject("params").getAsJsonArray("registrations").get(0)
+				.getAsJsonObject().get("id").getAsString());
+		second.send(response(replay.get("id"), "null"));
+
+		server.send("{\"jsonrpc\":\"2.0\",\"id\":\"configuration\",\"method\":\"workspace/configuration\","
+				+ "\"params\":{\"items\":[{\"section\":\"rust\"}]}}");
+		assertEquals("workspace/configuration", first.next().get("method").getAsString());
+		// the request goes to another client when the first one leaves without answering
+		first.client.close();
+		JsonObject configuration = second.next();
+		assertEquals("workspace/configuration", configuration.get("method").getAsString());
+		second.send(response(configuration.get("id"), "[{}]"));
+		JsonObject answer = server.next();
+		assertEquals("configuration", answer.get("id").getAsString());
+		assertTrue(answer.get("result").isJsonArray());
+	}
+
+	/**
+	 * Connects a client for the given project of the workspace and initializes
+	 * it, answering the initialize request the server receives for the first
+	 * client.
+	 */
+	private TestClient connect(String project) throws Exception {
+		TestClient client = new TestClient(SharedLanguageServer.newClient(() -> {
+			starts.incrementAndGet();
+			return server;
+		}));
+		clients.add(client);
+		client.send("{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"initialize\",\"params\":{\"rootUri\":\""
+				+ workspace.resolve(project).toUri() + "\",\"capabilities\":{}}}");
+		if (clients.size() == 1) {
+			JsonObject initialize = server.next();
+			assertEquals("initialize", initialize.get("method").getAsString());
+			assertEquals(workspace.toUri().toString(),
+					initialize.getAsJsonObject("params").get("rootUri").getAsString());
+			server.send(response(initialize.get("id"), "{\"capabilities\":{}}"));
+		}
+		assertEquals(1, client.next().get("id").getAsInt());
+		client.send(notification("initialized", "{}"));
+		if (clients.size() == 1) {
+			assertEquals("initialized", server.next().get("method").getAsString());
+		}
+		return client;
+	}
+
+	private void write(String path, String content) throws IOException {
+		Path file = workspace.resolve(path);
+		Files.createDirectories(file.getParent());
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String request(int id, String method) {
+		return "{\"jsonrpc\":\"2.0\",\"id\":" + id + ",\"method\":\"" + method + "\",\"params\":{}}";
+	}
+
+	private static String notification(String method, String params) {
+		return "{\"jsonrpc\":\"2.0\",\"method\":\"" + method + "\",\"params\":" + params + "}";
+	}
+
+	private static String response(JsonElement id, String result) {
+		return "{\"jsonrpc\":\"2.0\",\"id\":" + id + ",\"result\":" + result + "}";
+	}
+
+	private static String diagnostics(String uri) {
+		return notification("textDocument/publishDiagnostics", "{\"uri\":\"" + uri + "\",\"diagnostics\":[]}");
+	}
+
+	private static byte[] frame(String content) {
+		byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+		byte[] header = ("Content-Length: " + bytes.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+		byte[] result = new byte[header.length + bytes.length];
+		System.arraycopy(header, 0, result, 0, header.length);
+		System.arraycopy(bytes, 0, result, header.length, bytes.length);
+		return result;
+	}
+
+	private static JsonObject next(BlockingQueue<JsonObject> queue) throws InterruptedException {
+		JsonObject message = queue.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+		assertNotNull("no message received", message);
+		return message;
+	}
+
+	private static JsonRpcMessageParser newParser(BlockingQueue<JsonObject> queue) {
+		return new JsonRpcMessageParser(
+				message -> queue.add(new JsonParser().parse(message.getContent()).getAsJsonObject()));
+	}
+
+	/**
+	 * Language server process recording what it receives.
+	 */
+	private static class FakeServer extends Process {
+		private final BlockingQueue<JsonObject> received = new LinkedBlockingQueue<>();
+		private final JsonRpcMessageParser parser = newParser(received);
+		private final PipedOutputStream toProxy = new PipedOutputStream();
+		private final PipedInputStream output = new PipedInputStream(toProxy, 65536);
+		private final CountDownLatch exited = new CountDownLatch(1);
+
+		private FakeServer() throws IOException {
+		}
+
+		private void send(String content) throws IOException {
+			toProxy.write(frame(content));
+			toProxy.flush();
+		}
+
+		private JsonObject next() throws InterruptedException {
+			return TestSharedLanguageServer.next(received);
+		}
+
+		@Override
+		public OutputStream getOutputStream() {
+			return new OutputStream() {
+				@Override
+				public void write(int b) {
+					write(new byte[] { (byte) b }, 0, 1);
+				}
+
+				@Override
+				public void write(byte[] b, int off, int len) {
+					parser.feed(b, off, len);
+				}
+			};
+		}
+
+		@Override
+		public InputStream getInputStream() {
+			return output;
+		}
+
+		@Override
+		public InputStream getErrorStream() {
+			return new ByteArrayInputStream(new byte[0]);
+		}
+
+		@Override
+		public int waitFor() throws InterruptedException {
+			exited.await();
+			return 0;
+		}
+
+		@Override
+		public int exitValue() {
+			if (exited.getCount() > 0) {
+				throw new IllegalThreadStateException();
+			}
+			return 0;
+		}
+
+		@Override
+		public void destroy() {
+			exited.countDown();
+			try {
+				toProxy.close();
+			} catch (IOException e) {
+				// already closed
+			}
+		}
+	}
+
+	/**
+	 * An lsp4e side of the shared server.
+	 */
+	private static class TestClient {
+		private final SharedLanguageServer.Client client;
+		private final BlockingQueue<JsonObject> received = new LinkedBlockingQueue<>();
+
+		private TestClient(SharedLanguageServer.Client client) {
+			this.client = client;
+			JsonRpcMessageParser parser = newParser(received);
+			Thread reader = new Thread(() -> {
+				byte[] buffer = new byte[8192];
+				try {
+					InputStream input = client.getInputStream();
+					int read = input.read(buffer);
+					while (read != -1) {
+						parser.feed(buffer, 0, read);
+						read = input.read(buffer);
+					}
+				} catch (IOException e) {
+					// disconnected
+				}
+			});
+			reader.setDaemon(true);
+			reader.start();
+		}
+
+		private void send(String content) throws IOException {
+			byte[] bytes = frame(content);
+			client.getOutputStream().write(bytes, 0, bytes.length);
+		}
+
+		private JsonObject next() throws InterruptedException {
+			return TestSharedLanguageServer.next(received);
+		}
+	}
+}
@@ -16,12 +16,16 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.corrosion.snippet.SnippetContentAssistProcessor;
+import org.eclipse.corrosion.snippet.SnippetLibrary;
 import org.eclipse.jface.text.ITextOperationTarget;
 import org.eclipse.jface.text.ITextViewer;
 import org.eclipse.jface.text.contentassist.ICompletionProposal;
@@ -38,17 +42,17 @@ public class TestSnippetContentAssistProcessor extends AbstractCorrosionTest {
 	private static final String[] PRINT_COMPLETION_PROPOSALS = new String[] { "println!(\"$1\", $0)" };
 
 	@Test
-	public void testCompletionsPresent() throws IOException, CoreException {
+	public void testCompletionsPresent() throws IOException, CoreException, InterruptedException {
 		validateCompletionProposals("println", PRINT_COMPLETION_PROPOSALS);
 	}
 
 	@Test
-	public void testCompletionsLimited() throws IOException, CoreException {
+	public void testCompletionsLimited() throws IOException, CoreException, InterruptedException {
 		validateCompletionProposals("noExpectedCompletion", null);
 	}
 
 	@Test
-	public void testSingleLineComment() throws IOException, CoreException {
+	public void testSingleLineComment() throws IOException, CoreException, InterruptedException {
 		validateCompletionProposals("// println", null);
 		// With prefix
 		validateCompletionProposals("not a comment // println", null);
@@ -59,7 +63,7 @@ public class TestSnippetContentAssistProcessor extends AbstractCorrosionTest {
 	}
 
 	@Test
-	public void testMultiLineComment() throws IOException, CoreException {
+	public void testMultiLineComment() throws IOException, CoreException, InterruptedException {
 		validateCompletionProposals("/* println", null);
 		// With prefix
 		validateCompletionProposals("not a comment /* println", null);
@@ -76,14 +80,37 @@ public class TestSnippetContentAssistProcessor extends AbstractCorrosionTest {
 
 	}
 
+	@Test
+	public void testProjectSnippetsAreReloaded() throws IOException, CoreException, InterruptedException {
+		SnippetLibrary library = SnippetLibrary.getInstance();
+		library.load();
+		Job.getJobManager().join(SnippetLibrary.FAMILY, null);
+		assertTrue(library.getIndex().findByPrefix("teamSnippet").isEmpty());
+
+		IFile file = getProject(BASIC_PROJECT_NAME).getFile(SnippetLibrary.PROJECT_SNIPPETS_FILE);
+		file.create(new ByteArrayInputStream(
+				"[{\"display\": \"teamSnippet\", \"completionItemKind\": 15, \"replacementLines\": [\"team!()\"]}]"
+						.getBytes(StandardCharsets.UTF_8)),
+				true, null);
+		Job.getJobManager().join(SnippetLibrary.FAMILY, null);
+		assertEquals(1, library.getIndex().findByPrefix("teamSnippet").size());
+		assertEquals(1, library.getIndex().findByPrefix("println").size());
+
+		file.delete(true, null);
+		Job.getJobManager().join(SnippetLibrary.FAMILY, null);
+		assertTrue(library.getIndex().findByPrefix("teamSnippet").isEmpty());
+	}
+
 	private void validateCompletionProposals(String text, String[] expectedProposalTexts)
-			throws IOException, CoreException {
+			throws IOException, CoreException, InterruptedException {
 		IProject project = getProject(BASIC_PROJECT_NAME);
 		IFile file = project.getFolder("src").getFile("main.rs");
 		IEditorPart editor = IDE.openEditor(PlatformUI.getWorkbench().getActiveWorkbenchWindow().getActivePage(), file);
 		((ITextEditor) editor).getDocumentProvider().getDocument(editor.getEditorInput()).set(text);
 
-		ICompletionProposal[] proposals = (new SnippetContentAssistProcessor()).computeCompletionProposals(
+		SnippetContentAssistProcessor processor = new SnippetContentAssistProcessor();
+		Job.getJobManager().join(SnippetLibrary.FAMILY, null);
+		ICompletionProposal[] proposals = processor.computeCompletionProposals(
 				(ITextViewer) editor.getAdapter(ITextOperationTarget.class), text.length() - 1);
 		if (expectedProposalTexts == null) {
 			assertTrue(proposals == null || proposals.length == 0);
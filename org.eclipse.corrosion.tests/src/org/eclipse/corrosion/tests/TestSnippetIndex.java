@@ -0,0 +1,95 @@
+/*********************************************************************
+ * Copyright (c) 2019 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Red Hat Inc. - Initial implementation
+ *******************************************************************************/
+package org.eclipse.corrosion.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.corrosion.snippet.Snippet;
+import org.eclipse.corrosion.snippet.SnippetIndex;
+import org.eclipse.corrosion.snippet.SnippetMatcher;
+import org.eclipse.lsp4j.CompletionItemKind;
+import org.junit.Test;
+
+public class TestSnippetIndex {
+
+	private static SnippetIndex index(String... displays) {
+		List<Snippet> snippets = new ArrayList<>();
+		for (String display : displays) {
+			snippets.add(new Snippet(display, CompletionItemKind.Snippet, new String[] { display }));
+		}
+		return new SnippetIndex(snippets);
+	}
+
+	private static List<String> displays(List<Snippet> snippets) {
+		List<String> result = new ArrayList<>();
+		for (Snippet snippet : snippets) {
+			result.add(snippet.getDisplay());
+		}
+		return result;
+	}
+
+	@Test
+	public void testFindByPrefix() {
+		SnippetIndex index = index("println", "fn main", "print", "for", "fn", "eprintln", "assert_eq");
+		assertEquals(Arrays.asList("fn", "fn main", "for"), displays(index.findByPrefix("f")));
+		assertEquals(Arrays.asList("fn", "fn main"), displays(index.findByPrefix("fn")));
+		assertEquals(Arrays.asList("print", "println"), displays(index.findByPrefix("print")));
+		assertEquals(Arrays.asList("println"), displays(index.findByPrefix("printl")));
+		assertEquals(7, index.findByPrefix("").size());
+	}
+
+	@Test
+	public void testNoMatch() {
+		SnippetIndex index = index("println", "fn main", "for");
+		assertTrue(index.findByPrefix("a").isEmpty());
+		assertTrue(index.findByPrefix("fz").isEmpty());
+		assertTrue(index.findByPrefix("println!").isEmpty());
+		assertTrue(index.findByPrefix("zzz").isEmpty());
+		assertTrue(SnippetIndex.EMPTY.findByPrefix("").isEmpty());
+	}
+
+	@Test
+	public void testFuzzyMatchesSubsequences() {
+		SnippetIndex index = index("for", "fn main", "test function", "test module", "if let Option", "println");
+		assertEquals(Arrays.asList("fn main"), displays(index.findFuzzy("fnm", 10)));
+		assertEquals(Arrays.asList("test module"), displays(index.findFuzzy("tm", 10)));
+		assertEquals(Arrays.asList("if let Option"), displays(index.findFuzzy("opt", 10)));
+		assertEquals(Arrays.asList("println"), displays(index.findFuzzy("printl", 10)));
+		assertTrue(index.findFuzzy("noExpectedCompletion", 10).isEmpty());
+	}
+
+	@Test
+	public void testFuzzyRanking() {
+		SnippetIndex index = index("if let Option", "test function", "fn main", "for");
+		// Start of the display first, then word boundaries, shorter displays on ties
+		assertEquals(Arrays.asList("for", "fn main", "test function", "if let Option"),
+				displays(index.findFuzzy("f", 10)));
+		assertEquals(Arrays.asList("for", "fn main"), displays(index.findFuzzy("f", 2)));
+	}
+
+	@Test
+	public void testMatcherBoundaries() {
+		SnippetMatcher matcher = new SnippetMatcher("cn");
+		int camelCase = matcher.score("camelName".toCharArray());
+		int underscore = matcher.score("camel_name".toCharArray());
+		int inside = matcher.score("cabin".toCharArray());
+		assertTrue(camelCase > inside);
+		assertTrue(underscore > inside);
+		assertEquals(SnippetMatcher.NO_MATCH, matcher.score("nc".toCharArray()));
+	}
+}
@@ -0,0 +1,82 @@
+/*********************************************************************
+ * Copyright (c) 2019 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Red Hat Inc. - Initial implementation
+ *******************************************************************************/
+package org.eclipse.corrosion.tests;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.corrosion.test.LibtestOutputParser;
+import org.eclipse.corrosion.test.TestDurationHistory;
+import org.eclipse.corrosion.test.TestDurationHistory.TestDurations;
+import org.eclipse.corrosion.test.TestRunSession;
+import org.junit.Test;
+
+public class TestTestDurationHistory {
+
+	@Test
+	public void testSamplesAreCapped() {
+		TestDurationHistory history = TestDurationHistory.get("durations-" + System.nanoTime());
+		for (long i = 0; i < TestDurationHistory.MAX_SAMPLES + 5; i++) {
+			history.record(Collections.singletonMap("tests::slow", i));
+		}
+		List<TestDurations> durations = history.getTestDurations();
+		assertEquals(1, durations.size());
+		long[] samples = durations.get(0).getDurations();
+		assertEquals(TestDurationHistory.MAX_SAMPLES, samples.length);
+		assertEquals(5, samples[0]);
+		assertEquals(TestDurationHistory.MAX_SAMPLES + 4, durations.get(0).getLatest());
+	}
+
+	@Test
+	public void testEstimatedDurationsAreNotRecorded() {
+		TestDurationHistory history = TestDurationHistory.get("durations-" + System.nanoTime());
+		TestRunSession session = new TestRunSession("estimated", null);
+		LibtestOutputParser parser = new LibtestOutputParser(session, "estimated");
+		parser.apply("running 1 test");
+		parser.apply("test tests::slow ... ok");
+		assertTrue(session.hasEstimatedDurations());
+		history.record(session);
+		assertTrue(history.getTestDurations().isEmpty());
+		assertTrue(history.isLatestRunSkipped());
+
+		history.record(Collections.singletonMap("tests::slow", 10L));
+		assertEquals(1, history.getTestDurations().size());
+		assertFalse(history.isLatestRunSkipped());
+	}
+
+	@Test
+	public void testStatistics() {
+		TestDurations durations = new TestDurations("tests::slow", new long[] { 100, 120, 80, 300 });
+		assertEquals(300, durations.getLatest());
+		assertEquals(80, durations.getMin());
+		assertEquals(300, durations.getMax());
+		assertEquals(150, durations.getMean(), 0.001);
+		assertEquals(100, durations.getBaseline());
+		assertEquals(200, durations.getChangePercent(), 0.001);
+		assertTrue(durations.isRegressed(50));
+		assertFalse(durations.isRegressed(200));
+		assertArrayEquals(new long[] { 100, 120, 80, 300 }, durations.getDurations());
+	}
+
+	@Test
+	public void testSmallSlowdownsAreNoise() {
+		assertFalse(new TestDurations("tests::fast", new long[] { 1, 1, 5 }).isRegressed(50));
+		assertTrue(Double.isNaN(new TestDurations("tests::new", new long[] { 5 }).getChangePercent()));
+		assertFalse(new TestDurations("tests::new", new long[] { 5 }).isRegressed(0));
+	}
+}
@@ -0,0 +1,158 @@
+/*********************************************************************
+ * Copyright (c) 2019 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Red Hat Inc. - Initial implementation
+ *******************************************************************************/
+package org.eclipse.corrosion;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs external commands without blocking the caller. Standard output and
+ * standard error are drained on worker threads, the process is killed when its
+ * timeout expires and cancelling the returned future destroys the process.
+ */
+public class CommandExecutor {
+	public static final long DEFAULT_TIMEOUT_MILLIS = 30000;
+
+	private static final ExecutorService READERS = Executors
+			.newCachedThreadPool(daemonThreadFactory("Corrosion command reader")); //$NON-NLS-1$
+	private static final ScheduledExecutorService TIMEOUTS = Executors
+			.newSingleThreadScheduledExecutor(daemonThreadFactory("Corrosion command timeout")); //$NON-NLS-1$
+
+	private CommandExecutor() {
+		throw new IllegalStateException("Utility class"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Starts the given command in the given working directory.
+	 *
+	 * @param workingDirectory
+	 *            the directory to run in, or <code>null</code> for the current one
+	 * @param timeoutMillis
+	 *            time after which the process is destroyed and the future
+	 *            completes with a {@link TimeoutException}; <code>0</code> or
+	 *            less for no timeout
+	 * @param command
+	 * @return a future completed with the result once the process has terminated
+	 */
+	public static CompletableFuture<ProcessResult> execute(File workingDirectory, long timeoutMillis,
+			String... command) {
+		ProcessFuture future = new ProcessFuture();
+		String[] commandCopy = Arrays.copyOf(command, command.length);
+		READERS.execute(() -> run(future, workingDirectory, timeoutMillis, commandCopy));
+		return future;
+	}
+
+	private static void run(ProcessFuture future, File workingDirectory, long timeoutMillis, String[] command) {
+		if (future.isDone()) {
+			return;
+		}
+		Process process;
+		try {
+			ProcessBuilder builder = new ProcessBuilder(command);
+			builder.directory(workingDirectory);
+			process = builder.start();
+		} catch (IOException | RuntimeException e) {
+			future.completeExceptionally(e);
+			return;
+		}
+		future.setProcess(process);
+		ScheduledFuture<?> timeout = null;
+		if (timeoutMillis > 0) {
+			timeout = TIMEOUTS.schedule(() -> {
+				if (future.completeExceptionally(new TimeoutException(String.join(" ", command)))) { //$NON-NLS-1$
+					process.destroyForcibly();
+				}
+			}, timeoutMillis, TimeUnit.MILLISECONDS);
+		}
+		try {
+			CompletableFuture<String> error = CompletableFuture.supplyAsync(() -> readFully(process.getErrorStream()),
+					READERS);
+			String output = readFully(process.getInputStream());
+			int exitCode = process.waitFor();
+			future.complete(new ProcessResult(exitCode, output, error.join()));
+		} catch (InterruptedException e) {
+			process.destroyForcibly();
+			future.completeExceptionally(e);
+			Thread.currentThread().interrupt();
+		} catch (RuntimeException e) {
+			future.completeExceptionally(e);
+		} finally {
+			if (timeout != null) {
+				timeout.cancel(false);
+			}
+		}
+	}
+
+	private static String readFully(InputStream stream) {
+		ByteArrayOutputStream content = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		try (InputStream input = stream) {
+			int read = input.read(buffer);
+			while (read != -1) {
+				content.write(buffer, 0, read);
+				read = input.read(buffer);
+			}
+		} catch (IOException e) {
+			// Stream closed because the process was destroyed, keep what was read
+		}
+		try {
+			return content.toString(Charset.defaultCharset().name());
+		} catch (IOException e) {
+			return content.toString();
+		}
+	}
+
+	private static ThreadFactory daemonThreadFactory(String name) {
+		AtomicInteger count = new AtomicInteger();
+		return runnable -> {
+			Thread thread = new Thread(runnable, name + ' ' + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	private static class ProcessFuture extends CompletableFuture<ProcessResult> {
+		private Process process;
+
+		private synchronized void setProcess(Process process) {
+			this.process = process;
+			if (isCancelled()) {
+				process.destroyForcibly();
+			}
+		}
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			boolean cancelled = super.cancel(mayInterruptIfRunning);
+			synchronized (this) {
+				if (cancelled && process != null) {
+					process.destroyForcibly();
+				}
+			}
+			return cancelled;
+		}
+	}
+}
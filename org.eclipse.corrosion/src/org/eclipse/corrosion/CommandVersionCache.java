@@ -0,0 +1,176 @@
+/*********************************************************************
+ * Copyright (c) 2019 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Red Hat Inc. - Initial implementation
+ *******************************************************************************/
+package org.eclipse.corrosion;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Remembers the successful <code>--version</code> checks per resolved binary
+ * path and modification time, so that re-validating an unchanged tool does not
+ * fork a process. Concurrent checks of the same command share one process,
+ * which is only cancelled once every caller cancelled its result.
+ */
+class CommandVersionCache {
+	private static final Map<Key, SharedCheck> CACHE = new ConcurrentHashMap<>();
+
+	private CommandVersionCache() {
+		throw new IllegalStateException("Utility class"); //$NON-NLS-1$
+	}
+
+	/**
+	 * @param check
+	 *            starts the check, cancelling its result must stop the process
+	 * @return whether the check succeeded, <code>false</code> if it failed
+	 *         exceptionally
+	 */
+	static CompletableFuture<Boolean> get(String[] command, Pattern versionPattern,
+			Supplier<CompletableFuture<Boolean>> check) {
+		File executable = resolveExecutable(command[0]);
+		if (executable == null) {
+			return new SharedCheck(check.get()).subscribe();
+		}
+		Key key = new Key(executable, command, versionPattern);
+		SharedCheck cached = CACHE.get(key);
+		if (cached != null && !cached.result.isCompletedExceptionally()) {
+			return cached.subscribe();
+		}
+		CompletableFuture<Boolean> result = check.get();
+		SharedCheck shared = new SharedCheck(result);
+		CACHE.put(key, shared);
+		// Timeouts and start failures are not a property of the binary, and a
+		// failing check may depend on more than the binary, such as the toolchain a
+		// rustup proxy runs: retry them
+		result.whenComplete((valid, error) -> {
+			if (error != null || !Boolean.TRUE.equals(valid)) {
+				CACHE.remove(key, shared);
+			}
+		});
+		return shared.subscribe();
+	}
+
+	/**
+	 * Forgets all results, for instance once tools have been installed in place.
+	 */
+	static void clear() {
+		CACHE.clear();
+	}
+
+	private static File resolveExecutable(String command) {
+		File file = new File(command);
+		if (file.isAbsolute() || command.indexOf(File.separatorChar) != -1) {
+			return file.isFile() ? canonical(file) : null;
+		}
+		String path = System.getenv("PATH"); //$NON-NLS-1$
+		if (path == null) {
+			return null;
+		}
+		for (String directory : path.split(File.pathSeparator)) {
+			File candidate = new File(directory, command);
+			if (candidate.isFile()) {
+				return canonical(candidate);
+			}
+			candidate = new File(directory, command + ".exe"); //$NON-NLS-1$
+			if (candidate.isFile()) {
+				return canonical(candidate);
+			}
+		}
+		return null;
+	}
+
+	private static File canonical(File file) {
+		try {
+			return file.getCanonicalFile();
+		} catch (IOException e) {
+			return file.getAbsoluteFile();
+		}
+	}
+
+	/**
+	 * A check whose callers each get their own result, so that one of them
+	 * cancelling does not fail the others.
+	 */
+	private static class SharedCheck {
+		private final CompletableFuture<Boolean> result;
+		private int subscribers;
+
+		private SharedCheck(CompletableFuture<Boolean> result) {
+			this.result = result;
+		}
+
+		private synchronized CompletableFuture<Boolean> subscribe() {
+			subscribers++;
+			CompletableFuture<Boolean> subscription = new CompletableFuture<Boolean>() {
+				@Override
+				public boolean cancel(boolean mayInterruptIfRunning) {
+					boolean cancelled = super.cancel(mayInterruptIfRunning);
+					if (cancelled) {
+						unsubscribe();
+					}
+					return cancelled;
+				}
+			};
+			result.whenComplete((valid, error) -> subscription.complete(error == null && Boolean.TRUE.equals(valid)));
+			return subscription;
+		}
+
+		private synchronized void unsubscribe() {
+			subscribers--;
+			if (subscribers == 0) {
+				result.cancel(true);
+			}
+		}
+	}
+
+	private static class Key {
+		private final String executable;
+		private final long lastModified;
+		private final long length;
+		private final String[] arguments;
+		private final String versionPattern;
+
+		private Key(File executable, String[] command, Pattern versionPattern) {
+			this.executable = executable.getPath();
+			this.lastModified = executable.lastModified();
+			this.length = executable.length();
+			this.arguments = Arrays.copyOfRange(command, 1, command.length);
+			this.versionPattern = versionPattern.pattern();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return lastModified == other.lastModified && length == other.length
+					&& executable.equals(other.executable) && Arrays.equals(arguments, other.arguments)
+					&& versionPattern.equals(other.versionPattern);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(executable, lastModified, length, Arrays.hashCode(arguments), versionPattern);
+		}
+	}
+}
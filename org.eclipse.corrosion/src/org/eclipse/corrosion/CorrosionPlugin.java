@@ -12,11 +12,11 @@
  *******************************************************************************/
 package org.eclipse.corrosion;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.net.URL;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.regex.Pattern;
 
 import org.eclipse.core.runtime.FileLocator;
@@ -26,6 +26,10 @@ import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.corrosion.cargo.core.CargoTools;
+import org.eclipse.corrosion.edit.LanguageServerPrewarmJob;
+import org.eclipse.corrosion.extensions.ImplementationsCache;
+import org.eclipse.corrosion.launch.LaunchConfigurationIndex;
+import org.eclipse.corrosion.snippet.SnippetLibrary;
 import org.eclipse.jface.dialogs.IDialogConstants;
 import org.eclipse.jface.dialogs.MessageDialog;
 import org.eclipse.jface.resource.ImageDescriptor;
@@ -54,10 +58,15 @@ public class CorrosionPlugin extends AbstractUIPlugin {
 		setSharedInstance(this);
 		Job.create("Import .cargo in workspace", //$NON-NLS-1$
 				(ICoreRunnable) (monitor -> CargoTools.ensureDotCargoImportedAsProject(monitor))).schedule();
+		LanguageServerPrewarmJob.scheduleIfEnabled();
+		ImplementationsCache.getInstance().install();
 	}
 
 	@Override
 	public void stop(BundleContext context) throws Exception {
+		SnippetLibrary.getInstance().dispose();
+		ImplementationsCache.getInstance().dispose();
+		LaunchConfigurationIndex.dispose();
 		setSharedInstance(null);
 		super.stop(context);
 	}
@@ -112,17 +121,29 @@ public class CorrosionPlugin extends AbstractUIPlugin {
 		reg.put(image, desc);
 	}
 
-	public static boolean validateCommandVersion(String[] commandStrings, Pattern matchPattern) {
+	public static CompletableFuture<Boolean> validateCommandVersionAsync(String[] commandStrings,
+			Pattern matchPattern) {
 		String[] command = new String[1 + commandStrings.length];
 
 		System.arraycopy(commandStrings, 0, command, 0, commandStrings.length);
 		command[commandStrings.length] = "--version"; //$NON-NLS-1$
 
-		return matchPattern.matcher(getOutputFromCommand(command)).matches();
+		return CommandVersionCache.get(command, matchPattern, () -> {
+			CompletableFuture<ProcessResult> process = runCommandAsync(command);
+			CompletableFuture<Boolean> valid = process.thenApply(
+					result -> result.isSuccessful() && matchPattern.matcher(result.getFirstOutputLine()).matches());
+			// cancelling the check destroys the process
+			valid.whenComplete((result, error) -> {
+				if (valid.isCancelled()) {
+					process.cancel(true);
+				}
+			});
+			return valid;
+		});
 	}
 
-	public static boolean validateCommandVersion(String commandPath, Pattern matchPattern) {
-		return matchPattern.matcher(getOutputFromCommand(commandPath, "--version")).matches(); //$NON-NLS-1$
+	public static CompletableFuture<Boolean> validateCommandVersionAsync(String commandPath, Pattern matchPattern) {
+		return validateCommandVersionAsync(new String[] { commandPath }, matchPattern);
 	}
 
 	public static Process getProcessForCommand(String... commandStrings) throws IOException {
@@ -144,17 +165,40 @@ public class CorrosionPlugin extends AbstractUIPlugin {
 		return null;
 	}
 
+	/**
+	 * Runs the given command in the preferred working directory without blocking
+	 * the calling thread.
+	 *
+	 * @param commandStrings
+	 * @return a future completed with the exit code and output of the command, or
+	 *         exceptionally if it could not be started or timed out
+	 */
+	public static CompletableFuture<ProcessResult> runCommandAsync(String... commandStrings) {
+		return CommandExecutor.execute(getWorkingDirectoryFromPreferences(), CommandExecutor.DEFAULT_TIMEOUT_MILLIS,
+				commandStrings);
+	}
+
+	/**
+	 * @param commandStrings
+	 * @return a future completed with the first line printed by a successful
+	 *         command, or with an empty string on failure
+	 */
+	public static CompletableFuture<String> getOutputFromCommandAsync(String... commandStrings) {
+		return runCommandAsync(commandStrings)
+				.thenApply(result -> result.isSuccessful() ? result.getFirstOutputLine() : "") //$NON-NLS-1$
+				.exceptionally(e -> ""); //$NON-NLS-1$
+	}
+
+	/**
+	 * Blocking variant of {@link #getOutputFromCommandAsync(String...)}, not to be
+	 * called from the UI thread.
+	 */
 	public static String getOutputFromCommand(String... commandStrings) {
 		try {
-			Process process = getProcessForCommand(commandStrings);
-			if (process.waitFor() == 0) {
-				try (BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-					return in.readLine();
-				}
-			}
+			return getOutputFromCommandAsync(commandStrings).get();
 		} catch (InterruptedException e) {
 			Thread.currentThread().interrupt();
-		} catch (IOException e) {
+		} catch (ExecutionException e) {
 			// Error will be caught with empty response
 		}
 		return ""; //$NON-NLS-1$
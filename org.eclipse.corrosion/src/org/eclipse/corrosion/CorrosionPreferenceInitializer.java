@@ -16,9 +16,11 @@ package org.eclipse.corrosion;
 
 import java.io.File;
 import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
 
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.preferences.AbstractPreferenceInitializer;
+import org.eclipse.corrosion.edit.LanguageServerBackends;
 import org.eclipse.jface.preference.IPreferenceStore;
 
 public class CorrosionPreferenceInitializer extends AbstractPreferenceInitializer {
@@ -40,49 +42,70 @@ public class CorrosionPreferenceInitializer extends AbstractPreferenceInitialize
 	public static final String RLS_CONFIGURATION_PATH_PREFERENCE = "corrosion.rls_configurationPath"; //$NON-NLS-1$
 	public static final String SYSROOT_PATH_PREFERENCE = "corrosion.sysrootPath"; //$NON-NLS-1$
 
+	public static final String LANGUAGE_SERVER_PREFERENCE = "corrosion.languageServer"; //$NON-NLS-1$
+	public static final String RUST_ANALYZER_PATH_PREFERENCE = "corrosion.rustAnalyzerPath"; //$NON-NLS-1$
+
 	public static final String WORKING_DIRECTORY_PREFERENCE = "corrosion.workingDirectory"; //$NON-NLS-1$
 
+	public static final String PREWARM_LANGUAGE_SERVER_PREFERENCE = "corrosion.prewarmLanguageServer"; //$NON-NLS-1$
+	public static final String LANGUAGE_SERVER_STATISTICS_PREFERENCE = "corrosion.languageServerStatistics"; //$NON-NLS-1$
+	public static final String SHARE_LANGUAGE_SERVER_PREFERENCE = "corrosion.shareLanguageServer"; //$NON-NLS-1$
+	public static final String LANGUAGE_SERVER_MEMORY_LIMIT_PREFERENCE = "corrosion.languageServerMemoryLimit"; //$NON-NLS-1$
+	public static final String CARGO_DIAGNOSTIC_MARKERS_PREFERENCE = "corrosion.cargoDiagnosticMarkers"; //$NON-NLS-1$
+
 	@Override
 	public void initializeDefaultPreferences() {
+		// the lookups are independent, their processes run concurrently
+		CompletableFuture<String> rustupPath = getCommandPathBestGuess("rustup"); //$NON-NLS-1$
+		CompletableFuture<String> cargoPath = getCommandPathBestGuess("cargo"); //$NON-NLS-1$
+		CompletableFuture<String> rlsPath = getCommandPathBestGuess("rls"); //$NON-NLS-1$
+		CompletableFuture<String> rustAnalyzerPath = getCommandPathBestGuess("rust-analyzer"); //$NON-NLS-1$
+		CompletableFuture<String> sysrootPath = getSysrootPathBestGuess();
+
 		STORE.setDefault(RUST_SOURCE_PREFERENCE, "rustup"); //$NON-NLS-1$
 
+		// the defaults have to be set when this method returns
 		STORE.setDefault(DEFAULT_PATHS_PREFERENCE, true);
-		STORE.setDefault(RUSTUP_PATHS_PREFERENCE, getRustupPathBestGuess());
-		STORE.setDefault(CARGO_PATH_PREFERENCE, getCargoPathBestGuess());
+		STORE.setDefault(RUSTUP_PATHS_PREFERENCE, rustupPath.join());
+		STORE.setDefault(CARGO_PATH_PREFERENCE, cargoPath.join());
 		setToolchainBestGuesses();
 
-		STORE.setDefault(RLS_PATH_PREFERENCE, getRLSPathBestGuess());
+		STORE.setDefault(RLS_PATH_PREFERENCE, rlsPath.join());
 		STORE.setDefault(RLS_CONFIGURATION_PATH_PREFERENCE, getRLSConfigurationPathBestGuess());
 
-		STORE.setDefault(SYSROOT_PATH_PREFERENCE, getSysrootPathBestGuess());
+		STORE.setDefault(SYSROOT_PATH_PREFERENCE, sysrootPath.join());
+
+		STORE.setDefault(LANGUAGE_SERVER_PREFERENCE, LanguageServerBackends.RLS);
+		STORE.setDefault(RUST_ANALYZER_PATH_PREFERENCE, rustAnalyzerPath.join());
 
 		STORE.setDefault(WORKING_DIRECTORY_PREFERENCE, getWorkingDirectoryBestGuess());
-	}
 
-	private static String getRustupPathBestGuess() {
-		String command = findCommandPath("rustup"); //$NON-NLS-1$
-		if (command.isEmpty()) {
-			File possibleCommandFile = getExectuableFileOfCargoDefaultHome("rustup"); //$NON-NLS-1$
-			if (possibleCommandFile.exists() && possibleCommandFile.isFile() && possibleCommandFile.canExecute()) {
-				return possibleCommandFile.getAbsolutePath();
-			}
-		}
-		return command;
+		STORE.setDefault(PREWARM_LANGUAGE_SERVER_PREFERENCE, false);
+		STORE.setDefault(LANGUAGE_SERVER_STATISTICS_PREFERENCE, false);
+		STORE.setDefault(LANGUAGE_SERVER_MEMORY_LIMIT_PREFERENCE, 0L);
+		STORE.setDefault(SHARE_LANGUAGE_SERVER_PREFERENCE, false);
+
+		STORE.setDefault(CARGO_DIAGNOSTIC_MARKERS_PREFERENCE, false);
 	}
 
-	private static String getCargoPathBestGuess() {
-		String command = findCommandPath("cargo"); //$NON-NLS-1$
-		if (command.isEmpty()) {
-			File possibleCommandFile = getExectuableFileOfCargoDefaultHome("cargo"); //$NON-NLS-1$
-			if (possibleCommandFile.exists() && possibleCommandFile.isFile() && possibleCommandFile.canExecute()) {
-				return possibleCommandFile.getAbsolutePath();
+	/**
+	 * @return a future completed with the path of the command found on the
+	 *         path, else in the default cargo home, or with an empty string
+	 */
+	private static CompletableFuture<String> getCommandPathBestGuess(String command) {
+		return findCommandPath(command).thenApply(path -> {
+			if (path.isEmpty()) {
+				File possibleCommandFile = getExectuableFileOfCargoDefaultHome(command);
+				if (possibleCommandFile.exists() && possibleCommandFile.isFile() && possibleCommandFile.canExecute()) {
+					return possibleCommandFile.getAbsolutePath();
+				}
 			}
-		}
-		return command;
+			return path;
+		});
 	}
 
-	private static String findCommandPath(String command) {
-		return CorrosionPlugin.getOutputFromCommand(IS_WINDOWS ? "where" : "which", command); //$NON-NLS-1$ //$NON-NLS-2$
+	private static CompletableFuture<String> findCommandPath(String command) {
+		return CorrosionPlugin.getOutputFromCommandAsync(IS_WINDOWS ? "where" : "which", command); //$NON-NLS-1$ //$NON-NLS-2$
 	}
 
 	private static void setToolchainBestGuesses() {
@@ -112,31 +135,21 @@ public class CorrosionPreferenceInitializer extends AbstractPreferenceInitialize
 		STORE.setDefault(TOOLCHAIN_TYPE_PREFERENCE, "Other"); //$NON-NLS-1$
 	}
 
-	private static String getRLSPathBestGuess() {
-		String command = findCommandPath("rls"); //$NON-NLS-1$
-		if (command.isEmpty()) {
-			File possibleCommandFile = getExectuableFileOfCargoDefaultHome("rls"); //$NON-NLS-1$
-			if (possibleCommandFile.exists() && possibleCommandFile.isFile() && possibleCommandFile.canExecute()) {
-				return possibleCommandFile.getAbsolutePath();
-			}
-		}
-		return command;
-	}
-
 	private static String getRLSConfigurationPathBestGuess() {
 		return CARGO_DEFAULT_ROOT + "rls.conf"; //$NON-NLS-1$
 	}
 
-	private static String getSysrootPathBestGuess() {
-		File rustc = new File(findCommandPath("rustc")); //$NON-NLS-1$
-		if (!(rustc.exists() && rustc.isFile() && rustc.canExecute())) {
-			rustc = getExectuableFileOfCargoDefaultHome("rustc"); //$NON-NLS-1$
-		}
-		if (!(rustc.exists() && rustc.isFile() && rustc.canExecute())) {
-			return ""; //$NON-NLS-1$
-		}
-		String[] command = new String[] { rustc.getAbsolutePath(), "--print", "sysroot" }; //$NON-NLS-1$ //$NON-NLS-2$
-		return CorrosionPlugin.getOutputFromCommand(command);
+	private static CompletableFuture<String> getSysrootPathBestGuess() {
+		return findCommandPath("rustc").thenCompose(path -> { //$NON-NLS-1$
+			File rustc = new File(path);
+			if (!(rustc.exists() && rustc.isFile() && rustc.canExecute())) {
+				rustc = getExectuableFileOfCargoDefaultHome("rustc"); //$NON-NLS-1$
+			}
+			if (!(rustc.exists() && rustc.isFile() && rustc.canExecute())) {
+				return CompletableFuture.completedFuture(""); //$NON-NLS-1$
+			}
+			return CorrosionPlugin.getOutputFromCommandAsync(rustc.getAbsolutePath(), "--print", "sysroot"); //$NON-NLS-1$ //$NON-NLS-2$
+		});
 	}
 
 	private static File getExectuableFileOfCargoDefaultHome(final String executable) {
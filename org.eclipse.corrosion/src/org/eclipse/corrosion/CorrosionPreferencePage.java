@@ -20,8 +20,13 @@ import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.FileLocator;
@@ -32,6 +37,8 @@ import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.core.runtime.jobs.JobChangeAdapter;
 import org.eclipse.core.variables.IStringVariableManager;
 import org.eclipse.core.variables.VariablesPlugin;
+import org.eclipse.corrosion.edit.LanguageServerBackends;
+import org.eclipse.corrosion.edit.LanguageServerPrewarmJob;
 import org.eclipse.corrosion.ui.InputComponent;
 import org.eclipse.corrosion.ui.OptionalDefaultInputComponent;
 import org.eclipse.jface.preference.IPreferenceStore;
@@ -55,12 +62,23 @@ public class CorrosionPreferencePage extends PreferencePage implements IWorkbenc
 	public static final String PAGE_ID = "org.eclipse.corrosion.preferencePage"; //$NON-NLS-1$
 	protected static final List<String> RUST_SOURCE_OPTIONS = Arrays.asList("rustup", "other", "disabled"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 	protected static final List<String> RUSTUP_TOOLCHAIN_OPTIONS = Arrays.asList("Stable", "Beta", "Nightly", "Other"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+	private static final int VERSION_CHECK_DELAY = 300;
 
 	private IPreferenceStore store;
+	private int validationRequest = 0;
+	private Runnable pendingVersionCheck;
+	private List<CompletableFuture<Boolean>> runningVersionChecks = Collections.emptyList();
 
 	private Button rustupRadioButton;
 	private Button otherRadioButton;
 	private Button disableRadioButton;
+	private Button prewarmCheckbox;
+	private Button statisticsCheckbox;
+	private Button shareServerCheckbox;
+	private Button cargoMarkersCheckbox;
+	private InputComponent memoryLimitInput;
+	private Combo languageServerCombo;
+	private InputComponent rustAnalyzerInput;
 
 	@Override
 	public void init(IWorkbench workbench) {
@@ -102,6 +120,28 @@ public class CorrosionPreferencePage extends PreferencePage implements IWorkbenc
 
 		createRustupPart(container);
 
+		createLanguageServerPart(container);
+
+		prewarmCheckbox = new Button(container, SWT.CHECK);
+		prewarmCheckbox.setText(Messages.CorrosionPreferencePage_prewarmLanguageServer);
+		prewarmCheckbox.setLayoutData(new GridData(SWT.LEFT, SWT.CENTER, false, false, 4, 1));
+
+		shareServerCheckbox = new Button(container, SWT.CHECK);
+		shareServerCheckbox.setText(Messages.CorrosionPreferencePage_shareLanguageServer);
+		shareServerCheckbox.setLayoutData(new GridData(SWT.LEFT, SWT.CENTER, false, false, 4, 1));
+
+		statisticsCheckbox = new Button(container, SWT.CHECK);
+		statisticsCheckbox.setText(Messages.CorrosionPreferencePage_languageServerStatistics);
+		statisticsCheckbox.setLayoutData(new GridData(SWT.LEFT, SWT.CENTER, false, false, 4, 1));
+
+		memoryLimitInput = new InputComponent(container, Messages.CorrosionPreferencePage_memoryLimit,
+				e -> validatePage());
+		memoryLimitInput.createComponent();
+
+		cargoMarkersCheckbox = new Button(container, SWT.CHECK);
+		cargoMarkersCheckbox.setText(Messages.CorrosionPreferencePage_cargoDiagnosticMarkers);
+		cargoMarkersCheckbox.setLayoutData(new GridData(SWT.LEFT, SWT.CENTER, false, false, 4, 1));
+
 		initializeContent();
 		return container;
 	}
@@ -129,6 +169,25 @@ public class CorrosionPreferencePage extends PreferencePage implements IWorkbenc
 		workingDirectoryInput.setValue(store.getString(CorrosionPreferenceInitializer.WORKING_DIRECTORY_PREFERENCE));
 		rlsConfigurationPathInput
 				.setValue(store.getString(CorrosionPreferenceInitializer.RLS_CONFIGURATION_PATH_PREFERENCE));
+		setLanguageServerSelection(LanguageServerBackends.IDS
+				.indexOf(store.getString(CorrosionPreferenceInitializer.LANGUAGE_SERVER_PREFERENCE)));
+		rustAnalyzerInput.setValue(store.getString(CorrosionPreferenceInitializer.RUST_ANALYZER_PATH_PREFERENCE));
+		prewarmCheckbox
+				.setSelection(store.getBoolean(CorrosionPreferenceInitializer.PREWARM_LANGUAGE_SERVER_PREFERENCE));
+		shareServerCheckbox
+				.setSelection(store.getBoolean(CorrosionPreferenceInitializer.SHARE_LANGUAGE_SERVER_PREFERENCE));
+		statisticsCheckbox
+				.setSelection(store.getBoolean(CorrosionPreferenceInitializer.LANGUAGE_SERVER_STATISTICS_PREFERENCE));
+		cargoMarkersCheckbox
+				.setSelection(store.getBoolean(CorrosionPreferenceInitializer.CARGO_DIAGNOSTIC_MARKERS_PREFERENCE));
+		memoryLimitInput.setValue(
+				Long.toString(store.getLong(CorrosionPreferenceInitializer.LANGUAGE_SERVER_MEMORY_LIMIT_PREFERENCE)));
+	}
+
+	@Override
+	public void dispose() {
+		cancelVersionChecks();
+		super.dispose();
 	}
 
 	@Override
@@ -136,101 +195,244 @@ public class CorrosionPreferencePage extends PreferencePage implements IWorkbenc
 		return CorrosionPlugin.getDefault().getPreferenceStore();
 	}
 
-	private boolean isPageValid() {
-		if (!isCommandPathsValid()) {
-			return false;
+	/**
+	 * Validates the paths synchronously then, once the input has been stable for
+	 * {@value #VERSION_CHECK_DELAY}ms, checks the versions of the external tools
+	 * concurrently in the background. The page is updated once the checks of the
+	 * latest request complete, so the UI thread never waits for an external tool.
+	 */
+	private void validatePage() {
+		int request = ++validationRequest;
+		cancelVersionChecks();
+		ValidationResult pathsResult = validatePaths();
+		if (!pathsResult.isValid()) {
+			applyValidationResult(pathsResult);
+			return;
 		}
-		int radioIndex = getRadioSelection();
-		return (radioIndex == 0 && isRustupSectionValid()) || (radioIndex == 1 && isOtherInstallSectionValid())
-				|| (radioIndex == 2);
+		// the new input cannot be applied before its versions have been checked
+		setErrorMessage(null);
+		setValid(false);
+		pendingVersionCheck = () -> {
+			pendingVersionCheck = null;
+			if (request != validationRequest || installButton.isDisposed()) {
+				return;
+			}
+			validateVersions().thenAccept(result -> Display.getDefault().asyncExec(() -> {
+				if (request == validationRequest && !installButton.isDisposed()) {
+					applyValidationResult(result);
+				}
+			}));
+		};
+		Display.getDefault().timerExec(VERSION_CHECK_DELAY, pendingVersionCheck);
 	}
 
-	private boolean isCommandPathsValid() {
+	/**
+	 * Drops the version check waiting for the input to settle and stops the
+	 * processes of the running ones.
+	 */
+	private void cancelVersionChecks() {
+		if (pendingVersionCheck != null) {
+			Display.getDefault().timerExec(-1, pendingVersionCheck);
+			pendingVersionCheck = null;
+		}
+		for (CompletableFuture<Boolean> check : runningVersionChecks) {
+			check.cancel(true);
+		}
+		runningVersionChecks = Collections.emptyList();
+	}
 
-		String error = ""; //$NON-NLS-1$
-		if ((rustupInput.getValue().isEmpty() || cargoInput.getValue().isEmpty())) {
-			error = Messages.CorrosionPreferencePage_emptyRustupCargoPath;
+	private void applyValidationResult(ValidationResult result) {
+		setErrorMessage(result.message);
+		if (result.installRequired) {
+			setInstallRequired(true);
+		}
+		setValid(result.isValid());
+	}
+
+	private ValidationResult validatePaths() {
+		if (memoryLimitInput != null && !isNonNegativeNumber(memoryLimitInput.getValue().trim())) {
+			return new ValidationResult(Messages.CorrosionPreferencePage_invalidMemoryLimit, false);
+		}
+		ValidationResult result = validateCommandPaths();
+		if (!result.isValid()) {
+			return result;
+		}
+		int radioIndex = getRadioSelection();
+		if (radioIndex == 0) {
+			result = validateRustupSectionPaths();
+		} else if (radioIndex == 1) {
+			result = validateOtherInstallSectionPaths();
 		} else {
-			File rustup = new File(varParse(rustupInput.getValue()));
-			File cargo = new File(varParse(cargoInput.getValue()));
-			if (!rustup.exists() || !rustup.isFile()) {
-				error = Messages.CorrosionPreferencePage_invalidRustup;
-			} else if (!rustup.canExecute()) {
-				error = Messages.CorrosionPreferencePage_rustupNonExecutable;
-			} else if (!CorrosionPlugin.validateCommandVersion(varParse(rustupInput.getValue()),
-					RustManager.RUSTUP_VERSION_FORMAT_PATTERN)) {
-				error = NLS.bind(Messages.CorrosionPreferencePage_invalidVersion, "rustup"); //$NON-NLS-1$
-			} else if (!cargo.exists() || !cargo.isFile()) {
-				error = Messages.CorrosionPreferencePage_invalidCargo;
-			} else if (!cargo.canExecute()) {
-				error = Messages.CorrosionPreferencePage_cargoNonExecutable;
-			} else if (!CorrosionPlugin.validateCommandVersion(varParse(cargoInput.getValue()),
-					RustManager.CARGO_VERSION_FORMAT_PATTERN)) {
-				error = NLS.bind(Messages.CorrosionPreferencePage_invalidVersion, "cargo"); //$NON-NLS-1$
-			}
+			return ValidationResult.VALID;
 		}
+		if (!result.isValid()) {
+			return result;
+		}
+		return validateLanguageServerPaths(radioIndex);
+	}
 
-		if (!error.isEmpty()) {
-			setErrorMessage(error);
-			setInstallRequired(true);
+	private static boolean isNonNegativeNumber(String value) {
+		try {
+			return Long.parseLong(value) >= 0;
+		} catch (NumberFormatException e) {
 			return false;
 		}
+	}
+
+	private ValidationResult validateCommandPaths() {
+		if ((rustupInput.getValue().isEmpty() || cargoInput.getValue().isEmpty())) {
+			return new ValidationResult(Messages.CorrosionPreferencePage_emptyRustupCargoPath, true);
+		}
+		File rustup = new File(varParse(rustupInput.getValue()));
+		File cargo = new File(varParse(cargoInput.getValue()));
+		if (!rustup.exists() || !rustup.isFile()) {
+			return new ValidationResult(Messages.CorrosionPreferencePage_invalidRustup, true);
+		} else if (!rustup.canExecute()) {
+			return new ValidationResult(Messages.CorrosionPreferencePage_rustupNonExecutable, true);
+		} else if (!cargo.exists() || !cargo.isFile()) {
+			return new ValidationResult(Messages.CorrosionPreferencePage_invalidCargo, true);
+		} else if (!cargo.canExecute()) {
+			return new ValidationResult(Messages.CorrosionPreferencePage_cargoNonExecutable, true);
+		}
+
 		File workingDirectory = new File(varParse(workingDirectoryInput.getValue()));
 		if (workingDirectoryInput.getValue().isEmpty()) {
-			error = Messages.CorrosionPreferencePage_emptyWorkingDirectory;
+			return new ValidationResult(Messages.CorrosionPreferencePage_emptyWorkingDirectory, false);
 		} else if (!workingDirectory.isDirectory() || !workingDirectory.exists()) {
-			error = Messages.CorrosionPreferencePage_invaildWorkingDirectory;
-		}
-		if (!error.isEmpty()) {
-			setErrorMessage(error);
+			return new ValidationResult(Messages.CorrosionPreferencePage_invaildWorkingDirectory, false);
 		}
-		return error.isEmpty();
+		return ValidationResult.VALID;
 	}
 
-	private boolean isRustupSectionValid() {
+	private ValidationResult validateRustupSectionPaths() {
 		if (rustupToolchainCombo.getSelectionIndex() == 3 && otherIdInput.getValue().isEmpty()) {
-			setErrorMessage(Messages.CorrosionPreferencePage_emptyToolchain);
-			return false;
-		}
-		String[] rlsPath = new String[] { varParse(rustupInput.getValue()), "run", getToolchainId(), "rls" }; //$NON-NLS-1$ //$NON-NLS-2$
-		
-		if (!CorrosionPlugin.validateCommandVersion(rlsPath, RustManager.RLS_VERSION_FORMAT_PATTERN)) {
-			setErrorMessage(Messages.CorrosionPreferencePage_rustupMissingRLS);
-			setInstallRequired(true);
-			return false;
+			return new ValidationResult(Messages.CorrosionPreferencePage_emptyToolchain, false);
 		}
-		setErrorMessage(null);
-		return true;
+		return ValidationResult.VALID;
 	}
 
-	private boolean isOtherInstallSectionValid() {
-		if (rlsInput.getValue().isEmpty() || sysrootInput.getValue().isEmpty()) {
-			setErrorMessage(Messages.CorrosionPreferencePage_emptyPath);
-			return false;
+	private ValidationResult validateOtherInstallSectionPaths() {
+		boolean usesRls = isRlsSelected();
+		if ((usesRls && rlsInput.getValue().isEmpty()) || sysrootInput.getValue().isEmpty()) {
+			return new ValidationResult(Messages.CorrosionPreferencePage_emptyPath, false);
 		}
 		File rls = new File(varParse(rlsInput.getValue()));
-		if (!rls.exists() || !rls.isFile()) {
-			setErrorMessage(Messages.CorrosionPreferencePage_invalidRlsPath);
-			return false;
-		} else if (!rls.canExecute()) {
-			setErrorMessage(Messages.CorrosionPreferencePage_rlsNonExecutable);
-			return false;
-		}
-		if (!CorrosionPlugin.validateCommandVersion(varParse(rlsInput.getValue()),
-				RustManager.RLS_VERSION_FORMAT_PATTERN)) {
-			setErrorMessage(NLS.bind(Messages.CorrosionPreferencePage_invalidVersion, "rls")); //$NON-NLS-1$
-			return false;
+		if (usesRls && (!rls.exists() || !rls.isFile())) {
+			return new ValidationResult(Messages.CorrosionPreferencePage_invalidRlsPath, false);
+		} else if (usesRls && !rls.canExecute()) {
+			return new ValidationResult(Messages.CorrosionPreferencePage_rlsNonExecutable, false);
 		}
 
 		File sysrootPath = new File(varParse(sysrootInput.getValue()));
-		boolean a = sysrootPath.exists();
-		boolean b = sysrootPath.isDirectory();
-		if (!a || !b) {
-			setErrorMessage(Messages.CorrosionPreferencePage_invalidSysroot);
-			return false;
+		if (!sysrootPath.exists() || !sysrootPath.isDirectory()) {
+			return new ValidationResult(Messages.CorrosionPreferencePage_invalidSysroot, false);
+		}
+		return ValidationResult.VALID;
+	}
+
+	private ValidationResult validateLanguageServerPaths(int radioIndex) {
+		if (isRlsSelected()) {
+			return ValidationResult.VALID;
+		}
+		if (rustAnalyzerInput.getValue().isEmpty()) {
+			// the rustup toolchain provides rust-analyzer, other installations must point to it
+			return radioIndex == 0 ? ValidationResult.VALID
+					: new ValidationResult(Messages.CorrosionPreferencePage_emptyPath, false);
+		}
+		File rustAnalyzer = new File(varParse(rustAnalyzerInput.getValue()));
+		if (!rustAnalyzer.exists() || !rustAnalyzer.isFile()) {
+			return new ValidationResult(Messages.CorrosionPreferencePage_invalidRustAnalyzerPath, false);
+		} else if (!rustAnalyzer.canExecute()) {
+			return new ValidationResult(Messages.CorrosionPreferencePage_rustAnalyzerNonExecutable, false);
+		}
+		return ValidationResult.VALID;
+	}
+
+	/**
+	 * Collects the version checks matching the current input, to be run off the UI
+	 * thread.
+	 */
+	private List<VersionCheck> getVersionChecks() {
+		List<VersionCheck> checks = new ArrayList<>();
+		checks.add(new VersionCheck(new String[] { varParse(rustupInput.getValue()) },
+				RustManager.RUSTUP_VERSION_FORMAT_PATTERN,
+				new ValidationResult(NLS.bind(Messages.CorrosionPreferencePage_invalidVersion, "rustup"), true))); //$NON-NLS-1$
+		checks.add(new VersionCheck(new String[] { varParse(cargoInput.getValue()) },
+				RustManager.CARGO_VERSION_FORMAT_PATTERN,
+				new ValidationResult(NLS.bind(Messages.CorrosionPreferencePage_invalidVersion, "cargo"), true))); //$NON-NLS-1$
+		int radioIndex = getRadioSelection();
+		if (radioIndex != 2 && !isRlsSelected()) {
+			String[] command = rustAnalyzerInput.getValue().isEmpty()
+					? new String[] { varParse(rustupInput.getValue()), "run", getToolchainId(), "rust-analyzer" } //$NON-NLS-1$ //$NON-NLS-2$
+					: new String[] { varParse(rustAnalyzerInput.getValue()) };
+			checks.add(new VersionCheck(command, RustManager.RUST_ANALYZER_VERSION_FORMAT_PATTERN,
+					new ValidationResult(Messages.CorrosionPreferencePage_missingRustAnalyzer, false)));
+		} else if (radioIndex == 0) {
+			checks.add(new VersionCheck(
+					new String[] { varParse(rustupInput.getValue()), "run", getToolchainId(), "rls" }, //$NON-NLS-1$ //$NON-NLS-2$
+					RustManager.RLS_VERSION_FORMAT_PATTERN,
+					new ValidationResult(Messages.CorrosionPreferencePage_rustupMissingRLS, true)));
+		} else if (radioIndex == 1) {
+			checks.add(new VersionCheck(new String[] { varParse(rlsInput.getValue()) },
+					RustManager.RLS_VERSION_FORMAT_PATTERN,
+					new ValidationResult(NLS.bind(Messages.CorrosionPreferencePage_invalidVersion, "rls"), false))); //$NON-NLS-1$
+		}
+		return checks;
+	}
+
+	/**
+	 * Runs all version checks at once and reports the first failure in the order
+	 * of {@link #getVersionChecks()}.
+	 */
+	private CompletableFuture<ValidationResult> validateVersions() {
+		List<VersionCheck> checks = getVersionChecks();
+		List<CompletableFuture<Boolean>> results = checks.stream().map(VersionCheck::start)
+				.collect(Collectors.toList());
+		runningVersionChecks = results;
+		return CompletableFuture.allOf(results.toArray(new CompletableFuture[results.size()])).thenApply(done -> {
+			for (int i = 0; i < checks.size(); i++) {
+				if (!results.get(i).join().booleanValue()) {
+					return checks.get(i).failure;
+				}
+			}
+			return ValidationResult.VALID;
+		});
+	}
+
+	private static class ValidationResult {
+		private static final ValidationResult VALID = new ValidationResult(null, false);
+
+		private final String message;
+		private final boolean installRequired;
+
+		private ValidationResult(String message, boolean installRequired) {
+			this.message = message;
+			this.installRequired = installRequired;
+		}
+
+		private boolean isValid() {
+			return message == null;
+		}
+	}
+
+	private static class VersionCheck {
+		private final String[] command;
+		private final Pattern versionPattern;
+		private final ValidationResult failure;
+
+		private VersionCheck(String[] command, Pattern versionPattern, ValidationResult failure) {
+			this.command = command;
+			this.versionPattern = versionPattern;
+			this.failure = failure;
+		}
+
+		/**
+		 * @return the result of the check, cancelling it stops its process unless
+		 *         another caller shares it
+		 */
+		private CompletableFuture<Boolean> start() {
+			return CorrosionPlugin.validateCommandVersionAsync(command, versionPattern);
 		}
-		setErrorMessage(null);
-		return true;
 	}
 
 	private static String varParse(String unparsedString) {
@@ -265,6 +467,20 @@ public class CorrosionPreferencePage extends PreferencePage implements IWorkbenc
 		sysrootInput.setValue(store.getDefaultString(CorrosionPreferenceInitializer.SYSROOT_PATH_PREFERENCE));
 		workingDirectoryInput
 				.setValue(store.getDefaultString(CorrosionPreferenceInitializer.WORKING_DIRECTORY_PREFERENCE));
+		setLanguageServerSelection(LanguageServerBackends.IDS
+				.indexOf(store.getDefaultString(CorrosionPreferenceInitializer.LANGUAGE_SERVER_PREFERENCE)));
+		rustAnalyzerInput
+				.setValue(store.getDefaultString(CorrosionPreferenceInitializer.RUST_ANALYZER_PATH_PREFERENCE));
+		prewarmCheckbox
+				.setSelection(store.getDefaultBoolean(CorrosionPreferenceInitializer.PREWARM_LANGUAGE_SERVER_PREFERENCE));
+		shareServerCheckbox
+				.setSelection(store.getDefaultBoolean(CorrosionPreferenceInitializer.SHARE_LANGUAGE_SERVER_PREFERENCE));
+		statisticsCheckbox.setSelection(
+				store.getDefaultBoolean(CorrosionPreferenceInitializer.LANGUAGE_SERVER_STATISTICS_PREFERENCE));
+		cargoMarkersCheckbox.setSelection(
+				store.getDefaultBoolean(CorrosionPreferenceInitializer.CARGO_DIAGNOSTIC_MARKERS_PREFERENCE));
+		memoryLimitInput.setValue(Long
+				.toString(store.getDefaultLong(CorrosionPreferenceInitializer.LANGUAGE_SERVER_MEMORY_LIMIT_PREFERENCE)));
 		super.performDefaults();
 	}
 
@@ -312,7 +528,7 @@ public class CorrosionPreferencePage extends PreferencePage implements IWorkbenc
 		} else {
 			disableRadioButton.setSelection(true);
 		}
-		isPageValid();
+		validatePage();
 	}
 
 	@Override
@@ -322,6 +538,21 @@ public class CorrosionPreferencePage extends PreferencePage implements IWorkbenc
 		store.setValue(CorrosionPreferenceInitializer.WORKING_DIRECTORY_PREFERENCE, workingDirectoryInput.getValue());
 		store.setValue(CorrosionPreferenceInitializer.RLS_CONFIGURATION_PATH_PREFERENCE,
 				rlsConfigurationPathInput.getValue());
+		store.setValue(CorrosionPreferenceInitializer.LANGUAGE_SERVER_PREFERENCE,
+				LanguageServerBackends.IDS.get(Math.max(0, languageServerCombo.getSelectionIndex())));
+		store.setValue(CorrosionPreferenceInitializer.RUST_ANALYZER_PATH_PREFERENCE, rustAnalyzerInput.getValue());
+		boolean prewarmEnabled = !store.getBoolean(CorrosionPreferenceInitializer.PREWARM_LANGUAGE_SERVER_PREFERENCE)
+				&& prewarmCheckbox.getSelection();
+		store.setValue(CorrosionPreferenceInitializer.PREWARM_LANGUAGE_SERVER_PREFERENCE,
+				prewarmCheckbox.getSelection());
+		store.setValue(CorrosionPreferenceInitializer.SHARE_LANGUAGE_SERVER_PREFERENCE,
+				shareServerCheckbox.getSelection());
+		store.setValue(CorrosionPreferenceInitializer.LANGUAGE_SERVER_STATISTICS_PREFERENCE,
+				statisticsCheckbox.getSelection());
+		store.setValue(CorrosionPreferenceInitializer.CARGO_DIAGNOSTIC_MARKERS_PREFERENCE,
+				cargoMarkersCheckbox.getSelection());
+		store.setValue(CorrosionPreferenceInitializer.LANGUAGE_SERVER_MEMORY_LIMIT_PREFERENCE,
+				Long.parseLong(memoryLimitInput.getValue().trim()));
 
 		if (source == 0) {
 			store.setValue(CorrosionPreferenceInitializer.TOOLCHAIN_TYPE_PREFERENCE, rustupToolchainCombo.getText());
@@ -339,6 +570,9 @@ public class CorrosionPreferencePage extends PreferencePage implements IWorkbenc
 			store.setValue(CorrosionPreferenceInitializer.RLS_PATH_PREFERENCE, rlsInput.getValue());
 			store.setValue(CorrosionPreferenceInitializer.SYSROOT_PATH_PREFERENCE, sysrootInput.getValue());
 		}
+		if (prewarmEnabled) {
+			LanguageServerPrewarmJob.scheduleIfEnabled();
+		}
 		return true;
 	}
 
@@ -373,7 +607,7 @@ public class CorrosionPreferencePage extends PreferencePage implements IWorkbenc
 				rustupInput.setValue(store.getDefaultString(CorrosionPreferenceInitializer.RUSTUP_PATHS_PREFERENCE));
 				cargoInput.setValue(store.getDefaultString(CorrosionPreferenceInitializer.CARGO_PATH_PREFERENCE));
 			}
-			setValid(isPageValid());
+			validatePage();
 		}));
 		installButton = new Button(parent, SWT.NONE);
 		installButton.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, false, false));
@@ -385,18 +619,18 @@ public class CorrosionPreferencePage extends PreferencePage implements IWorkbenc
 			}
 		}));
 
-		rustupInput = new InputComponent(parent, Messages.CorrosionPreferencePage_Rustup, e -> setValid(isPageValid()));
+		rustupInput = new InputComponent(parent, Messages.CorrosionPreferencePage_Rustup, e -> validatePage());
 		rustupInput.createComponent();
 		rustupInput.createVariableSelection();
 		rustupInput.createFileSelection();
 
-		cargoInput = new InputComponent(parent, Messages.CorrosionPreferencePage_caro, e -> setValid(isPageValid()));
+		cargoInput = new InputComponent(parent, Messages.CorrosionPreferencePage_caro, e -> validatePage());
 		cargoInput.createComponent();
 		cargoInput.createVariableSelection();
 		cargoInput.createFileSelection();
 
 		workingDirectoryInput = new OptionalDefaultInputComponent(container, Messages.LaunchUI_workingDirectory,
-				e -> setValid(isPageValid()),
+				e -> validatePage(),
 				() -> store.getString(CorrosionPreferenceInitializer.WORKING_DIRECTORY_PREFERENCE));
 		workingDirectoryInput.createComponent();
 		GridData wdTextData = workingDirectoryInput.getTextGridData();
@@ -406,7 +640,7 @@ public class CorrosionPreferencePage extends PreferencePage implements IWorkbenc
 		workingDirectoryInput.createFolderSelection();
 
 		rlsConfigurationPathInput = new InputComponent(parent, Messages.CorrosionPreferencePage_rlsConfigurationPath,
-				e -> setValid(isPageValid()));
+				e -> validatePage());
 		rlsConfigurationPathInput.createComponent();
 		rlsConfigurationPathInput.createVariableSelection();
 		rlsConfigurationPathInput.createFileSelection();
@@ -444,6 +678,7 @@ public class CorrosionPreferencePage extends PreferencePage implements IWorkbenc
 			@Override
 			public void done(final IJobChangeEvent event) {
 				if (event.getResult() == Status.OK_STATUS) {
+					CommandVersionCache.clear();
 					CorrosionPreferenceInitializer initializer = new CorrosionPreferenceInitializer();
 					initializer.initializeDefaultPreferences();
 					Job setDefaultToolchainJob = RustManager.setDefaultToolchain(
@@ -458,7 +693,7 @@ public class CorrosionPreferencePage extends PreferencePage implements IWorkbenc
 								}
 								setInstallRequired(false);
 								performDefaults();
-								setValid(isPageValid());
+								validatePage();
 							});
 						}
 					});
@@ -509,7 +744,7 @@ public class CorrosionPreferencePage extends PreferencePage implements IWorkbenc
 			setToolchainSelection(rustupToolchainCombo.getSelectionIndex());
 			getShell().pack();
 			getShell().layout();
-			setValid(isPageValid());
+			validatePage();
 		}));
 		new Label(parent, SWT.NONE);
 
@@ -520,7 +755,7 @@ public class CorrosionPreferencePage extends PreferencePage implements IWorkbenc
 		otherIdData.exclude = false;
 		otherIdComposite.setLayoutData(otherIdData);
 		otherIdInput = new InputComponent(otherIdComposite, Messages.CorrosionPreferencePage_id,
-				e -> setValid(isPageValid()));
+				e -> validatePage());
 		otherIdInput.createComponent();
 		new Label(parent, SWT.NONE);
 	}
@@ -552,7 +787,7 @@ public class CorrosionPreferencePage extends PreferencePage implements IWorkbenc
 		textIndent.horizontalIndent = 50;
 		textIndent.widthHint = convertWidthInCharsToPixels(50);
 
-		rlsInput = new InputComponent(parent, Messages.CorrosionPreferencePage_rlsPath, e -> setValid(isPageValid()));
+		rlsInput = new InputComponent(parent, Messages.CorrosionPreferencePage_rlsPath, e -> validatePage());
 		rlsInput.createComponent();
 		rlsInput.createVariableSelection();
 		rlsInput.createFileSelection();
@@ -560,7 +795,7 @@ public class CorrosionPreferencePage extends PreferencePage implements IWorkbenc
 		rlsInput.setTextGridData(textIndent);
 
 		sysrootInput = new InputComponent(parent, Messages.CorrosionPreferencePage_sysrootPath,
-				e -> setValid(isPageValid()));
+				e -> validatePage());
 		sysrootInput.createComponent();
 		sysrootInput.createVariableSelection();
 		sysrootInput.createFileSelection();
@@ -572,4 +807,48 @@ public class CorrosionPreferencePage extends PreferencePage implements IWorkbenc
 		rlsInput.setEnabled(enabled);
 		sysrootInput.setEnabled(enabled);
 	}
+
+	private void createLanguageServerPart(Composite container) {
+		Composite parent = new Composite(container, SWT.NULL);
+		parent.setLayout(new GridLayout(4, false));
+		parent.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true, 4, 1));
+
+		Label languageServerLabel = new Label(parent, SWT.NONE);
+		languageServerLabel.setText(Messages.CorrosionPreferencePage_languageServer);
+		languageServerLabel.setLayoutData(new GridData(SWT.LEFT, SWT.CENTER, false, false));
+
+		languageServerCombo = new Combo(parent, SWT.DROP_DOWN | SWT.READ_ONLY);
+		languageServerCombo.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false, 3, 1));
+		languageServerCombo.add("RLS"); //$NON-NLS-1$
+		languageServerCombo.add("rust-analyzer"); //$NON-NLS-1$
+		languageServerCombo.addSelectionListener(widgetSelectedAdapter(e -> {
+			setLanguageServerSelection(languageServerCombo.getSelectionIndex());
+		}));
+
+		GridData labelIndent = new GridData(SWT.FILL, SWT.CENTER, true, false, 4, 1);
+		labelIndent.horizontalIndent = 25;
+
+		GridData textIndent = new GridData(SWT.FILL, SWT.CENTER, true, false);
+		textIndent.horizontalIndent = 50;
+		textIndent.widthHint = convertWidthInCharsToPixels(50);
+
+		rustAnalyzerInput = new InputComponent(parent, Messages.CorrosionPreferencePage_rustAnalyzerPath,
+				e -> validatePage());
+		rustAnalyzerInput.createComponent();
+		rustAnalyzerInput.createVariableSelection();
+		rustAnalyzerInput.createFileSelection();
+		rustAnalyzerInput.setLabelGridData(labelIndent);
+		rustAnalyzerInput.setTextGridData(textIndent);
+	}
+
+	private void setLanguageServerSelection(int selection) {
+		languageServerCombo.select(Math.max(0, selection));
+		rustAnalyzerInput.setEnabled(!isRlsSelected());
+		validatePage();
+	}
+
+	private boolean isRlsSelected() {
+		return languageServerCombo.getSelectionIndex() != LanguageServerBackends.IDS
+				.indexOf(LanguageServerBackends.RUST_ANALYZER);
+	}
 }
@@ -29,7 +29,56 @@ public class Messages extends NLS {
 	public static String CargoRunDelegate_unableToFindProject;
 	public static String CargoRunDelegate_unableToFindToml;
 	public static String CargoRunDelegate_unableToLaunch;
+	public static String LanguageServerPrewarmJob_name;
+	public static String SnippetLibrary_loadJob;
+	public static String CargoMarkerUpdater_jobName;
 	public static String LaunchUI_main;
+	public static String LanguageServerStatusContribution_status;
+	public static String ProgressIndicatorJob_crateThroughput;
+	public static String LanguageServerWatchdog_restarting;
+	public static String LanguageServerWatchdog_restartJob;
+	public static String LanguageServerStatisticsView_method;
+	public static String LanguageServerStatisticsView_requests;
+	public static String LanguageServerStatisticsView_notifications;
+	public static String LanguageServerStatisticsView_inFlight;
+	public static String LanguageServerStatisticsView_mean;
+	public static String LanguageServerStatisticsView_p50;
+	public static String LanguageServerStatisticsView_p90;
+	public static String LanguageServerStatisticsView_p99;
+	public static String LanguageServerStatisticsView_max;
+	public static String LanguageServerStatisticsView_bytesSent;
+	public static String LanguageServerStatisticsView_bytesReceived;
+	public static String LanguageServerStatisticsView_reset;
+	public static String LanguageServerStatisticsView_export;
+	public static String LanguageServerStatisticsView_exportFailed;
+	public static String LanguageServerStatisticsView_disabled;
+	public static String TestResultsView_noSession;
+	public static String TestResultsView_summary;
+	public static String TestResultsView_durationsEstimated;
+	public static String TestResultsView_durationsUnavailable;
+	public static String TestResultsView_status;
+	public static String TestResultsView_test;
+	public static String TestResultsView_duration;
+	public static String TestResultsView_suite;
+	public static String TestResultsView_failuresOnly;
+	public static String TestResultsView_passed;
+	public static String TestResultsView_failed;
+	public static String TestResultsView_ignored;
+	public static String TestResultsView_running;
+	public static String TestResultsView_sourceNotFound;
+	public static String TestResultsView_locatingSource;
+	public static String TestDurationReportView_project;
+	public static String TestDurationReportView_threshold;
+	public static String TestDurationReportView_regressionsOnly;
+	public static String TestDurationReportView_test;
+	public static String TestDurationReportView_latest;
+	public static String TestDurationReportView_mean;
+	public static String TestDurationReportView_min;
+	public static String TestDurationReportView_max;
+	public static String TestDurationReportView_change;
+	public static String TestDurationReportView_trend;
+	public static String TestDurationReportView_refresh;
+	public static String TestDurationReportView_latestRunSkipped;
 	public static String LaunchUI_useDefault;
 	public static String LaunchUI_variables;
 	public static String LaunchUI_selection;
@@ -61,6 +110,7 @@ public class Messages extends NLS {
 	public static String RLSStreamConnectionProvider_rlsConfigurationNotFound;
 	public static String RLSStreamConnectionProvider_rlsConfigurationNotSet;
 	public static String RLSStreamConnectionProvider_rlsConfigurationError;
+	public static String RLSStreamConnectionProvider_rustAnalyzerNotFound;
 	public static String RLSStreamConnectionProvider_rustSupportNotFound;
 	public static String RLSStreamConnectionProvider_unableToSet;
 	public static String RustDebugDelegate_unableToLaunch_title;
@@ -85,6 +135,12 @@ public class Messages extends NLS {
 	public static String ToggleBreakpointsTargetFactory_breakpointTarget;
 	public static String CargoTestTab_testName;
 	public static String CargoTestTab_testNameDescription;
+	public static String CargoTestTab_rerun;
+	public static String CargoTestTab_rerunAll;
+	public static String CargoTestTab_rerunFailedOnly;
+	public static String CargoTestTab_rerunFailedFirst;
+	public static String CargoTestTab_sharded;
+	public static String CargoTestTab_parallelism;
 	public static String CargoExportWizard_commandFailed;
 	public static String CargoExportWizardPage_allowDirtyDirectories;
 	public static String CargoExportWizardPage_browse;
@@ -125,10 +181,21 @@ public class Messages extends NLS {
 	public static String CorrosionPreferencePage_invalidSysroot;
 	public static String CorrosionPreferencePage_invalidVersion;
 	public static String CorrosionPreferencePage_otherInstallation;
+	public static String CorrosionPreferencePage_prewarmLanguageServer;
+	public static String CorrosionPreferencePage_languageServerStatistics;
+	public static String CorrosionPreferencePage_shareLanguageServer;
+	public static String CorrosionPreferencePage_cargoDiagnosticMarkers;
+	public static String CorrosionPreferencePage_memoryLimit;
+	public static String CorrosionPreferencePage_invalidMemoryLimit;
 	public static String CorrosionPreferencePage_rlsLocation;
 	public static String CorrosionPreferencePage_rlsNonExecutable;
 	public static String CorrosionPreferencePage_rlsPath;
 	public static String CorrosionPreferencePage_rlsConfigurationPath;
+	public static String CorrosionPreferencePage_languageServer;
+	public static String CorrosionPreferencePage_rustAnalyzerPath;
+	public static String CorrosionPreferencePage_invalidRustAnalyzerPath;
+	public static String CorrosionPreferencePage_rustAnalyzerNonExecutable;
+	public static String CorrosionPreferencePage_missingRustAnalyzer;
 	public static String CorrosionPreferencePage_Rustup;
 	public static String CorrosionPreferencePage_rustupNonExecutable;
 	public static String CorrosionPreferencePage_rustupMissingRLS;
@@ -0,0 +1,63 @@
+/*********************************************************************
+ * Copyright (c) 2019 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Red Hat Inc. - Initial implementation
+ *******************************************************************************/
+package org.eclipse.corrosion;
+
+/**
+ * Exit code and captured output of a terminated external command.
+ */
+public class ProcessResult {
+	private final int exitCode;
+	private final String output;
+	private final String error;
+
+	public ProcessResult(int exitCode, String output, String error) {
+		this.exitCode = exitCode;
+		this.output = output;
+		this.error = error;
+	}
+
+	public int getExitCode() {
+		return exitCode;
+	}
+
+	public boolean isSuccessful() {
+		return exitCode == 0;
+	}
+
+	/**
+	 * @return everything the command wrote to its standard output
+	 */
+	public String getOutput() {
+		return output;
+	}
+
+	/**
+	 * @return everything the command wrote to its standard error
+	 */
+	public String getError() {
+		return error;
+	}
+
+	/**
+	 * @return the first line of the standard output, or an empty string if the
+	 *         command printed nothing
+	 */
+	public String getFirstOutputLine() {
+		int lineEnd = output.indexOf('\n');
+		String line = lineEnd == -1 ? output : output.substring(0, lineEnd);
+		if (line.endsWith("\r")) { //$NON-NLS-1$
+			line = line.substring(0, line.length() - 1);
+		}
+		return line;
+	}
+}
@@ -13,14 +13,12 @@
  *******************************************************************************/
 package org.eclipse.corrosion;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.regex.Pattern;
 
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -45,9 +43,12 @@ import org.eclipse.ui.texteditor.ITextEditor;
 public class RustManager {
 	private static final IPreferenceStore STORE = CorrosionPlugin.getDefault().getPreferenceStore();
 	public static final String RLS_VERSION_FORMAT_REGEX = "^rls.*$"; //$NON-NLS-1$
+	public static final String RUST_ANALYZER_VERSION_FORMAT_REGEX = "^rust-analyzer.*$"; //$NON-NLS-1$
 	public static final String CARGO_VERSION_FORMAT_REGEX = "^cargo .*$"; //$NON-NLS-1$
 	public static final String RUSTUP_VERSION_FORMAT_REGEX = "^rustup .*$"; //$NON-NLS-1$
 	public static final Pattern RLS_VERSION_FORMAT_PATTERN = Pattern.compile(RLS_VERSION_FORMAT_REGEX);
+	public static final Pattern RUST_ANALYZER_VERSION_FORMAT_PATTERN = Pattern
+			.compile(RUST_ANALYZER_VERSION_FORMAT_REGEX);
 	public static final Pattern CARGO_VERSION_FORMAT_PATTERN = Pattern.compile(CARGO_VERSION_FORMAT_REGEX);
 	public static final Pattern RUSTUP_VERSION_FORMAT_PATTERN = Pattern.compile(RUSTUP_VERSION_FORMAT_REGEX);
 
@@ -56,41 +57,7 @@ public class RustManager {
 	}
 
 	public static String getDefaultToolchain() {
-		String rustup = STORE.getString(CorrosionPreferenceInitializer.RUSTUP_PATHS_PREFERENCE);
-		final String emptyResult = ""; //$NON-NLS-1$
-		if (rustup.isEmpty()) {
-			return emptyResult;
-		}
-
-		try {
-			Process process = CorrosionPlugin.getProcessForCommand(rustup, "show"); //$NON-NLS-1$
-			if (process.waitFor() != 0) {
-				return emptyResult;
-			}
-			try (BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-				String line = in.readLine();
-				while (line != null) {
-					if (line.matches("^.*\\(default\\)$")) { //$NON-NLS-1$
-						if (line.matches("^nightly-\\d{4}-\\d{2}-\\d{2}.*$")) { //$NON-NLS-1$
-							return line.substring(0, 18);// "nightly-YYYY-MM-DD".length()==18
-						}
-						int splitIndex = line.indexOf('-');
-						if (splitIndex != -1) {
-							return line.substring(0, splitIndex);
-						}
-						return line;
-					}
-					line = in.readLine();
-				}
-			}
-		} catch (IOException e) {
-			CorrosionPlugin.logError(e);
-			return emptyResult;
-		} catch (InterruptedException e) {
-			CorrosionPlugin.logError(e);
-			Thread.currentThread().interrupt();
-		}
-		return emptyResult;
+		return RustToolchainRegistry.getDefaultToolchain();
 	}
 
 	private static Job settingToolchainJob = null;
@@ -118,12 +85,17 @@ public class RustManager {
 						Messages.RustManager_unableToAddComponent, "component", //$NON-NLS-1$
 						"add", "rust-analysis")); //$NON-NLS-1$ //$NON-NLS-2$
 
-				for (CommandJob commandJob : jobs) {
-					currentCommandJob = commandJob;
-					if (currentCommandJob.run(monitor) == Status.CANCEL_STATUS) {
-						return Status.CANCEL_STATUS;
+				try {
+					for (CommandJob commandJob : jobs) {
+						currentCommandJob = commandJob;
+						if (currentCommandJob.run(monitor) == Status.CANCEL_STATUS) {
+							return Status.CANCEL_STATUS;
+						}
+						monitor.worked(1);
 					}
-					monitor.worked(1);
+				} finally {
+					RustToolchainRegistry.invalidate();
+					CommandVersionCache.clear();
 				}
 				Map<String, String> updatedSettings = new HashMap<>();
 				updatedSettings.put("target", toolchainId); //$NON-NLS-1$
@@ -190,60 +162,32 @@ public class RustManager {
 	}
 
 	public static List<String> getToolchains() {
-		List<String> toolchainsList = new ArrayList<>();
-		String rustup = STORE.getString(CorrosionPreferenceInitializer.RUSTUP_PATHS_PREFERENCE);
-		if (rustup.isEmpty()) {
-			return toolchainsList;
-		}
-		try {
-			Process process = CorrosionPlugin.getProcessForCommand(rustup, "show"); //$NON-NLS-1$
-
-			if (process.waitFor() != 0) {
-				return toolchainsList;
-			}
-			try (BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-				String line = in.readLine();
-				while (line != null && !line.equals("active toolchain")) { //$NON-NLS-1$
-					String toolchain = ""; //$NON-NLS-1$
-					if (line.matches("^nightly-\\d{4}-\\d{2}-\\d{2}.*$")) { //$NON-NLS-1$
-						toolchain = line.substring(0, 18);// "nightly-YYYY-MM-DD".length()==18
-					} else if (line.matches("\\w+\\-.*")) { //$NON-NLS-1$
-						int splitIndex = line.indexOf('-');
-						if (splitIndex != -1) {
-							toolchain = line.substring(0, splitIndex);
-						}
-					}
-					if (!toolchain.isEmpty()) {
-						toolchainsList.add(toolchain);
-					}
-					line = in.readLine();
-				}
-			}
-		} catch (Exception e) { // Errors will be caught with empty return
-			CorrosionPlugin.logError(e);
-		}
-		return toolchainsList;
+		return RustToolchainRegistry.getToolchains();
 	}
 
-	public static boolean setSystemProperties() {
+	public static CompletableFuture<Boolean> setSystemProperties() {
 		CorrosionPlugin plugin = CorrosionPlugin.getDefault();
 		IPreferenceStore preferenceStore = plugin.getPreferenceStore();
 		int rustSourceIndex = CorrosionPreferencePage.RUST_SOURCE_OPTIONS
 				.indexOf(preferenceStore.getString(CorrosionPreferenceInitializer.RUST_SOURCE_PREFERENCE));
 
-		String sysrootPath = ""; //$NON-NLS-1$
+		CompletableFuture<String> sysrootPath = CompletableFuture.completedFuture(""); //$NON-NLS-1$
 
 		if (rustSourceIndex == 0) {
 			String rustup = preferenceStore.getString(CorrosionPreferenceInitializer.RUSTUP_PATHS_PREFERENCE);
 			String toolchain = preferenceStore.getString(CorrosionPreferenceInitializer.TOOLCHAIN_ID_PREFERENCE);
 			if (!(rustup.isEmpty() || toolchain.isEmpty())) {
 				String[] command = new String[] { rustup, "run", toolchain, "rustc", "--print", "sysroot" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
-				sysrootPath = CorrosionPlugin.getOutputFromCommand(command);
+				sysrootPath = CorrosionPlugin.getOutputFromCommandAsync(command);
 			}
 		} else if (rustSourceIndex == 1) {
-			sysrootPath = preferenceStore.getString(CorrosionPreferenceInitializer.SYSROOT_PATH_PREFERENCE);
+			sysrootPath = CompletableFuture.completedFuture(
+					preferenceStore.getString(CorrosionPreferenceInitializer.SYSROOT_PATH_PREFERENCE));
 		}
+		return sysrootPath.thenApply(RustManager::setSystemProperties);
+	}
 
+	private static boolean setSystemProperties(String sysrootPath) {
 		if (sysrootPath != null && !sysrootPath.isEmpty()) {
 			System.setProperty("SYS_ROOT", sysrootPath); //$NON-NLS-1$
 			System.setProperty("LD_LIBRARY_PATH", sysrootPath + "/lib"); //$NON-NLS-1$ //$NON-NLS-2$
@@ -272,24 +216,54 @@ public class RustManager {
 		return preferencePath;
 	}
 
-	public static String getRLS() {
+	public static CompletableFuture<String> getRLS() {
 		CorrosionPlugin plugin = CorrosionPlugin.getDefault();
 		IPreferenceStore preferenceStore = plugin.getPreferenceStore();
 		int rustSourceIndex = CorrosionPreferencePage.RUST_SOURCE_OPTIONS
 				.indexOf(preferenceStore.getString(CorrosionPreferenceInitializer.RUST_SOURCE_PREFERENCE));
 
-		String rlsPath = ""; //$NON-NLS-1$
+		CompletableFuture<String> rlsPath = CompletableFuture.completedFuture(""); //$NON-NLS-1$
 		if (rustSourceIndex == 0) {
 			String rustup = preferenceStore.getString(CorrosionPreferenceInitializer.RUSTUP_PATHS_PREFERENCE);
-			rlsPath = CorrosionPlugin.getOutputFromCommand(rustup, "which", "rls"); //$NON-NLS-1$ //$NON-NLS-2$
+			rlsPath = CorrosionPlugin.getOutputFromCommandAsync(rustup, "which", "rls"); //$NON-NLS-1$ //$NON-NLS-2$
 		} else if (rustSourceIndex == 1) {
-			rlsPath = preferenceStore.getString(CorrosionPreferenceInitializer.RLS_PATH_PREFERENCE);
+			rlsPath = CompletableFuture
+					.completedFuture(preferenceStore.getString(CorrosionPreferenceInitializer.RLS_PATH_PREFERENCE));
 		}
-		if (rlsPath.isEmpty()) {
-			CorrosionPlugin.getDefault().getLog()
-					.log(new Status(IStatus.ERROR, CorrosionPlugin.getDefault().getBundle().getSymbolicName(),
-							Messages.RLSStreamConnectionProvider_rlsNotFound));
+		return rlsPath.thenApply(path -> {
+			if (path.isEmpty()) {
+				CorrosionPlugin.getDefault().getLog()
+						.log(new Status(IStatus.ERROR, CorrosionPlugin.getDefault().getBundle().getSymbolicName(),
+								Messages.RLSStreamConnectionProvider_rlsNotFound));
+			}
+			return path;
+		});
+	}
+
+	/**
+	 * Locates rust-analyzer: the configured path first, then the binary of the
+	 * rustup toolchain when rustup is the Rust source.
+	 */
+	public static CompletableFuture<String> getRustAnalyzer() {
+		IPreferenceStore preferenceStore = CorrosionPlugin.getDefault().getPreferenceStore();
+		int rustSourceIndex = CorrosionPreferencePage.RUST_SOURCE_OPTIONS
+				.indexOf(preferenceStore.getString(CorrosionPreferenceInitializer.RUST_SOURCE_PREFERENCE));
+		String configuredPath = preferenceStore.getString(CorrosionPreferenceInitializer.RUST_ANALYZER_PATH_PREFERENCE);
+
+		CompletableFuture<String> rustAnalyzerPath = CompletableFuture.completedFuture(""); //$NON-NLS-1$
+		if (!configuredPath.isEmpty() && rustSourceIndex != 2) {
+			rustAnalyzerPath = CompletableFuture.completedFuture(configuredPath);
+		} else if (rustSourceIndex == 0) {
+			String rustup = preferenceStore.getString(CorrosionPreferenceInitializer.RUSTUP_PATHS_PREFERENCE);
+			rustAnalyzerPath = CorrosionPlugin.getOutputFromCommandAsync(rustup, "which", "rust-analyzer"); //$NON-NLS-1$ //$NON-NLS-2$
 		}
-		return rlsPath;
+		return rustAnalyzerPath.thenApply(path -> {
+			if (path.isEmpty()) {
+				CorrosionPlugin.getDefault().getLog()
+						.log(new Status(IStatus.ERROR, CorrosionPlugin.getDefault().getBundle().getSymbolicName(),
+								Messages.RLSStreamConnectionProvider_rustAnalyzerNotFound));
+			}
+			return path;
+		});
 	}
 }
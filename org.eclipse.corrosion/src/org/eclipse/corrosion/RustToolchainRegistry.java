@@ -0,0 +1,260 @@
+/*********************************************************************
+ * Copyright (c) 2019 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Red Hat Inc. - Initial implementation
+ *******************************************************************************/
+package org.eclipse.corrosion;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.jface.preference.IPreferenceStore;
+
+/**
+ * Caches the toolchains and components reported by <code>rustup</code>.
+ * Discovery forks <code>rustup show</code> only once; the result is kept until
+ * the rustup <code>settings.toml</code> file, the <code>toolchains/</code>
+ * directory or the configured rustup command change. Failed discoveries are not
+ * cached.
+ */
+public class RustToolchainRegistry {
+	private static final String NIGHTLY_TOOLCHAIN_REGEX = "^nightly-\\d{4}-\\d{2}-\\d{2}.*$"; //$NON-NLS-1$
+	private static final int NIGHTLY_TOOLCHAIN_LENGTH = 18; // "nightly-YYYY-MM-DD".length()
+
+	private static final AtomicReference<Snapshot> SNAPSHOT = new AtomicReference<>();
+
+	private RustToolchainRegistry() {
+		throw new IllegalStateException("Utility class"); //$NON-NLS-1$
+	}
+
+	/**
+	 * @return the default toolchain id, or an empty string if none could be found
+	 */
+	public static String getDefaultToolchain() {
+		return getSnapshot().defaultToolchain;
+	}
+
+	/**
+	 * @return the ids of the installed toolchains
+	 */
+	public static List<String> getToolchains() {
+		return getSnapshot().toolchains;
+	}
+
+	/**
+	 * Returns the installed components of the given toolchain. Components are
+	 * resolved on first request and cached along with the toolchain list.
+	 *
+	 * @param toolchainId
+	 * @return the names of the installed components
+	 */
+	public static List<String> getComponents(String toolchainId) {
+		Snapshot current = getSnapshot();
+		List<String> components = current.components.get(toolchainId);
+		if (components != null) {
+			return components;
+		}
+		if (current.rustup.isEmpty()) {
+			return Collections.emptyList();
+		}
+		List<String> lines = readLines(current.rustup, "component", "list", "--installed", "--toolchain", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+				toolchainId);
+		if (lines == null) {
+			return Collections.emptyList();
+		}
+		components = Collections.unmodifiableList(lines);
+		List<String> concurrent = current.components.putIfAbsent(toolchainId, components);
+		return concurrent != null ? concurrent : components;
+	}
+
+	/**
+	 * Drops the cached discovery so that the next request runs
+	 * <code>rustup show</code> again.
+	 */
+	public static void invalidate() {
+		SNAPSHOT.set(null);
+	}
+
+	/**
+	 * Runs the discovery without holding any lock, concurrent callers may both
+	 * run it. The result is only published if nobody invalidated or replaced the
+	 * snapshot meanwhile.
+	 */
+	private static Snapshot getSnapshot() {
+		IPreferenceStore store = CorrosionPlugin.getDefault().getPreferenceStore();
+		String rustup = store.getString(CorrosionPreferenceInitializer.RUSTUP_PATHS_PREFERENCE);
+		Fingerprint fingerprint = new Fingerprint(rustup, getRustupHome());
+		Snapshot current = SNAPSHOT.get();
+		if (current != null && current.fingerprint.equals(fingerprint)) {
+			return current;
+		}
+		if (rustup.isEmpty()) {
+			Snapshot empty = new Snapshot(rustup, fingerprint, "", Collections.emptyList()); //$NON-NLS-1$
+			SNAPSHOT.compareAndSet(current, empty);
+			return empty;
+		}
+		List<String> lines = readLines(rustup, "show"); //$NON-NLS-1$
+		if (lines == null || lines.isEmpty()) {
+			// not cached, so that a later request tries again
+			return new Snapshot(rustup, fingerprint, "", Collections.emptyList()); //$NON-NLS-1$
+		}
+		Snapshot discovered = new Snapshot(rustup, fingerprint, parseDefaultToolchain(lines),
+				Collections.unmodifiableList(parseToolchains(lines)));
+		SNAPSHOT.compareAndSet(current, discovered);
+		return discovered;
+	}
+
+	private static String parseDefaultToolchain(List<String> lines) {
+		for (String line : lines) {
+			if (line.matches("^.*\\(default\\)$")) { //$NON-NLS-1$
+				if (line.matches(NIGHTLY_TOOLCHAIN_REGEX)) {
+					return line.substring(0, NIGHTLY_TOOLCHAIN_LENGTH);
+				}
+				int splitIndex = line.indexOf('-');
+				if (splitIndex != -1) {
+					return line.substring(0, splitIndex);
+				}
+				return line;
+			}
+		}
+		return ""; //$NON-NLS-1$
+	}
+
+	private static List<String> parseToolchains(List<String> lines) {
+		List<String> toolchains = new ArrayList<>();
+		for (String line : lines) {
+			if (line.equals("active toolchain")) { //$NON-NLS-1$
+				break;
+			}
+			String toolchain = ""; //$NON-NLS-1$
+			if (line.matches(NIGHTLY_TOOLCHAIN_REGEX)) {
+				toolchain = line.substring(0, NIGHTLY_TOOLCHAIN_LENGTH);
+			} else if (line.matches("\\w+\\-.*")) { //$NON-NLS-1$
+				toolchain = line.substring(0, line.indexOf('-'));
+			}
+			if (!toolchain.isEmpty()) {
+				toolchains.add(toolchain);
+			}
+		}
+		return toolchains;
+	}
+
+	/**
+	 * @return the output lines of the given rustup command, <code>null</code> if
+	 *         it failed
+	 */
+	private static List<String> readLines(String rustup, String... arguments) {
+		String[] command = new String[arguments.length + 1];
+		command[0] = rustup;
+		System.arraycopy(arguments, 0, command, 1, arguments.length);
+		List<String> lines = new ArrayList<>();
+		try {
+			Process process = CorrosionPlugin.getProcessForCommand(command);
+			try (BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+				String line = in.readLine();
+				while (line != null) {
+					lines.add(line);
+					line = in.readLine();
+				}
+			}
+			if (process.waitFor() != 0) {
+				return null;
+			}
+		} catch (IOException e) {
+			CorrosionPlugin.logError(e);
+			return null;
+		} catch (InterruptedException e) {
+			CorrosionPlugin.logError(e);
+			Thread.currentThread().interrupt();
+			return null;
+		}
+		return lines;
+	}
+
+	private static File getRustupHome() {
+		String rustupHome = System.getenv("RUSTUP_HOME"); //$NON-NLS-1$
+		if (rustupHome != null && !rustupHome.isEmpty()) {
+			return new File(rustupHome);
+		}
+		return new File(System.getProperty("user.home"), ".rustup"); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	private static class Snapshot {
+		private final String rustup;
+		private final Fingerprint fingerprint;
+		private final String defaultToolchain;
+		private final List<String> toolchains;
+		private final Map<String, List<String>> components = new ConcurrentHashMap<>();
+
+		private Snapshot(String rustup, Fingerprint fingerprint, String defaultToolchain, List<String> toolchains) {
+			this.rustup = rustup;
+			this.fingerprint = fingerprint;
+			this.defaultToolchain = defaultToolchain;
+			this.toolchains = toolchains;
+		}
+	}
+
+	/**
+	 * Cheap file system state that changes whenever a toolchain is installed,
+	 * removed or made default.
+	 */
+	private static class Fingerprint {
+		private final String rustup;
+		private final long settingsModified;
+		private final long settingsLength;
+		private final long toolchainsModified;
+		private final List<String> toolchainEntries;
+
+		private Fingerprint(String rustup, File rustupHome) {
+			this.rustup = rustup;
+			File settings = new File(rustupHome, "settings.toml"); //$NON-NLS-1$
+			this.settingsModified = settings.lastModified();
+			this.settingsLength = settings.length();
+			File toolchainsDirectory = new File(rustupHome, "toolchains"); //$NON-NLS-1$
+			this.toolchainsModified = toolchainsDirectory.lastModified();
+			String[] entries = toolchainsDirectory.list();
+			if (entries == null) {
+				this.toolchainEntries = Collections.emptyList();
+			} else {
+				Arrays.sort(entries);
+				this.toolchainEntries = Arrays.asList(entries);
+			}
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Fingerprint)) {
+				return false;
+			}
+			Fingerprint other = (Fingerprint) obj;
+			return settingsModified == other.settingsModified && settingsLength == other.settingsLength
+					&& toolchainsModified == other.toolchainsModified && rustup.equals(other.rustup)
+					&& toolchainEntries.equals(other.toolchainEntries);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(rustup, settingsModified, settingsLength, toolchainsModified, toolchainEntries);
+		}
+	}
+}
@@ -0,0 +1,138 @@
+/*********************************************************************
+ * Copyright (c) 2019 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Red Hat Inc. - Initial implementation
+ *******************************************************************************/
+package org.eclipse.corrosion.cargo.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.corrosion.CorrosionPlugin;
+import org.eclipse.corrosion.Messages;
+import org.eclipse.corrosion.cargo.core.CargoMessageFilter.Diagnostic;
+
+/**
+ * Turns the diagnostics of a cargo command into problem markers of a project.
+ * Diagnostics are collected as they arrive and written by a job at most once
+ * per flush interval, each flush being a single workspace operation, so that
+ * a build with thousands of warnings only causes a few resource deltas. The
+ * markers of the previous command are removed by the first flush.
+ */
+public class CargoMarkerUpdater {
+	public static final String MARKER_TYPE = CorrosionPlugin.PLUGIN_ID + ".cargoProblem"; //$NON-NLS-1$
+	private static final long FLUSH_INTERVAL = 500;
+
+	private final IProject project;
+	private final Job job;
+	private final List<Diagnostic> pending = new ArrayList<>();
+	private boolean flushScheduled;
+	private boolean cleared;
+
+	public CargoMarkerUpdater(IProject project) {
+		this.project = project;
+		this.job = new Job(Messages.CargoMarkerUpdater_jobName) {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				return flush(monitor);
+			}
+		};
+		job.setSystem(true);
+		job.setRule(ResourcesPlugin.getWorkspace().getRuleFactory().markerRule(project));
+	}
+
+	/**
+	 * Removes the markers of the previous command.
+	 */
+	public synchronized void start() {
+		scheduleFlush(0);
+	}
+
+	public synchronized void add(Diagnostic diagnostic) {
+		pending.add(diagnostic);
+		scheduleFlush(FLUSH_INTERVAL);
+	}
+
+	/**
+	 * Writes the remaining diagnostics once the command has terminated.
+	 */
+	public synchronized void done() {
+		job.schedule();
+	}
+
+	private void scheduleFlush(long delay) {
+		if (!flushScheduled) {
+			flushScheduled = true;
+			job.schedule(delay);
+		}
+	}
+
+	private IStatus flush(IProgressMonitor monitor) {
+		List<Diagnostic> batch;
+		boolean clear;
+		synchronized (this) {
+			batch = new ArrayList<>(pending);
+			pending.clear();
+			flushScheduled = false;
+			clear = !cleared;
+			cleared = true;
+		}
+		if (!project.isAccessible()) {
+			return Status.OK_STATUS;
+		}
+		IWorkspace workspace = ResourcesPlugin.getWorkspace();
+		try {
+			workspace.run(runMonitor -> {
+				if (clear) {
+					project.deleteMarkers(MARKER_TYPE, true, IResource.DEPTH_INFINITE);
+				}
+				IWorkspaceRoot root = workspace.getRoot();
+				for (Diagnostic diagnostic : batch) {
+					IFile file = findFile(root, diagnostic);
+					if (file != null) {
+						IMarker marker = file.createMarker(MARKER_TYPE);
+						marker.setAttributes(
+								new String[] { IMarker.SEVERITY, IMarker.MESSAGE, IMarker.LINE_NUMBER },
+								new Object[] { diagnostic.getSeverity(), diagnostic.getMessage(),
+										diagnostic.getLine() });
+					}
+				}
+			}, job.getRule(), IWorkspace.AVOID_UPDATE, monitor);
+		} catch (CoreException e) {
+			CorrosionPlugin.logError(e);
+		}
+		return Status.OK_STATUS;
+	}
+
+	/**
+	 * @return the file of the project the diagnostic is about, markers are not
+	 *         created in other projects as they would not be cleared
+	 */
+	private IFile findFile(IWorkspaceRoot root, Diagnostic diagnostic) {
+		for (IFile file : root.findFilesForLocationURI(diagnostic.getFile().toURI())) {
+			if (project.equals(file.getProject()) && file.exists()) {
+				return file;
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,193 @@
+/*********************************************************************
+ * Copyright (c) 2019 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Red Hat Inc. - Initial implementation
+ *******************************************************************************/
+package org.eclipse.corrosion.cargo.core;
+
+import java.io.File;
+import java.util.function.Consumer;
+
+import org.eclipse.core.resources.IMarker;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+/**
+ * Processes the standard output of a cargo command run with
+ * <code>--message-format=json</code> one line at a time. Compiler messages are
+ * reported as {@link Diagnostic}s and replaced by their rendered text, other
+ * cargo messages are dropped and any other line, such as the output of the
+ * program being run, is kept.
+ */
+public class CargoMessageFilter {
+	private final File workspaceRoot;
+	private final Consumer<Diagnostic> consumer;
+	private final JsonParser parser = new JsonParser();
+
+	/**
+	 * @param workspaceRoot
+	 *            the root of the Cargo workspace, which file names of messages
+	 *            are relative to
+	 * @param consumer
+	 *            receives the diagnostics found in the output
+	 */
+	public CargoMessageFilter(File workspaceRoot, Consumer<Diagnostic> consumer) {
+		this.workspaceRoot = workspaceRoot;
+		this.consumer = consumer;
+	}
+
+	/**
+	 * @param line
+	 *            a line of output, without line delimiter
+	 * @return the text to show instead of the line, possibly spanning several
+	 *         lines, or <code>null</code> to show nothing
+	 */
+	public String filter(String line) {
+		JsonObject object = parseCargoMessage(line);
+		if (object == null) {
+			return line;
+		}
+		switch (object.get("reason").getAsString()) { //$NON-NLS-1$
+		case "compiler-message": //$NON-NLS-1$
+			JsonElement message = object.get("message"); //$NON-NLS-1$
+			if (message == null || !message.isJsonObject()) {
+				return null;
+			}
+			report(message.getAsJsonObject());
+			String rendered = getString(message.getAsJsonObject(), "rendered"); //$NON-NLS-1$
+			return rendered == null ? null : stripTrailingLineDelimiter(rendered);
+		case "compiler-artifact": //$NON-NLS-1$
+		case "build-script-executed": //$NON-NLS-1$
+		case "build-finished": //$NON-NLS-1$
+			return null;
+		default:
+			return line;
+		}
+	}
+
+	private JsonObject parseCargoMessage(String line) {
+		String trimmed = line.trim();
+		if (!trimmed.startsWith("{") || !trimmed.contains("\"reason\"")) { //$NON-NLS-1$ //$NON-NLS-2$
+			return null;
+		}
+		try {
+			JsonElement element = parser.parse(trimmed);
+			if (!element.isJsonObject()) {
+				return null;
+			}
+			JsonObject object = element.getAsJsonObject();
+			return getString(object, "reason") == null ? null : object; //$NON-NLS-1$
+		} catch (JsonParseException e) {
+			return null;
+		}
+	}
+
+	private void report(JsonObject message) {
+		String text = getString(message, "message"); //$NON-NLS-1$
+		JsonElement spans = message.get("spans"); //$NON-NLS-1$
+		if (text == null || spans == null || !spans.isJsonArray()) {
+			return;
+		}
+		JsonElement code = message.get("code"); //$NON-NLS-1$
+		if (code != null && code.isJsonObject()) {
+			String codeText = getString(code.getAsJsonObject(), "code"); //$NON-NLS-1$
+			if (codeText != null) {
+				text += " [" + codeText + ']'; //$NON-NLS-1$
+			}
+		}
+		int severity = getSeverity(getString(message, "level")); //$NON-NLS-1$
+		for (JsonElement element : spans.getAsJsonArray()) {
+			if (!element.isJsonObject()) {
+				continue;
+			}
+			JsonObject span = element.getAsJsonObject();
+			JsonElement primary = span.get("is_primary"); //$NON-NLS-1$
+			String fileName = getString(span, "file_name"); //$NON-NLS-1$
+			JsonElement lineStart = span.get("line_start"); //$NON-NLS-1$
+			if (primary == null || !primary.isJsonPrimitive() || !primary.getAsBoolean() || fileName == null
+					|| lineStart == null || !lineStart.isJsonPrimitive()) {
+				continue;
+			}
+			File file = new File(fileName);
+			if (!file.isAbsolute()) {
+				file = new File(workspaceRoot, fileName);
+			}
+			consumer.accept(new Diagnostic(file, lineStart.getAsInt(), severity, text));
+		}
+	}
+
+	private static int getSeverity(String level) {
+		if (level == null) {
+			return IMarker.SEVERITY_INFO;
+		}
+		if (level.startsWith("error")) { //$NON-NLS-1$
+			return IMarker.SEVERITY_ERROR;
+		}
+		if (level.equals("warning")) { //$NON-NLS-1$
+			return IMarker.SEVERITY_WARNING;
+		}
+		return IMarker.SEVERITY_INFO;
+	}
+
+	private static String getString(JsonObject object, String member) {
+		JsonElement element = object.get(member);
+		return element != null && element.isJsonPrimitive() ? element.getAsString() : null;
+	}
+
+	private static String stripTrailingLineDelimiter(String text) {
+		int end = text.length();
+		while (end > 0 && (text.charAt(end - 1) == '\n' || text.charAt(end - 1) == '\r')) {
+			end--;
+		}
+		return text.substring(0, end);
+	}
+
+	/**
+	 * A compiler message located in a file.
+	 */
+	public static class Diagnostic {
+		private final File file;
+		private final int line;
+		private final int severity;
+		private final String message;
+
+		public Diagnostic(File file, int line, int severity, String message) {
+			this.file = file;
+			this.line = line;
+			this.severity = severity;
+			this.message = message;
+		}
+
+		public File getFile() {
+			return file;
+		}
+
+		/**
+		 * @return the 1-based line number
+		 */
+		public int getLine() {
+			return line;
+		}
+
+		/**
+		 * @return one of the <code>IMarker.SEVERITY_*</code> constants
+		 */
+		public int getSeverity() {
+			return severity;
+		}
+
+		public String getMessage() {
+			return message;
+		}
+	}
+}
@@ -0,0 +1,215 @@
+/*********************************************************************
+ * Copyright (c) 2019 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Red Hat Inc. - Initial implementation
+ *******************************************************************************/
+package org.eclipse.corrosion.cargo.core;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+/**
+ * A cargo process whose standard output is passed through a
+ * {@link CargoMessageFilter}, or another line filter, as it is read. Lines that cannot be cargo
+ * messages are forwarded as soon as they are available, so that prompts of the
+ * program being run are shown before their line is complete.
+ */
+public class CargoMessageProcess extends Process {
+	private final Process process;
+	private final InputStream inputStream;
+
+	/**
+	 * @param onEnd
+	 *            run once the whole standard output has been read
+	 */
+	public CargoMessageProcess(Process process, CargoMessageFilter filter, Runnable onEnd) {
+		this(process, filter::filter, false, onEnd);
+	}
+
+	/**
+	 * @param filter
+	 *            maps a line of output, without line delimiter, to the text to
+	 *            show instead, <code>null</code> to show nothing
+	 * @param allLines
+	 *            whether every line goes through the filter, rather than only
+	 *            those that can be cargo messages
+	 * @param onEnd
+	 *            run once the whole standard output has been read
+	 */
+	public CargoMessageProcess(Process process, UnaryOperator<String> filter, boolean allLines, Runnable onEnd) {
+		this.process = process;
+		this.inputStream = new FilteredInputStream(process.getInputStream(), filter, allLines, onEnd);
+	}
+
+	@Override
+	public OutputStream getOutputStream() {
+		return process.getOutputStream();
+	}
+
+	@Override
+	public InputStream getInputStream() {
+		return inputStream;
+	}
+
+	@Override
+	public InputStream getErrorStream() {
+		return process.getErrorStream();
+	}
+
+	@Override
+	public int waitFor() throws InterruptedException {
+		return process.waitFor();
+	}
+
+	@Override
+	public boolean waitFor(long timeout, TimeUnit unit) throws InterruptedException {
+		return process.waitFor(timeout, unit);
+	}
+
+	@Override
+	public int exitValue() {
+		return process.exitValue();
+	}
+
+	@Override
+	public void destroy() {
+		process.destroy();
+	}
+
+	@Override
+	public Process destroyForcibly() {
+		process.destroyForcibly();
+		return this;
+	}
+
+	@Override
+	public boolean isAlive() {
+		return process.isAlive();
+	}
+
+	private static class FilteredInputStream extends InputStream {
+		private static final byte[] EMPTY = new byte[0];
+
+		private final InputStream input;
+		private final UnaryOperator<String> filter;
+		private final boolean allLines;
+		private final Runnable onEnd;
+		private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+		private byte[] buffer = EMPTY;
+		private int position;
+		private boolean atLineStart = true;
+		private boolean ended;
+
+		private FilteredInputStream(InputStream input, UnaryOperator<String> filter, boolean allLines,
+				Runnable onEnd) {
+			this.input = new BufferedInputStream(input);
+			this.filter = filter;
+			this.allLines = allLines;
+			this.onEnd = onEnd;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (!fill()) {
+				return -1;
+			}
+			return buffer[position++] & 0xff;
+		}
+
+		@Override
+		public int read(byte[] bytes, int offset, int length) throws IOException {
+			if (length == 0) {
+				return 0;
+			}
+			if (!fill()) {
+				return -1;
+			}
+			int count = Math.min(length, buffer.length - position);
+			System.arraycopy(buffer, position, bytes, offset, count);
+			position += count;
+			return count;
+		}
+
+		@Override
+		public int available() throws IOException {
+			return buffer.length - position;
+		}
+
+		@Override
+		public void close() throws IOException {
+			input.close();
+		}
+
+		/**
+		 * @return whether bytes are available in the buffer, <code>false</code> at
+		 *         the end of the stream
+		 */
+		private boolean fill() throws IOException {
+			while (position >= buffer.length) {
+				if (ended) {
+					return false;
+				}
+				position = 0;
+				buffer = readChunk();
+			}
+			return true;
+		}
+
+		private byte[] readChunk() throws IOException {
+			line.reset();
+			int c = input.read();
+			if (c == -1) {
+				end();
+				return EMPTY;
+			}
+			line.write(c);
+			if (atLineStart && (allLines || c == '{')) {
+				// Possibly a cargo message, wait for the whole line
+				while (c != '\n' && (c = input.read()) != -1) {
+					line.write(c);
+				}
+				if (c == -1) {
+					end();
+				}
+				return filterLine(line.toByteArray());
+			}
+			// Forward what is available without waiting for the end of the line
+			while (c != '\n' && input.available() > 0) {
+				c = input.read();
+				line.write(c);
+			}
+			atLineStart = c == '\n';
+			return line.toByteArray();
+		}
+
+		private byte[] filterLine(byte[] bytes) {
+			String text = new String(bytes, StandardCharsets.UTF_8);
+			String delimiter = text.endsWith("\r\n") ? "\r\n" : text.endsWith("\n") ? "\n" : ""; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+			String result = filter.apply(text.substring(0, text.length() - delimiter.length()));
+			if (result == null) {
+				return EMPTY;
+			}
+			return (result + (delimiter.isEmpty() ? "\n" : delimiter)).getBytes(StandardCharsets.UTF_8); //$NON-NLS-1$
+		}
+
+		private void end() {
+			if (!ended) {
+				ended = true;
+				onEnd.run();
+			}
+		}
+	}
+}
@@ -14,11 +14,23 @@ package org.eclipse.corrosion.cargo.core;
 
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IProjectDescription;
@@ -33,6 +45,17 @@ import org.eclipse.corrosion.CorrosionPreferenceInitializer;
 import org.eclipse.jface.preference.IPreferenceStore;
 
 public class CargoTools {
+	/**
+	 * Makes cargo report compiler messages as JSON on its standard output, see
+	 * {@link #withDiagnosticMarkers(Process, IProject)}.
+	 */
+	public static final String MESSAGE_FORMAT_JSON_OPTION = "--message-format=json"; //$NON-NLS-1$
+
+	private static final Pattern TABLE_HEADER_PATTERN = Pattern.compile("\\[(\\[?)\\s*([^\\[\\]]+?)\\s*\\]\\]?"); //$NON-NLS-1$
+	private static final Pattern WORKSPACE_ARRAY_PATTERN = Pattern.compile("(members|exclude)\\s*=\\s*\\[(.*)"); //$NON-NLS-1$
+	private static final Pattern STRING_PATTERN = Pattern.compile("\"([^\"]*)\"|'([^']*)'"); //$NON-NLS-1$
+	private static final Pattern KEY_VALUE_PATTERN = Pattern.compile("([\\w-]+)(\\s*\\.\\s*workspace)?\\s*=\\s*(.*)"); //$NON-NLS-1$
+	private static final Pattern INHERITED_VALUE_PATTERN = Pattern.compile("\\{\\s*workspace\\s*=\\s*true\\s*\\}"); //$NON-NLS-1$
 
 	private CargoTools() {
 		throw new IllegalStateException("Utility class"); //$NON-NLS-1$
@@ -79,6 +102,259 @@ public class CargoTools {
 		}
 	}
 
+	/**
+	 * @return whether cargo commands launched by Corrosion should report their
+	 *         diagnostics as problem markers
+	 */
+	public static boolean isDiagnosticMarkersEnabled() {
+		return CorrosionPlugin.getDefault().getPreferenceStore()
+				.getBoolean(CorrosionPreferenceInitializer.CARGO_DIAGNOSTIC_MARKERS_PREFERENCE);
+	}
+
+	/**
+	 * Wraps a cargo process started with {@link #MESSAGE_FORMAT_JSON_OPTION} so
+	 * that its compiler messages become problem markers of the given project and
+	 * are shown as rendered text on its standard output.
+	 */
+	public static Process withDiagnosticMarkers(Process process, IProject project) {
+		File workspaceRoot = findWorkspaceRoot(project.getLocation().toFile());
+		CargoMarkerUpdater updater = new CargoMarkerUpdater(project);
+		updater.start();
+		return new CargoMessageProcess(process, new CargoMessageFilter(workspaceRoot, updater::add), updater::done);
+	}
+
+	/**
+	 * Wraps a cargo process so that every line of its standard output goes
+	 * through the given filter. When diagnostic markers are requested, the
+	 * compiler messages the filter keeps are then turned into problem markers as
+	 * in {@link #withDiagnosticMarkers(Process, IProject)}.
+	 *
+	 * @param onEnd
+	 *            run once the whole standard output has been read
+	 */
+	public static Process withOutputFilter(Process process, IProject project, boolean diagnosticMarkers,
+			UnaryOperator<String> filter, Runnable onEnd) {
+		if (!diagnosticMarkers) {
+			return new CargoMessageProcess(process, filter, true, onEnd);
+		}
+		File workspaceRoot = findWorkspaceRoot(project.getLocation().toFile());
+		CargoMarkerUpdater updater = new CargoMarkerUpdater(project);
+		updater.start();
+		CargoMessageFilter messages = new CargoMessageFilter(workspaceRoot, updater::add);
+		return new CargoMessageProcess(process, line -> {
+			String text = filter.apply(line);
+			return text == null ? null : messages.filter(text);
+		}, true, () -> {
+			updater.done();
+			onEnd.run();
+		});
+	}
+
+	/**
+	 * Finds the root of the Cargo workspace the given crate directory belongs to:
+	 * the closest directory, the crate itself included, whose
+	 * <code>Cargo.toml</code> declares a <code>[workspace]</code> the crate is a
+	 * member of.
+	 *
+	 * @param crateDirectory
+	 * @return the workspace root, or the crate directory if it is not part of a
+	 *         workspace
+	 */
+	public static File findWorkspaceRoot(File crateDirectory) {
+		File crate = crateDirectory.getAbsoluteFile();
+		File directory = crate;
+		while (directory != null) {
+			if (isWorkspaceOf(directory, crate)) {
+				return directory;
+			}
+			directory = directory.getParentFile();
+		}
+		return crate;
+	}
+
+	/**
+	 * @return whether the manifest of the directory declares a workspace that
+	 *         includes the crate: the crate is the root itself, or it matches
+	 *         the <code>members</code> and none of the <code>exclude</code>
+	 *         paths. Without <code>members</code>, every crate below the root
+	 *         is taken as a member.
+	 */
+	private static boolean isWorkspaceOf(File directory, File crate) {
+		File manifest = new File(directory, "Cargo.toml"); //$NON-NLS-1$
+		if (!manifest.isFile()) {
+			return false;
+		}
+		boolean workspace = false;
+		List<String> members = null;
+		List<String> excluded = new ArrayList<>();
+		try (BufferedReader in = new BufferedReader(new FileReader(manifest))) {
+			boolean inWorkspace = false;
+			String line = in.readLine();
+			while (line != null) {
+				String content = stripComment(line).trim();
+				Matcher header = TABLE_HEADER_PATTERN.matcher(content);
+				Matcher array = WORKSPACE_ARRAY_PATTERN.matcher(content);
+				if (header.matches()) {
+					String table = header.group(2);
+					inWorkspace = header.group(1).isEmpty() && "workspace".equals(table); //$NON-NLS-1$
+					workspace |= inWorkspace || table.startsWith("workspace."); //$NON-NLS-1$
+				} else if (inWorkspace && array.matches()) {
+					// the array may span several lines
+					StringBuilder value = new StringBuilder(array.group(2));
+					while (value.indexOf("]") == -1 && (line = in.readLine()) != null) { //$NON-NLS-1$
+						value.append(' ').append(stripComment(line));
+					}
+					List<String> strings = new ArrayList<>();
+					addStrings(strings, value.toString());
+					List<String> paths = "members".equals(array.group(1)) ? new ArrayList<>() : excluded; //$NON-NLS-1$
+					for (String path : strings) {
+						paths.add(toRelativePath(path));
+					}
+					if (paths != excluded) {
+						members = paths;
+					}
+				}
+				line = in.readLine();
+			}
+		} catch (IOException e) {
+			// unreadable manifest, not a workspace root
+			return false;
+		}
+		if (!workspace || crate.equals(directory)) {
+			return workspace;
+		}
+		try {
+			java.nio.file.Path relative = directory.toPath().relativize(crate.toPath());
+			for (String path : excluded) {
+				if (relative.startsWith(Paths.get(path))) {
+					return false;
+				}
+			}
+			if (members == null) {
+				return true;
+			}
+			for (String member : members) {
+				if (FileSystems.getDefault().getPathMatcher("glob:" + member).matches(relative)) { //$NON-NLS-1$
+					return true;
+				}
+			}
+		} catch (IllegalArgumentException e) {
+			// malformed path or pattern in the manifest
+		}
+		return false;
+	}
+
+	/**
+	 * Reads the <code>[package]</code> table of the manifest of a crate. Keys
+	 * inherited from the workspace, as <code>authors.workspace = true</code> or
+	 * <code>authors = { workspace = true }</code>, are resolved from the
+	 * <code>[workspace.package]</code> table of the workspace root.
+	 *
+	 * @param crateDirectory
+	 *            the directory containing the <code>Cargo.toml</code> of the crate
+	 * @return the string values of the keys of the table, several for arrays.
+	 *         Inherited keys that cannot be resolved are mapped to
+	 *         <code>null</code>.
+	 */
+	public static Map<String, List<String>> readPackageTable(File crateDirectory) {
+		Set<String> inherited = new HashSet<>();
+		Map<String, List<String>> table = readTable(new File(crateDirectory, "Cargo.toml"), "package", inherited); //$NON-NLS-1$ //$NON-NLS-2$
+		if (!inherited.isEmpty()) {
+			File root = findWorkspaceRoot(crateDirectory);
+			Map<String, List<String>> workspace = root.equals(crateDirectory.getAbsoluteFile())
+					? Collections.emptyMap()
+					: readTable(new File(root, "Cargo.toml"), "workspace.package", new HashSet<>()); //$NON-NLS-1$ //$NON-NLS-2$
+			for (String key : inherited) {
+				table.put(key, workspace.get(key));
+			}
+		}
+		return table;
+	}
+
+	/**
+	 * @param inherited
+	 *            filled with the keys inherited from the workspace, which are not
+	 *            part of the result
+	 * @return the string values of the keys of the given table of the manifest,
+	 *         several for arrays
+	 */
+	private static Map<String, List<String>> readTable(File manifest, String name, Set<String> inherited) {
+		Map<String, List<String>> table = new HashMap<>();
+		List<String> lines;
+		try {
+			lines = Files.readAllLines(manifest.toPath(), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			return table;
+		}
+		boolean inTable = false;
+		List<String> array = null;
+		for (String line : lines) {
+			String content = stripComment(line).trim();
+			if (array != null) {
+				// the array may span several lines
+				addStrings(array, content);
+				if (content.contains("]")) { //$NON-NLS-1$
+					array = null;
+				}
+				continue;
+			}
+			Matcher header = TABLE_HEADER_PATTERN.matcher(content);
+			if (header.matches()) {
+				inTable = header.group(1).isEmpty() && name.equals(header.group(2));
+				continue;
+			}
+			Matcher entry = KEY_VALUE_PATTERN.matcher(content);
+			if (!inTable || !entry.matches()) {
+				continue;
+			}
+			String value = entry.group(3);
+			if (entry.group(2) != null ? "true".equals(value) //$NON-NLS-1$
+					: INHERITED_VALUE_PATTERN.matcher(value).matches()) {
+				inherited.add(entry.group(1));
+			} else if (entry.group(2) == null) {
+				List<String> values = new ArrayList<>();
+				addStrings(values, value);
+				table.put(entry.group(1), values);
+				if (value.startsWith("[") && !value.contains("]")) { //$NON-NLS-1$ //$NON-NLS-2$
+					array = values;
+				}
+			}
+		}
+		return table;
+	}
+
+	private static void addStrings(List<String> values, String text) {
+		Matcher string = STRING_PATTERN.matcher(text);
+		while (string.find()) {
+			values.add(string.group(1) != null ? string.group(1) : string.group(2));
+		}
+	}
+
+	private static String stripComment(String line) {
+		char quote = 0;
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (quote != 0) {
+				if (c == quote) {
+					quote = 0;
+				}
+			} else if (c == '"' || c == '\'') {
+				quote = c;
+			} else if (c == '#') {
+				return line.substring(0, i);
+			}
+		}
+		return line;
+	}
+
+	private static String toRelativePath(String path) {
+		String result = path.startsWith("./") ? path.substring(2) : path; //$NON-NLS-1$
+		while (result.endsWith("/") && result.length() > 1) { //$NON-NLS-1$
+			result = result.substring(0, result.length() - 1);
+		}
+		return result;
+	}
+
 	public static String getCargoCommand() {
 		IPreferenceStore store = CorrosionPlugin.getDefault().getPreferenceStore();
 		return store.getString(CorrosionPreferenceInitializer.CARGO_PATH_PREFERENCE);
@@ -0,0 +1,157 @@
+/*********************************************************************
+ * Copyright (c) 2019 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Red Hat Inc. - Initial implementation
+ *******************************************************************************/
+package org.eclipse.corrosion.debug;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import org.eclipse.corrosion.RustManager;
+import org.eclipse.corrosion.cargo.core.CargoTools;
+
+/**
+ * Computes a fingerprint of the inputs of a cargo build: the build command
+ * line, the default toolchain, the <code>CARGO*</code> and <code>RUST*</code>
+ * environment variables (<code>RUSTFLAGS</code>, <code>CARGO_TARGET_DIR</code>,
+ * <code>RUSTUP_TOOLCHAIN</code>...) and the path, size and modification time of
+ * every file of the crate, or of its whole workspace if it belongs to one,
+ * <code>target</code> and hidden directories excluded. File contents are not
+ * read, like cargo itself relies on modification times.
+ */
+public class BuildFingerprint {
+	private static final String TARGET_DIRECTORY = "target"; //$NON-NLS-1$
+	private static final String CARGO_VARIABLE_PREFIX = "CARGO"; //$NON-NLS-1$
+	private static final String RUST_VARIABLE_PREFIX = "RUST"; //$NON-NLS-1$
+
+	private BuildFingerprint() {
+		throw new IllegalStateException("Utility class"); //$NON-NLS-1$
+	}
+
+	/**
+	 * @param crateDirectory
+	 *            the directory containing the <code>Cargo.toml</code> of the crate
+	 * @param commandLine
+	 *            the build command line
+	 * @return the fingerprint as an hexadecimal string
+	 * @throws IOException
+	 *             if the sources could not be listed
+	 */
+	public static String compute(File crateDirectory, List<String> commandLine) throws IOException {
+		return compute(crateDirectory, commandLine, RustManager.getDefaultToolchain(), System.getenv());
+	}
+
+	/**
+	 * @param crateDirectory
+	 *            the directory containing the <code>Cargo.toml</code> of the crate
+	 * @param commandLine
+	 *            the build command line
+	 * @param toolchain
+	 *            the default toolchain, may be empty
+	 * @param environment
+	 *            the environment the build runs in
+	 * @return the fingerprint as an hexadecimal string
+	 * @throws IOException
+	 *             if the sources could not be listed
+	 */
+	public static String compute(File crateDirectory, List<String> commandLine, String toolchain,
+			Map<String, String> environment) throws IOException {
+		Path root = CargoTools.findWorkspaceRoot(crateDirectory).toPath();
+		Map<String, String> files = new TreeMap<>();
+		Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+				if (dir.equals(root)) {
+					return FileVisitResult.CONTINUE;
+				}
+				String name = dir.getFileName().toString();
+				if (name.startsWith(".") || (name.equals(TARGET_DIRECTORY) && dir.getParent().equals(root))) { //$NON-NLS-1$
+					return FileVisitResult.SKIP_SUBTREE;
+				}
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+				if (attrs.isRegularFile()) {
+					files.put(root.relativize(file).toString(),
+							attrs.size() + ":" + attrs.lastModifiedTime().toMillis()); //$NON-NLS-1$
+				}
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFileFailed(Path file, IOException exc) {
+				files.put(root.relativize(file).toString(), "?"); //$NON-NLS-1$
+				return FileVisitResult.CONTINUE;
+			}
+		});
+
+		MessageDigest digest = newDigest();
+		for (String argument : commandLine) {
+			update(digest, argument);
+		}
+		update(digest, toolchain == null ? "" : toolchain); //$NON-NLS-1$
+		for (Entry<String, String> variable : new TreeMap<>(environment).entrySet()) {
+			String name = variable.getKey();
+			if (name.startsWith(CARGO_VARIABLE_PREFIX) || name.startsWith(RUST_VARIABLE_PREFIX)) {
+				update(digest, name);
+				update(digest, variable.getValue());
+			}
+		}
+		for (Entry<String, String> file : files.entrySet()) {
+			update(digest, file.getKey());
+			update(digest, file.getValue());
+		}
+		StringBuilder builder = new StringBuilder();
+		for (byte b : digest.digest()) {
+			builder.append(String.format("%02x", b)); //$NON-NLS-1$
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * @return a stamp identifying the current state of the given build output,
+	 *         or <code>null</code> if it does not exist
+	 */
+	public static String stamp(File executable) {
+		if (!executable.isFile()) {
+			return null;
+		}
+		return executable.length() + ":" + executable.lastModified(); //$NON-NLS-1$
+	}
+
+	private static void update(MessageDigest digest, String value) {
+		digest.update(value.getBytes(StandardCharsets.UTF_8));
+		digest.update((byte) 0);
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256"); //$NON-NLS-1$
+		} catch (NoSuchAlgorithmException e) {
+			// every Java platform is required to support SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+}
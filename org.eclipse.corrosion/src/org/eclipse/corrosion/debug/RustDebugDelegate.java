@@ -15,6 +15,7 @@ package org.eclipse.corrosion.debug;
 import static org.eclipse.corrosion.debug.DebugUtil.getDefaultExecutablePath;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -32,6 +33,7 @@ import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.QualifiedName;
 import org.eclipse.core.variables.IStringVariableManager;
 import org.eclipse.core.variables.VariablesPlugin;
 import org.eclipse.corrosion.CorrosionPlugin;
@@ -49,6 +51,7 @@ import org.eclipse.ui.IEditorPart;
 
 public class RustDebugDelegate extends GdbLaunchDelegate implements ILaunchShortcut {
 	public static final String BUILD_COMMAND_ATTRIBUTE = CorrosionPlugin.PLUGIN_ID + ".BUILD_COMMAND"; //$NON-NLS-1$
+	private static final String BUILD_FINGERPRINT_PROPERTY = "debugBuildFingerprint."; //$NON-NLS-1$
 
 	@Override public void launch(ILaunchConfiguration config, String mode, ILaunch launch, IProgressMonitor monitor) throws CoreException {
 		ILaunchConfiguration configuration = launch.getLaunchConfiguration();
@@ -71,13 +74,49 @@ public class RustDebugDelegate extends GdbLaunchDelegate implements ILaunchShort
 			cmdLine.addAll(Arrays.asList(buildCommand.replace('\n', ' ').split(" "))); //$NON-NLS-1$
 		}
 
+		boolean diagnosticMarkers = CargoTools.isDiagnosticMarkersEnabled()
+				&& !buildCommand.contains("--message-format"); //$NON-NLS-1$
+		if (diagnosticMarkers) {
+			// Options must precede the arguments passed on after `--`
+			cmdLine.add(2, CargoTools.MESSAGE_FORMAT_JSON_OPTION);
+		}
+
 		final String manifestPathOptionString = "--manifest-path";//$NON-NLS-1$
 		if (!buildCommand.contains(manifestPathOptionString)) {
 			cmdLine.add(manifestPathOptionString);
 			cmdLine.add(project.getFile("Cargo.toml").getLocation().toString()); //$NON-NLS-1$
 		}
 
+		File executable = RustLaunchDelegateTools.convertToAbsolutePath(RustLaunchDelegateTools.performVariableSubstitution(
+				configuration.getAttribute(ICDTLaunchConfigurationConstants.ATTR_PROGRAM_NAME, "").trim())); //$NON-NLS-1$
+		QualifiedName fingerprintKey = new QualifiedName(CorrosionPlugin.PLUGIN_ID,
+				BUILD_FINGERPRINT_PROPERTY + configuration.getName());
+		// Skip the build when neither its inputs nor its output changed since the last one
+		String fingerprint = computeBuildFingerprint(project, cmdLine);
+		if (fingerprint == null || !isBuildUpToDate(project, fingerprintKey, fingerprint, executable)) {
+			if (!build(launch, project, cmdLine, buildCommand, workingDirectory, diagnosticMarkers)) {
+				return;
+			}
+			String stamp = BuildFingerprint.stamp(executable);
+			if (fingerprint != null && stamp != null) {
+				project.setPersistentProperty(fingerprintKey, fingerprint + '@' + stamp);
+			}
+		}
+		if (!(launch instanceof RustGDBLaunchWrapper)) {
+			launch = new RustGDBLaunchWrapper(launch);
+		}
+		super.launch(configuration, mode, launch, monitor);
+	}
+
+	/**
+	 * @return whether the build succeeded
+	 */
+	private static boolean build(ILaunch launch, IProject project, List<String> cmdLine, String buildCommand,
+			File workingDirectory, boolean diagnosticMarkers) throws CoreException {
 		Process restoreProcess = DebugPlugin.exec(cmdLine.toArray(new String[cmdLine.size()]), workingDirectory);
+		if (diagnosticMarkers) {
+			restoreProcess = CargoTools.withDiagnosticMarkers(restoreProcess, project);
+		}
 		String labelString = "cargo "; //$NON-NLS-1$
 		if (buildCommand.length() > 20) {
 			labelString += buildCommand.substring(0, 20) + "..."; //$NON-NLS-1$
@@ -93,13 +132,26 @@ public class RustDebugDelegate extends GdbLaunchDelegate implements ILaunchShort
 			CorrosionPlugin.logError(e);
 			Thread.currentThread().interrupt();
 		}
-		if (restoreProcess.exitValue() != 0) { // errors will be shown in console
-			return;
-		}
-		if (!(launch instanceof RustGDBLaunchWrapper)) {
-			launch = new RustGDBLaunchWrapper(launch);
+		return restoreProcess.exitValue() == 0; // errors will be shown in console
+	}
+
+	private static String computeBuildFingerprint(IProject project, List<String> cmdLine) {
+		try {
+			return BuildFingerprint.compute(project.getLocation().toFile(), cmdLine);
+		} catch (IOException e) {
+			CorrosionPlugin.logError(e);
+			return null;
 		}
-		super.launch(configuration, mode, launch, monitor);
+	}
+
+	/**
+	 * @return whether the last successful build of the launch configuration had
+	 *         the given fingerprint and the executable it produced is unchanged
+	 */
+	private static boolean isBuildUpToDate(IProject project, QualifiedName key, String fingerprint, File executable)
+			throws CoreException {
+		String stamp = BuildFingerprint.stamp(executable);
+		return stamp != null && (fingerprint + '@' + stamp).equals(project.getPersistentProperty(key));
 	}
 
 	@Override public void launch(ISelection selection, String mode) {
@@ -15,6 +15,7 @@ package org.eclipse.corrosion.debug;
 import java.io.File;
 import java.util.Map;
 
+import org.eclipse.cdt.dsf.gdb.IGdbDebugPreferenceConstants;
 import org.eclipse.cdt.dsf.gdb.launching.GdbLaunch;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
@@ -25,6 +26,10 @@ import org.eclipse.corrosion.CorrosionPreferenceInitializer;
 import org.eclipse.debug.core.ILaunch;
 
 public class RustGDBLaunchWrapper extends GdbLaunch {
+	private static final String GDB_PREFERENCES_QUALIFIER = "org.eclipse.cdt.dsf.gdb"; //$NON-NLS-1$
+	private static final String DEFAULT_GDB_COMMAND = "gdb"; //$NON-NLS-1$
+	private static final String PATH_PREFIX = "PATH="; //$NON-NLS-1$
+
 	public RustGDBLaunchWrapper(ILaunch launch) {
 		super(launch.getLaunchConfiguration(), launch.getLaunchMode(), launch.getSourceLocator());
 	}
@@ -45,9 +50,8 @@ public class RustGDBLaunchWrapper extends GdbLaunch {
 
 		if (length > 0) {
 			for (int i = 0; i < length; i++) {
-				if (envVariables[i].toUpperCase().startsWith("PATH=")) { //$NON-NLS-1$
-					envVariables[i] += File.pathSeparator + getCargoBinLocation() + File.pathSeparator
-							+ getGDBLocation();
+				if (envVariables[i].toUpperCase().startsWith(PATH_PREFIX)) {
+					envVariables[i] = appendLocations(envVariables[i]);
 					return envVariables;
 				}
 			}
@@ -58,9 +62,8 @@ public class RustGDBLaunchWrapper extends GdbLaunch {
 			int i = 0;
 			for (Map.Entry<String, String> entry : env.entrySet()) {
 				envVariables[i] = entry.getKey() + "=" + entry.getValue(); //$NON-NLS-1$
-				if (envVariables[i].toUpperCase().startsWith("PATH=")) { //$NON-NLS-1$
-					envVariables[i] += File.pathSeparator + getCargoBinLocation() + File.pathSeparator
-							+ getGDBLocation();
+				if (envVariables[i].toUpperCase().startsWith(PATH_PREFIX)) {
+					envVariables[i] = appendLocations(envVariables[i]);
 				}
 				i++;
 			}
@@ -69,6 +72,12 @@ public class RustGDBLaunchWrapper extends GdbLaunch {
 		return envVariables;
 	}
 
+	private static String appendLocations(String pathVariable) {
+		String path = pathVariable.substring(PATH_PREFIX.length());
+		return pathVariable + File.pathSeparator + getCargoBinLocation() + File.pathSeparator
+				+ getGDBLocation(path);
+	}
+
 	private static String getCargoBinLocation() {
 		IPath location = Path.fromOSString(CorrosionPlugin.getDefault().getPreferenceStore()
 				.getString(CorrosionPreferenceInitializer.CARGO_PATH_PREFERENCE));
@@ -76,11 +85,33 @@ public class RustGDBLaunchWrapper extends GdbLaunch {
 		return parentDirectory != null ? parentDirectory : ""; //$NON-NLS-1$
 	}
 
-	private static String getGDBLocation() {
-		IPath location = Path.fromOSString(CorrosionPlugin
-				.getOutputFromCommand((Platform.getOS().equals(Platform.OS_WIN32) ? "where" : "which"), "gdb"));//$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
-		String parentDirectory = location.toFile().getParent();
-		return parentDirectory != null ? parentDirectory : ""; //$NON-NLS-1$
+	/**
+	 * Looks the GDB command of the CDT preferences up in the given path of the
+	 * launch, rather than forking <code>which</code> once and caching the result,
+	 * so that changes to the path or to the preference apply to the next launch.
+	 *
+	 * @return the directory of GDB, or an empty string if it was not found
+	 */
+	private static String getGDBLocation(String path) {
+		String command = Platform.getPreferencesService().getString(GDB_PREFERENCES_QUALIFIER,
+				IGdbDebugPreferenceConstants.PREF_DEFAULT_GDB_COMMAND, DEFAULT_GDB_COMMAND, null).trim();
+		if (command.isEmpty()) {
+			command = DEFAULT_GDB_COMMAND;
+		}
+		File file = new File(command);
+		if (file.isAbsolute()) {
+			return file.isFile() ? file.getParent() : ""; //$NON-NLS-1$
+		}
+		boolean windows = Platform.getOS().equals(Platform.OS_WIN32);
+		for (String directory : path.split(File.pathSeparator)) {
+			if (directory.isEmpty()) {
+				continue;
+			}
+			if (new File(directory, command).isFile() || (windows && new File(directory, command + ".exe").isFile())) { //$NON-NLS-1$
+				return directory;
+			}
+		}
+		return ""; //$NON-NLS-1$
 	}
 
 }
@@ -0,0 +1,117 @@
+/*********************************************************************
+ * Copyright (c) 2019 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Red Hat Inc. - Initial implementation
+ *******************************************************************************/
+package org.eclipse.corrosion.edit;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * The envelope of a JSON-RPC message: only the members needed to classify the
+ * message and to match a response to its request are read, the parameters and
+ * results are skipped.
+ */
+public class JsonRpcMessage {
+	private final String id;
+	private final String method;
+	private final boolean response;
+	private final int size;
+	private final String content;
+
+	JsonRpcMessage(String id, String method, boolean response, int size, String content) {
+		this.id = id;
+		this.method = method;
+		this.response = response;
+		this.size = size;
+		this.content = content;
+	}
+
+	/**
+	 * Reads the envelope of the given message content.
+	 *
+	 * @param content
+	 *            the JSON content of the message, without headers
+	 * @param size
+	 *            the size of the content in bytes
+	 * @return the message, or <code>null</code> if the content is not a JSON
+	 *         object
+	 */
+	public static JsonRpcMessage parse(String content, int size) {
+		String id = null;
+		String method = null;
+		boolean response = false;
+		try (JsonReader reader = new JsonReader(new StringReader(content))) {
+			reader.setLenient(true);
+			reader.beginObject();
+			while (reader.hasNext()) {
+				String name = reader.nextName();
+				if ("id".equals(name) && reader.peek() != JsonToken.NULL) { //$NON-NLS-1$
+					id = reader.nextString();
+				} else if ("method".equals(name) && reader.peek() == JsonToken.STRING) { //$NON-NLS-1$
+					method = reader.nextString();
+				} else {
+					if ("result".equals(name) || "error".equals(name)) { //$NON-NLS-1$ //$NON-NLS-2$
+						response = true;
+					}
+					reader.skipValue();
+				}
+			}
+		} catch (IOException | IllegalStateException | NumberFormatException e) {
+			return null;
+		}
+		return new JsonRpcMessage(id, method, response, size, content);
+	}
+
+	/**
+	 * @return the request id as a string, <code>null</code> for notifications
+	 */
+	public String getId() {
+		return id;
+	}
+
+	/**
+	 * @return the method of requests and notifications, <code>null</code> for
+	 *         responses
+	 */
+	public String getMethod() {
+		return method;
+	}
+
+	public boolean isRequest() {
+		return method != null && id != null;
+	}
+
+	public boolean isNotification() {
+		return method != null && id == null;
+	}
+
+	public boolean isResponse() {
+		return response && method == null;
+	}
+
+	/**
+	 * @return the size of the content in bytes, headers excluded
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * @return the JSON content of the message
+	 */
+	public String getContent() {
+		return content;
+	}
+}
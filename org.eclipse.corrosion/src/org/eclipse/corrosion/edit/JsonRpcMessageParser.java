@@ -0,0 +1,113 @@
+/*********************************************************************
+ * Copyright (c) 2019 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Red Hat Inc. - Initial implementation
+ *******************************************************************************/
+package org.eclipse.corrosion.edit;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Incrementally splits a byte stream into JSON-RPC messages framed with
+ * <code>Content-Length</code> headers, as exchanged with language servers.
+ * Bytes can be fed in chunks of any size; every complete message is handed to
+ * the consumer. Malformed headers are skipped up to the next blank line.
+ */
+public class JsonRpcMessageParser {
+	private static final String CONTENT_LENGTH_HEADER = "content-length:"; //$NON-NLS-1$
+
+	private final Consumer<JsonRpcMessage> consumer;
+	private final ByteArrayOutputStream header = new ByteArrayOutputStream();
+	private byte[] content;
+	private int contentRead;
+
+	public JsonRpcMessageParser(Consumer<JsonRpcMessage> consumer) {
+		this.consumer = consumer;
+	}
+
+	public void feed(byte[] bytes, int offset, int length) {
+		int index = offset;
+		int end = offset + length;
+		while (index < end) {
+			if (content == null) {
+				index = readHeader(bytes, index, end);
+			} else {
+				int count = Math.min(end - index, content.length - contentRead);
+				System.arraycopy(bytes, index, content, contentRead, count);
+				contentRead += count;
+				index += count;
+				if (contentRead == content.length) {
+					emit();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads header bytes until the end of the header section, then prepares the
+	 * content buffer.
+	 *
+	 * @return the index of the first unread byte
+	 */
+	private int readHeader(byte[] bytes, int start, int end) {
+		for (int index = start; index < end; index++) {
+			header.write(bytes[index]);
+			if (bytes[index] == '\n' && endsWithBlankLine()) {
+				int contentLength = parseContentLength(
+						new String(header.toByteArray(), StandardCharsets.US_ASCII));
+				header.reset();
+				if (contentLength >= 0) {
+					content = new byte[contentLength];
+					contentRead = 0;
+					if (contentLength == 0) {
+						emit();
+					}
+				}
+				return index + 1;
+			}
+		}
+		return end;
+	}
+
+	private boolean endsWithBlankLine() {
+		int size = header.size();
+		if (size < 4) {
+			return false;
+		}
+		byte[] bytes = header.toByteArray();
+		return bytes[size - 4] == '\r' && bytes[size - 3] == '\n' && bytes[size - 2] == '\r';
+	}
+
+	private static int parseContentLength(String headers) {
+		for (String line : headers.split("\r\n")) { //$NON-NLS-1$
+			if (line.toLowerCase(Locale.ROOT).startsWith(CONTENT_LENGTH_HEADER)) {
+				try {
+					return Integer.parseInt(line.substring(CONTENT_LENGTH_HEADER.length()).trim());
+				} catch (NumberFormatException e) {
+					return -1;
+				}
+			}
+		}
+		return -1;
+	}
+
+	private void emit() {
+		byte[] bytes = content;
+		content = null;
+		contentRead = 0;
+		JsonRpcMessage message = JsonRpcMessage.parse(new String(bytes, StandardCharsets.UTF_8), bytes.length);
+		if (message != null) {
+			consumer.accept(message);
+		}
+	}
+}
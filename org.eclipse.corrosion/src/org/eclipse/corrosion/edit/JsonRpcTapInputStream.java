@@ -0,0 +1,69 @@
+/*********************************************************************
+ * Copyright (c) 2019 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Red Hat Inc. - Initial implementation
+ *******************************************************************************/
+package org.eclipse.corrosion.edit;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+import org.eclipse.corrosion.CorrosionPlugin;
+
+/**
+ * Passes the bytes read from a language server through unchanged while
+ * reporting every complete JSON-RPC message to a consumer.
+ */
+public class JsonRpcTapInputStream extends FilterInputStream {
+	private JsonRpcMessageParser parser;
+
+	public JsonRpcTapInputStream(InputStream in, Consumer<JsonRpcMessage> consumer) {
+		super(in);
+		this.parser = new JsonRpcMessageParser(consumer);
+	}
+
+	@Override
+	public int read() throws IOException {
+		int b = super.read();
+		if (b != -1) {
+			tap(new byte[] { (byte) b }, 0, 1);
+		}
+		return b;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		int read = super.read(b, off, len);
+		if (read > 0) {
+			tap(b, off, read);
+		}
+		return read;
+	}
+
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+
+	private void tap(byte[] b, int off, int len) {
+		if (parser == null) {
+			return;
+		}
+		try {
+			parser.feed(b, off, len);
+		} catch (RuntimeException e) {
+			// Never let the observer break the connection
+			parser = null;
+			CorrosionPlugin.logError(e);
+		}
+	}
+}
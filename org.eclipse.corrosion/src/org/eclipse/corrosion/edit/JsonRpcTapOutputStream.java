@@ -0,0 +1,58 @@
+/*********************************************************************
+ * Copyright (c) 2019 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Red Hat Inc. - Initial implementation
+ *******************************************************************************/
+package org.eclipse.corrosion.edit;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.function.Consumer;
+
+import org.eclipse.corrosion.CorrosionPlugin;
+
+/**
+ * Passes the bytes written to a language server through unchanged while
+ * reporting every complete JSON-RPC message to a consumer.
+ */
+public class JsonRpcTapOutputStream extends FilterOutputStream {
+	private JsonRpcMessageParser parser;
+
+	public JsonRpcTapOutputStream(OutputStream out, Consumer<JsonRpcMessage> consumer) {
+		super(out);
+		this.parser = new JsonRpcMessageParser(consumer);
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		out.write(b);
+		tap(new byte[] { (byte) b }, 0, 1);
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		out.write(b, off, len);
+		tap(b, off, len);
+	}
+
+	private void tap(byte[] b, int off, int len) {
+		if (parser == null) {
+			return;
+		}
+		try {
+			parser.feed(b, off, len);
+		} catch (RuntimeException e) {
+			// Never let the observer break the connection
+			parser = null;
+			CorrosionPlugin.logError(e);
+		}
+	}
+}
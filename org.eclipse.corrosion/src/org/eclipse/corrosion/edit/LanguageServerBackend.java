@@ -0,0 +1,64 @@
+/*********************************************************************
+ * Copyright (c) 2019 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Red Hat Inc. - Initial implementation
+ *******************************************************************************/
+package org.eclipse.corrosion.edit;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Pattern;
+
+import org.eclipse.lsp4j.Location;
+import org.eclipse.lsp4j.TextDocumentPositionParams;
+import org.eclipse.lsp4j.services.LanguageServer;
+
+/**
+ * A Rust language server implementation that can be started by
+ * {@link RLSStreamConnectionProvider}.
+ */
+public interface LanguageServerBackend {
+
+	/**
+	 * @return the value of the backend in the preferences
+	 */
+	String getId();
+
+	/**
+	 * Locates the language server binary according to the preferences.
+	 *
+	 * @return a future completed with the path to the binary, or with an empty
+	 *         string if it cannot be found
+	 */
+	CompletableFuture<String> findExecutable();
+
+	/**
+	 * @return the pattern the first line of <code>--version</code> of the binary
+	 *         must match
+	 */
+	Pattern getVersionPattern();
+
+	/**
+	 * @param rootUri
+	 * @return the <code>initializationOptions</code> sent to the server
+	 */
+	Object getInitializationOptions(URI rootUri);
+
+	/**
+	 * Requests the implementations of the trait or type at the given position.
+	 *
+	 * @param server
+	 *            a language server started for this backend
+	 * @return a future completed with the locations of the implementations,
+	 *         cancelling it cancels the request
+	 */
+	CompletableFuture<List<Location>> findImplementations(LanguageServer server, TextDocumentPositionParams params);
+}
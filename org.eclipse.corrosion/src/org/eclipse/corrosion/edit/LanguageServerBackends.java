@@ -0,0 +1,48 @@
+/*********************************************************************
+ * Copyright (c) 2019 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Red Hat Inc. - Initial implementation
+ *******************************************************************************/
+package org.eclipse.corrosion.edit;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.corrosion.CorrosionPlugin;
+import org.eclipse.corrosion.CorrosionPreferenceInitializer;
+
+/**
+ * Resolves the {@link LanguageServerBackend} selected in the preferences.
+ */
+public class LanguageServerBackends {
+	public static final String RLS = "rls"; //$NON-NLS-1$
+	public static final String RUST_ANALYZER = "rust-analyzer"; //$NON-NLS-1$
+	public static final List<String> IDS = Arrays.asList(RLS, RUST_ANALYZER);
+
+	private LanguageServerBackends() {
+		throw new IllegalStateException("Utility class"); //$NON-NLS-1$
+	}
+
+	/**
+	 * @return the backend selected in the preferences, RLS if the preference is
+	 *         unknown
+	 */
+	public static LanguageServerBackend getSelected() {
+		return get(CorrosionPlugin.getDefault().getPreferenceStore()
+				.getString(CorrosionPreferenceInitializer.LANGUAGE_SERVER_PREFERENCE));
+	}
+
+	public static LanguageServerBackend get(String id) {
+		if (RUST_ANALYZER.equals(id)) {
+			return new RustAnalyzerBackend();
+		}
+		return new RLSBackend();
+	}
+}
@@ -0,0 +1,106 @@
+/*********************************************************************
+ * Copyright (c) 2019 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Red Hat Inc. - Initial implementation
+ *******************************************************************************/
+package org.eclipse.corrosion.edit;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.corrosion.CorrosionPlugin;
+import org.eclipse.corrosion.CorrosionPreferenceInitializer;
+import org.eclipse.corrosion.Messages;
+import org.eclipse.corrosion.cargo.core.CargoProjectTester;
+import org.eclipse.jface.preference.IPreferenceStore;
+import org.eclipse.lsp4e.LanguageServiceAccessor;
+import org.eclipse.lsp4j.services.LanguageServer;
+
+/**
+ * Starts and initializes the language server of every open Cargo project ahead
+ * of time, so that the first Rust editor is served by a warm server.
+ */
+public class LanguageServerPrewarmJob extends Job {
+	private static final CargoProjectTester TESTER = new CargoProjectTester();
+
+	public LanguageServerPrewarmJob() {
+		super(Messages.LanguageServerPrewarmJob_name);
+		setPriority(Job.DECORATE);
+	}
+
+	/**
+	 * Schedules the job if pre-warming is enabled in the preferences.
+	 */
+	public static void scheduleIfEnabled() {
+		IPreferenceStore store = CorrosionPlugin.getDefault().getPreferenceStore();
+		if (store.getBoolean(CorrosionPreferenceInitializer.PREWARM_LANGUAGE_SERVER_PREFERENCE)
+				&& !"disabled".equals(store.getString(CorrosionPreferenceInitializer.RUST_SOURCE_PREFERENCE))) { //$NON-NLS-1$
+			new LanguageServerPrewarmJob().schedule();
+		}
+	}
+
+	@Override
+	protected IStatus run(IProgressMonitor monitor) {
+		List<IFile> manifests = new ArrayList<>();
+		for (IProject project : ResourcesPlugin.getWorkspace().getRoot().getProjects()) {
+			if (project.isOpen() && TESTER.test(project, CargoProjectTester.PROPERTY_NAME, null, null)) {
+				manifests.add(project.getFile("Cargo.toml")); //$NON-NLS-1$
+			}
+		}
+		SubMonitor subMonitor = SubMonitor.convert(monitor, manifests.size());
+		List<CompletableFuture<LanguageServer>> servers = new ArrayList<>();
+		for (IFile manifest : manifests) {
+			if (subMonitor.isCanceled()) {
+				return Status.CANCEL_STATUS;
+			}
+			subMonitor.subTask(manifest.getProject().getName());
+			try {
+				Collection<CompletableFuture<LanguageServer>> started = LanguageServiceAccessor
+						.getInitializedLanguageServers(manifest, null);
+				servers.addAll(started);
+			} catch (IOException e) {
+				CorrosionPlugin.logError(e);
+			}
+		}
+		for (CompletableFuture<LanguageServer> server : servers) {
+			while (!server.isDone()) {
+				if (subMonitor.isCanceled()) {
+					return Status.CANCEL_STATUS;
+				}
+				try {
+					server.get(1, TimeUnit.SECONDS);
+				} catch (TimeoutException e) {
+					// keep waiting unless canceled
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return Status.CANCEL_STATUS;
+				} catch (ExecutionException e) {
+					CorrosionPlugin.logError(e);
+				}
+			}
+			subMonitor.worked(1);
+		}
+		return Status.OK_STATUS;
+	}
+}
@@ -0,0 +1,354 @@
+/*********************************************************************
+ * Copyright (c) 2019 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Red Hat Inc. - Initial implementation
+ *******************************************************************************/
+package org.eclipse.corrosion.edit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+/**
+ * Aggregates the JSON-RPC traffic observed between Eclipse and the language
+ * servers: per-method latency histograms, message sizes and requests in
+ * flight. Each server connection gets its own {@link Connection}, as request
+ * ids are only unique per connection.
+ */
+public class LanguageServerStatistics {
+	/**
+	 * Upper bounds of the latency histogram buckets in milliseconds, the last
+	 * bucket holds everything above.
+	 */
+	static final long[] BUCKET_BOUNDS = { 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000 };
+
+	private static final LanguageServerStatistics INSTANCE = new LanguageServerStatistics();
+
+	private final Map<String, MethodStatistics> methods = new ConcurrentHashMap<>();
+
+	public static LanguageServerStatistics getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * @return a tracker for the messages of one server connection
+	 */
+	public Connection newConnection() {
+		return new Connection();
+	}
+
+	/**
+	 * @return a snapshot of the statistics of each method, sorted by name
+	 */
+	public List<MethodStatistics> getMethodStatistics() {
+		List<MethodStatistics> result = new ArrayList<>();
+		for (MethodStatistics statistics : methods.values()) {
+			result.add(statistics.copy());
+		}
+		Collections.sort(result, Comparator.comparing(MethodStatistics::getMethod));
+		return result;
+	}
+
+	/**
+	 * Forgets the recorded statistics. Requests in flight are still tracked.
+	 */
+	public void reset() {
+		for (MethodStatistics statistics : methods.values()) {
+			statistics.reset();
+		}
+	}
+
+	public String toCSV() {
+		StringBuilder builder = new StringBuilder(
+				"method,requests,notifications,inFlight,meanMillis,p50Millis,p90Millis,p99Millis,maxMillis,bytesSent,bytesReceived"); //$NON-NLS-1$
+		for (long bound : BUCKET_BOUNDS) {
+			builder.append(",le").append(bound).append("ms"); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		builder.append(",gt").append(BUCKET_BOUNDS[BUCKET_BOUNDS.length - 1]).append("ms\n"); //$NON-NLS-1$ //$NON-NLS-2$
+		for (MethodStatistics statistics : getMethodStatistics()) {
+			builder.append('"').append(statistics.getMethod().replace("\"", "\"\"")).append('"'); //$NON-NLS-1$ //$NON-NLS-2$
+			builder.append(',').append(statistics.getRequestCount());
+			builder.append(',').append(statistics.getNotificationCount());
+			builder.append(',').append(statistics.getInFlightCount());
+			builder.append(',').append(String.format(Locale.ROOT, "%.3f", statistics.getMeanMillis())); //$NON-NLS-1$
+			builder.append(',').append(statistics.getPercentileMillis(0.5));
+			builder.append(',').append(statistics.getPercentileMillis(0.9));
+			builder.append(',').append(statistics.getPercentileMillis(0.99));
+			builder.append(',').append(String.format(Locale.ROOT, "%.3f", statistics.getMaxMillis())); //$NON-NLS-1$
+			builder.append(',').append(statistics.getBytesSent());
+			builder.append(',').append(statistics.getBytesReceived());
+			for (long count : statistics.getHistogram()) {
+				builder.append(',').append(count);
+			}
+			builder.append('\n');
+		}
+		return builder.toString();
+	}
+
+	public String toJSON() {
+		JsonArray array = new JsonArray();
+		for (MethodStatistics statistics : getMethodStatistics()) {
+			JsonObject object = new JsonObject();
+			object.addProperty("method", statistics.getMethod()); //$NON-NLS-1$
+			object.addProperty("requests", statistics.getRequestCount()); //$NON-NLS-1$
+			object.addProperty("notifications", statistics.getNotificationCount()); //$NON-NLS-1$
+			object.addProperty("inFlight", statistics.getInFlightCount()); //$NON-NLS-1$
+			object.addProperty("meanMillis", statistics.getMeanMillis()); //$NON-NLS-1$
+			object.addProperty("p50Millis", statistics.getPercentileMillis(0.5)); //$NON-NLS-1$
+			object.addProperty("p90Millis", statistics.getPercentileMillis(0.9)); //$NON-NLS-1$
+			object.addProperty("p99Millis", statistics.getPercentileMillis(0.99)); //$NON-NLS-1$
+			object.addProperty("maxMillis", statistics.getMaxMillis()); //$NON-NLS-1$
+			object.addProperty("bytesSent", statistics.getBytesSent()); //$NON-NLS-1$
+			object.addProperty("bytesReceived", statistics.getBytesReceived()); //$NON-NLS-1$
+			JsonArray histogram = new JsonArray();
+			long[] counts = statistics.getHistogram();
+			for (int i = 0; i < counts.length; i++) {
+				JsonObject bucket = new JsonObject();
+				if (i < BUCKET_BOUNDS.length) {
+					bucket.addProperty("upToMillis", BUCKET_BOUNDS[i]); //$NON-NLS-1$
+				}
+				bucket.addProperty("count", counts[i]); //$NON-NLS-1$
+				histogram.add(bucket);
+			}
+			object.add("histogram", histogram); //$NON-NLS-1$
+			array.add(object);
+		}
+		return new GsonBuilder().setPrettyPrinting().create().toJson(array);
+	}
+
+	private MethodStatistics getStatistics(String method) {
+		return methods.computeIfAbsent(method, MethodStatistics::new);
+	}
+
+	/**
+	 * Tracks the requests of one server connection. Requests sent by Eclipse are
+	 * matched with the responses of the server and the other way around.
+	 */
+	public class Connection {
+		private final Map<String, PendingRequest> pending = new ConcurrentHashMap<>();
+
+		private Connection() {
+		}
+
+		/**
+		 * Records a message written by Eclipse to the server.
+		 */
+		public void messageSent(JsonRpcMessage message) {
+			record(message, true, System.nanoTime());
+		}
+
+		/**
+		 * Records a message read by Eclipse from the server.
+		 */
+		public void messageReceived(JsonRpcMessage message) {
+			record(message, false, System.nanoTime());
+		}
+
+		/**
+		 * Drops the requests in flight, to be called once the server is stopped.
+		 */
+		public void close() {
+			for (PendingRequest request : pending.values()) {
+				getStatistics(request.method).requestAbandoned();
+			}
+			pending.clear();
+		}
+
+		private void record(JsonRpcMessage message, boolean sent, long timestamp) {
+			if (message.isRequest()) {
+				MethodStatistics statistics = getStatistics(message.getMethod());
+				statistics.requestStarted(message.getSize(), sent);
+				pending.put(key(sent, message.getId()), new PendingRequest(message.getMethod(), timestamp));
+			} else if (message.isNotification()) {
+				getStatistics(message.getMethod()).notificationObserved(message.getSize(), sent);
+			} else if (message.isResponse() && message.getId() != null) {
+				// a response travels the opposite way of its request
+				PendingRequest request = pending.remove(key(!sent, message.getId()));
+				if (request != null) {
+					getStatistics(request.method).requestCompleted(message.getSize(), sent,
+							timestamp - request.startNanos);
+				}
+			}
+		}
+
+		private String key(boolean sent, String id) {
+			return (sent ? "out:" : "in:") + id; //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+
+	private static class PendingRequest {
+		private final String method;
+		private final long startNanos;
+
+		private PendingRequest(String method, long startNanos) {
+			this.method = method;
+			this.startNanos = startNanos;
+		}
+	}
+
+	/**
+	 * Counters of one JSON-RPC method.
+	 */
+	public static class MethodStatistics {
+		private final String method;
+		private long requestCount;
+		private long notificationCount;
+		private long completedCount;
+		private long inFlightCount;
+		private long totalNanos;
+		private long maxNanos;
+		private long bytesSent;
+		private long bytesReceived;
+		private long[] histogram = new long[BUCKET_BOUNDS.length + 1];
+
+		private MethodStatistics(String method) {
+			this.method = method;
+		}
+
+		private synchronized MethodStatistics copy() {
+			MethodStatistics copy = new MethodStatistics(method);
+			copy.requestCount = requestCount;
+			copy.notificationCount = notificationCount;
+			copy.completedCount = completedCount;
+			copy.inFlightCount = inFlightCount;
+			copy.totalNanos = totalNanos;
+			copy.maxNanos = maxNanos;
+			copy.bytesSent = bytesSent;
+			copy.bytesReceived = bytesReceived;
+			copy.histogram = histogram.clone();
+			return copy;
+		}
+
+		private synchronized void reset() {
+			requestCount = 0;
+			notificationCount = 0;
+			completedCount = 0;
+			totalNanos = 0;
+			maxNanos = 0;
+			bytesSent = 0;
+			bytesReceived = 0;
+			histogram = new long[BUCKET_BOUNDS.length + 1];
+		}
+
+		private synchronized void requestStarted(int size, boolean sent) {
+			requestCount++;
+			inFlightCount++;
+			addBytes(size, sent);
+		}
+
+		private synchronized void requestCompleted(int size, boolean sent, long durationNanos) {
+			completedCount++;
+			inFlightCount = Math.max(0, inFlightCount - 1);
+			totalNanos += durationNanos;
+			maxNanos = Math.max(maxNanos, durationNanos);
+			addBytes(size, sent);
+			long millis = TimeUnit.NANOSECONDS.toMillis(durationNanos);
+			int bucket = 0;
+			while (bucket < BUCKET_BOUNDS.length && millis >= BUCKET_BOUNDS[bucket]) {
+				bucket++;
+			}
+			histogram[bucket]++;
+		}
+
+		private synchronized void requestAbandoned() {
+			inFlightCount = Math.max(0, inFlightCount - 1);
+		}
+
+		private synchronized void notificationObserved(int size, boolean sent) {
+			notificationCount++;
+			addBytes(size, sent);
+		}
+
+		private void addBytes(int size, boolean sent) {
+			if (sent) {
+				bytesSent += size;
+			} else {
+				bytesReceived += size;
+			}
+		}
+
+		public String getMethod() {
+			return method;
+		}
+
+		public synchronized long getRequestCount() {
+			return requestCount;
+		}
+
+		public synchronized long getNotificationCount() {
+			return notificationCount;
+		}
+
+		public synchronized long getCompletedCount() {
+			return completedCount;
+		}
+
+		public synchronized long getInFlightCount() {
+			return inFlightCount;
+		}
+
+		public synchronized double getMeanMillis() {
+			return completedCount == 0 ? 0 : totalNanos / 1e6 / completedCount;
+		}
+
+		public synchronized double getMaxMillis() {
+			return maxNanos / 1e6;
+		}
+
+		public synchronized long getBytesSent() {
+			return bytesSent;
+		}
+
+		public synchronized long getBytesReceived() {
+			return bytesReceived;
+		}
+
+		/**
+		 * @return the number of completed requests of each bucket of
+		 *         {@link LanguageServerStatistics#BUCKET_BOUNDS}
+		 */
+		public synchronized long[] getHistogram() {
+			return histogram.clone();
+		}
+
+		/**
+		 * Estimates a latency percentile from the histogram.
+		 *
+		 * @param percentile
+		 *            between 0 and 1
+		 * @return the upper bound of the bucket holding the percentile in
+		 *         milliseconds, the maximum latency for the last bucket, or
+		 *         <code>0</code> if no request completed
+		 */
+		public synchronized long getPercentileMillis(double percentile) {
+			if (completedCount == 0) {
+				return 0;
+			}
+			long rank = (long) Math.ceil(percentile * completedCount);
+			long seen = 0;
+			for (int i = 0; i < BUCKET_BOUNDS.length; i++) {
+				seen += histogram[i];
+				if (seen >= rank) {
+					return BUCKET_BOUNDS[i];
+				}
+			}
+			return TimeUnit.NANOSECONDS.toMillis(maxNanos);
+		}
+	}
+}
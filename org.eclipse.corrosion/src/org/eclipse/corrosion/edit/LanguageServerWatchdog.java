@@ -0,0 +1,383 @@
+/*********************************************************************
+ * Copyright (c) 2019 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Red Hat Inc. - Initial implementation
+ *******************************************************************************/
+package org.eclipse.corrosion.edit;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.corrosion.CorrosionPlugin;
+import org.eclipse.corrosion.CorrosionPreferenceInitializer;
+import org.eclipse.corrosion.Messages;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.lsp4e.LanguageServerWrapper;
+import org.eclipse.lsp4e.LanguageServersRegistry;
+import org.eclipse.lsp4e.LanguageServersRegistry.LanguageServerDefinition;
+import org.eclipse.lsp4e.LanguageServiceAccessor;
+import org.eclipse.osgi.util.NLS;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.ui.IEditorInput;
+import org.eclipse.ui.IEditorReference;
+import org.eclipse.ui.IWorkbenchPage;
+import org.eclipse.ui.IWorkbenchWindow;
+import org.eclipse.ui.PartInitException;
+import org.eclipse.ui.PlatformUI;
+import org.eclipse.ui.texteditor.ITextEditor;
+
+/**
+ * Samples the memory and CPU use of a language server process from
+ * <code>/proc/&lt;pid&gt;</code> and restarts the server once its resident
+ * memory stays above the limit of the preferences. Sampling is a no-op on
+ * systems without procfs.
+ */
+public class LanguageServerWatchdog {
+	private static final long SAMPLE_INTERVAL_SECONDS = 5;
+	private static final long DEFAULT_CLOCK_TICKS_PER_SECOND = 100;
+	private static final String LANGUAGE_SERVER_ID = "org.eclipse.corrosion.rls"; //$NON-NLS-1$
+	private static final int SAMPLES_OVER_LIMIT_BEFORE_RESTART = 2;
+	private static final long SHUTDOWN_TIMEOUT_SECONDS = 5;
+
+	private static final ScheduledExecutorService SAMPLER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "Corrosion language server watchdog"); //$NON-NLS-1$
+		thread.setDaemon(true);
+		return thread;
+	});
+	private static final Map<Long, Sample> SAMPLES = new ConcurrentHashMap<>();
+	private static final List<Runnable> LISTENERS = new CopyOnWriteArrayList<>();
+	private static long clockTicksPerSecond;
+
+	private final Process process;
+	private final long pid;
+	private ScheduledFuture<?> sampling;
+	private volatile File root;
+	private long previousCpuTicks = -1;
+	private long previousSampleNanos;
+	private int samplesOverLimit;
+
+	private LanguageServerWatchdog(Process process, long pid) {
+		this.process = process;
+		this.pid = pid;
+	}
+
+	/**
+	 * Starts watching the given language server process.
+	 *
+	 * @return the watchdog, or <code>null</code> if the process cannot be sampled
+	 *         on this system
+	 */
+	public static LanguageServerWatchdog watch(Process process) {
+		long pid = getPid(process);
+		if (pid <= 0 || !Files.isReadable(Paths.get("/proc", Long.toString(pid), "stat"))) { //$NON-NLS-1$ //$NON-NLS-2$
+			return null;
+		}
+		LanguageServerWatchdog watchdog = new LanguageServerWatchdog(process, pid);
+		watchdog.sampling = SAMPLER.scheduleWithFixedDelay(watchdog::sample, SAMPLE_INTERVAL_SECONDS,
+				SAMPLE_INTERVAL_SECONDS, TimeUnit.SECONDS);
+		return watchdog;
+	}
+
+	/**
+	 * Sets the directory of the projects served by the process, the language
+	 * server connections of the open documents below it are restarted along with
+	 * the process.
+	 */
+	public void setRoot(File root) {
+		this.root = root;
+	}
+
+	/**
+	 * Stops sampling, to be called once the server is stopped.
+	 */
+	public void stop() {
+		sampling.cancel(false);
+		SAMPLES.remove(pid);
+		notifyListeners();
+	}
+
+	/**
+	 * @return the latest sample of every watched language server
+	 */
+	public static Collection<Sample> getSamples() {
+		return new ArrayList<>(SAMPLES.values());
+	}
+
+	/**
+	 * Registers a listener notified, on the sampling thread, after each sample.
+	 */
+	public static void addListener(Runnable listener) {
+		LISTENERS.add(listener);
+	}
+
+	public static void removeListener(Runnable listener) {
+		LISTENERS.remove(listener);
+	}
+
+	private static void notifyListeners() {
+		for (Runnable listener : LISTENERS) {
+			listener.run();
+		}
+	}
+
+	private void sample() {
+		if (!process.isAlive()) {
+			stop();
+			return;
+		}
+		Path procDirectory = Paths.get("/proc", Long.toString(pid)); //$NON-NLS-1$
+		long rssKilobytes;
+		long cpuTicks;
+		try {
+			rssKilobytes = readRssKilobytes(procDirectory.resolve("status")); //$NON-NLS-1$
+			cpuTicks = readCpuTicks(procDirectory.resolve("stat")); //$NON-NLS-1$
+		} catch (IOException | RuntimeException e) {
+			// the process exited between the liveness check and the read
+			return;
+		}
+		long now = System.nanoTime();
+		double cpuPercent = 0;
+		if (previousCpuTicks >= 0 && now > previousSampleNanos) {
+			double cpuSeconds = (cpuTicks - previousCpuTicks) / (double) getClockTicksPerSecond();
+			cpuPercent = 100 * cpuSeconds / ((now - previousSampleNanos) / 1e9);
+		}
+		previousCpuTicks = cpuTicks;
+		previousSampleNanos = now;
+		SAMPLES.put(pid, new Sample(pid, rssKilobytes, cpuPercent));
+		notifyListeners();
+
+		long limitMegabytes = CorrosionPlugin.getDefault().getPreferenceStore()
+				.getLong(CorrosionPreferenceInitializer.LANGUAGE_SERVER_MEMORY_LIMIT_PREFERENCE);
+		if (limitMegabytes > 0 && rssKilobytes > limitMegabytes * 1024) {
+			samplesOverLimit++;
+			if (samplesOverLimit >= SAMPLES_OVER_LIMIT_BEFORE_RESTART) {
+				stop();
+				restart(rssKilobytes / 1024, limitMegabytes);
+			}
+		} else {
+			samplesOverLimit = 0;
+		}
+	}
+
+	/**
+	 * Stops the lsp4e connections to the server, which shuts it down, then
+	 * starts them again and reconnects the open documents. All the connections
+	 * are stopped first so that none of them attaches again to a shared server
+	 * being shut down.
+	 */
+	private void restart(long rssMegabytes, long limitMegabytes) {
+		String message = NLS.bind(Messages.LanguageServerWatchdog_restarting, rssMegabytes, limitMegabytes);
+		CorrosionPlugin.getDefault().getLog()
+				.log(new Status(IStatus.WARNING, CorrosionPlugin.getDefault().getBundle().getSymbolicName(), message));
+		Job.create(Messages.LanguageServerWatchdog_restartJob, monitor -> {
+			LanguageServerDefinition definition = LanguageServersRegistry.getInstance()
+					.getDefinition(LANGUAGE_SERVER_ID);
+			if (definition == null) {
+				process.destroy();
+				return;
+			}
+			Map<IFile, IDocument> documents = getOpenRustDocuments(root);
+			Set<LanguageServerWrapper> wrappers = new LinkedHashSet<>();
+			for (IFile file : documents.keySet()) {
+				try {
+					wrappers.add(LanguageServiceAccessor.getLSWrapper(file.getProject(), definition));
+				} catch (IOException e) {
+					CorrosionPlugin.logError(e);
+				}
+			}
+			for (LanguageServerWrapper wrapper : wrappers) {
+				wrapper.stop();
+			}
+			try {
+				if (!process.waitFor(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+					// the server did not answer the shutdown request
+					process.destroyForcibly();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				process.destroyForcibly();
+				return;
+			}
+			for (LanguageServerWrapper wrapper : wrappers) {
+				try {
+					wrapper.start();
+				} catch (IOException e) {
+					CorrosionPlugin.logError(e);
+				}
+			}
+			for (Map.Entry<IFile, IDocument> document : documents.entrySet()) {
+				try {
+					LanguageServiceAccessor.getLSWrapper(document.getKey().getProject(), definition)
+							.connect(document.getKey(), document.getValue());
+				} catch (IOException e) {
+					CorrosionPlugin.logError(e);
+				}
+			}
+		}).schedule();
+	}
+
+	/**
+	 * @param root
+	 *            the directory containing the documents, <code>null</code> for
+	 *            all the open documents
+	 */
+	private static Map<IFile, IDocument> getOpenRustDocuments(File root) {
+		Map<IFile, IDocument> documents = new LinkedHashMap<>();
+		Display.getDefault().syncExec(() -> {
+			for (IWorkbenchWindow window : PlatformUI.getWorkbench().getWorkbenchWindows()) {
+				for (IWorkbenchPage page : window.getPages()) {
+					for (IEditorReference editor : page.getEditorReferences()) {
+						IEditorInput input;
+						try {
+							input = editor.getEditorInput();
+						} catch (PartInitException e) {
+							continue;
+						}
+						IFile file = input.getAdapter(IFile.class);
+						if (file == null || !input.getName().endsWith(".rs") //$NON-NLS-1$
+								|| !(editor.getEditor(false) instanceof ITextEditor) || !isBelow(file, root)) {
+							continue;
+						}
+						IDocument document = ((ITextEditor) editor.getEditor(false)).getDocumentProvider()
+								.getDocument(input);
+						if (document != null) {
+							documents.put(file, document);
+						}
+					}
+				}
+			}
+		});
+		return documents;
+	}
+
+	private static boolean isBelow(IFile file, File root) {
+		if (root == null) {
+			return true;
+		}
+		IPath location = file.getLocation();
+		return location != null && location.toFile().toPath().startsWith(root.toPath());
+	}
+
+	/**
+	 * @return the clock ticks per second of <code>/proc/&lt;pid&gt;/stat</code>,
+	 *         read once from <code>getconf CLK_TCK</code>
+	 */
+	private static synchronized long getClockTicksPerSecond() {
+		if (clockTicksPerSecond <= 0) {
+			clockTicksPerSecond = DEFAULT_CLOCK_TICKS_PER_SECOND;
+			try {
+				long value = Long.parseLong(CorrosionPlugin.getOutputFromCommandAsync("getconf", "CLK_TCK") //$NON-NLS-1$ //$NON-NLS-2$
+						.join().trim());
+				if (value > 0) {
+					clockTicksPerSecond = value;
+				}
+			} catch (NumberFormatException e) {
+				// getconf is missing, keep the usual value
+			}
+		}
+		return clockTicksPerSecond;
+	}
+
+	static long readRssKilobytes(Path status) throws IOException {
+		for (String line : Files.readAllLines(status, StandardCharsets.US_ASCII)) {
+			if (line.startsWith("VmRSS:")) { //$NON-NLS-1$
+				String value = line.substring("VmRSS:".length()).trim(); //$NON-NLS-1$
+				int unit = value.indexOf(' ');
+				return Long.parseLong(unit == -1 ? value : value.substring(0, unit));
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * @return the user and system CPU time of the process in clock ticks
+	 */
+	static long readCpuTicks(Path stat) throws IOException {
+		String content = new String(Files.readAllBytes(stat), StandardCharsets.US_ASCII);
+		// the command name may contain spaces and parentheses, fields start after the last ')'
+		String[] fields = content.substring(content.lastIndexOf(')') + 2).split(" "); //$NON-NLS-1$
+		// utime and stime are fields 14 and 15 of the file, 12 and 13 after the command name
+		return Long.parseLong(fields[11]) + Long.parseLong(fields[12]);
+	}
+
+	/**
+	 * Uses <code>Process.pid()</code> when running on Java 9 or later, the
+	 * <code>pid</code> field of the Unix process implementation otherwise.
+	 */
+	private static long getPid(Process process) {
+		try {
+			Method pidMethod = Process.class.getMethod("pid"); //$NON-NLS-1$
+			return ((Long) pidMethod.invoke(process)).longValue();
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			// Java 8
+		}
+		try {
+			Field pidField = process.getClass().getDeclaredField("pid"); //$NON-NLS-1$
+			pidField.setAccessible(true);
+			return pidField.getLong(process);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * Resource use of a language server process.
+	 */
+	public static class Sample {
+		private final long pid;
+		private final long rssKilobytes;
+		private final double cpuPercent;
+
+		private Sample(long pid, long rssKilobytes, double cpuPercent) {
+			this.pid = pid;
+			this.rssKilobytes = rssKilobytes;
+			this.cpuPercent = cpuPercent;
+		}
+
+		public long getPid() {
+			return pid;
+		}
+
+		public long getRssKilobytes() {
+			return rssKilobytes;
+		}
+
+		/**
+		 * @return the CPU use since the previous sample, 100 for one busy core
+		 */
+		public double getCpuPercent() {
+			return cpuPercent;
+		}
+	}
+}
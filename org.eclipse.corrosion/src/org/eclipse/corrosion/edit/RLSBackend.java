@@ -0,0 +1,91 @@
+/*********************************************************************
+ * Copyright (c) 2019 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Red Hat Inc. - Initial implementation
+ *******************************************************************************/
+package org.eclipse.corrosion.edit;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.net.URI;
+import java.text.MessageFormat;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Pattern;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.corrosion.CorrosionPlugin;
+import org.eclipse.corrosion.Messages;
+import org.eclipse.corrosion.RustManager;
+import org.eclipse.lsp4j.Location;
+import org.eclipse.lsp4j.TextDocumentPositionParams;
+import org.eclipse.lsp4j.services.LanguageServer;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+
+/**
+ * The Rust Language Server, configured by the RLS settings file of the
+ * preferences.
+ */
+public class RLSBackend implements LanguageServerBackend {
+
+	@Override
+	public String getId() {
+		return LanguageServerBackends.RLS;
+	}
+
+	@Override
+	public CompletableFuture<String> findExecutable() {
+		return RustManager.getRLS();
+	}
+
+	@Override
+	public Pattern getVersionPattern() {
+		return RustManager.RLS_VERSION_FORMAT_PATTERN;
+	}
+
+	private static Map<String, Object> getDefaultInitializationOptions() {
+		final Map<String, Object> initializationSettings = new HashMap<>();
+		initializationSettings.put("clippy_preference", "on"); //$NON-NLS-1$//$NON-NLS-2$
+		return Collections.singletonMap("settings", Collections.singletonMap("rust", initializationSettings)); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	@Override
+	public Object getInitializationOptions(URI rootUri) {
+		final String settingsPath = RustManager.getRlsConfigurationPath();
+		final File settingsFile = new File(settingsPath);
+		final Gson gson = new Gson();
+		try (JsonReader reader = new JsonReader(new FileReader(settingsFile))) {
+			return gson.fromJson(reader, HashMap.class);
+		} catch (FileNotFoundException e) {
+			CorrosionPlugin.getDefault().getLog().log(new Status(IStatus.INFO,
+					CorrosionPlugin.getDefault().getBundle().getSymbolicName(),
+					MessageFormat.format(Messages.RLSStreamConnectionProvider_rlsConfigurationNotFound, settingsPath)));
+		} catch (Throwable e) {
+			CorrosionPlugin.getDefault().getLog().log(new Status(IStatus.ERROR,
+					CorrosionPlugin.getDefault().getBundle().getSymbolicName(),
+					MessageFormat.format(Messages.RLSStreamConnectionProvider_rlsConfigurationError, settingsPath, e)));
+		}
+		return getDefaultInitializationOptions();
+	}
+
+	@Override
+	public CompletableFuture<List<Location>> findImplementations(LanguageServer server,
+			TextDocumentPositionParams params) {
+		// RLS only answers its own extension
+		return ((RLSServerInterface) server).implementations(params);
+	}
+}
@@ -12,29 +12,47 @@
  *******************************************************************************/
 package org.eclipse.corrosion.edit;
 
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Map;
 
-import org.eclipse.corrosion.extensions.ProgressIndicatorJob;
+import org.eclipse.corrosion.extensions.ProgressAggregator;
 import org.eclipse.corrosion.extensions.ProgressParams;
 import org.eclipse.lsp4e.LanguageClientImpl;
 import org.eclipse.lsp4j.jsonrpc.services.JsonNotification;
+import org.eclipse.lsp4j.services.LanguageServer;
 
 @SuppressWarnings("restriction")
 public class RLSClientImplementation extends LanguageClientImpl {
-	private static Map<String, ProgressIndicatorJob> progressJobs = new HashMap<>();
+	/**
+	 * The progress of the open connections, by language server proxy. Proxies
+	 * are compared by identity, their other methods are remote calls.
+	 */
+	private static final Map<LanguageServer, ProgressAggregator> PROGRESS = Collections
+			.synchronizedMap(new IdentityHashMap<>());
+
+	/**
+	 * lsp4e creates a client per connection.
+	 */
+	private final ProgressAggregator aggregator = new ProgressAggregator();
 
 	@JsonNotification("window/progress")
 	public void progress(ProgressParams progress) {
-		String id = progress.getId();
-		if (!progressJobs.containsKey(id)) {
-			ProgressIndicatorJob job = new ProgressIndicatorJob(progress.getTitle());
-			job.schedule();
-			progressJobs.put(id, job);
+		LanguageServer server = getLanguageServer();
+		if (server != null) {
+			PROGRESS.putIfAbsent(server, aggregator);
 		}
-		progressJobs.get(id).update(progress);
-		if (progress.isDone()) {
-			progressJobs.remove(id);
+		aggregator.update(progress);
+	}
+
+	/**
+	 * Drops the progress reported so far by the given language server, to be
+	 * called when the connection to it closes.
+	 */
+	static void connectionClosed(LanguageServer server) {
+		ProgressAggregator closed = PROGRESS.remove(server);
+		if (closed != null) {
+			closed.clear();
 		}
 	}
 }
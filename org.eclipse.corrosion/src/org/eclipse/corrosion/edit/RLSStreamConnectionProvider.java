@@ -13,50 +13,97 @@
 package org.eclipse.corrosion.edit;
 
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
-import java.text.MessageFormat;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
-import org.eclipse.core.runtime.IStatus;
-import org.eclipse.core.runtime.Status;
 import org.eclipse.corrosion.CorrosionPlugin;
+import org.eclipse.corrosion.CorrosionPreferenceInitializer;
 import org.eclipse.corrosion.CorrosionPreferencePage;
 import org.eclipse.corrosion.Messages;
 import org.eclipse.corrosion.RustManager;
 import org.eclipse.jface.dialogs.IDialogConstants;
 import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.jface.preference.IPreferenceStore;
 import org.eclipse.jface.preference.PreferenceDialog;
 import org.eclipse.lsp4e.server.StreamConnectionProvider;
+import org.eclipse.lsp4j.jsonrpc.messages.Message;
+import org.eclipse.lsp4j.services.LanguageServer;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Shell;
 import org.eclipse.ui.PlatformUI;
 import org.eclipse.ui.dialogs.PreferencesUtil;
 
-import com.google.gson.Gson;
-import com.google.gson.stream.JsonReader;
-
 public class RLSStreamConnectionProvider implements StreamConnectionProvider {
 
 	private static boolean hasCancelledSetup = false;
+	private final LanguageServerBackend backend = LanguageServerBackends.getSelected();
 	private Process process;
+	private InputStream inputStream;
+	private OutputStream outputStream;
+	private LanguageServerStatistics.Connection statistics;
+	private LanguageServerWatchdog watchdog;
+	private SharedLanguageServer.Client sharedClient;
+	/**
+	 * The proxy of the server of this connection, known from the first message.
+	 */
+	private volatile LanguageServer languageServer;
 
 	@Override
 	public void start() throws IOException {
-		String rls = RustManager.getRLS();
-		if ((rls.isEmpty() || !RustManager.setSystemProperties()
-				|| !CorrosionPlugin.validateCommandVersion(rls, RustManager.RLS_VERSION_FORMAT_PATTERN))) {
+		String rls = ""; //$NON-NLS-1$
+		try {
+			rls = getValidatedServer(backend).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			CorrosionPlugin.logError(e);
+		}
+		if (rls.isEmpty()) {
 			showSetupRustNotification();
 			return;
 		}
-		this.process = CorrosionPlugin.getProcessForCommand(rls);
+		IPreferenceStore store = CorrosionPlugin.getDefault().getPreferenceStore();
+		if (store.getBoolean(CorrosionPreferenceInitializer.SHARE_LANGUAGE_SERVER_PREFERENCE)) {
+			String command = rls;
+			this.sharedClient = SharedLanguageServer.newClient(() -> CorrosionPlugin.getProcessForCommand(command));
+			this.inputStream = sharedClient.getInputStream();
+			this.outputStream = sharedClient.getOutputStream();
+		} else {
+			this.process = CorrosionPlugin.getProcessForCommand(rls);
+			this.watchdog = LanguageServerWatchdog.watch(process);
+			this.inputStream = process.getInputStream();
+			this.outputStream = process.getOutputStream();
+		}
+		// parsing every message has a cost, only pay it when statistics are collected
+		if (store.getBoolean(CorrosionPreferenceInitializer.LANGUAGE_SERVER_STATISTICS_PREFERENCE)) {
+			this.statistics = LanguageServerStatistics.getInstance().newConnection();
+			this.inputStream = new JsonRpcTapInputStream(inputStream, statistics::messageReceived);
+			this.outputStream = new JsonRpcTapOutputStream(outputStream, statistics::messageSent);
+		}
+	}
+
+	/**
+	 * Locates and validates the language server of the given backend while the
+	 * system properties are set up, each external command running concurrently
+	 * with its own timeout.
+	 *
+	 * @return a future completed with the server path, or with an empty string if
+	 *         the server cannot be started
+	 */
+	private static CompletableFuture<String> getValidatedServer(LanguageServerBackend backend) {
+		CompletableFuture<Boolean> systemPropertiesSet = RustManager.setSystemProperties();
+		return backend.findExecutable().thenCompose(rls -> {
+			if (rls.isEmpty()) {
+				return CompletableFuture.completedFuture(rls);
+			}
+			return CorrosionPlugin.validateCommandVersionAsync(rls, backend.getVersionPattern())
+					.thenApply(valid -> valid.booleanValue() ? rls : ""); //$NON-NLS-1$
+		}).thenCombine(systemPropertiesSet, (rls, set) -> set.booleanValue() ? rls : ""); //$NON-NLS-1$
 	}
 
 	private static void showSetupRustNotification() {
@@ -84,45 +131,47 @@ public class RLSStreamConnectionProvider implements StreamConnectionProvider {
 		hasCancelledSetup = newValue;
 	}
 
-	private static Map<String, Object> getDefaultInitializationOptions() {
-		final Map<String, Object> initializationSettings = new HashMap<>();
-		initializationSettings.put("clippy_preference", "on"); //$NON-NLS-1$//$NON-NLS-2$
-		return Collections.singletonMap("settings", Collections.singletonMap("rust", initializationSettings)); //$NON-NLS-1$ //$NON-NLS-2$
+	@Override
+	public Object getInitializationOptions(URI rootUri) {
+		if (watchdog != null && rootUri != null && "file".equals(rootUri.getScheme())) { //$NON-NLS-1$
+			watchdog.setRoot(new File(rootUri));
+		}
+		return backend.getInitializationOptions(rootUri);
 	}
 
 	@Override
-	public Object getInitializationOptions(URI rootUri) {
-		final String settingsPath = RustManager.getRlsConfigurationPath();
-		final File settingsFile = new File(settingsPath);
-		final Gson gson = new Gson();
-		try (JsonReader reader = new JsonReader(new FileReader(settingsFile))) {
-			return gson.fromJson(reader, HashMap.class);
-		} catch (FileNotFoundException e) {
-			CorrosionPlugin.getDefault().getLog().log(new Status(IStatus.INFO,
-					CorrosionPlugin.getDefault().getBundle().getSymbolicName(),
-					MessageFormat.format(Messages.RLSStreamConnectionProvider_rlsConfigurationNotFound, settingsPath)));
-		} catch (Throwable e) {
-			CorrosionPlugin.getDefault().getLog().log(new Status(IStatus.ERROR,
-					CorrosionPlugin.getDefault().getBundle().getSymbolicName(),
-					MessageFormat.format(Messages.RLSStreamConnectionProvider_rlsConfigurationError, settingsPath, e)));
+	public void handleMessage(Message message, LanguageServer server, URI rootURI) {
+		if (languageServer == null) {
+			languageServer = server;
 		}
-		return getDefaultInitializationOptions();
 	}
 
 	@Override
 	public InputStream getInputStream() {
-		return process == null ? null : process.getInputStream();
+		return inputStream;
 	}
 
 	@Override
 	public OutputStream getOutputStream() {
-		return process == null ? null : process.getOutputStream();
+		return outputStream;
 	}
 
 	@Override
 	public void stop() {
 		if (process != null)
 			process.destroy();
+		if (statistics != null) {
+			statistics.close();
+		}
+		if (watchdog != null) {
+			watchdog.stop();
+		}
+		if (sharedClient != null) {
+			sharedClient.close();
+		}
+		if (languageServer != null) {
+			RLSClientImplementation.connectionClosed(languageServer);
+		}
 	}
 
 	@Override
@@ -0,0 +1,85 @@
+/*********************************************************************
+ * Copyright (c) 2019 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Red Hat Inc. - Initial implementation
+ *******************************************************************************/
+package org.eclipse.corrosion.edit;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Pattern;
+
+import org.eclipse.corrosion.RustManager;
+import org.eclipse.lsp4j.Location;
+import org.eclipse.lsp4j.LocationLink;
+import org.eclipse.lsp4j.TextDocumentPositionParams;
+import org.eclipse.lsp4j.jsonrpc.messages.Either;
+import org.eclipse.lsp4j.services.LanguageServer;
+
+/**
+ * rust-analyzer, which answers completion and navigation requests from its own
+ * incremental analysis instead of the compiler's save-analysis data.
+ */
+public class RustAnalyzerBackend implements LanguageServerBackend {
+
+	@Override
+	public String getId() {
+		return LanguageServerBackends.RUST_ANALYZER;
+	}
+
+	@Override
+	public CompletableFuture<String> findExecutable() {
+		return RustManager.getRustAnalyzer();
+	}
+
+	@Override
+	public Pattern getVersionPattern() {
+		return RustManager.RUST_ANALYZER_VERSION_FORMAT_PATTERN;
+	}
+
+	@Override
+	public Object getInitializationOptions(URI rootUri) {
+		Map<String, Object> options = new HashMap<>();
+		// Same diagnostics as the RLS default configuration
+		options.put("checkOnSave", Collections.singletonMap("command", "clippy")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		options.put("procMacro", Collections.singletonMap("enable", Boolean.TRUE)); //$NON-NLS-1$ //$NON-NLS-2$
+		return options;
+	}
+
+	@Override
+	public CompletableFuture<List<Location>> findImplementations(LanguageServer server,
+			TextDocumentPositionParams params) {
+		// the standard request, rust-analyzer rejects the RLS extension
+		return server.getTextDocumentService().implementation(params).thenApply(RustAnalyzerBackend::toLocations);
+	}
+
+	private static List<Location> toLocations(
+			Either<List<? extends Location>, List<? extends LocationLink>> implementations) {
+		List<Location> locations = new ArrayList<>();
+		if (implementations == null) {
+			return locations;
+		}
+		if (implementations.isLeft()) {
+			if (implementations.getLeft() != null) {
+				locations.addAll(implementations.getLeft());
+			}
+		} else if (implementations.getRight() != null) {
+			for (LocationLink link : implementations.getRight()) {
+				locations.add(new Location(link.getTargetUri(), link.getTargetSelectionRange()));
+			}
+		}
+		return locations;
+	}
+}
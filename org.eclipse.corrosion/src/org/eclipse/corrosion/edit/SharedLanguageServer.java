@@ -0,0 +1,710 @@
+/*********************************************************************
+ * Copyright (c) 2019 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Red Hat Inc. - Initial implementation
+ *******************************************************************************/
+package org.eclipse.corrosion.edit;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.corrosion.CorrosionPlugin;
+import org.eclipse.corrosion.cargo.core.CargoTools;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * One language server process shared by all the Eclipse projects of a Cargo
+ * workspace. Each lsp4e connection talks to a {@link Client}; the first
+ * <code>initialize</code> request decides which workspace the client belongs
+ * to. Request ids are rewritten so that the connections cannot collide, the
+ * server is initialized once and shut down when its last client exits.
+ * Diagnostics of the server go to the client that has the document open, or
+ * else to the client of the project containing it; its other notifications
+ * are broadcast. Capability registrations are sent to every client, and
+ * replayed to the clients that join later; its other requests are answered by
+ * one client.
+ */
+public class SharedLanguageServer {
+	private static final Map<File, SharedLanguageServer> SERVERS = new HashMap<>();
+	private static final long SHUTDOWN_TIMEOUT_SECONDS = 5;
+	private static final String ID = "id"; //$NON-NLS-1$
+	private static final String PARAMS = "params"; //$NON-NLS-1$
+	private static final String METHOD = "method"; //$NON-NLS-1$
+	private static final String JSONRPC = "jsonrpc"; //$NON-NLS-1$
+	private static final String JSONRPC_VERSION = "2.0"; //$NON-NLS-1$
+	private static final String REGISTER_CAPABILITY = "client/registerCapability"; //$NON-NLS-1$
+	private static final String UNREGISTER_CAPABILITY = "client/unregisterCapability"; //$NON-NLS-1$
+	private static final String REGISTRATIONS = "registrations"; //$NON-NLS-1$
+	private static final String REPLAY_ID_PREFIX = "corrosion-replay-"; //$NON-NLS-1$
+
+	private final File root;
+	private final Process process;
+	private final OutputStream toServer;
+	private final LanguageServerWatchdog watchdog;
+	private final List<Client> clients = new CopyOnWriteArrayList<>();
+	private final Map<Long, PendingRequest> pendingRequests = new ConcurrentHashMap<>();
+	private final AtomicLong nextRequestId = new AtomicLong();
+	private final Map<String, ServerRequest> serverRequests = new ConcurrentHashMap<>();
+	// guards the initialized flag of the clients as well
+	private final Map<String, JsonObject> registrations = new LinkedHashMap<>();
+	private final CompletableFuture<String> initializeResponse = new CompletableFuture<>();
+	private boolean initializeSent;
+	private boolean initializedSent;
+	private boolean shuttingDown;
+
+	private SharedLanguageServer(File root, Process process) {
+		this.root = root;
+		this.process = process;
+		this.toServer = process.getOutputStream();
+		this.watchdog = LanguageServerWatchdog.watch(process);
+		if (watchdog != null) {
+			watchdog.setRoot(root);
+		}
+		JsonRpcMessageParser parser = new JsonRpcMessageParser(this::handleServerMessage);
+		startDaemon("Corrosion shared language server reader", () -> { //$NON-NLS-1$
+			byte[] buffer = new byte[8192];
+			try (InputStream fromServer = process.getInputStream()) {
+				int read = fromServer.read(buffer);
+				while (read != -1) {
+					parser.feed(buffer, 0, read);
+					read = fromServer.read(buffer);
+				}
+			} catch (IOException e) {
+				// process terminated
+			}
+			terminated();
+		});
+		// nobody else drains the error output of a shared process
+		startDaemon("Corrosion shared language server error reader", () -> { //$NON-NLS-1$
+			byte[] buffer = new byte[8192];
+			try (InputStream errors = process.getErrorStream()) {
+				while (errors.read(buffer) != -1) {
+					// discard
+				}
+			} catch (IOException e) {
+				// process terminated
+			}
+		});
+	}
+
+	/**
+	 * Creates a connection endpoint for lsp4e. The server of the Cargo workspace
+	 * is started with the given starter if no client of that workspace is
+	 * connected yet.
+	 */
+	public static Client newClient(Callable<Process> processStarter) {
+		return new Client(processStarter);
+	}
+
+	private static SharedLanguageServer attach(Client client, File root, Callable<Process> processStarter)
+			throws Exception {
+		synchronized (SERVERS) {
+			SharedLanguageServer server = SERVERS.get(root);
+			if (server == null || server.shuttingDown) {
+				server = new SharedLanguageServer(root, processStarter.call());
+				SERVERS.put(root, server);
+			}
+			server.clients.add(client);
+			return server;
+		}
+	}
+
+	private void detach(Client client) {
+		synchronized (SERVERS) {
+			if (!clients.remove(client)) {
+				return;
+			}
+			if (!clients.isEmpty() || shuttingDown) {
+				reassignServerRequests(client);
+				return;
+			}
+			shuttingDown = true;
+			SERVERS.remove(root, this);
+		}
+		long shutdownId = nextRequestId.incrementAndGet();
+		pendingRequests.put(shutdownId, PendingRequest.SHUTDOWN);
+		JsonObject shutdown = new JsonObject();
+		shutdown.addProperty(JSONRPC, JSONRPC_VERSION);
+		shutdown.addProperty(ID, shutdownId);
+		shutdown.addProperty(METHOD, "shutdown"); //$NON-NLS-1$
+		write(shutdown.toString());
+		startDaemon("Corrosion shared language server shutdown", () -> { //$NON-NLS-1$
+			try {
+				if (!process.waitFor(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+					process.destroy();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				process.destroy();
+			}
+		});
+	}
+
+	private void terminated() {
+		synchronized (SERVERS) {
+			shuttingDown = true;
+			SERVERS.remove(root, this);
+		}
+		if (watchdog != null) {
+			watchdog.stop();
+		}
+		for (Client client : clients) {
+			client.input.close();
+		}
+		clients.clear();
+	}
+
+	private void fromClient(Client client, JsonRpcMessage message) {
+		String method = message.getMethod();
+		if (message.isRequest()) {
+			JsonObject request = parse(message.getContent());
+			JsonElement originalId = request.get(ID);
+			if ("initialize".equals(method)) { //$NON-NLS-1$
+				initialize(request);
+				initializeResponse.thenAccept(content -> {
+					JsonObject response = parse(content);
+					response.add(ID, originalId);
+					client.receive(response.toString());
+				});
+			} else if ("shutdown".equals(method)) { //$NON-NLS-1$
+				// the server is shut down once its last client exits
+				client.receive(newResponse(originalId).toString());
+			} else {
+				long id = nextRequestId.incrementAndGet();
+				pendingRequests.put(id, new PendingRequest(client, originalId));
+				client.requestIds.put(originalId.toString(), id);
+				request.addProperty(ID, id);
+				write(request.toString());
+			}
+		} else if (message.isNotification()) {
+			if ("exit".equals(method)) { //$NON-NLS-1$
+				client.close();
+			} else if ("initialized".equals(method)) { //$NON-NLS-1$
+				if (markInitializedSent()) {
+					write(message.getContent());
+				}
+				clientInitialized(client);
+			} else if ("$/cancelRequest".equals(method)) { //$NON-NLS-1$
+				JsonObject notification = parse(message.getContent());
+				JsonObject params = notification.getAsJsonObject(PARAMS);
+				JsonElement canceledId = params == null ? null : params.get(ID);
+				Long id = canceledId == null ? null : client.requestIds.get(canceledId.toString());
+				if (id != null) {
+					params.addProperty(ID, id);
+					write(notification.toString());
+				}
+			} else {
+				if ("textDocument/didOpen".equals(method)) { //$NON-NLS-1$
+					Path document = getDocument(message, "textDocument"); //$NON-NLS-1$
+					if (document != null) {
+						client.openDocuments.add(document);
+					}
+				} else if ("textDocument/didClose".equals(method)) { //$NON-NLS-1$
+					Path document = getDocument(message, "textDocument"); //$NON-NLS-1$
+					if (document != null) {
+						client.openDocuments.remove(document);
+					}
+				}
+				write(message.getContent());
+			}
+		} else {
+			// response to a request of the server, the first answer wins
+			String id = message.getId();
+			ServerRequest request = id == null ? null : serverRequests.get(id);
+			if (request != null && (request.client == null || request.client == client)
+					&& serverRequests.remove(id, request)) {
+				write(message.getContent());
+			}
+		}
+	}
+
+	private synchronized boolean markInitializedSent() {
+		boolean first = !initializedSent;
+		initializedSent = true;
+		return first;
+	}
+
+	/**
+	 * Sends the first initialize request, pointed at the workspace root instead
+	 * of the project of the client.
+	 */
+	private void initialize(JsonObject request) {
+		synchronized (this) {
+			if (initializeSent) {
+				return;
+			}
+			initializeSent = true;
+		}
+		JsonObject params = request.getAsJsonObject(PARAMS);
+		if (params != null) {
+			String rootUri = root.toPath().toUri().toString();
+			params.addProperty("rootUri", rootUri); //$NON-NLS-1$
+			params.addProperty("rootPath", root.getAbsolutePath()); //$NON-NLS-1$
+			if (params.has("workspaceFolders") && params.get("workspaceFolders").isJsonArray()) { //$NON-NLS-1$ //$NON-NLS-2$
+				JsonObject folder = new JsonObject();
+				folder.addProperty("uri", rootUri); //$NON-NLS-1$
+				folder.addProperty("name", root.getName()); //$NON-NLS-1$
+				JsonArray folders = new JsonArray();
+				folders.add(folder);
+				params.add("workspaceFolders", folders); //$NON-NLS-1$
+			}
+		}
+		long id = nextRequestId.incrementAndGet();
+		pendingRequests.put(id, PendingRequest.INITIALIZE);
+		request.addProperty(ID, id);
+		write(request.toString());
+	}
+
+	private void handleServerMessage(JsonRpcMessage message) {
+		if (message.isResponse()) {
+			PendingRequest request = pendingRequests.remove(parseId(message.getId()));
+			if (request == PendingRequest.INITIALIZE) {
+				initializeResponse.complete(message.getContent());
+			} else if (request == PendingRequest.SHUTDOWN) {
+				write("{\"jsonrpc\":\"2.0\",\"method\":\"exit\"}"); //$NON-NLS-1$
+			} else if (request != null) {
+				request.client.requestIds.remove(request.originalId.toString());
+				JsonObject response = parse(message.getContent());
+				response.add(ID, request.originalId);
+				request.client.receive(response.toString());
+			}
+		} else if (message.isRequest()) {
+			routeServerRequest(message);
+		} else {
+			Client owner = null;
+			if ("textDocument/publishDiagnostics".equals(message.getMethod())) { //$NON-NLS-1$
+				owner = findOwner(getDocument(message, null));
+			}
+			if (owner != null) {
+				owner.receive(message.getContent());
+			} else {
+				for (Client client : clients) {
+					client.receive(message.getContent());
+				}
+			}
+		}
+	}
+
+	private void routeServerRequest(JsonRpcMessage message) {
+		String method = message.getMethod();
+		if (REGISTER_CAPABILITY.equals(method) || UNREGISTER_CAPABILITY.equals(method)) {
+			ServerRequest request = new ServerRequest(null, message.getContent());
+			serverRequests.put(message.getId(), request);
+			boolean sent = false;
+			synchronized (registrations) {
+				updateRegistrations(method, parse(message.getContent()).getAsJsonObject(PARAMS));
+				for (Client client : clients) {
+					if (client.initialized) {
+						client.receive(message.getContent());
+						sent = true;
+					}
+				}
+			}
+			if (!sent && serverRequests.remove(message.getId(), request)) {
+				// recorded for the clients to come, nobody is there to answer now
+				write(newResponse(parse(message.getContent()).get(ID)).toString());
+			}
+		} else {
+			Client client = getAnsweringClient();
+			if (client != null) {
+				serverRequests.put(message.getId(), new ServerRequest(client, message.getContent()));
+				client.receive(message.getContent());
+			}
+		}
+	}
+
+	private void updateRegistrations(String method, JsonObject params) {
+		if (params == null) {
+			return;
+		}
+		boolean register = REGISTER_CAPABILITY.equals(method);
+		// the protocol spells it "unregisterations"
+		JsonElement entries = params.get(register ? REGISTRATIONS : "unregisterations"); //$NON-NLS-1$
+		if (entries == null && !register) {
+			entries = params.get("unregistrations"); //$NON-NLS-1$
+		}
+		if (entries == null || !entries.isJsonArray()) {
+			return;
+		}
+		for (JsonElement entry : entries.getAsJsonArray()) {
+			JsonElement id = entry.isJsonObject() ? entry.getAsJsonObject().get(ID) : null;
+			if (id == null) {
+				continue;
+			}
+			if (register) {
+				registrations.put(id.getAsString(), entry.getAsJsonObject());
+			} else {
+				registrations.remove(id.getAsString());
+			}
+		}
+	}
+
+	/**
+	 * Marks the client ready for the requests of the server and sends it the
+	 * capabilities registered so far.
+	 */
+	private void clientInitialized(Client client) {
+		synchronized (registrations) {
+			client.initialized = true;
+			if (registrations.isEmpty()) {
+				return;
+			}
+			JsonArray entries = new JsonArray();
+			for (JsonObject registration : registrations.values()) {
+				entries.add(registration);
+			}
+			JsonObject params = new JsonObject();
+			params.add(REGISTRATIONS, entries);
+			JsonObject request = new JsonObject();
+			request.addProperty(JSONRPC, JSONRPC_VERSION);
+			// the answer matches no server request and is dropped
+			request.addProperty(ID, REPLAY_ID_PREFIX + nextRequestId.incrementAndGet());
+			request.addProperty(METHOD, REGISTER_CAPABILITY);
+			request.add(PARAMS, params);
+			client.receive(request.toString());
+		}
+	}
+
+	private Client getAnsweringClient() {
+		for (Client client : clients) {
+			if (client.initialized) {
+				return client;
+			}
+		}
+		return clients.isEmpty() ? null : clients.get(0);
+	}
+
+	/**
+	 * Hands the unanswered requests of a disconnected client to another one.
+	 */
+	private void reassignServerRequests(Client detached) {
+		for (Map.Entry<String, ServerRequest> entry : serverRequests.entrySet()) {
+			ServerRequest request = entry.getValue();
+			Client next = request.client == detached ? getAnsweringClient() : null;
+			if (next != null && serverRequests.replace(entry.getKey(), request,
+					new ServerRequest(next, request.content))) {
+				next.receive(request.content);
+			}
+		}
+	}
+
+	/**
+	 * @return the client that has the document open, else the client whose
+	 *         project is the closest to the document, <code>null</code> if no
+	 *         project contains it
+	 */
+	private Client findOwner(Path document) {
+		if (document == null) {
+			return null;
+		}
+		Client owner = null;
+		for (Client client : clients) {
+			if (client.openDocuments.contains(document)) {
+				return client;
+			}
+			Path directory = client.rootDirectory;
+			if (directory != null && document.startsWith(directory)
+					&& (owner == null || directory.getNameCount() > owner.rootDirectory.getNameCount())) {
+				owner = client;
+			}
+		}
+		return owner;
+	}
+
+	/**
+	 * @param container
+	 *            the parameter holding the <code>uri</code>, <code>null</code>
+	 *            for the parameters themselves
+	 * @return the local path of the document the message is about
+	 */
+	private static Path getDocument(JsonRpcMessage message, String container) {
+		JsonObject params = parse(message.getContent()).getAsJsonObject(PARAMS);
+		if (params != null && container != null) {
+			params = params.has(container) && params.get(container).isJsonObject()
+					? params.getAsJsonObject(container)
+					: null;
+		}
+		JsonElement uri = params == null ? null : params.get("uri"); //$NON-NLS-1$
+		if (uri == null || !uri.isJsonPrimitive()) {
+			return null;
+		}
+		try {
+			return toPath(new File(URI.create(uri.getAsString())));
+		} catch (IllegalArgumentException | FileSystemNotFoundException e) {
+			// not a file URI
+			return null;
+		}
+	}
+
+	private static Path toPath(File file) {
+		return file.toPath().toAbsolutePath().normalize();
+	}
+
+	private static JsonObject newResponse(JsonElement id) {
+		JsonObject response = new JsonObject();
+		response.addProperty(JSONRPC, JSONRPC_VERSION);
+		response.add(ID, id);
+		response.add("result", JsonNull.INSTANCE); //$NON-NLS-1$
+		return response;
+	}
+
+	private synchronized void write(String content) {
+		try {
+			toServer.write(frame(content));
+			toServer.flush();
+		} catch (IOException e) {
+			// the reader notices the termination of the process
+		}
+	}
+
+	private static byte[] frame(String content) {
+		byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+		byte[] header = ("Content-Length: " + bytes.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII); //$NON-NLS-1$ //$NON-NLS-2$
+		byte[] result = new byte[header.length + bytes.length];
+		System.arraycopy(header, 0, result, 0, header.length);
+		System.arraycopy(bytes, 0, result, header.length, bytes.length);
+		return result;
+	}
+
+	private static JsonObject parse(String content) {
+		return new JsonParser().parse(content).getAsJsonObject();
+	}
+
+	private static Long parseId(String id) {
+		try {
+			return Long.valueOf(id);
+		} catch (NumberFormatException e) {
+			return Long.valueOf(-1);
+		}
+	}
+
+	private static void startDaemon(String name, Runnable runnable) {
+		Thread thread = new Thread(runnable, name);
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	private static class PendingRequest {
+		private static final PendingRequest INITIALIZE = new PendingRequest(null, null);
+		private static final PendingRequest SHUTDOWN = new PendingRequest(null, null);
+
+		private final Client client;
+		private final JsonElement originalId;
+
+		private PendingRequest(Client client, JsonElement originalId) {
+			this.client = client;
+			this.originalId = originalId;
+		}
+	}
+
+	private static class ServerRequest {
+		private final Client client;
+		private final String content;
+
+		/**
+		 * @param client
+		 *            the client expected to answer, <code>null</code> if any
+		 *            client can
+		 */
+		private ServerRequest(Client client, String content) {
+			this.client = client;
+			this.content = content;
+		}
+	}
+
+	/**
+	 * The end of a shared server connection handed to lsp4e.
+	 */
+	public static class Client {
+		private final Callable<Process> processStarter;
+		private final MessageQueueInputStream input = new MessageQueueInputStream();
+		private final JsonRpcMessageParser parser = new JsonRpcMessageParser(this::send);
+		private final Map<String, Long> requestIds = new ConcurrentHashMap<>();
+		private final Set<Path> openDocuments = ConcurrentHashMap.newKeySet();
+		private final OutputStream output = new OutputStream() {
+			@Override
+			public void write(int b) throws IOException {
+				write(new byte[] { (byte) b }, 0, 1);
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				parser.feed(b, off, len);
+			}
+		};
+		private SharedLanguageServer server;
+		private volatile Path rootDirectory;
+		private volatile boolean initialized;
+		private boolean closed;
+
+		private Client(Callable<Process> processStarter) {
+			this.processStarter = processStarter;
+		}
+
+		public InputStream getInputStream() {
+			return input;
+		}
+
+		public OutputStream getOutputStream() {
+			return output;
+		}
+
+		/**
+		 * Disconnects from the shared server, which is shut down if this was its
+		 * last client.
+		 */
+		public void close() {
+			SharedLanguageServer attached;
+			synchronized (this) {
+				if (closed) {
+					return;
+				}
+				closed = true;
+				attached = server;
+			}
+			if (attached != null) {
+				attached.detach(this);
+			}
+			input.close();
+		}
+
+		private void send(JsonRpcMessage message) {
+			SharedLanguageServer attached;
+			synchronized (this) {
+				if (closed) {
+					return;
+				}
+				if (server == null) {
+					if (!"initialize".equals(message.getMethod())) { //$NON-NLS-1$
+						return;
+					}
+					try {
+						File directory = getRootDirectory(message);
+						rootDirectory = toPath(directory);
+						server = attach(this, CargoTools.findWorkspaceRoot(directory), processStarter);
+					} catch (Exception e) {
+						CorrosionPlugin.logError(e);
+						input.close();
+						closed = true;
+						return;
+					}
+				}
+				attached = server;
+			}
+			attached.fromClient(this, message);
+		}
+
+		private void receive(String content) {
+			input.add(frame(content));
+		}
+
+		private static File getRootDirectory(JsonRpcMessage initialize) {
+			JsonObject params = parse(initialize.getContent()).getAsJsonObject(PARAMS);
+			if (params != null) {
+				JsonElement rootUri = params.get("rootUri"); //$NON-NLS-1$
+				if (rootUri != null && rootUri.isJsonPrimitive()) {
+					try {
+						return new File(URI.create(rootUri.getAsString()));
+					} catch (IllegalArgumentException e) {
+						// not a file URI
+					}
+				}
+				JsonElement rootPath = params.get("rootPath"); //$NON-NLS-1$
+				if (rootPath != null && rootPath.isJsonPrimitive()) {
+					return new File(rootPath.getAsString());
+				}
+			}
+			return new File(System.getProperty("user.dir")); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Hands the messages routed to a client to lsp4e, which reads them from its
+	 * own thread.
+	 */
+	private static class MessageQueueInputStream extends InputStream {
+		private static final byte[] END = new byte[0];
+
+		private final BlockingQueue<byte[]> queue = new LinkedBlockingQueue<>();
+		private byte[] current = new byte[0];
+		private int position;
+		private boolean ended;
+
+		private void add(byte[] bytes) {
+			queue.add(bytes);
+		}
+
+		@Override
+		public void close() {
+			queue.add(END);
+		}
+
+		@Override
+		public int read() throws IOException {
+			byte[] b = new byte[1];
+			return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0) {
+				return 0;
+			}
+			while (position == current.length) {
+				if (ended) {
+					return -1;
+				}
+				try {
+					current = queue.take();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException();
+				}
+				position = 0;
+				ended = current == END;
+			}
+			int count = Math.min(len, current.length - position);
+			System.arraycopy(current, position, b, off, count);
+			position += count;
+			return count;
+		}
+
+		@Override
+		public int available() {
+			return current.length - position;
+		}
+	}
+}
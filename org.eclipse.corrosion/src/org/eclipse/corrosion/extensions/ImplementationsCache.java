@@ -0,0 +1,326 @@
+/*********************************************************************
+ * Copyright (c) 2019 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Red Hat Inc. - Initial implementation
+ *******************************************************************************/
+package org.eclipse.corrosion.extensions;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.eclipse.core.filebuffers.FileBuffers;
+import org.eclipse.core.filebuffers.IFileBuffer;
+import org.eclipse.core.filebuffers.IFileBufferListener;
+import org.eclipse.core.filebuffers.ITextFileBuffer;
+import org.eclipse.core.filebuffers.ITextFileBufferManager;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.corrosion.CorrosionPlugin;
+import org.eclipse.jface.text.DocumentEvent;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentListener;
+import org.eclipse.lsp4e.LSPEclipseUtils;
+import org.eclipse.lsp4j.Location;
+import org.eclipse.lsp4j.Position;
+
+/**
+ * Remembers the results of implementations requests per document URI, document
+ * version and position. Versions are counted per URI by this cache, so they do
+ * not restart when a file is closed and opened again. Any edit of an open Rust
+ * document, which lsp4e sends to the server as <code>didChange</code>, and any
+ * saved change of a Rust source or Cargo manifest invalidates all entries, as
+ * implementations may live in any file of the workspace. The least recently
+ * used entries are evicted once the capacity is reached.
+ */
+public class ImplementationsCache {
+	static final int CAPACITY = 64;
+
+	private static final ImplementationsCache INSTANCE = new ImplementationsCache();
+
+	private final Map<Key, List<Location>> entries = new LinkedHashMap<Key, List<Location>>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Key, List<Location>> eldest) {
+			return size() > CAPACITY;
+		}
+	};
+	private final Map<String, Long> versions = new HashMap<>();
+	private long generation;
+	private SourceChangeListener listener;
+	private DocumentChangeListener documentListener;
+
+	public static ImplementationsCache getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * @return the cached locations, or <code>null</code> if the request needs to
+	 *         be sent
+	 */
+	public synchronized List<Location> get(String uri, long version, Position position) {
+		return entries.get(new Key(uri, version, position));
+	}
+
+	/**
+	 * @return the version of the document with the given URI, changed by every
+	 *         edit of the document
+	 */
+	public synchronized long getVersion(String uri) {
+		Long version = versions.get(uri);
+		return version != null ? version.longValue() : 0;
+	}
+
+	/**
+	 * Records an edit of the document with the given URI.
+	 */
+	public synchronized void documentChanged(String uri) {
+		versions.put(uri, getVersion(uri) + 1);
+		invalidate();
+	}
+
+	/**
+	 * @return the current generation, to pass to
+	 *         {@link #put(long, String, long, Position, List)} once the request
+	 *         sent now has completed
+	 */
+	public synchronized long getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * Stores the result of a request, unless the workspace has changed since the
+	 * given generation.
+	 */
+	public synchronized void put(long requestGeneration, String uri, long version, Position position,
+			List<Location> locations) {
+		if (requestGeneration == generation && locations != null) {
+			entries.put(new Key(uri, version, position), Collections.unmodifiableList(new ArrayList<>(locations)));
+		}
+	}
+
+	public synchronized void invalidate() {
+		generation++;
+		entries.clear();
+	}
+
+	synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Starts invalidating the cache on changes of the workspace sources and of
+	 * the open documents.
+	 */
+	public synchronized void install() {
+		if (listener == null) {
+			listener = new SourceChangeListener();
+			ResourcesPlugin.getWorkspace().addResourceChangeListener(listener, IResourceChangeEvent.POST_CHANGE);
+			documentListener = new DocumentChangeListener();
+			documentListener.install();
+		}
+	}
+
+	public synchronized void dispose() {
+		if (listener != null) {
+			ResourcesPlugin.getWorkspace().removeResourceChangeListener(listener);
+			listener = null;
+			documentListener.dispose();
+			documentListener = null;
+		}
+		invalidate();
+	}
+
+	/**
+	 * Listens to the documents of the Rust files open in text file buffers, the
+	 * documents lsp4e connects to the language server.
+	 */
+	private class DocumentChangeListener implements IFileBufferListener {
+		private final ITextFileBufferManager manager = FileBuffers.getTextFileBufferManager();
+		private final Map<IDocument, IDocumentListener> listeners = new HashMap<>();
+
+		private void install() {
+			manager.addFileBufferListener(this);
+			for (IFileBuffer buffer : manager.getFileBuffers()) {
+				bufferCreated(buffer);
+			}
+		}
+
+		private void dispose() {
+			manager.removeFileBufferListener(this);
+			synchronized (listeners) {
+				for (Map.Entry<IDocument, IDocumentListener> entry : listeners.entrySet()) {
+					entry.getKey().removeDocumentListener(entry.getValue());
+				}
+				listeners.clear();
+			}
+		}
+
+		@Override
+		public void bufferCreated(IFileBuffer buffer) {
+			IPath location = buffer.getLocation();
+			if (!(buffer instanceof ITextFileBuffer) || location == null || !location.toString().endsWith(".rs")) { //$NON-NLS-1$
+				return;
+			}
+			IDocument document = ((ITextFileBuffer) buffer).getDocument();
+			IFile file = FileBuffers.getWorkspaceFileAtLocation(location);
+			String uri = (file != null ? LSPEclipseUtils.toUri(file) : LSPEclipseUtils.toUri(location.toFile()))
+					.toString();
+			IDocumentListener changeListener = new IDocumentListener() {
+				@Override
+				public void documentAboutToBeChanged(DocumentEvent event) {
+					// only completed changes are sent to the server
+				}
+
+				@Override
+				public void documentChanged(DocumentEvent event) {
+					ImplementationsCache.this.documentChanged(uri);
+				}
+			};
+			synchronized (listeners) {
+				if (!listeners.containsKey(document)) {
+					listeners.put(document, changeListener);
+					document.addDocumentListener(changeListener);
+				}
+			}
+		}
+
+		@Override
+		public void bufferDisposed(IFileBuffer buffer) {
+			if (buffer instanceof ITextFileBuffer) {
+				IDocument document = ((ITextFileBuffer) buffer).getDocument();
+				synchronized (listeners) {
+					IDocumentListener changeListener = listeners.remove(document);
+					if (changeListener != null) {
+						document.removeDocumentListener(changeListener);
+					}
+				}
+			}
+		}
+
+		@Override
+		public void bufferContentAboutToBeReplaced(IFileBuffer buffer) {
+			// the replacement is reported as a document change
+		}
+
+		@Override
+		public void bufferContentReplaced(IFileBuffer buffer) {
+			// the replacement is reported as a document change
+		}
+
+		@Override
+		public void stateChanging(IFileBuffer buffer) {
+			// not relevant
+		}
+
+		@Override
+		public void dirtyStateChanged(IFileBuffer buffer, boolean isDirty) {
+			// not relevant
+		}
+
+		@Override
+		public void stateValidationChanged(IFileBuffer buffer, boolean isStateValidated) {
+			// not relevant
+		}
+
+		@Override
+		public void underlyingFileMoved(IFileBuffer buffer, IPath path) {
+			// reported as a resource change
+		}
+
+		@Override
+		public void underlyingFileDeleted(IFileBuffer buffer) {
+			// reported as a resource change
+		}
+
+		@Override
+		public void stateChangeFailed(IFileBuffer buffer) {
+			// not relevant
+		}
+	}
+
+	private class SourceChangeListener implements IResourceChangeListener, IResourceDeltaVisitor {
+		private boolean changed;
+
+		@Override
+		public void resourceChanged(IResourceChangeEvent event) {
+			if (event.getDelta() == null) {
+				return;
+			}
+			changed = false;
+			try {
+				event.getDelta().accept(this);
+			} catch (CoreException e) {
+				CorrosionPlugin.logError(e);
+			}
+			if (changed) {
+				invalidate();
+			}
+		}
+
+		@Override
+		public boolean visit(IResourceDelta delta) {
+			IResource resource = delta.getResource();
+			if (resource.getType() != IResource.FILE) {
+				return !changed;
+			}
+			String name = resource.getName();
+			if ((name.endsWith(".rs") || "Cargo.toml".equals(name) || "Cargo.lock".equals(name)) //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+					&& (delta.getKind() != IResourceDelta.CHANGED || (delta.getFlags() & IResourceDelta.CONTENT) != 0)) {
+				changed = true;
+			}
+			return false;
+		}
+	}
+
+	private static class Key {
+		private final String uri;
+		private final long version;
+		private final int line;
+		private final int character;
+
+		private Key(String uri, long version, Position position) {
+			this.uri = uri;
+			this.version = version;
+			this.line = position.getLine();
+			this.character = position.getCharacter();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return version == other.version && line == other.line && character == other.character
+					&& uri.equals(other.uri);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(uri, version, line, character);
+		}
+	}
+}
@@ -12,8 +12,13 @@
  *******************************************************************************/
 package org.eclipse.corrosion.extensions;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IResource;
@@ -21,7 +26,8 @@ import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.corrosion.Messages;
-import org.eclipse.corrosion.edit.RLSServerInterface;
+import org.eclipse.corrosion.edit.LanguageServerBackend;
+import org.eclipse.corrosion.edit.LanguageServerBackends;
 import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.IRegion;
@@ -30,9 +36,8 @@ import org.eclipse.lsp4e.LanguageServerPlugin;
 import org.eclipse.lsp4e.LanguageServiceAccessor.LSPDocumentInfo;
 import org.eclipse.lsp4j.Location;
 import org.eclipse.lsp4j.Position;
-import org.eclipse.lsp4j.ReferenceContext;
-import org.eclipse.lsp4j.ReferenceParams;
 import org.eclipse.lsp4j.TextDocumentIdentifier;
+import org.eclipse.lsp4j.TextDocumentPositionParams;
 import org.eclipse.osgi.util.NLS;
 import org.eclipse.search.internal.ui.text.FileMatch;
 import org.eclipse.search.internal.ui.text.FileSearchQuery;
@@ -44,80 +49,161 @@ import org.eclipse.search.ui.text.Match;
 
 @SuppressWarnings("restriction")
 public class ImplementationsSearchQuery extends FileSearchQuery {
+	private static final int MATCH_CHUNK_SIZE = 256;
+
+	/**
+	 * The implementations request of the latest query. Cancelling it makes lsp4j
+	 * send <code>$/cancelRequest</code> to the server.
+	 */
+	private static CompletableFuture<List<Location>> references;
+	private static long currentGeneration;
 
 	private final Position position;
 	private final LSPDocumentInfo info;
 	private final String filename;
+	private final long documentVersion;
 
 	private FileSearchResult result;
 
 	private long startTime;
 
-	private CompletableFuture<List<Location>> references;
-
 	public ImplementationsSearchQuery(int offset, LSPDocumentInfo info) throws BadLocationException {
 		super("", false, false, null); //$NON-NLS-1$
 		this.position = LSPEclipseUtils.toPosition(offset, info.getDocument());
 		this.info = info;
+		this.documentVersion = ImplementationsCache.getInstance().getVersion(info.getFileUri().toString());
 		IResource resource = LSPEclipseUtils.findResourceFor(info.getFileUri().toString());
 		this.filename = resource != null ? resource.getName() : info.getFileUri().toString();
 	}
 
 	@Override public IStatus run(IProgressMonitor monitor) {
 		startTime = System.currentTimeMillis();
-		// Cancel last references future if needed.
-		if (references != null) {
-			references.cancel(true);
-		}
+		// Cancel the request of any previous query, its results are stale now
+		long generation = startGeneration();
 		AbstractTextSearchResult textResult = (AbstractTextSearchResult) getSearchResult();
 		textResult.removeAll();
 
 		try {
-			// Execute LSP "references" service
-			ReferenceParams params = new ReferenceParams();
-			params.setContext(new ReferenceContext(true));
-			params.setTextDocument(new TextDocumentIdentifier(info.getFileUri().toString()));
-			params.setPosition(position);
-			info.getInitializedLanguageClient().thenCompose(languageServer -> ((RLSServerInterface) languageServer).implementations(params)).thenAccept(locs -> {
-				// Loop for each LSP Location and convert it to Match search.
-				for (Location loc : locs) {
-					Match match = toMatch(loc);
-					result.addMatch(match);
-				}
-			});
+			String uri = info.getFileUri().toString();
+			ImplementationsCache cache = ImplementationsCache.getInstance();
+			List<Location> cached = cache.get(uri, documentVersion, position);
+			if (cached != null) {
+				addMatches(generation, cached);
+				return Status.OK_STATUS;
+			}
+			long cacheGeneration = cache.getGeneration();
+			// RLS and rust-analyzer do not answer the same request
+			LanguageServerBackend backend = LanguageServerBackends.getSelected();
+			TextDocumentPositionParams params = new TextDocumentPositionParams(new TextDocumentIdentifier(uri),
+					position);
+			info.getInitializedLanguageClient()
+					.thenCompose(languageServer -> track(generation, backend.findImplementations(languageServer, params)))
+					.thenAccept(locs -> {
+						cache.put(cacheGeneration, uri, documentVersion, position, locs);
+						addMatches(generation, locs);
+					});
 			return Status.OK_STATUS;
 		} catch (Exception ex) {
 			return new Status(IStatus.ERROR, LanguageServerPlugin.getDefault().getBundle().getSymbolicName(), ex.getMessage(), ex);
 		}
 	}
 
+	private static synchronized long startGeneration() {
+		if (references != null) {
+			references.cancel(true);
+			references = null;
+		}
+		return ++currentGeneration;
+	}
+
+	private static synchronized CompletableFuture<List<Location>> track(long generation,
+			CompletableFuture<List<Location>> request) {
+		if (generation != currentGeneration) {
+			// Superseded while the language server was starting
+			request.cancel(true);
+		} else {
+			references = request;
+		}
+		return request;
+	}
+
+	private static synchronized boolean isCurrent(long generation) {
+		return generation == currentGeneration;
+	}
+
 	/**
-	 * Convert the given LSP {@link Location} to Eclipse search {@link Match}.
+	 * Converts the given locations to search matches and adds them to the
+	 * result. Locations are grouped by file so that every document is loaded
+	 * once, files are processed in parallel and matches are added in chunks so
+	 * that the result view fills up progressively.
 	 *
-	 * @param location
-	 *            the LSP location to convert.
-	 * @return the converted Eclipse search {@link Match}.
+	 * @param generation
+	 *            the generation of the request, results of superseded requests
+	 *            are dropped
+	 * @param locations
+	 *            the LSP locations to add, may be <code>null</code>
 	 */
-	private static Match toMatch(Location location) {
-		try {
-			IResource resource = LSPEclipseUtils.findResourceFor(location.getUri());
-			IDocument document = LSPEclipseUtils.getDocument(resource);
-			if (document != null) {
-				int startOffset = LSPEclipseUtils.toOffset(location.getRange().getStart(), document);
-				int endOffset = LSPEclipseUtils.toOffset(location.getRange().getEnd(), document);
-
-				IRegion lineInformation = document.getLineInformationOfOffset(startOffset);
-				LineElement lineEntry = new LineElement(resource, document.getLineOfOffset(startOffset), lineInformation.getOffset(), document.get(lineInformation.getOffset(), lineInformation.getLength()));
-				return new FileMatch((IFile) resource, startOffset, endOffset - startOffset, lineEntry);
+	private void addMatches(long generation, List<Location> locations) {
+		if (locations == null || locations.isEmpty() || !isCurrent(generation)) {
+			return;
+		}
+		Map<String, List<Location>> locationsByUri = locations.stream()
+				.collect(Collectors.groupingBy(Location::getUri, LinkedHashMap::new, Collectors.toList()));
+		locationsByUri.entrySet().parallelStream().forEach(entry -> {
+			if (!isCurrent(generation)) {
+				return;
+			}
+			List<Match> matches = toMatches(entry.getKey(), entry.getValue());
+			for (int start = 0; start < matches.size() && isCurrent(generation); start += MATCH_CHUNK_SIZE) {
+				List<Match> chunk = matches.subList(start, Math.min(start + MATCH_CHUNK_SIZE, matches.size()));
+				result.addMatches(chunk.toArray(new Match[chunk.size()]));
+			}
+		});
+	}
 
+	/**
+	 * Convert the given LSP {@link Location}s of a single file to Eclipse search
+	 * {@link Match}es.
+	 *
+	 * @param uri
+	 *            the URI of the file all the locations point to.
+	 * @param locations
+	 *            the LSP locations to convert.
+	 * @return the converted Eclipse search {@link Match}es.
+	 */
+	private static List<Match> toMatches(String uri, List<Location> locations) {
+		List<Match> matches = new ArrayList<>(locations.size());
+		IResource resource = LSPEclipseUtils.findResourceFor(uri);
+		if (!(resource instanceof IFile)) {
+			return matches;
+		}
+		IFile file = (IFile) resource;
+		IDocument document = LSPEclipseUtils.getDocument(resource);
+		Map<Integer, LineElement> lineElements = new HashMap<>();
+		for (Location location : locations) {
+			try {
+				if (document != null) {
+					int startOffset = LSPEclipseUtils.toOffset(location.getRange().getStart(), document);
+					int endOffset = LSPEclipseUtils.toOffset(location.getRange().getEnd(), document);
+					int line = document.getLineOfOffset(startOffset);
+					LineElement lineEntry = lineElements.get(line);
+					if (lineEntry == null) {
+						IRegion lineInformation = document.getLineInformation(line);
+						lineEntry = new LineElement(resource, line, lineInformation.getOffset(),
+								document.get(lineInformation.getOffset(), lineInformation.getLength()));
+						lineElements.put(line, lineEntry);
+					}
+					matches.add(new FileMatch(file, startOffset, endOffset - startOffset, lineEntry));
+				} else {
+					Position startPosition = location.getRange().getStart();
+					LineElement lineEntry = new LineElement(resource, startPosition.getLine(), 0, String.format("%s:%s", startPosition.getLine(), startPosition.getCharacter())); //$NON-NLS-1$
+					matches.add(new FileMatch(file, 0, 0, lineEntry));
+				}
+			} catch (BadLocationException ex) {
+				LanguageServerPlugin.logError(ex);
 			}
-			Position startPosition = location.getRange().getStart();
-			LineElement lineEntry = new LineElement(resource, startPosition.getLine(), 0, String.format("%s:%s", startPosition.getLine(), startPosition.getCharacter())); //$NON-NLS-1$
-			return new FileMatch((IFile) resource, 0, 0, lineEntry);
-		} catch (BadLocationException ex) {
-			LanguageServerPlugin.logError(ex);
 		}
-		return null;
+		return matches;
 	}
 
 	@Override public ISearchResult getSearchResult() {
@@ -0,0 +1,68 @@
+/*********************************************************************
+ * Copyright (c) 2019 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Red Hat Inc. - Initial implementation
+ *******************************************************************************/
+package org.eclipse.corrosion.extensions;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.runtime.jobs.IJobChangeEvent;
+import org.eclipse.core.runtime.jobs.JobChangeAdapter;
+
+/**
+ * Routes the <code>window/progress</code> notifications of a connection to one
+ * {@link ProgressIndicatorJob} per progress title. Safe to call from any
+ * thread, a job is scheduled when the first stream of its title starts and
+ * forgotten once all of them are done or the job is cancelled.
+ */
+public class ProgressAggregator {
+	private final Map<String, ProgressIndicatorJob> jobs = new ConcurrentHashMap<>();
+
+	public void update(ProgressParams progress) {
+		String title = progress.getTitle() == null ? "" : progress.getTitle(); //$NON-NLS-1$
+		ProgressIndicatorJob[] created = new ProgressIndicatorJob[1];
+		jobs.compute(title, (key, job) -> {
+			ProgressIndicatorJob current = job;
+			if (current == null) {
+				if (progress.isDone()) {
+					return null;
+				}
+				current = new ProgressIndicatorJob(key);
+				created[0] = current;
+			}
+			return current.update(progress) ? null : current;
+		});
+		// scheduled outside of the map lock, it may call back into the map
+		if (created[0] != null) {
+			ProgressIndicatorJob job = created[0];
+			job.addJobChangeListener(new JobChangeAdapter() {
+				@Override
+				public void done(IJobChangeEvent event) {
+					jobs.remove(title, job);
+				}
+			});
+			job.schedule();
+		}
+	}
+
+	/**
+	 * Cancels and forgets all the jobs, for instance once the connection closes
+	 * without reporting the end of its streams.
+	 */
+	public void clear() {
+		for (Map.Entry<String, ProgressIndicatorJob> entry : jobs.entrySet()) {
+			if (jobs.remove(entry.getKey(), entry.getValue())) {
+				entry.getValue().cancel();
+			}
+		}
+	}
+}
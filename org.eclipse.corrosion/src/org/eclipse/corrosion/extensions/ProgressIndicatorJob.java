@@ -12,67 +12,124 @@
  *******************************************************************************/
 package org.eclipse.corrosion.extensions;
 
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubMonitor;
 import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.corrosion.Messages;
+import org.eclipse.osgi.util.NLS;
 
+/**
+ * Reports all the concurrent progress streams sharing a title, for instance
+ * every "Building" stream, as one job. The job sleeps until a notification
+ * changes its state instead of polling, and is done once all of its streams
+ * are.
+ */
 public class ProgressIndicatorJob extends Job {
-	private SubMonitor subMonitor;
-	private int completedPercentage = 0;
-	private String subTaskName;
+	private final Lock lock = new ReentrantLock();
+	private final Condition changed = lock.newCondition();
+	private final Map<String, Integer> streamPercentages = new HashMap<>();
+	private final long startNanos = System.nanoTime();
+	private String crateName;
+	private boolean crateNameChanged = false;
+	private int crateCount = 0;
 	private boolean isCompleted = false;
 
 	public ProgressIndicatorJob(String type) {
 		super(type);
 	}
 
-	public void update(ProgressParams params) {
-		if (params.isDone()) {
-			isCompleted = true;
-		} else if (params.getMessage() != null) {
-			updateCrateName(params.getMessage());
-		} else if (params.getPercentage() > completedPercentage) {
-			updatePercentage(params.getPercentage());
+	/**
+	 * Applies a notification of one of the streams of this job.
+	 *
+	 * @return whether all the streams of this job are done
+	 */
+	public boolean update(ProgressParams params) {
+		lock.lock();
+		try {
+			if (params.isDone()) {
+				streamPercentages.remove(params.getId());
+				isCompleted = streamPercentages.isEmpty();
+			} else {
+				Integer previous = streamPercentages.get(params.getId());
+				streamPercentages.put(params.getId(),
+						Math.max(params.getPercentage(), previous == null ? 0 : previous.intValue()));
+				if (params.getMessage() != null) {
+					crateName = params.getMessage();
+					crateNameChanged = true;
+					crateCount++;
+				}
+			}
+			changed.signalAll();
+			return isCompleted;
+		} finally {
+			lock.unlock();
 		}
 	}
 
-	private void updateCrateName(String name) {
-		if (subMonitor != null) {
-			subMonitor.subTask(name);
+	@Override
+	protected IStatus run(IProgressMonitor monitor) {
+		SubMonitor subMonitor = SubMonitor.convert(monitor, getName(), 100);
+		int reportedPercentage = 0;
+		lock.lock();
+		try {
+			while (!isCompleted) {
+				if (subMonitor.isCanceled()) {
+					return Status.CANCEL_STATUS;
+				}
+				int percentage = getAveragePercentage();
+				if (percentage > reportedPercentage) {
+					subMonitor.worked(percentage - reportedPercentage);
+					reportedPercentage = percentage;
+				}
+				if (crateNameChanged) {
+					crateNameChanged = false;
+					subMonitor.subTask(NLS.bind(Messages.ProgressIndicatorJob_crateThroughput, crateName,
+							String.format(Locale.getDefault(), "%.1f", getCratesPerSecond()))); //$NON-NLS-1$
+				}
+				changed.await();
+			}
+			return Status.OK_STATUS;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return Status.CANCEL_STATUS;
+		} finally {
+			lock.unlock();
 		}
-		this.subTaskName = name;
 	}
 
-	private void updatePercentage(int completedPercentage) {
-		if (subMonitor != null) {
-			subMonitor.worked(completedPercentage - this.completedPercentage);
+	@Override
+	protected void canceling() {
+		lock.lock();
+		try {
+			changed.signalAll();
+		} finally {
+			lock.unlock();
 		}
-		this.completedPercentage = completedPercentage;
 	}
 
-	@Override
-	protected IStatus run(IProgressMonitor monitor) {
-		subMonitor = SubMonitor.convert(monitor, 100);
-		if (completedPercentage > 0) {
-			subMonitor.worked(completedPercentage);
+	private int getAveragePercentage() {
+		if (streamPercentages.isEmpty()) {
+			return 0;
 		}
-		try {
-			subMonitor.beginTask(getName(), IProgressMonitor.UNKNOWN);
-			if (subTaskName != null) {
-				subMonitor.subTask(subTaskName);
-			}
-			while (!subMonitor.isCanceled() && !isCompleted) {
-				Thread.sleep(50);
-			}
-			if (isCompleted) {
-				return Status.OK_STATUS;
-			}
-		} catch (InterruptedException e) {
-			Thread.currentThread().interrupt();
+		int total = 0;
+		for (Integer percentage : streamPercentages.values()) {
+			total += percentage.intValue();
 		}
-		return Status.CANCEL_STATUS;
+		return Math.min(100, total / streamPercentages.size());
 	}
 
+	private double getCratesPerSecond() {
+		double seconds = (System.nanoTime() - startNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+		return seconds <= 0 ? 0 : crateCount / seconds;
+	}
 }
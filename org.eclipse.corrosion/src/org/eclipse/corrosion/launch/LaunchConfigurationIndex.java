@@ -0,0 +1,184 @@
+/*********************************************************************
+ * Copyright (c) 2019 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Red Hat Inc. - Initial implementation
+ *******************************************************************************/
+package org.eclipse.corrosion.launch;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.cdt.debug.core.ICDTLaunchConfigurationConstants;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.corrosion.CorrosionPlugin;
+import org.eclipse.debug.core.DebugPlugin;
+import org.eclipse.debug.core.ILaunchConfiguration;
+import org.eclipse.debug.core.ILaunchConfigurationListener;
+import org.eclipse.debug.core.ILaunchConfigurationType;
+import org.eclipse.debug.core.ILaunchManager;
+
+/**
+ * Maps the launch configurations of each Corrosion launch configuration type
+ * to the project they launch. A type is indexed the first time it is looked
+ * up, then kept up to date by listening to the launch manager, so that
+ * shortcuts do not read every configuration on each launch.
+ */
+public class LaunchConfigurationIndex implements ILaunchConfigurationListener {
+	private static final String DEBUG_CONFIGURATION_TYPE = "org.eclipse.corrosion.debug.RustDebugDelegate"; //$NON-NLS-1$
+
+	private static LaunchConfigurationIndex instance;
+
+	private final ILaunchManager launchManager;
+	private final Map<String, TypeIndex> types = new HashMap<>();
+
+	private LaunchConfigurationIndex(ILaunchManager launchManager) {
+		this.launchManager = launchManager;
+	}
+
+	public static synchronized LaunchConfigurationIndex getInstance() {
+		if (instance == null) {
+			instance = new LaunchConfigurationIndex(DebugPlugin.getDefault().getLaunchManager());
+			instance.launchManager.addLaunchConfigurationListener(instance);
+		}
+		return instance;
+	}
+
+	/**
+	 * Stops listening to the launch manager and forgets the index.
+	 */
+	public static synchronized void dispose() {
+		if (instance != null) {
+			instance.launchManager.removeLaunchConfigurationListener(instance);
+			instance = null;
+		}
+	}
+
+	/**
+	 * @return the attribute holding the project name in configurations of the
+	 *         given type
+	 */
+	public static String getProjectAttribute(String launchConfigurationType) {
+		if (DEBUG_CONFIGURATION_TYPE.equals(launchConfigurationType)) {
+			return ICDTLaunchConfigurationConstants.ATTR_PROJECT_NAME;
+		}
+		return RustLaunchDelegateTools.PROJECT_ATTRIBUTE;
+	}
+
+	/**
+	 * @return the first configuration of the given type launching the given
+	 *         project, or <code>null</code> if there is none
+	 */
+	public synchronized ILaunchConfiguration find(ILaunchConfigurationType type, String projectName)
+			throws CoreException {
+		TypeIndex index = types.get(type.getIdentifier());
+		if (index == null) {
+			index = new TypeIndex(getProjectAttribute(type.getIdentifier()));
+			for (ILaunchConfiguration configuration : launchManager.getLaunchConfigurations(type)) {
+				index.add(configuration);
+			}
+			types.put(type.getIdentifier(), index);
+		}
+		List<ILaunchConfiguration> configurations = index.byProject.get(projectName);
+		return configurations == null || configurations.isEmpty() ? null : configurations.get(0);
+	}
+
+	private TypeIndex getIndexOf(ILaunchConfiguration configuration) {
+		if (configuration.isWorkingCopy()) {
+			return null;
+		}
+		try {
+			return types.get(configuration.getType().getIdentifier());
+		} catch (CoreException e) {
+			// Type no longer available, it cannot be indexed
+			return null;
+		}
+	}
+
+	@Override
+	public synchronized void launchConfigurationAdded(ILaunchConfiguration configuration) {
+		TypeIndex index = getIndexOf(configuration);
+		if (index != null) {
+			index.add(configuration);
+		}
+	}
+
+	@Override
+	public synchronized void launchConfigurationChanged(ILaunchConfiguration configuration) {
+		TypeIndex index = getIndexOf(configuration);
+		if (index != null) {
+			index.update(configuration);
+		}
+	}
+
+	@Override
+	public synchronized void launchConfigurationRemoved(ILaunchConfiguration configuration) {
+		// The type of a deleted configuration may no longer be readable
+		for (TypeIndex index : types.values()) {
+			index.remove(configuration);
+		}
+	}
+
+	private static class TypeIndex {
+		private final String projectAttribute;
+		private final Map<String, List<ILaunchConfiguration>> byProject = new HashMap<>();
+		private final Map<ILaunchConfiguration, String> projects = new HashMap<>();
+
+		private TypeIndex(String projectAttribute) {
+			this.projectAttribute = projectAttribute;
+		}
+
+		private void add(ILaunchConfiguration configuration) {
+			String projectName;
+			try {
+				projectName = configuration.getAttribute(projectAttribute, ""); //$NON-NLS-1$
+			} catch (CoreException e) {
+				CorrosionPlugin.logError(e);
+				return;
+			}
+			projects.put(configuration, projectName);
+			byProject.computeIfAbsent(projectName, name -> new ArrayList<>(1)).add(configuration);
+		}
+
+		/**
+		 * Keeps the position of the configuration among the ones of its project
+		 * unless the project changed.
+		 */
+		private void update(ILaunchConfiguration configuration) {
+			String projectName;
+			try {
+				projectName = configuration.getAttribute(projectAttribute, ""); //$NON-NLS-1$
+			} catch (CoreException e) {
+				CorrosionPlugin.logError(e);
+				return;
+			}
+			if (!projectName.equals(projects.get(configuration))) {
+				remove(configuration);
+				add(configuration);
+				return;
+			}
+			List<ILaunchConfiguration> configurations = byProject.get(projectName);
+			configurations.set(configurations.indexOf(configuration), configuration);
+		}
+
+		private void remove(ILaunchConfiguration configuration) {
+			String projectName = projects.remove(configuration);
+			if (projectName == null) {
+				return;
+			}
+			List<ILaunchConfiguration> configurations = byProject.get(projectName);
+			configurations.remove(configuration);
+			if (configurations.isEmpty()) {
+				byProject.remove(projectName);
+			}
+		}
+	}
+}
@@ -15,7 +15,6 @@ package org.eclipse.corrosion.launch;
 import java.io.File;
 import java.util.Iterator;
 
-import org.eclipse.cdt.debug.core.ICDTLaunchConfigurationConstants;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
@@ -130,19 +129,11 @@ public class RustLaunchDelegateTools {
 		ILaunchManager launchManager = DebugPlugin.getDefault().getLaunchManager();
 		ILaunchConfigurationType configType = launchManager.getLaunchConfigurationType(launchConfigurationType);
 		try {
-			ILaunchConfiguration[] launchConfigurations = launchManager.getLaunchConfigurations(configType);
 			final String projectName = resource.getProject().getName();
-			String launchConfigProjectAttribute;
-			if (launchConfigurationType.equals("org.eclipse.corrosion.debug.RustDebugDelegate")) { //$NON-NLS-1$
-				launchConfigProjectAttribute = ICDTLaunchConfigurationConstants.ATTR_PROJECT_NAME;
-			} else {
-				launchConfigProjectAttribute = RustLaunchDelegateTools.PROJECT_ATTRIBUTE;
-			}
-			for (ILaunchConfiguration iLaunchConfiguration : launchConfigurations) {
-				if (iLaunchConfiguration.getAttribute(launchConfigProjectAttribute, "") //$NON-NLS-1$
-						.equals(projectName)) {
-					return iLaunchConfiguration;
-				}
+			ILaunchConfiguration launchConfiguration = LaunchConfigurationIndex.getInstance().find(configType,
+					projectName);
+			if (launchConfiguration != null) {
+				return launchConfiguration;
 			}
 			String configName = launchManager.generateLaunchConfigurationName(projectName);
 			return configType.newInstance(null, configName);
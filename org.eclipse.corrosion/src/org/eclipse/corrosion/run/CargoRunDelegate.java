@@ -103,6 +103,13 @@ public class CargoRunDelegate extends LaunchConfigurationDelegate implements ILa
 					.addAll(Arrays.asList(RustLaunchDelegateTools.performVariableSubstitution(options).split("\\s+"))); //$NON-NLS-1$
 		}
 
+		// the format chosen in the options wins over the diagnostic markers
+		final boolean diagnosticMarkers = CargoTools.isDiagnosticMarkersEnabled()
+				&& !options.contains("--message-format"); //$NON-NLS-1$
+		if (diagnosticMarkers) {
+			cargoRunCommand.add(CargoTools.MESSAGE_FORMAT_JSON_OPTION);
+		}
+
 		final String cargoPathString = cargoManifest.getLocation().toPortableString();
 		cargoRunCommand.add("--manifest-path"); //$NON-NLS-1$
 		cargoRunCommand.add(cargoPathString);
@@ -115,10 +122,14 @@ public class CargoRunDelegate extends LaunchConfigurationDelegate implements ILa
 
 		final List<String> finalRunCommand = cargoRunCommand;
 		final File finalWorkingDirectory = workingDirectory;
+		final IProject finalProject = project;
 		CompletableFuture.runAsync(() -> {
 			try {
 				String[] cmdLine = finalRunCommand.toArray(new String[finalRunCommand.size()]);
 				Process p = DebugPlugin.exec(cmdLine, finalWorkingDirectory);
+				if (diagnosticMarkers) {
+					p = CargoTools.withDiagnosticMarkers(p, finalProject);
+				}
 				IProcess process = DebugPlugin.newProcess(launch, p, "cargo run"); //$NON-NLS-1$
 				process.setAttribute(IProcess.ATTR_CMDLINE, String.join(" ", cmdLine)); //$NON-NLS-1$
 			} catch (CoreException e) {
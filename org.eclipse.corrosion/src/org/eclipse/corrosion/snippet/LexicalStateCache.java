@@ -0,0 +1,203 @@
+/*********************************************************************
+ * Copyright (c) 2019 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Red Hat Inc. - Initial implementation
+ *******************************************************************************/
+package org.eclipse.corrosion.snippet;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.DocumentEvent;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentListener;
+import org.eclipse.jface.text.IRegion;
+
+/**
+ * Remembers the lexical state of a Rust document at the start of each line:
+ * plain code, inside a string or raw string, or inside a block comment of a
+ * given nesting depth. Document changes only invalidate the states of the
+ * lines after the change, so telling whether an offset is in a comment or a
+ * string scans the line of the offset once the states before it are known.
+ */
+public class LexicalStateCache implements IDocumentListener {
+	static final int CODE = 0;
+	static final int STRING = -1;
+	/**
+	 * Raw strings with <i>n</i> hashes are encoded as <code>RAW_STRING - n</code>
+	 * and block comments as their positive nesting depth.
+	 */
+	static final int RAW_STRING = -2;
+	static final int LINE_COMMENT = Integer.MIN_VALUE;
+
+	private static final Map<IDocument, LexicalStateCache> CACHES = Collections.synchronizedMap(new WeakHashMap<>());
+
+	private int[] lineStartStates = new int[64];
+	private int validLines;
+
+	/**
+	 * @return the cache of the given document, listening to its changes
+	 */
+	public static LexicalStateCache forDocument(IDocument document) {
+		synchronized (CACHES) {
+			LexicalStateCache cache = CACHES.get(document);
+			if (cache == null) {
+				cache = new LexicalStateCache();
+				CACHES.put(document, cache);
+				document.addDocumentListener(cache);
+			}
+			return cache;
+		}
+	}
+
+	/**
+	 * @return whether the given offset of the document, which must be the one
+	 *         of this cache, is inside a comment or a string literal
+	 */
+	public synchronized boolean isInCommentOrString(IDocument document, int offset) throws BadLocationException {
+		int line = document.getLineOfOffset(offset);
+		computeLineStartStates(document, line);
+		int lineOffset = document.getLineOffset(line);
+		String text = document.get(lineOffset, offset - lineOffset);
+		return scan(text, lineStartStates[line]) != CODE;
+	}
+
+	private void computeLineStartStates(IDocument document, int line) throws BadLocationException {
+		if (validLines == 0) {
+			lineStartStates[0] = CODE;
+			validLines = 1;
+		}
+		while (validLines <= line) {
+			int previous = validLines - 1;
+			IRegion information = document.getLineInformation(previous);
+			int state = scan(document.get(information.getOffset(), information.getLength()),
+					lineStartStates[previous]);
+			if (validLines == lineStartStates.length) {
+				lineStartStates = Arrays.copyOf(lineStartStates, lineStartStates.length * 2);
+			}
+			lineStartStates[validLines++] = state == LINE_COMMENT ? CODE : state;
+		}
+	}
+
+	@Override
+	public void documentAboutToBeChanged(DocumentEvent event) {
+		// states are invalidated once the new line structure is known
+	}
+
+	@Override
+	public synchronized void documentChanged(DocumentEvent event) {
+		try {
+			// The state at the start of the changed line does not depend on the change
+			int line = event.getDocument().getLineOfOffset(event.getOffset());
+			validLines = Math.min(validLines, line + 1);
+		} catch (BadLocationException e) {
+			validLines = 0;
+		}
+	}
+
+	/**
+	 * @return the lexical state at the end of the given text of a single line,
+	 *         starting in the given state
+	 */
+	static int scan(String text, int startState) {
+		int state = startState;
+		int end = text.length();
+		int i = 0;
+		while (i < end && state != LINE_COMMENT) {
+			char c = text.charAt(i);
+			char next = i + 1 < end ? text.charAt(i + 1) : 0;
+			if (state > 0) {
+				if (c == '*' && next == '/') {
+					state--;
+					i += 2;
+				} else if (c == '/' && next == '*') {
+					state++;
+					i += 2;
+				} else {
+					i++;
+				}
+			} else if (state == STRING) {
+				if (c == '\\') {
+					i += 2;
+				} else {
+					if (c == '"') {
+						state = CODE;
+					}
+					i++;
+				}
+			} else if (state <= RAW_STRING) {
+				int hashes = RAW_STRING - state;
+				if (c == '"' && countHashes(text, i + 1) >= hashes) {
+					state = CODE;
+					i += 1 + hashes;
+				} else {
+					i++;
+				}
+			} else if (c == '/' && next == '/') {
+				state = LINE_COMMENT;
+			} else if (c == '/' && next == '*') {
+				state = 1;
+				i += 2;
+			} else if (c == '"') {
+				state = STRING;
+				i++;
+			} else if (c == 'r' && isRawStringPrefix(text, i)) {
+				int hashes = countHashes(text, i + 1);
+				if (i + 1 + hashes < end && text.charAt(i + 1 + hashes) == '"') {
+					state = RAW_STRING - hashes;
+					i += 2 + hashes;
+				} else {
+					i++;
+				}
+			} else if (c == '\'') {
+				i = skipCharacterLiteral(text, i);
+			} else {
+				i++;
+			}
+		}
+		return state;
+	}
+
+	private static int countHashes(String text, int start) {
+		int index = start;
+		while (index < text.length() && text.charAt(index) == '#') {
+			index++;
+		}
+		return index - start;
+	}
+
+	/**
+	 * @return whether the <code>r</code> at the given index starts a raw string
+	 *         rather than being part of an identifier, <code>br</code> included
+	 */
+	private static boolean isRawStringPrefix(String text, int index) {
+		int start = index > 0 && text.charAt(index - 1) == 'b' ? index - 1 : index;
+		return start == 0 || !Character.isJavaIdentifierPart(text.charAt(start - 1));
+	}
+
+	/**
+	 * @return the index after the character literal at the given index, or after
+	 *         the quote if it starts a lifetime
+	 */
+	private static int skipCharacterLiteral(String text, int index) {
+		int end = text.length();
+		if (index + 1 < end && text.charAt(index + 1) == '\\') {
+			int closing = text.indexOf('\'', index + 3);
+			return closing == -1 ? end : closing + 1;
+		}
+		if (index + 2 < end && text.charAt(index + 2) == '\'') {
+			return index + 3;
+		}
+		return index + 1;
+	}
+}
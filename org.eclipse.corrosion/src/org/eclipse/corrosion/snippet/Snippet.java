@@ -13,23 +13,33 @@
 package org.eclipse.corrosion.snippet;
 
 import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
-import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.ITextViewer;
 import org.eclipse.jface.text.contentassist.ICompletionProposal;
 import org.eclipse.lsp4e.LanguageServiceAccessor.LSPDocumentInfo;
 import org.eclipse.lsp4e.operations.completion.LSCompletionProposal;
 import org.eclipse.lsp4j.CompletionItem;
 import org.eclipse.lsp4j.CompletionItemKind;
 import org.eclipse.lsp4j.InsertTextFormat;
-import org.eclipse.lsp4j.Position;
 import org.eclipse.lsp4j.Range;
 import org.eclipse.lsp4j.TextEdit;
+import org.eclipse.lsp4j.services.LanguageServer;
 
 @SuppressWarnings("restriction")
 public class Snippet {
+	private static final int MAX_RENDERED_TEMPLATES = 16;
+
 	private String[] replacementLines;
 	private String display;
 	private CompletionItemKind kind;
+	/**
+	 * Replacement texts already rendered, by line indentation.
+	 */
+	private final Map<String, String> renderedTemplates = new ConcurrentHashMap<>();
 
 	public Snippet(String display, CompletionItemKind kind, String[] replacementLines) {
 		if (replacementLines == null) {
@@ -41,47 +51,100 @@ public class Snippet {
 		this.kind = kind;
 	}
 
-	public ICompletionProposal convertToCompletionProposal(int offset, LSPDocumentInfo info, String prefix, String lineIndentation) {
+	/**
+	 * Creates a proposal replacing the given range, which can be shared by all
+	 * the proposals of a completion request. The replacement text is only
+	 * rendered once the proposal is applied or its details are displayed.
+	 */
+	public ICompletionProposal convertToCompletionProposal(int offset, LSPDocumentInfo info, Range range, String lineIndentation) {
 		CompletionItem item = new CompletionItem();
 		item.setLabel(display);
 		item.setKind(kind);
 		item.setInsertTextFormat(InsertTextFormat.Snippet);
+		TextEdit textEdit = new TextEdit();
+		textEdit.setRange(range);
+		item.setTextEdit(textEdit);
+		return new SnippetCompletionProposal(info.getDocument(), offset, item, info.getLanguageClient(),
+				lineIndentation);
+	}
+
+	public String getDisplay() {
+		return display;
+	}
 
-		Range r = null;
-		try {
-			int line = info.getDocument().getLineOfOffset(offset);
-			int lineOffset = offset - info.getDocument().getLineOffset(line);
-			r = new Range(new Position(line, lineOffset - prefix.length()), new Position(line, lineOffset));
-		} catch (BadLocationException e) {
-			// Caught by null return
+	private String createReplacement(String lineIndentation) {
+		if (replacementLines == null || replacementLines.length == 0) {
+			return ""; //$NON-NLS-1$
+		} else if (replacementLines.length == 1) {
+			return replacementLines[0];
 		}
-		if (r == null) {
-			return null;
+		String replacement = renderedTemplates.get(lineIndentation);
+		if (replacement == null) {
+			if (renderedTemplates.size() >= MAX_RENDERED_TEMPLATES) {
+				renderedTemplates.clear();
+			}
+			replacement = String.join('\n' + lineIndentation, replacementLines);
+			renderedTemplates.put(lineIndentation, replacement);
 		}
-		item.setTextEdit(new TextEdit(r, createReplacement(lineIndentation)));
-		return new LSCompletionProposal(info.getDocument(), offset, item, info.getLanguageClient());
+		return replacement;
 	}
 
-	public boolean matchesPrefix(String prefix) {
-		return this.display.startsWith(prefix);
-	}
+	/**
+	 * A proposal rendering the new text of its text edit before it is applied,
+	 * before its item is resolved to display its details or handed out.
+	 */
+	private class SnippetCompletionProposal extends LSCompletionProposal {
+		private final CompletionItem item;
+		private final String lineIndentation;
 
-	private String createReplacement(String lineIndentation) {
-		StringBuilder responseBuilder = new StringBuilder();
+		private SnippetCompletionProposal(IDocument document, int offset, CompletionItem item,
+				LanguageServer languageServer, String lineIndentation) {
+			super(document, offset, item, languageServer);
+			this.item = item;
+			this.lineIndentation = lineIndentation;
+		}
 
-		if (replacementLines.length == 1) {
-			return replacementLines[0];
-		} else if (replacementLines.length > 1) {
-			for (String line : replacementLines) {
-				if (responseBuilder.length() == 0) {
-					responseBuilder.append(line);
-					continue;
-				}
-				responseBuilder.append('\n');
-				responseBuilder.append(lineIndentation);
-				responseBuilder.append(line);
+		private synchronized void render() {
+			TextEdit textEdit = item.getTextEdit();
+			if (textEdit != null && textEdit.getNewText() == null) {
+				textEdit.setNewText(createReplacement(lineIndentation));
 			}
 		}
-		return responseBuilder.toString();
+
+		@Override
+		public CompletionItem getItem() {
+			render();
+			return super.getItem();
+		}
+
+		@Override
+		public void apply(IDocument document) {
+			render();
+			super.apply(document);
+		}
+
+		@Override
+		public void apply(IDocument document, char trigger, int offset) {
+			render();
+			super.apply(document, trigger, offset);
+		}
+
+		@Override
+		public void apply(ITextViewer viewer, char trigger, int stateMask, int offset) {
+			render();
+			super.apply(viewer, trigger, stateMask, offset);
+		}
+
+		@Override
+		public String getAdditionalProposalInfo() {
+			render();
+			return super.getAdditionalProposalInfo();
+		}
+
+		@Override
+		public Object getAdditionalProposalInfo(IProgressMonitor monitor) {
+			render();
+			return super.getAdditionalProposalInfo(monitor);
+		}
 	}
 }
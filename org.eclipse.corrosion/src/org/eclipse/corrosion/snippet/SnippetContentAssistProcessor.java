@@ -12,20 +12,13 @@
  *******************************************************************************/
 package org.eclipse.corrosion.snippet;
 
-import java.io.File;
-import java.io.IOException;
-import java.net.URL;
-import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import org.eclipse.core.runtime.FileLocator;
-import org.eclipse.core.runtime.Path;
-import org.eclipse.corrosion.CorrosionPlugin;
+import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.ITextViewer;
 import org.eclipse.jface.text.contentassist.ICompletionProposal;
@@ -34,66 +27,37 @@ import org.eclipse.jface.text.contentassist.IContextInformation;
 import org.eclipse.jface.text.contentassist.IContextInformationValidator;
 import org.eclipse.lsp4e.LanguageServiceAccessor;
 import org.eclipse.lsp4e.LanguageServiceAccessor.LSPDocumentInfo;
-import org.eclipse.lsp4j.CompletionItemKind;
-
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
+import org.eclipse.lsp4j.Position;
+import org.eclipse.lsp4j.Range;
 
 @SuppressWarnings("restriction")
 public class SnippetContentAssistProcessor implements IContentAssistProcessor {
-	private static final String SINGLE_LINE_COMMENT = "(?s).*(\\/\\/[^\\n]*)"; //$NON-NLS-1$
-	private static final String MULTI_LINE_COMMENT = "(?s).*\\/\\*(.(?!\\*\\/))*"; //$NON-NLS-1$
 	private static final String ENDS_WITH_WORD = "(?<indent>\\s*).*?(?<prefix>\\w*)"; //$NON-NLS-1$
 	private static final Pattern ENDS_WITH_WORD_PATTERN = Pattern.compile(ENDS_WITH_WORD);
-	private static final Pattern SINGLE_LINE_COMMENT_PATTERN = Pattern.compile(SINGLE_LINE_COMMENT);
-	private static final Pattern MULTI_LINE_COMMENT_PATTERN = Pattern.compile(MULTI_LINE_COMMENT);
-	private static final List<Snippet> snippets = new ArrayList<>();
-	static {
-		JsonArray snippetArray = null;
-		JsonParser parser = new JsonParser();
-		try {
-			URL url = FileLocator.toFileURL(FileLocator.find(CorrosionPlugin.getDefault().getBundle(),
-					Path.fromPortableString("snippets/rust.json"), Collections.emptyMap())); //$NON-NLS-1$
-			StringBuilder snippetsBuilder = new StringBuilder();
-			Files.readAllLines(new File(url.getFile()).toPath()).forEach(line -> snippetsBuilder.append(line));
-			snippetArray = parser.parse(snippetsBuilder.toString()).getAsJsonArray();
-		} catch (IOException e) {
-			// Caught with null snippetArray
-		}
-
-		if (snippetArray != null) {
-			for (JsonElement jsonElement : snippetArray) {
-				JsonObject snippet = jsonElement.getAsJsonObject();
-
-				String name = snippet.get("display").getAsString(); //$NON-NLS-1$
-				int completionItemKind = snippet.get("completionItemKind").getAsInt(); //$NON-NLS-1$
+	private static final int MAX_PROPOSALS = 100;
 
-				JsonArray replacementLines = snippet.get("replacementLines").getAsJsonArray(); //$NON-NLS-1$
-				String[] lines = new String[replacementLines.size()];
-				for (int i = 0; i < replacementLines.size(); i++) {
-					lines[i] = replacementLines.get(i).getAsString();
-				}
-
-				addSnippet(new Snippet(name, CompletionItemKind.forValue(completionItemKind), lines));
-			}
-		}
-	}
-
-	private static void addSnippet(Snippet snippet) {
-		snippets.add(snippet);
+	public SnippetContentAssistProcessor() {
+		// Start loading while the editor opens, before the first completion
+		SnippetLibrary.getInstance().load();
 	}
 
 	@Override
 	public ICompletionProposal[] computeCompletionProposals(ITextViewer viewer, int offset) {
 		IDocument document = viewer.getDocument();
-		String textToOffset = document.get().substring(0, offset);
-		if (isOffsetInComment(textToOffset)) {
+		String lineToOffset;
+		int line;
+		try {
+			if (LexicalStateCache.forDocument(document).isInCommentOrString(document, offset)) {
+				return new ICompletionProposal[0];
+			}
+			line = document.getLineOfOffset(offset);
+			int lineOffset = document.getLineOffset(line);
+			lineToOffset = document.get(lineOffset, offset - lineOffset);
+		} catch (BadLocationException e) {
 			return new ICompletionProposal[0];
 		}
 
-		Matcher matcher = ENDS_WITH_WORD_PATTERN.matcher(textToOffset.substring(textToOffset.lastIndexOf('\n') + 1));
+		Matcher matcher = ENDS_WITH_WORD_PATTERN.matcher(lineToOffset);
 		matcher.matches();
 		String indent = matcher.group("indent"); //$NON-NLS-1$
 		String prefix = matcher.group("prefix"); //$NON-NLS-1$
@@ -101,21 +65,21 @@ public class SnippetContentAssistProcessor implements IContentAssistProcessor {
 		Collection<LSPDocumentInfo> infos = LanguageServiceAccessor.getLSPDocumentInfosFor(document,
 				capabilities -> Boolean.TRUE.equals(capabilities.getReferencesProvider()));
 
-		List<ICompletionProposal> proposals = new ArrayList<>();
+		List<Snippet> snippets = SnippetLibrary.getInstance().getIndex().findFuzzy(prefix, MAX_PROPOSALS);
+		if (snippets.isEmpty()) {
+			return new ICompletionProposal[0];
+		}
+		// All proposals replace the same prefix
+		LSPDocumentInfo info = infos.iterator().next();
+		int column = lineToOffset.length();
+		Range range = new Range(new Position(line, column - prefix.length()), new Position(line, column));
+		List<ICompletionProposal> proposals = new ArrayList<>(snippets.size());
 		for (Snippet snippet : snippets) {
-			if (snippet.matchesPrefix(prefix)) {
-				proposals.add(snippet.convertToCompletionProposal(offset, infos.iterator().next(), prefix, indent));
-			}
+			proposals.add(snippet.convertToCompletionProposal(offset, info, range, indent));
 		}
 		return proposals.toArray(new ICompletionProposal[proposals.size()]);
 	}
 
-	private static boolean isOffsetInComment(String textToOffset) {
-		Matcher singleLineCommentMatcher = SINGLE_LINE_COMMENT_PATTERN.matcher(textToOffset);
-		Matcher multiLineCommentMatcher = MULTI_LINE_COMMENT_PATTERN.matcher(textToOffset);
-		return singleLineCommentMatcher.matches() || multiLineCommentMatcher.matches();
-	}
-
 	@Override
 	public IContextInformation[] computeContextInformation(ITextViewer viewer, int offset) {
 		return new IContextInformation[0];
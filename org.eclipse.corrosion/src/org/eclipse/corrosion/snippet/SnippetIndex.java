@@ -0,0 +1,164 @@
+/*********************************************************************
+ * Copyright (c) 2019 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Red Hat Inc. - Initial implementation
+ *******************************************************************************/
+package org.eclipse.corrosion.snippet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * An immutable set of snippets sorted by display string. Looking up the
+ * snippets starting with a prefix takes two binary searches and allocates
+ * nothing when no snippet matches. Fuzzy lookups score every snippet with a
+ * {@link SnippetMatcher} and keep the best ones in a bounded heap.
+ */
+public class SnippetIndex {
+	public static final SnippetIndex EMPTY = new SnippetIndex(Collections.emptyList());
+
+	private final Snippet[] sorted;
+	private final List<Snippet> sortedList;
+	private final char[][] displays;
+
+	public SnippetIndex(Collection<Snippet> snippets) {
+		this.sorted = snippets.toArray(new Snippet[snippets.size()]);
+		Arrays.sort(sorted, Comparator.comparing(Snippet::getDisplay));
+		this.sortedList = Collections.unmodifiableList(Arrays.asList(sorted));
+		this.displays = new char[sorted.length][];
+		for (int i = 0; i < sorted.length; i++) {
+			displays[i] = sorted[i].getDisplay().toCharArray();
+		}
+	}
+
+	/**
+	 * @return the snippets whose display string starts with the given prefix,
+	 *         sorted by display string
+	 */
+	public List<Snippet> findByPrefix(String prefix) {
+		int from = bound(prefix, false);
+		if (from == sorted.length || !sorted[from].getDisplay().startsWith(prefix)) {
+			return Collections.emptyList();
+		}
+		return sortedList.subList(from, bound(prefix, true));
+	}
+
+	/**
+	 * @return at most <code>limit</code> snippets matching the given pattern
+	 *         according to {@link SnippetMatcher}, best first; equal scores are
+	 *         ordered by display length then display string
+	 */
+	public List<Snippet> findFuzzy(String pattern, int limit) {
+		if (limit <= 0) {
+			return Collections.emptyList();
+		}
+		SnippetMatcher matcher = new SnippetMatcher(pattern);
+		// Worst candidate at the head, so that it is the one replaced
+		PriorityQueue<ScoredSnippet> best = new PriorityQueue<>(Math.min(limit, sorted.length) + 1,
+				Collections.reverseOrder());
+		for (int i = 0; i < sorted.length; i++) {
+			int score = matcher.score(displays[i]);
+			if (score == SnippetMatcher.NO_MATCH) {
+				continue;
+			}
+			if (best.size() < limit) {
+				best.add(new ScoredSnippet(score, i));
+			} else if (best.peek().isWorseThan(score, i)) {
+				best.poll();
+				best.add(new ScoredSnippet(score, i));
+			}
+		}
+		List<Snippet> result = new ArrayList<>(best.size());
+		while (!best.isEmpty()) {
+			result.add(sorted[best.poll().index]);
+		}
+		Collections.reverse(result);
+		return result;
+	}
+
+	/**
+	 * @return all snippets, sorted by display string
+	 */
+	public List<Snippet> getSnippets() {
+		return sortedList;
+	}
+
+	public int size() {
+		return sorted.length;
+	}
+
+	/**
+	 * @return the index of the first snippet sorted after the ones starting with
+	 *         the prefix if <code>after</code> is set, of the first one sorted at
+	 *         or after the prefix otherwise
+	 */
+	private int bound(String prefix, boolean after) {
+		int low = 0;
+		int high = sorted.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			int comparison = compareToPrefix(sorted[middle].getDisplay(), prefix);
+			if (comparison < 0 || (after && comparison == 0)) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Compares a display string to a prefix, strings starting with the prefix
+	 * being equal to it.
+	 */
+	private static int compareToPrefix(String display, String prefix) {
+		if (display.startsWith(prefix)) {
+			return 0;
+		}
+		return display.compareTo(prefix);
+	}
+
+	private class ScoredSnippet implements Comparable<ScoredSnippet> {
+		private final int score;
+		private final int index;
+
+		private ScoredSnippet(int score, int index) {
+			this.score = score;
+			this.index = index;
+		}
+
+		private boolean isWorseThan(int otherScore, int otherIndex) {
+			return compareTo(otherScore, otherIndex) > 0;
+		}
+
+		/**
+		 * Orders better candidates first.
+		 */
+		private int compareTo(int otherScore, int otherIndex) {
+			if (score != otherScore) {
+				return Integer.compare(otherScore, score);
+			}
+			if (displays[index].length != displays[otherIndex].length) {
+				return Integer.compare(displays[index].length, displays[otherIndex].length);
+			}
+			return Integer.compare(index, otherIndex);
+		}
+
+		@Override
+		public int compareTo(ScoredSnippet other) {
+			return compareTo(other.score, other.index);
+		}
+	}
+}
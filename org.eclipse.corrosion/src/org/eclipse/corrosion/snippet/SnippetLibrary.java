@@ -0,0 +1,428 @@
+/*********************************************************************
+ * Copyright (c) 2019 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Red Hat Inc. - Initial implementation
+ *******************************************************************************/
+package org.eclipse.corrosion.snippet;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.FileLocator;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.corrosion.CorrosionPlugin;
+import org.eclipse.corrosion.Messages;
+import org.eclipse.lsp4j.CompletionItemKind;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * The snippets offered by content assist: the ones shipped with Corrosion,
+ * the <code>*.json</code> files of the user snippets directory and the
+ * <code>rust-snippets.json</code> file at the root of each open project. The
+ * library is loaded by a background job the first time it is used; until then
+ * it serves an empty index.
+ * <p>
+ * User and project files are watched, the user snippets directory as well
+ * when it is only created later. A changed file is re-read on its own and
+ * a new index is then published atomically, content assist keeps using the
+ * previous one in the meantime. A file that cannot be parsed, for instance
+ * because it is being written, keeps its previous snippets.
+ */
+public class SnippetLibrary {
+	/**
+	 * The family of the jobs loading snippets.
+	 */
+	public static final Object FAMILY = SnippetLibrary.class;
+	public static final String PROJECT_SNIPPETS_FILE = "rust-snippets.json"; //$NON-NLS-1$
+
+	private static final String BUNDLE_SOURCE = "bundle:snippets/rust.json"; //$NON-NLS-1$
+	private static final String WORKSPACE_SOURCE_PREFIX = "workspace:"; //$NON-NLS-1$
+	private static final long RELOAD_DELAY = 200;
+
+	private static final SnippetLibrary INSTANCE = new SnippetLibrary();
+
+	private final AtomicReference<SnippetIndex> index = new AtomicReference<>(SnippetIndex.EMPTY);
+	private final AtomicBoolean loadScheduled = new AtomicBoolean();
+	private final Map<String, List<Snippet>> sources = new ConcurrentHashMap<>();
+	private final Set<String> pendingSources = ConcurrentHashMap.newKeySet();
+	private final Job reloadJob = new ReloadJob();
+	private IResourceChangeListener resourceListener;
+	private WatchService watchService;
+
+	public static SnippetLibrary getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * @return the directory holding the snippet files of the user
+	 */
+	public static File getUserSnippetsDirectory() {
+		return new File(System.getProperty("user.home"), ".corrosion" + File.separator + "snippets"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+
+	/**
+	 * @return the snippets loaded so far, schedules the loading of the library on
+	 *         first use
+	 */
+	public SnippetIndex getIndex() {
+		load();
+		return index.get();
+	}
+
+	/**
+	 * Schedules the loading of the library unless it has already been done.
+	 */
+	public void load() {
+		if (loadScheduled.compareAndSet(false, true)) {
+			new LoadJob().schedule();
+		}
+	}
+
+	/**
+	 * Stops watching snippet files.
+	 */
+	public synchronized void dispose() {
+		if (resourceListener != null) {
+			ResourcesPlugin.getWorkspace().removeResourceChangeListener(resourceListener);
+			resourceListener = null;
+		}
+		if (watchService != null) {
+			try {
+				watchService.close();
+			} catch (IOException e) {
+				CorrosionPlugin.logError(e);
+			}
+			watchService = null;
+		}
+		reloadJob.cancel();
+	}
+
+	private static List<File> listUserFiles() {
+		File[] files = getUserSnippetsDirectory().listFiles((directory, name) -> name.endsWith(".json")); //$NON-NLS-1$
+		if (files == null) {
+			return Collections.emptyList();
+		}
+		List<File> result = new ArrayList<>();
+		for (File file : files) {
+			result.add(file.getAbsoluteFile());
+		}
+		return result;
+	}
+
+	private static String getSource(IProject project) {
+		return WORKSPACE_SOURCE_PREFIX + project.getFile(PROJECT_SNIPPETS_FILE).getFullPath().toString();
+	}
+
+	/**
+	 * Reads the snippets of the given source again, or forgets them if the source
+	 * no longer exists.
+	 */
+	private void loadSource(String source) {
+		try {
+			if (source.startsWith(WORKSPACE_SOURCE_PREFIX)) {
+				IFile file = ResourcesPlugin.getWorkspace().getRoot()
+						.getFile(Path.fromPortableString(source.substring(WORKSPACE_SOURCE_PREFIX.length())));
+				if (!file.exists()) {
+					sources.remove(source);
+					return;
+				}
+				try (InputStream stream = file.getContents(true)) {
+					sources.put(source, read(new InputStreamReader(stream, StandardCharsets.UTF_8)));
+				}
+			} else {
+				File file = new File(source);
+				if (!file.isFile()) {
+					sources.remove(source);
+					return;
+				}
+				try (InputStream stream = new FileInputStream(file)) {
+					sources.put(source, read(new InputStreamReader(stream, StandardCharsets.UTF_8)));
+				}
+			}
+		} catch (IOException | CoreException e) {
+			CorrosionPlugin.logError(e);
+		}
+	}
+
+	private void loadBundleSource() {
+		URL url = FileLocator.find(CorrosionPlugin.getDefault().getBundle(),
+				Path.fromPortableString("snippets/rust.json"), Collections.emptyMap()); //$NON-NLS-1$
+		if (url == null) {
+			return;
+		}
+		try (InputStream stream = url.openStream()) {
+			sources.put(BUNDLE_SOURCE, read(new InputStreamReader(stream, StandardCharsets.UTF_8)));
+		} catch (IOException e) {
+			CorrosionPlugin.logError(e);
+		}
+	}
+
+	private void publish() {
+		List<Snippet> snippets = new ArrayList<>();
+		for (List<Snippet> sourceSnippets : sources.values()) {
+			snippets.addAll(sourceSnippets);
+		}
+		index.set(new SnippetIndex(snippets));
+	}
+
+	private void scheduleReload(String source) {
+		pendingSources.add(source);
+		reloadJob.schedule(RELOAD_DELAY);
+	}
+
+	private synchronized void startWatching() {
+		resourceListener = new ProjectSnippetsListener();
+		ResourcesPlugin.getWorkspace().addResourceChangeListener(resourceListener, IResourceChangeEvent.POST_CHANGE);
+		java.nio.file.Path directory = getUserSnippetsDirectory().toPath();
+		try {
+			watchService = directory.getFileSystem().newWatchService();
+		} catch (IOException e) {
+			CorrosionPlugin.logError(e);
+			return;
+		}
+		WatchService service = watchService;
+		Thread thread = new Thread(() -> watchUserDirectory(service, directory), "Corrosion snippets watcher"); //$NON-NLS-1$
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Watches the snippets directory, or its closest existing ancestor until the
+	 * missing directories are created.
+	 */
+	private void watchUserDirectory(WatchService service, java.nio.file.Path directory) {
+		try {
+			java.nio.file.Path watched = register(service, directory);
+			while (watched != null) {
+				WatchKey key = service.take();
+				boolean created = false;
+				for (WatchEvent<?> event : key.pollEvents()) {
+					if (!watched.equals(directory)) {
+						created |= event.kind() == ENTRY_CREATE || event.kind() == OVERFLOW;
+					} else if (event.kind() == OVERFLOW) {
+						reloadUserFiles();
+					} else if (event.context().toString().endsWith(".json")) { //$NON-NLS-1$
+						scheduleReload(directory.resolve((java.nio.file.Path) event.context()).toFile()
+								.getAbsolutePath());
+					}
+				}
+				if (created || !key.reset()) {
+					// a directory on the way was created, or the watched one deleted
+					key.cancel();
+					watched = register(service, directory);
+					reloadUserFiles();
+				}
+			}
+		} catch (ClosedWatchServiceException e) {
+			// disposed
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * @return the directory now watched, <code>null</code> if none could be
+	 */
+	private static java.nio.file.Path register(WatchService service, java.nio.file.Path directory) {
+		java.nio.file.Path candidate = directory;
+		while (candidate != null && !candidate.toFile().isDirectory()) {
+			candidate = candidate.getParent();
+		}
+		if (candidate == null) {
+			return null;
+		}
+		try {
+			if (candidate.equals(directory)) {
+				candidate.register(service, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+			} else {
+				candidate.register(service, ENTRY_CREATE);
+			}
+		} catch (IOException e) {
+			CorrosionPlugin.logError(e);
+			return null;
+		}
+		return candidate;
+	}
+
+	private void reloadUserFiles() {
+		for (File file : listUserFiles()) {
+			scheduleReload(file.getPath());
+		}
+		for (String source : sources.keySet()) {
+			if (!source.equals(BUNDLE_SOURCE) && !source.startsWith(WORKSPACE_SOURCE_PREFIX)) {
+				scheduleReload(source);
+			}
+		}
+	}
+
+	/**
+	 * Reads a JSON array of snippets as found in <code>snippets/rust.json</code>,
+	 * one element at a time.
+	 */
+	static List<Snippet> read(Reader input) throws IOException {
+		List<Snippet> snippets = new ArrayList<>();
+		try (JsonReader reader = new JsonReader(input)) {
+			reader.beginArray();
+			while (reader.hasNext()) {
+				Snippet snippet = readSnippet(reader);
+				if (snippet != null) {
+					snippets.add(snippet);
+				}
+			}
+			reader.endArray();
+		} catch (IllegalStateException | NumberFormatException | JsonParseException e) {
+			throw new IOException(e);
+		}
+		return snippets;
+	}
+
+	private static Snippet readSnippet(JsonReader reader) throws IOException {
+		String display = null;
+		CompletionItemKind kind = CompletionItemKind.Snippet;
+		List<String> lines = new ArrayList<>();
+		reader.beginObject();
+		while (reader.hasNext()) {
+			String name = reader.nextName();
+			if ("display".equals(name)) { //$NON-NLS-1$
+				display = reader.nextString();
+			} else if ("completionItemKind".equals(name)) { //$NON-NLS-1$
+				kind = CompletionItemKind.forValue(reader.nextInt());
+			} else if ("replacementLines".equals(name) && reader.peek() == JsonToken.BEGIN_ARRAY) { //$NON-NLS-1$
+				reader.beginArray();
+				while (reader.hasNext()) {
+					lines.add(reader.nextString());
+				}
+				reader.endArray();
+			} else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+		if (display == null) {
+			return null;
+		}
+		return new Snippet(display, kind, lines.toArray(new String[lines.size()]));
+	}
+
+	private class LoadJob extends Job {
+		private LoadJob() {
+			super(Messages.SnippetLibrary_loadJob);
+			setSystem(true);
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			loadBundleSource();
+			for (File file : listUserFiles()) {
+				loadSource(file.getPath());
+			}
+			for (IProject project : ResourcesPlugin.getWorkspace().getRoot().getProjects()) {
+				if (project.isOpen()) {
+					loadSource(getSource(project));
+				}
+			}
+			publish();
+			startWatching();
+			return Status.OK_STATUS;
+		}
+
+		@Override
+		public boolean belongsTo(Object family) {
+			return FAMILY.equals(family);
+		}
+	}
+
+	private class ProjectSnippetsListener implements IResourceChangeListener {
+		@Override
+		public void resourceChanged(IResourceChangeEvent event) {
+			if (event.getDelta() == null) {
+				return;
+			}
+			try {
+				event.getDelta().accept(delta -> {
+					IResource resource = delta.getResource();
+					if (resource.getType() == IResource.PROJECT) {
+						if (delta.getKind() != IResourceDelta.CHANGED || (delta.getFlags() & IResourceDelta.OPEN) != 0) {
+							scheduleReload(getSource((IProject) resource));
+						}
+						return true;
+					}
+					if (resource.getType() == IResource.FILE && PROJECT_SNIPPETS_FILE.equals(resource.getName())
+							&& resource.getParent().getType() == IResource.PROJECT) {
+						scheduleReload(getSource(resource.getProject()));
+					}
+					return resource.getType() == IResource.ROOT;
+				});
+			} catch (CoreException e) {
+				CorrosionPlugin.logError(e);
+			}
+		}
+	}
+
+	private class ReloadJob extends Job {
+		private ReloadJob() {
+			super(Messages.SnippetLibrary_loadJob);
+			setSystem(true);
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			for (String source : pendingSources) {
+				pendingSources.remove(source);
+				loadSource(source);
+			}
+			publish();
+			return Status.OK_STATUS;
+		}
+
+		@Override
+		public boolean belongsTo(Object family) {
+			return FAMILY.equals(family);
+		}
+	}
+}
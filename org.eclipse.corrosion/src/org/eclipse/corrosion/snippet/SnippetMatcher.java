@@ -0,0 +1,85 @@
+/*********************************************************************
+ * Copyright (c) 2019 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Red Hat Inc. - Initial implementation
+ *******************************************************************************/
+package org.eclipse.corrosion.snippet;
+
+/**
+ * Scores how well a typed pattern matches a snippet display string. Every
+ * pattern character must appear in order in the candidate, ignoring case;
+ * matches at the start of the candidate, at word boundaries (after a space,
+ * an underscore or any other separator, or on a camel case hump) and runs of
+ * consecutive characters score higher, while gaps cost a little. Scoring works
+ * on character arrays and allocates nothing.
+ */
+public class SnippetMatcher {
+	public static final int NO_MATCH = Integer.MIN_VALUE;
+
+	private static final int MATCH_SCORE = 1;
+	private static final int FIRST_CHARACTER_BONUS = 8;
+	private static final int BOUNDARY_BONUS = 6;
+	private static final int CONSECUTIVE_BONUS = 4;
+	private static final int SAME_CASE_BONUS = 1;
+	private static final int MAX_GAP_PENALTY = 3;
+
+	private final char[] pattern;
+	private final char[] lowerCasePattern;
+
+	public SnippetMatcher(String pattern) {
+		this.pattern = pattern.toCharArray();
+		this.lowerCasePattern = new char[this.pattern.length];
+		for (int i = 0; i < this.pattern.length; i++) {
+			lowerCasePattern[i] = Character.toLowerCase(this.pattern[i]);
+		}
+	}
+
+	/**
+	 * @return the score of the candidate, higher is better, or {@link #NO_MATCH}
+	 *         if the pattern is not a subsequence of the candidate
+	 */
+	public int score(char[] candidate) {
+		int patternIndex = 0;
+		int score = 0;
+		int previousMatch = -1;
+		for (int i = 0; i < candidate.length && patternIndex < pattern.length; i++) {
+			char c = candidate[i];
+			if (Character.toLowerCase(c) != lowerCasePattern[patternIndex]) {
+				continue;
+			}
+			score += MATCH_SCORE;
+			if (i == 0) {
+				score += FIRST_CHARACTER_BONUS;
+			} else if (isBoundary(candidate, i)) {
+				score += BOUNDARY_BONUS;
+			}
+			if (previousMatch != -1) {
+				if (previousMatch == i - 1) {
+					score += CONSECUTIVE_BONUS;
+				} else {
+					score -= Math.min(i - previousMatch - 1, MAX_GAP_PENALTY);
+				}
+			}
+			if (c == pattern[patternIndex]) {
+				score += SAME_CASE_BONUS;
+			}
+			previousMatch = i;
+			patternIndex++;
+		}
+		return patternIndex == pattern.length ? score : NO_MATCH;
+	}
+
+	private static boolean isBoundary(char[] candidate, int index) {
+		char previous = candidate[index - 1];
+		char current = candidate[index];
+		return !Character.isLetterOrDigit(previous)
+				|| (Character.isLowerCase(previous) && Character.isUpperCase(current));
+	}
+}
@@ -15,8 +15,12 @@ package org.eclipse.corrosion.test;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.UnaryOperator;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
@@ -28,18 +32,63 @@ import org.eclipse.corrosion.CorrosionPlugin;
 import org.eclipse.corrosion.Messages;
 import org.eclipse.corrosion.cargo.core.CargoTools;
 import org.eclipse.corrosion.launch.RustLaunchDelegateTools;
+import org.eclipse.corrosion.test.TestResult.Status;
+import org.eclipse.corrosion.ui.TestResultsView;
+import org.eclipse.debug.core.DebugException;
 import org.eclipse.debug.core.DebugPlugin;
 import org.eclipse.debug.core.ILaunch;
 import org.eclipse.debug.core.ILaunchConfiguration;
 import org.eclipse.debug.core.ILaunchConfigurationWorkingCopy;
 import org.eclipse.debug.core.model.IProcess;
 import org.eclipse.debug.core.model.LaunchConfigurationDelegate;
+import org.eclipse.debug.core.model.RuntimeProcess;
 import org.eclipse.debug.ui.ILaunchShortcut;
 import org.eclipse.jface.viewers.ISelection;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.ui.IEditorPart;
+import org.eclipse.ui.IWorkbenchPage;
+import org.eclipse.ui.IWorkbenchWindow;
+import org.eclipse.ui.PartInitException;
+import org.eclipse.ui.PlatformUI;
 
 public class CargoTestDelegate extends LaunchConfigurationDelegate implements ILaunchShortcut {
 	public static final String TEST_NAME_ATTRIBUTE = "TEST_NAME"; //$NON-NLS-1$
+	/**
+	 * Which tests to run: {@link #RERUN_ALL}, {@link #RERUN_FAILED_ONLY} or
+	 * {@link #RERUN_FAILED_FIRST}. The failed tests are those that failed in the
+	 * previous runs of the launch configuration.
+	 */
+	public static final String RERUN_MODE_ATTRIBUTE = "RERUN_MODE"; //$NON-NLS-1$
+	public static final String RERUN_ALL = "all"; //$NON-NLS-1$
+	public static final String RERUN_FAILED_ONLY = "failedOnly"; //$NON-NLS-1$
+	public static final String RERUN_FAILED_FIRST = "failedFirst"; //$NON-NLS-1$
+
+	/**
+	 * Whether to build the test binaries once, then run them concurrently with
+	 * at most {@link #PARALLELISM_ATTRIBUTE} processes, see
+	 * {@link ShardedTestRunner}.
+	 */
+	public static final String SHARDED_ATTRIBUTE = "SHARDED"; //$NON-NLS-1$
+	public static final String PARALLELISM_ATTRIBUTE = "PARALLELISM"; //$NON-NLS-1$
+	public static final int DEFAULT_PARALLELISM = Runtime.getRuntime().availableProcessors();
+
+	private static final String EXACT_OPTION = "--exact"; //$NON-NLS-1$
+	/**
+	 * The exit value of libtest when tests failed, as opposed to a crash or a
+	 * termination.
+	 */
+	private static final int TEST_FAILURE_EXIT_VALUE = 101;
+	/**
+	 * The exit value reported for a process that was not started because the
+	 * launch was terminated.
+	 */
+	private static final int NOT_STARTED_EXIT_VALUE = -1;
+	/**
+	 * Set on the launch once the user terminated one of its processes. Checking
+	 * {@link ILaunch#isTerminated()} alone is not enough: it is also true between
+	 * two processes that exited normally.
+	 */
+	private static final String TERMINATE_REQUESTED_ATTRIBUTE = CorrosionPlugin.PLUGIN_ID + ".terminateRequested"; //$NON-NLS-1$
 
 	@Override
 	public void launch(ISelection selection, String mode) {
@@ -104,30 +153,100 @@ public class CargoTestDelegate extends LaunchConfigurationDelegate implements IL
 					.addAll(Arrays.asList(RustLaunchDelegateTools.performVariableSubstitution(options).split("\\s+"))); //$NON-NLS-1$
 		}
 
+		// the format chosen in the options wins over the diagnostic markers
+		final boolean diagnosticMarkers = CargoTools.isDiagnosticMarkersEnabled()
+				&& !options.contains("--message-format"); //$NON-NLS-1$
+		if (diagnosticMarkers) {
+			cargoTestCommand.add(CargoTools.MESSAGE_FORMAT_JSON_OPTION);
+		}
+
 		final String cargoPathString = cargoManifest.getLocation().toPortableString();
 		cargoTestCommand.add("--manifest-path"); //$NON-NLS-1$
 		cargoTestCommand.add(cargoPathString);
 
-		if (testName != null && !testName.isEmpty()) {
-			cargoTestCommand.add(testName);
-		}
-
+		List<String> testArguments = new ArrayList<>();
 		if (!arguments.isEmpty()) {
-			cargoTestCommand.add("--"); //$NON-NLS-1$
-			cargoTestCommand.addAll(
+			testArguments.addAll(
 					Arrays.asList(RustLaunchDelegateTools.performVariableSubstitution(arguments).split("\\s+"))); //$NON-NLS-1$
 		}
+		if (!arguments.contains("--format") && LibtestOutputParser.isJsonFormatSupported(project)) { //$NON-NLS-1$
+			testArguments.addAll(Arrays.asList(LibtestOutputParser.JSON_FORMAT_ARGUMENTS));
+		}
+
+		String rerunMode = configuration.getAttribute(RERUN_MODE_ATTRIBUTE, RERUN_ALL);
+		List<String> failedTests = RERUN_ALL.equals(rerunMode) ? Collections.emptyList()
+				: FailedTestsStore.load(configuration.getName());
+		// The test binary arguments of each run, the test name filter being passed on like cargo does
+		List<List<String>> runs = new ArrayList<>();
+		if (failedTests.isEmpty()) {
+			runs.add(withTestName(testName, testArguments));
+		} else {
+			// The failed tests are run by exact name, the test name filter already applied when they were recorded
+			List<String> failedArguments = new ArrayList<>(testArguments);
+			failedArguments.add(EXACT_OPTION);
+			failedArguments.addAll(failedTests);
+			runs.add(failedArguments);
+			if (RERUN_FAILED_FIRST.equals(rerunMode)) {
+				List<String> otherArguments = withTestName(testName, testArguments);
+				if (testName.isEmpty()) {
+					// --exact would apply to the test name filter too
+					otherArguments.add(EXACT_OPTION);
+				}
+				for (String failedTest : failedTests) {
+					otherArguments.add("--skip"); //$NON-NLS-1$
+					otherArguments.add(failedTest);
+				}
+				runs.add(otherArguments);
+			}
+		}
+		// Only a complete run of all tests tells which recorded failures are gone
+		final boolean replaceFailedTests = testName.isEmpty()
+				&& (failedTests.isEmpty() || RERUN_FAILED_FIRST.equals(rerunMode));
+		final boolean sharded = configuration.getAttribute(SHARDED_ATTRIBUTE, false);
+		final int parallelism = configuration.getAttribute(PARALLELISM_ATTRIBUTE, DEFAULT_PARALLELISM);
 
-		final List<String> finalTestCommand = cargoTestCommand;
 		final File finalWorkingDirectory = workingDirectory;
+		final IProject finalProject = project;
+		final TestRunSession session = new TestRunSession(configuration.getName(), project);
+		TestRunSession.setCurrent(session);
+		showTestResultsView();
 		CompletableFuture.runAsync(() -> {
+			boolean complete = true;
 			try {
-				String[] cmdLine = finalTestCommand.toArray(new String[finalTestCommand.size()]);
-				Process p = DebugPlugin.exec(cmdLine, finalWorkingDirectory);
-				IProcess process = DebugPlugin.newProcess(launch, p, "cargo test"); //$NON-NLS-1$
-				process.setAttribute(IProcess.ATTR_CMDLINE, String.join(" ", cmdLine)); //$NON-NLS-1$
+				if (sharded) {
+					ShardedTestRunner runner = new ShardedTestRunner(launch, finalProject, diagnosticMarkers, session,
+							parallelism);
+					complete = runner.build(cargoTestCommand, finalWorkingDirectory);
+					for (int i = 0; complete && i < runs.size(); i++) {
+						complete = runner.run(runs.get(i));
+					}
+				} else {
+					for (List<String> runArguments : runs) {
+						if (isTerminateRequested(launch)) {
+							complete = false;
+							break;
+						}
+						List<String> testCommand = new ArrayList<>(cargoTestCommand);
+						if (!runArguments.isEmpty()) {
+							testCommand.add("--"); //$NON-NLS-1$
+							testCommand.addAll(runArguments);
+						}
+						complete &= isCompleteRun(runProcess(launch, "cargo test", testCommand, finalWorkingDirectory, //$NON-NLS-1$
+								null, finalProject, diagnosticMarkers,
+								new LibtestOutputParser(session, finalProject.getName())));
+					}
+				}
 			} catch (CoreException e) {
+				complete = false;
 				RustLaunchDelegateTools.openError(Messages.CargoRunDelegate_unableToLaunch, e.getLocalizedMessage());
+			} catch (InterruptedException e) {
+				complete = false;
+				Thread.currentThread().interrupt();
+			} finally {
+				session.finish();
+				// cargo also exits with 101 when the tests do not compile
+				recordFailedTests(session, replaceFailedTests && complete && session.getResults().length > 0);
+				TestDurationHistory.get(finalProject.getName()).record(session);
 			}
 		});
 		if (wc != null) {
@@ -135,6 +254,111 @@ public class CargoTestDelegate extends LaunchConfigurationDelegate implements IL
 		}
 	}
 
+	private static List<String> withTestName(String testName, List<String> testArguments) {
+		List<String> arguments = new ArrayList<>();
+		if (!testName.isEmpty()) {
+			arguments.add(testName);
+		}
+		arguments.addAll(testArguments);
+		return arguments;
+	}
+
+	/**
+	 * Runs a command as a process of the launch, its output going through the
+	 * given filter, and waits until the output has been read.
+	 *
+	 * @param environment
+	 *            the environment of the process, <code>null</code> to inherit it
+	 * @return the exit value of the process, {@link #NOT_STARTED_EXIT_VALUE} if
+	 *         the launch was terminated before it could start
+	 */
+	static int runProcess(ILaunch launch, String label, List<String> commandLine, File workingDirectory,
+			String[] environment, IProject project, boolean diagnosticMarkers, UnaryOperator<String> filter)
+			throws CoreException, InterruptedException {
+		if (isTerminateRequested(launch)) {
+			return NOT_STARTED_EXIT_VALUE;
+		}
+		String[] cmdLine = commandLine.toArray(new String[commandLine.size()]);
+		CompletableFuture<Void> outputRead = new CompletableFuture<>();
+		Process p = DebugPlugin.exec(cmdLine, workingDirectory, environment);
+		p = CargoTools.withOutputFilter(p, project, diagnosticMarkers, filter, () -> outputRead.complete(null));
+		IProcess process = new TestProcess(launch, p, label);
+		process.setAttribute(IProcess.ATTR_CMDLINE, String.join(" ", cmdLine)); //$NON-NLS-1$
+		if (isTerminateRequested(launch)) {
+			// terminated while this process was being added to the launch
+			process.terminate();
+		}
+		int exitValue = p.waitFor();
+		outputRead.join();
+		return exitValue;
+	}
+
+	/**
+	 * @return whether the user terminated the launch or one of its processes, in
+	 *         which case no further test process should be started
+	 */
+	static boolean isTerminateRequested(ILaunch launch) {
+		return Boolean.parseBoolean(launch.getAttribute(TERMINATE_REQUESTED_ATTRIBUTE));
+	}
+
+	/**
+	 * A process of a test launch, which records on the launch that it was
+	 * terminated by the user.
+	 */
+	private static class TestProcess extends RuntimeProcess {
+		TestProcess(ILaunch launch, Process process, String label) {
+			super(launch, process, label, null);
+		}
+
+		@Override
+		public void terminate() throws DebugException {
+			getLaunch().setAttribute(TERMINATE_REQUESTED_ATTRIBUTE, Boolean.TRUE.toString());
+			super.terminate();
+		}
+	}
+
+	/**
+	 * @return whether a test process with the given exit value ran its tests,
+	 *         whether they passed or not, rather than crashing or being
+	 *         terminated
+	 */
+	static boolean isCompleteRun(int exitValue) {
+		return exitValue == 0 || exitValue == TEST_FAILURE_EXIT_VALUE;
+	}
+
+	/**
+	 * Stores the tests that failed in the session. Unless the session ran all
+	 * the tests, previously failed tests that were not run are kept.
+	 */
+	private static void recordFailedTests(TestRunSession session, boolean replace) {
+		Set<String> failedTests = new LinkedHashSet<>();
+		if (!replace) {
+			failedTests.addAll(FailedTestsStore.load(session.getName()));
+		}
+		for (TestResult result : session.getResults()) {
+			if (result.getStatus() == Status.FAILED) {
+				failedTests.add(result.getName());
+			} else if (result.getStatus() == Status.PASSED) {
+				failedTests.remove(result.getName());
+			}
+		}
+		FailedTestsStore.save(session.getName(), failedTests);
+	}
+
+	private static void showTestResultsView() {
+		Display.getDefault().asyncExec(() -> {
+			IWorkbenchWindow window = PlatformUI.getWorkbench().getActiveWorkbenchWindow();
+			if (window == null || window.getActivePage() == null) {
+				return;
+			}
+			try {
+				window.getActivePage().showView(TestResultsView.VIEW_ID, null, IWorkbenchPage.VIEW_VISIBLE);
+			} catch (PartInitException e) {
+				CorrosionPlugin.logError(e);
+			}
+		});
+	}
+
 	private static ILaunchConfiguration getLaunchConfiguration(IResource resource) {
 		ILaunchConfiguration launchConfiguration = RustLaunchDelegateTools.getLaunchConfiguration(resource,
 				"org.eclipse.corrosion.test.CargoTestDelegate"); //$NON-NLS-1$
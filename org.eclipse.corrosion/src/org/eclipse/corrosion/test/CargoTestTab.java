@@ -12,6 +12,8 @@
  *******************************************************************************/
 package org.eclipse.corrosion.test;
 
+import java.util.Arrays;
+
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.corrosion.CorrosionPlugin;
 import org.eclipse.corrosion.Messages;
@@ -19,19 +21,34 @@ import org.eclipse.corrosion.ui.launch.AbstractCargoLaunchConfigurationTab;
 import org.eclipse.debug.core.ILaunchConfiguration;
 import org.eclipse.debug.core.ILaunchConfigurationWorkingCopy;
 import org.eclipse.swt.SWT;
+import org.eclipse.swt.events.SelectionAdapter;
+import org.eclipse.swt.events.SelectionEvent;
 import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Combo;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Group;
 import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Spinner;
 import org.eclipse.swt.widgets.Text;
 
 public class CargoTestTab extends AbstractCargoLaunchConfigurationTab {
+	private static final String[] RERUN_MODES = { CargoTestDelegate.RERUN_ALL, CargoTestDelegate.RERUN_FAILED_ONLY,
+			CargoTestDelegate.RERUN_FAILED_FIRST };
+
 	private Text testnameText;
+	private Combo rerunCombo;
+	private Button shardedButton;
+	private Spinner parallelismSpinner;
 
 	@Override
 	public void performApply(ILaunchConfigurationWorkingCopy configuration) {
 		configuration.setAttribute(CargoTestDelegate.TEST_NAME_ATTRIBUTE, testnameText.getText());
+		configuration.setAttribute(CargoTestDelegate.RERUN_MODE_ATTRIBUTE,
+				RERUN_MODES[Math.max(0, rerunCombo.getSelectionIndex())]);
+		configuration.setAttribute(CargoTestDelegate.SHARDED_ATTRIBUTE, shardedButton.getSelection());
+		configuration.setAttribute(CargoTestDelegate.PARALLELISM_ATTRIBUTE, parallelismSpinner.getSelection());
 		super.performApply(configuration);
 	}
 
@@ -65,6 +82,44 @@ public class CargoTestTab extends AbstractCargoLaunchConfigurationTab {
 		testnameExplanation.setText(Messages.CargoTestTab_testNameDescription);
 		testnameExplanation.setEnabled(false);
 		testnameExplanation.setLayoutData(new GridData(SWT.LEFT, SWT.CENTER, false, false, 3, 1));
+
+		Label rerunLabel = new Label(commandGroup, SWT.NONE);
+		rerunLabel.setText(Messages.CargoTestTab_rerun);
+		rerunLabel.setLayoutData(new GridData(SWT.RIGHT, SWT.CENTER, false, false));
+
+		rerunCombo = new Combo(commandGroup, SWT.READ_ONLY);
+		rerunCombo.setItems(Messages.CargoTestTab_rerunAll, Messages.CargoTestTab_rerunFailedOnly,
+				Messages.CargoTestTab_rerunFailedFirst);
+		rerunCombo.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false, 2, 1));
+		rerunCombo.addModifyListener(e -> {
+			setDirty(true);
+			updateLaunchConfigurationDialog();
+		});
+		new Label(commandGroup, SWT.NONE);
+
+		new Label(commandGroup, SWT.NONE);
+		shardedButton = new Button(commandGroup, SWT.CHECK);
+		shardedButton.setText(Messages.CargoTestTab_sharded);
+		shardedButton.setLayoutData(new GridData(SWT.LEFT, SWT.CENTER, false, false, 3, 1));
+		shardedButton.addSelectionListener(new SelectionAdapter() {
+			@Override
+			public void widgetSelected(SelectionEvent e) {
+				parallelismSpinner.setEnabled(shardedButton.getSelection());
+				setDirty(true);
+				updateLaunchConfigurationDialog();
+			}
+		});
+
+		Label parallelismLabel = new Label(commandGroup, SWT.NONE);
+		parallelismLabel.setText(Messages.CargoTestTab_parallelism);
+		parallelismLabel.setLayoutData(new GridData(SWT.RIGHT, SWT.CENTER, false, false));
+		parallelismSpinner = new Spinner(commandGroup, SWT.BORDER);
+		parallelismSpinner.setValues(CargoTestDelegate.DEFAULT_PARALLELISM, 1, 256, 0, 1, 4);
+		parallelismSpinner.setLayoutData(new GridData(SWT.LEFT, SWT.CENTER, false, false, 3, 1));
+		parallelismSpinner.addModifyListener(e -> {
+			setDirty(true);
+			updateLaunchConfigurationDialog();
+		});
 		return commandGroup;
 	}
 
@@ -72,6 +127,9 @@ public class CargoTestTab extends AbstractCargoLaunchConfigurationTab {
 	public void setDefaults(ILaunchConfigurationWorkingCopy configuration) {
 		super.setDefaults(configuration);
 		configuration.setAttribute(CargoTestDelegate.TEST_NAME_ATTRIBUTE, ""); //$NON-NLS-1$
+		configuration.setAttribute(CargoTestDelegate.RERUN_MODE_ATTRIBUTE, CargoTestDelegate.RERUN_ALL);
+		configuration.setAttribute(CargoTestDelegate.SHARDED_ATTRIBUTE, false);
+		configuration.setAttribute(CargoTestDelegate.PARALLELISM_ATTRIBUTE, CargoTestDelegate.DEFAULT_PARALLELISM);
 	}
 
 	@Override
@@ -82,6 +140,24 @@ public class CargoTestTab extends AbstractCargoLaunchConfigurationTab {
 		} catch (CoreException ce) {
 			testnameText.setText(""); //$NON-NLS-1$
 		}
+		String rerunMode = CargoTestDelegate.RERUN_ALL;
+		try {
+			rerunMode = configuration.getAttribute(CargoTestDelegate.RERUN_MODE_ATTRIBUTE, rerunMode);
+		} catch (CoreException ce) {
+			// keep running all tests
+		}
+		rerunCombo.select(Math.max(0, Arrays.asList(RERUN_MODES).indexOf(rerunMode)));
+		boolean sharded = false;
+		int parallelism = CargoTestDelegate.DEFAULT_PARALLELISM;
+		try {
+			sharded = configuration.getAttribute(CargoTestDelegate.SHARDED_ATTRIBUTE, false);
+			parallelism = configuration.getAttribute(CargoTestDelegate.PARALLELISM_ATTRIBUTE, parallelism);
+		} catch (CoreException ce) {
+			// keep running the test binaries one after another
+		}
+		shardedButton.setSelection(sharded);
+		parallelismSpinner.setSelection(parallelism);
+		parallelismSpinner.setEnabled(sharded);
 	}
 
 	@Override
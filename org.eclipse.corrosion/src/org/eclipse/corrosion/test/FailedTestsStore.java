@@ -0,0 +1,88 @@
+/*********************************************************************
+ * Copyright (c) 2019 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Red Hat Inc. - Initial implementation
+ *******************************************************************************/
+package org.eclipse.corrosion.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.corrosion.CorrosionPlugin;
+
+/**
+ * Persists the names of the tests that failed in the latest runs of each test
+ * launch configuration, one name per line in a file of the plugin state
+ * location.
+ */
+public class FailedTestsStore {
+	private static final String DIRECTORY = "failedTests"; //$NON-NLS-1$
+
+	private FailedTestsStore() {
+		throw new IllegalStateException("Utility class"); //$NON-NLS-1$
+	}
+
+	/**
+	 * @return the names of the failed tests of the given launch configuration,
+	 *         empty if none or unknown
+	 */
+	public static synchronized List<String> load(String configurationName) {
+		File file = getFile(configurationName);
+		if (!file.isFile()) {
+			return Collections.emptyList();
+		}
+		try {
+			List<String> names = new ArrayList<>();
+			for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+				if (!line.isEmpty()) {
+					names.add(line);
+				}
+			}
+			return names;
+		} catch (IOException e) {
+			CorrosionPlugin.logError(e);
+			return Collections.emptyList();
+		}
+	}
+
+	public static synchronized void save(String configurationName, Collection<String> testNames) {
+		File file = getFile(configurationName);
+		try {
+			if (testNames.isEmpty()) {
+				Files.deleteIfExists(file.toPath());
+				return;
+			}
+			file.getParentFile().mkdirs();
+			Files.write(file.toPath(), testNames, StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			CorrosionPlugin.logError(e);
+		}
+	}
+
+	private static File getFile(String configurationName) {
+		String fileName;
+		try {
+			fileName = URLEncoder.encode(configurationName, StandardCharsets.UTF_8.name());
+		} catch (UnsupportedEncodingException e) {
+			// UTF-8 is always supported
+			throw new IllegalStateException(e);
+		}
+		return CorrosionPlugin.getDefault().getStateLocation().append(DIRECTORY).append(fileName + ".txt") //$NON-NLS-1$
+				.toFile();
+	}
+}
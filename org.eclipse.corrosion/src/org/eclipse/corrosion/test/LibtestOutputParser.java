@@ -0,0 +1,225 @@
+/*********************************************************************
+ * Copyright (c) 2019 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Red Hat Inc. - Initial implementation
+ *******************************************************************************/
+package org.eclipse.corrosion.test;
+
+import java.util.Locale;
+import java.util.function.UnaryOperator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.corrosion.RustManager;
+import org.eclipse.corrosion.test.TestResult.Status;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+/**
+ * Parses the output of libtest test binaries line by line, as it streams, into
+ * a {@link TestRunSession}. Both the JSON event format, available with
+ * {@link #JSON_FORMAT_ARGUMENTS} on nightly toolchains, and the default text
+ * format are understood. JSON events are rendered like the text format for the
+ * console. The text format only reports durations on nightly toolchains with
+ * <code>--report-time</code>, otherwise the duration of a test is estimated as
+ * the time elapsed since the previous result of its binary, which is exact when
+ * tests run one at a time.
+ */
+public class LibtestOutputParser implements UnaryOperator<String> {
+	/**
+	 * The test binary arguments selecting the JSON format and per-test timings.
+	 */
+	public static final String[] JSON_FORMAT_ARGUMENTS = { "-Z", "unstable-options", "--format", "json", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+			"--report-time" }; //$NON-NLS-1$
+
+	private static final Pattern RUNNING_PATTERN = Pattern.compile("running (\\d+) tests?"); //$NON-NLS-1$
+	private static final Pattern RESULT_PATTERN = Pattern
+			.compile("test (.+) \\.\\.\\. (ok|FAILED|ignored)(?:,.*?)?(?: <(\\d+(?:\\.\\d+)?)s>)?"); //$NON-NLS-1$
+	private static final Pattern OUTPUT_HEADER_PATTERN = Pattern.compile("---- (.+) std(?:out|err) ----"); //$NON-NLS-1$
+	private static final String FAILURES_LINE = "failures:"; //$NON-NLS-1$
+
+	private final TestRunSession session;
+	private final String suitePrefix;
+	private final JsonParser parser = new JsonParser();
+	private int suiteCount;
+	private String suite;
+	private String outputTest;
+	private StringBuilder output;
+	private long lastResultTime = -1;
+
+	/**
+	 * @param suitePrefix
+	 *            identifies the test binaries this parser reads the output of,
+	 *            suites are numbered after it
+	 */
+	public LibtestOutputParser(TestRunSession session, String suitePrefix) {
+		this.session = session;
+		this.suitePrefix = suitePrefix;
+		this.suite = suitePrefix;
+	}
+
+	/**
+	 * @return whether the test binaries of the given project can be asked for
+	 *         the JSON format, which requires a nightly toolchain
+	 */
+	public static boolean isJsonFormatSupported(IProject project) {
+		if (project.getFile("rust-toolchain").exists() || project.getFile("rust-toolchain.toml").exists()) { //$NON-NLS-1$ //$NON-NLS-2$
+			// the override may not be a nightly one
+			return false;
+		}
+		String toolchain = RustManager.getDefaultToolchain();
+		return toolchain != null && toolchain.startsWith("nightly"); //$NON-NLS-1$
+	}
+
+	/**
+	 * @param line
+	 *            a line of output, without line delimiter
+	 * @return the text to show instead, <code>null</code> to show nothing
+	 */
+	@Override
+	public String apply(String line) {
+		if (line.startsWith("{") && line.contains("\"type\"")) { //$NON-NLS-1$ //$NON-NLS-2$
+			JsonObject event = parseEvent(line);
+			if (event != null) {
+				return handleEvent(event, line);
+			}
+		}
+		handleText(line);
+		return line;
+	}
+
+	private JsonObject parseEvent(String line) {
+		try {
+			JsonElement element = parser.parse(line);
+			return element.isJsonObject() ? element.getAsJsonObject() : null;
+		} catch (JsonParseException e) {
+			return null;
+		}
+	}
+
+	private String handleEvent(JsonObject event, String line) {
+		String type = getString(event, "type"); //$NON-NLS-1$
+		String kind = getString(event, "event"); //$NON-NLS-1$
+		if ("suite".equals(type)) { //$NON-NLS-1$
+			if ("started".equals(kind)) { //$NON-NLS-1$
+				int count = getInt(event, "test_count"); //$NON-NLS-1$
+				startSuite(count);
+				return String.format(Locale.ROOT, "\nrunning %d tests", count); //$NON-NLS-1$
+			}
+			return String.format(Locale.ROOT, "\ntest result: %s. %d passed; %d failed; %d ignored; %d measured; %d filtered out", //$NON-NLS-1$
+					kind, getInt(event, "passed"), getInt(event, "failed"), getInt(event, "ignored"), //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+					getInt(event, "measured"), getInt(event, "filtered_out")); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		String name = getString(event, "name"); //$NON-NLS-1$
+		if (!"test".equals(type) || name == null || kind == null) { //$NON-NLS-1$
+			return line;
+		}
+		Status status;
+		String text;
+		switch (kind) {
+		case "started": //$NON-NLS-1$
+			session.testStarted(suite, name);
+			return null;
+		case "ok": //$NON-NLS-1$
+		case "allowed_fail": //$NON-NLS-1$
+			status = Status.PASSED;
+			text = "ok"; //$NON-NLS-1$
+			break;
+		case "failed": //$NON-NLS-1$
+			status = Status.FAILED;
+			text = "FAILED"; //$NON-NLS-1$
+			break;
+		case "ignored": //$NON-NLS-1$
+			status = Status.IGNORED;
+			text = "ignored"; //$NON-NLS-1$
+			break;
+		default:
+			return line;
+		}
+		JsonElement execTime = event.get("exec_time"); //$NON-NLS-1$
+		long duration = execTime != null && execTime.isJsonPrimitive()
+				? Math.round(execTime.getAsDouble() * 1000)
+				: -1;
+		session.testFinished(suite, name, status, duration);
+		StringBuilder rendered = new StringBuilder("test ").append(name).append(" ... ").append(text); //$NON-NLS-1$ //$NON-NLS-2$
+		String stdout = getString(event, "stdout"); //$NON-NLS-1$
+		if (stdout != null && !stdout.isEmpty()) {
+			session.setOutput(suite, name, stdout);
+			rendered.append("\n---- ").append(name).append(" stdout ----\n").append(stdout.trim()); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		return rendered.toString();
+	}
+
+	private void handleText(String line) {
+		if (outputTest != null) {
+			Matcher header = OUTPUT_HEADER_PATTERN.matcher(line);
+			if (header.matches() || line.equals(FAILURES_LINE) || line.startsWith("test result:")) { //$NON-NLS-1$
+				endOutput();
+			} else {
+				output.append(line).append('\n');
+				return;
+			}
+		}
+		Matcher matcher = RESULT_PATTERN.matcher(line);
+		if (matcher.matches()) {
+			String status = matcher.group(2);
+			long now = System.currentTimeMillis();
+			long duration = -1;
+			if (matcher.group(3) != null) {
+				duration = Math.round(Double.parseDouble(matcher.group(3)) * 1000);
+			} else if (lastResultTime >= 0) {
+				duration = now - lastResultTime;
+				session.markDurationsEstimated();
+			}
+			lastResultTime = now;
+			session.testFinished(suite, matcher.group(1),
+					"ok".equals(status) ? Status.PASSED : "FAILED".equals(status) ? Status.FAILED : Status.IGNORED, //$NON-NLS-1$ //$NON-NLS-2$
+					duration);
+			return;
+		}
+		matcher = RUNNING_PATTERN.matcher(line);
+		if (matcher.matches()) {
+			startSuite(Integer.parseInt(matcher.group(1)));
+			return;
+		}
+		matcher = OUTPUT_HEADER_PATTERN.matcher(line);
+		if (matcher.matches()) {
+			outputTest = matcher.group(1);
+			output = new StringBuilder();
+		}
+	}
+
+	private void startSuite(int testCount) {
+		suiteCount++;
+		suite = suiteCount == 1 ? suitePrefix : suitePrefix + " #" + suiteCount; //$NON-NLS-1$
+		lastResultTime = System.currentTimeMillis();
+		session.addExpectedCount(testCount);
+	}
+
+	private void endOutput() {
+		session.setOutput(suite, outputTest, output.toString().trim());
+		outputTest = null;
+		output = null;
+	}
+
+	private static String getString(JsonObject object, String member) {
+		JsonElement element = object.get(member);
+		return element != null && element.isJsonPrimitive() ? element.getAsString() : null;
+	}
+
+	private static int getInt(JsonObject object, String member) {
+		JsonElement element = object.get(member);
+		return element != null && element.isJsonPrimitive() ? element.getAsInt() : 0;
+	}
+}
@@ -0,0 +1,387 @@
+/*********************************************************************
+ * Copyright (c) 2019 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Red Hat Inc. - Initial implementation
+ *******************************************************************************/
+package org.eclipse.corrosion.test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.UnaryOperator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.corrosion.CorrosionPlugin;
+import org.eclipse.corrosion.CorrosionPreferenceInitializer;
+import org.eclipse.corrosion.cargo.core.CargoMessageFilter;
+import org.eclipse.corrosion.cargo.core.CargoTools;
+import org.eclipse.debug.core.ILaunch;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+/**
+ * Runs the tests of a project by building the test binaries once with
+ * <code>cargo test --no-run</code>, then running the binaries concurrently,
+ * at most a given number at a time. Documentation tests are not run, since
+ * they are not compiled into test binaries.
+ */
+public class ShardedTestRunner {
+	private static final String NO_RUN_OPTION = "--no-run"; //$NON-NLS-1$
+	private static final boolean IS_WINDOWS = Platform.getOS().equals(Platform.OS_WIN32);
+	private static final boolean IS_MAC = Platform.getOS().equals(Platform.OS_MACOSX);
+	private static final Pattern VERSION_PATTERN = Pattern.compile("(\\d+)\\.(\\d+)\\.(\\d+)(?:-([^+]*))?(?:\\+.*)?"); //$NON-NLS-1$
+	/**
+	 * The keys of the <code>[package]</code> table of a manifest, each followed
+	 * by the variable cargo sets from it.
+	 */
+	private static final String[] PACKAGE_KEYS = { "authors", "CARGO_PKG_AUTHORS", //$NON-NLS-1$ //$NON-NLS-2$
+			"description", "CARGO_PKG_DESCRIPTION", //$NON-NLS-1$ //$NON-NLS-2$
+			"homepage", "CARGO_PKG_HOMEPAGE", //$NON-NLS-1$ //$NON-NLS-2$
+			"repository", "CARGO_PKG_REPOSITORY", //$NON-NLS-1$ //$NON-NLS-2$
+			"license", "CARGO_PKG_LICENSE", //$NON-NLS-1$ //$NON-NLS-2$
+			"license-file", "CARGO_PKG_LICENSE_FILE", //$NON-NLS-1$ //$NON-NLS-2$
+			"rust-version", "CARGO_PKG_RUST_VERSION" }; //$NON-NLS-1$ //$NON-NLS-2$
+
+	private final ILaunch launch;
+	private final IProject project;
+	private final boolean diagnosticMarkers;
+	private final TestRunSession session;
+	private final int parallelism;
+	private final List<TestExecutable> executables = Collections.synchronizedList(new ArrayList<>());
+
+	public ShardedTestRunner(ILaunch launch, IProject project, boolean diagnosticMarkers, TestRunSession session,
+			int parallelism) {
+		this.launch = launch;
+		this.project = project;
+		this.diagnosticMarkers = diagnosticMarkers;
+		this.session = session;
+		this.parallelism = Math.max(1, parallelism);
+	}
+
+	/**
+	 * Builds the test binaries and collects their paths.
+	 *
+	 * @param cargoTestCommand
+	 *            the cargo test command, without test arguments
+	 * @return whether the build succeeded
+	 */
+	public boolean build(List<String> cargoTestCommand, File workingDirectory)
+			throws CoreException, InterruptedException {
+		List<String> command = new ArrayList<>(cargoTestCommand);
+		command.add(NO_RUN_OPTION);
+		if (!command.contains(CargoTools.MESSAGE_FORMAT_JSON_OPTION)) {
+			command.add(CargoTools.MESSAGE_FORMAT_JSON_OPTION);
+		}
+		// Without markers, compiler messages still need to be rendered
+		CargoMessageFilter renderer = diagnosticMarkers ? null
+				: new CargoMessageFilter(CargoTools.findWorkspaceRoot(project.getLocation().toFile()),
+						diagnostic -> {
+							// rendered only
+						});
+		UnaryOperator<String> filter = line -> {
+			TestExecutable executable = parseTestExecutable(line);
+			if (executable != null) {
+				executables.add(executable);
+				return null;
+			}
+			return renderer == null ? line : renderer.filter(line);
+		};
+		int exitValue = CargoTestDelegate.runProcess(launch, "cargo test " + NO_RUN_OPTION, command, workingDirectory, //$NON-NLS-1$
+				null, project, diagnosticMarkers, filter);
+		return exitValue == 0;
+	}
+
+	/**
+	 * Runs all the test binaries with the given arguments. Binaries still queued
+	 * when the launch is terminated are not started.
+	 *
+	 * @return whether every binary ran to completion, whether tests passed or
+	 *         not
+	 */
+	public boolean run(List<String> testArguments) throws InterruptedException {
+		List<TestExecutable> toRun = new ArrayList<>(executables);
+		if (toRun.isEmpty()) {
+			return true;
+		}
+		String sysroot = getSysroot();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, toRun.size()));
+		try {
+			List<Future<Integer>> exitValues = new ArrayList<>();
+			for (TestExecutable executable : toRun) {
+				List<String> command = new ArrayList<>();
+				command.add(executable.getPath());
+				command.addAll(testArguments);
+				exitValues.add(executor.submit(() -> CargoTestDelegate.runProcess(launch, executable.getName(),
+						command, executable.getManifestDirectory(), toArray(getEnvironment(executable, sysroot)),
+						project, false, new LibtestOutputParser(session, executable.getName()))));
+			}
+			boolean complete = true;
+			for (Future<Integer> exitValue : exitValues) {
+				if (CargoTestDelegate.isTerminateRequested(launch)) {
+					for (Future<Integer> pending : exitValues) {
+						pending.cancel(false);
+					}
+					return false;
+				}
+				try {
+					complete &= CargoTestDelegate.isCompleteRun(exitValue.get());
+				} catch (ExecutionException e) {
+					CorrosionPlugin.logError(e.getCause());
+					complete = false;
+				}
+			}
+			return complete;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Test binaries are run with the environment cargo gives them at run time:
+	 * the package variables, and the directories of the dependencies and of
+	 * the standard library prepended to the dynamic library path.
+	 *
+	 * @param sysroot
+	 *            the sysroot of the toolchain, may be empty if unknown
+	 * @return the environment to run the given test binary in
+	 */
+	public static Map<String, String> getEnvironment(TestExecutable executable, String sysroot) {
+		Map<String, String> environment = new HashMap<>(System.getenv());
+		environment.put("CARGO_MANIFEST_DIR", executable.getManifestDirectory().getAbsolutePath()); //$NON-NLS-1$
+		addPackageVariables(environment, executable);
+
+		List<String> libraryPath = new ArrayList<>();
+		File deps = new File(executable.getPath()).getAbsoluteFile().getParentFile();
+		if (deps != null) {
+			libraryPath.add(deps.getPath());
+			if (deps.getParentFile() != null) {
+				libraryPath.add(deps.getParentFile().getPath());
+			}
+		}
+		if (sysroot != null && !sysroot.isEmpty()) {
+			libraryPath.add(new File(sysroot, "lib").getPath()); //$NON-NLS-1$
+		}
+		String variable = getLibraryPathVariable();
+		if (IS_WINDOWS) {
+			// environment variable names are case insensitive on Windows
+			for (String name : environment.keySet()) {
+				if (name.equalsIgnoreCase(variable)) {
+					variable = name;
+				}
+			}
+		}
+		String current = environment.get(variable);
+		if (current != null && !current.isEmpty()) {
+			libraryPath.add(current);
+		} else if (IS_MAC) {
+			// like cargo, keep the directories searched when the variable is not set
+			libraryPath.add(System.getProperty("user.home") + "/lib"); //$NON-NLS-1$ //$NON-NLS-2$
+			libraryPath.add("/usr/local/lib"); //$NON-NLS-1$
+			libraryPath.add("/usr/lib"); //$NON-NLS-1$
+		}
+		environment.put(variable, String.join(File.pathSeparator, libraryPath));
+		return environment;
+	}
+
+	private static String getLibraryPathVariable() {
+		if (IS_WINDOWS) {
+			return "PATH"; //$NON-NLS-1$
+		}
+		return IS_MAC ? "DYLD_FALLBACK_LIBRARY_PATH" : "LD_LIBRARY_PATH"; //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/**
+	 * Sets the <code>CARGO_PKG_*</code> variables of the package of the given
+	 * test binary, empty when not set in its manifest like cargo does. Values
+	 * inherited from a workspace that cannot be resolved are left unset.
+	 */
+	private static void addPackageVariables(Map<String, String> variables, TestExecutable executable) {
+		String version = executable.getPackageVersion();
+		Matcher semver = VERSION_PATTERN.matcher(version);
+		boolean valid = semver.matches();
+		variables.put("CARGO_PKG_NAME", executable.getPackageName()); //$NON-NLS-1$
+		variables.put("CARGO_PKG_VERSION", version); //$NON-NLS-1$
+		variables.put("CARGO_PKG_VERSION_MAJOR", valid ? semver.group(1) : ""); //$NON-NLS-1$ //$NON-NLS-2$
+		variables.put("CARGO_PKG_VERSION_MINOR", valid ? semver.group(2) : ""); //$NON-NLS-1$ //$NON-NLS-2$
+		variables.put("CARGO_PKG_VERSION_PATCH", valid ? semver.group(3) : ""); //$NON-NLS-1$ //$NON-NLS-2$
+		variables.put("CARGO_PKG_VERSION_PRE", valid && semver.group(4) != null ? semver.group(4) : ""); //$NON-NLS-1$ //$NON-NLS-2$
+		Map<String, List<String>> manifest = CargoTools.readPackageTable(executable.getManifestDirectory());
+		for (int i = 0; i < PACKAGE_KEYS.length; i += 2) {
+			String key = PACKAGE_KEYS[i];
+			List<String> values = manifest.get(key);
+			if (values != null) {
+				variables.put(PACKAGE_KEYS[i + 1], String.join(":", values)); //$NON-NLS-1$
+			} else if (manifest.containsKey(key)) {
+				variables.remove(PACKAGE_KEYS[i + 1]);
+			} else {
+				variables.put(PACKAGE_KEYS[i + 1], ""); //$NON-NLS-1$
+			}
+		}
+	}
+
+	/**
+	 * @return the sysroot of the toolchain, as set up for the language server,
+	 *         or the one of the preferences
+	 */
+	private static String getSysroot() {
+		String sysroot = System.getProperty("SYS_ROOT"); //$NON-NLS-1$
+		if (sysroot == null || sysroot.isEmpty()) {
+			sysroot = CorrosionPlugin.getDefault().getPreferenceStore()
+					.getString(CorrosionPreferenceInitializer.SYSROOT_PATH_PREFERENCE);
+		}
+		return sysroot;
+	}
+
+	private static String[] toArray(Map<String, String> environment) {
+		List<String> variables = new ArrayList<>(environment.size());
+		for (Entry<String, String> variable : environment.entrySet()) {
+			variables.add(variable.getKey() + '=' + variable.getValue());
+		}
+		return variables.toArray(new String[variables.size()]);
+	}
+
+	/**
+	 * @param line
+	 *            a line of <code>cargo test --no-run --message-format=json</code>
+	 *            output
+	 * @return the test binary the line reports as built, <code>null</code> if
+	 *         it does not report a test binary
+	 */
+	public static TestExecutable parseTestExecutable(String line) {
+		if (!line.startsWith("{") || !line.contains("\"compiler-artifact\"")) { //$NON-NLS-1$ //$NON-NLS-2$
+			return null;
+		}
+		try {
+			JsonElement element = new JsonParser().parse(line);
+			if (!element.isJsonObject()) {
+				return null;
+			}
+			JsonObject artifact = element.getAsJsonObject();
+			JsonElement profile = artifact.get("profile"); //$NON-NLS-1$
+			JsonElement executable = artifact.get("executable"); //$NON-NLS-1$
+			JsonElement manifestPath = artifact.get("manifest_path"); //$NON-NLS-1$
+			JsonElement target = artifact.get("target"); //$NON-NLS-1$
+			if (profile == null || !profile.isJsonObject() || executable == null || !executable.isJsonPrimitive()
+					|| manifestPath == null || !manifestPath.isJsonPrimitive() || target == null
+					|| !target.isJsonObject()) {
+				return null;
+			}
+			JsonElement test = profile.getAsJsonObject().get("test"); //$NON-NLS-1$
+			if (test == null || !test.isJsonPrimitive() || !test.getAsBoolean()) {
+				return null;
+			}
+			JsonObject targetObject = target.getAsJsonObject();
+			JsonElement targetName = targetObject.get("name"); //$NON-NLS-1$
+			if (targetName == null || !targetName.isJsonPrimitive()) {
+				return null;
+			}
+			String name = targetName.getAsString();
+			JsonElement kinds = targetObject.get("kind"); //$NON-NLS-1$
+			if (kinds != null && kinds.isJsonArray() && kinds.getAsJsonArray().size() > 0) {
+				name += " (" + kinds.getAsJsonArray().get(0).getAsString() + ')'; //$NON-NLS-1$
+			}
+			JsonElement packageId = artifact.get("package_id"); //$NON-NLS-1$
+			File manifestDirectory = new File(manifestPath.getAsString()).getAbsoluteFile().getParentFile();
+			String[] nameAndVersion = parsePackageId(
+					packageId != null && packageId.isJsonPrimitive() ? packageId.getAsString() : "", //$NON-NLS-1$
+					manifestDirectory.getName());
+			return new TestExecutable(name, executable.getAsString(), manifestDirectory, nameAndVersion[0],
+					nameAndVersion[1]);
+		} catch (JsonParseException | IllegalStateException | UnsupportedOperationException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @param packageId
+	 *            a package id, either <code>name version (source)</code> or, since
+	 *            cargo 1.77, <code>source#name@version</code>, the name being
+	 *            omitted when it is the last segment of the source
+	 * @return the name and version of the package
+	 */
+	private static String[] parsePackageId(String packageId, String defaultName) {
+		int fragment = packageId.lastIndexOf('#');
+		if (fragment < 0) {
+			String[] segments = packageId.split(" "); //$NON-NLS-1$
+			return new String[] { segments[0], segments.length > 1 ? segments[1] : "" }; //$NON-NLS-1$
+		}
+		String nameAndVersion = packageId.substring(fragment + 1);
+		int at = nameAndVersion.indexOf('@');
+		if (at >= 0) {
+			return new String[] { nameAndVersion.substring(0, at), nameAndVersion.substring(at + 1) };
+		}
+		String source = packageId.substring(0, fragment);
+		String name = source.substring(source.lastIndexOf('/') + 1);
+		return new String[] { name.isEmpty() ? defaultName : name, nameAndVersion };
+	}
+
+	/**
+	 * A test binary built by cargo.
+	 */
+	public static class TestExecutable {
+		private final String name;
+		private final String path;
+		private final File manifestDirectory;
+		private final String packageName;
+		private final String packageVersion;
+
+		public TestExecutable(String name, String path, File manifestDirectory, String packageName,
+				String packageVersion) {
+			this.name = name;
+			this.path = path;
+			this.manifestDirectory = manifestDirectory;
+			this.packageName = packageName;
+			this.packageVersion = packageVersion;
+		}
+
+		/**
+		 * @return the name and kind of the target, such as
+		 *         <code>basic (lib)</code>
+		 */
+		public String getName() {
+			return name;
+		}
+
+		public String getPath() {
+			return path;
+		}
+
+		/**
+		 * @return the directory of the package, which cargo runs its test
+		 *         binaries in
+		 */
+		public File getManifestDirectory() {
+			return manifestDirectory;
+		}
+
+		public String getPackageName() {
+			return packageName;
+		}
+
+		public String getPackageVersion() {
+			return packageVersion;
+		}
+	}
+}
@@ -0,0 +1,305 @@
+/*********************************************************************
+ * Copyright (c) 2019 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Red Hat Inc. - Initial implementation
+ *******************************************************************************/
+package org.eclipse.corrosion.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.corrosion.CorrosionPlugin;
+import org.eclipse.corrosion.test.TestResult.Status;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * The durations of the passed tests of a project over its latest test runs,
+ * stored as JSON in the plugin state location. At most {@link #MAX_SAMPLES}
+ * durations are kept per test. Only the exact durations reported by libtest on
+ * nightly toolchains are recorded, estimates would hide real regressions.
+ */
+public class TestDurationHistory {
+	public static final int MAX_SAMPLES = 20;
+	private static final String DIRECTORY = "testDurations"; //$NON-NLS-1$
+	private static final Map<String, TestDurationHistory> HISTORIES = new ConcurrentHashMap<>();
+
+	private final File file;
+	private final Map<String, long[]> samples = new LinkedHashMap<>();
+	private long modificationCount;
+	private boolean latestRunSkipped;
+
+	TestDurationHistory(File file) {
+		this.file = file;
+	}
+
+	/**
+	 * @return the history of the given project, loaded on first request
+	 */
+	public static TestDurationHistory get(String projectName) {
+		return HISTORIES.computeIfAbsent(projectName, name -> {
+			TestDurationHistory history = new TestDurationHistory(getFile(name));
+			history.load();
+			return history;
+		});
+	}
+
+	/**
+	 * Adds the durations of the passed tests of the given session and saves the
+	 * history. Sessions whose durations were estimated from the text output are
+	 * skipped.
+	 */
+	public void record(TestRunSession session) {
+		Map<String, Long> durations = new LinkedHashMap<>();
+		boolean passed = false;
+		for (TestResult result : session.getResults()) {
+			if (result.getStatus() == Status.PASSED) {
+				passed = true;
+				if (result.getDurationMillis() >= 0) {
+					durations.put(result.getName(), result.getDurationMillis());
+				}
+			}
+		}
+		if (session.hasEstimatedDurations() || (passed && durations.isEmpty())) {
+			setLatestRunSkipped(true);
+		} else if (!durations.isEmpty()) {
+			record(durations);
+			save();
+		}
+	}
+
+	/**
+	 * @param durations
+	 *            the durations in milliseconds of a run, by test name
+	 */
+	public synchronized void record(Map<String, Long> durations) {
+		for (Entry<String, Long> duration : durations.entrySet()) {
+			long[] previous = samples.get(duration.getKey());
+			long[] updated;
+			if (previous == null) {
+				updated = new long[] { duration.getValue() };
+			} else {
+				int kept = Math.min(previous.length, MAX_SAMPLES - 1);
+				updated = Arrays.copyOfRange(previous, previous.length - kept, previous.length + 1);
+				updated[kept] = duration.getValue();
+			}
+			samples.put(duration.getKey(), updated);
+		}
+		latestRunSkipped = false;
+		modificationCount++;
+	}
+
+	private synchronized void setLatestRunSkipped(boolean skipped) {
+		if (latestRunSkipped != skipped) {
+			latestRunSkipped = skipped;
+			modificationCount++;
+		}
+	}
+
+	/**
+	 * @return whether the latest test run was not recorded because its exact
+	 *         test durations were unavailable, libtest only reports them on
+	 *         nightly toolchains
+	 */
+	public synchronized boolean isLatestRunSkipped() {
+		return latestRunSkipped;
+	}
+
+	/**
+	 * @return the statistics of every test of the history
+	 */
+	public synchronized List<TestDurations> getTestDurations() {
+		List<TestDurations> durations = new ArrayList<>(samples.size());
+		for (Entry<String, long[]> entry : samples.entrySet()) {
+			durations.add(new TestDurations(entry.getKey(), entry.getValue().clone()));
+		}
+		return durations;
+	}
+
+	/**
+	 * @return a counter incremented on every change, so that views only refresh
+	 *         when needed
+	 */
+	public synchronized long getModificationCount() {
+		return modificationCount;
+	}
+
+	private synchronized void load() {
+		if (!file.isFile()) {
+			return;
+		}
+		try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+			read(reader);
+		} catch (IOException | IllegalStateException | NumberFormatException e) {
+			CorrosionPlugin.logError(e);
+			samples.clear();
+		}
+	}
+
+	synchronized void read(Reader reader) throws IOException {
+		try (JsonReader json = new JsonReader(reader)) {
+			json.beginObject();
+			while (json.hasNext()) {
+				if (!"tests".equals(json.nextName()) || json.peek() != JsonToken.BEGIN_OBJECT) { //$NON-NLS-1$
+					json.skipValue();
+					continue;
+				}
+				json.beginObject();
+				while (json.hasNext()) {
+					String name = json.nextName();
+					List<Long> values = new ArrayList<>();
+					json.beginArray();
+					while (json.hasNext()) {
+						values.add(json.nextLong());
+					}
+					json.endArray();
+					long[] durations = new long[Math.min(values.size(), MAX_SAMPLES)];
+					for (int i = 0; i < durations.length; i++) {
+						durations[i] = values.get(values.size() - durations.length + i);
+					}
+					samples.put(name, durations);
+				}
+				json.endObject();
+			}
+			json.endObject();
+		}
+	}
+
+	private synchronized void save() {
+		try {
+			file.getParentFile().mkdirs();
+			try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+				write(writer);
+			}
+		} catch (IOException e) {
+			CorrosionPlugin.logError(e);
+		}
+	}
+
+	synchronized void write(Writer writer) throws IOException {
+		JsonWriter json = new JsonWriter(writer);
+		json.beginObject().name("tests").beginObject(); //$NON-NLS-1$
+		for (Entry<String, long[]> entry : samples.entrySet()) {
+			json.name(entry.getKey()).beginArray();
+			for (long duration : entry.getValue()) {
+				json.value(duration);
+			}
+			json.endArray();
+		}
+		json.endObject().endObject();
+		json.flush();
+	}
+
+	private static File getFile(String projectName) {
+		String fileName;
+		try {
+			fileName = URLEncoder.encode(projectName, StandardCharsets.UTF_8.name());
+		} catch (UnsupportedEncodingException e) {
+			// UTF-8 is always supported
+			throw new IllegalStateException(e);
+		}
+		IPath directory = CorrosionPlugin.getDefault().getStateLocation().append(DIRECTORY);
+		return directory.append(fileName + ".json").toFile(); //$NON-NLS-1$
+	}
+
+	/**
+	 * The recorded durations of a test, oldest first.
+	 */
+	public static class TestDurations {
+		/**
+		 * Smaller slowdowns are considered noise rather than regressions.
+		 */
+		private static final long MIN_REGRESSION_MILLIS = 10;
+
+		private final String name;
+		private final long[] durations;
+
+		public TestDurations(String name, long[] durations) {
+			this.name = name;
+			this.durations = durations;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public long[] getDurations() {
+			return durations.clone();
+		}
+
+		public long getLatest() {
+			return durations[durations.length - 1];
+		}
+
+		public long getMin() {
+			return Arrays.stream(durations).min().orElse(0);
+		}
+
+		public long getMax() {
+			return Arrays.stream(durations).max().orElse(0);
+		}
+
+		public double getMean() {
+			return Arrays.stream(durations).average().orElse(0);
+		}
+
+		/**
+		 * @return the median of the durations before the latest one,
+		 *         <code>-1</code> if there is only one
+		 */
+		public long getBaseline() {
+			if (durations.length < 2) {
+				return -1;
+			}
+			long[] previous = Arrays.copyOf(durations, durations.length - 1);
+			Arrays.sort(previous);
+			return previous[previous.length / 2];
+		}
+
+		/**
+		 * @return the change of the latest duration relative to the baseline, in
+		 *         percent, {@link Double#NaN} if there is no baseline
+		 */
+		public double getChangePercent() {
+			long baseline = getBaseline();
+			if (baseline < 0) {
+				return Double.NaN;
+			}
+			return baseline == 0 ? (getLatest() == 0 ? 0 : Double.POSITIVE_INFINITY)
+					: (getLatest() - baseline) * 100.0 / baseline;
+		}
+
+		/**
+		 * @return whether the latest duration exceeds the baseline by more than
+		 *         the given percentage
+		 */
+		public boolean isRegressed(int thresholdPercent) {
+			long baseline = getBaseline();
+			return baseline >= 0 && getLatest() - baseline >= MIN_REGRESSION_MILLIS
+					&& getChangePercent() > thresholdPercent;
+		}
+	}
+}
@@ -0,0 +1,96 @@
+/*********************************************************************
+ * Copyright (c) 2019 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Red Hat Inc. - Initial implementation
+ *******************************************************************************/
+package org.eclipse.corrosion.test;
+
+/**
+ * The state of a single test of a {@link TestRunSession}. Updated by the
+ * thread reading the test output, read by the UI.
+ */
+public class TestResult {
+	public enum Status {
+		RUNNING, PASSED, FAILED, IGNORED
+	}
+
+	private final String suite;
+	private final String name;
+	private final long startTime;
+	private volatile Status status = Status.RUNNING;
+	private volatile long durationMillis = -1;
+	private volatile String output = ""; //$NON-NLS-1$
+	private volatile long modificationCount;
+
+	TestResult(String suite, String name) {
+		this.suite = suite;
+		this.name = name;
+		this.startTime = System.currentTimeMillis();
+	}
+
+	/**
+	 * @return the test binary the test belongs to
+	 */
+	public String getSuite() {
+		return suite;
+	}
+
+	/**
+	 * @return the full path of the test, as given to libtest filters
+	 */
+	public String getName() {
+		return name;
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	/**
+	 * @return the duration of the test in milliseconds, <code>-1</code> if it
+	 *         is unknown
+	 */
+	public long getDurationMillis() {
+		return durationMillis;
+	}
+
+	/**
+	 * @return the captured output of the test, usually only available for
+	 *         failures
+	 */
+	public String getOutput() {
+		return output;
+	}
+
+	long getStartTime() {
+		return startTime;
+	}
+
+	/**
+	 * @return the modification count of the session at the latest change of this
+	 *         result
+	 */
+	long getModificationCount() {
+		return modificationCount;
+	}
+
+	void setModificationCount(long modificationCount) {
+		this.modificationCount = modificationCount;
+	}
+
+	void finish(Status newStatus, long duration) {
+		this.durationMillis = duration;
+		this.status = newStatus;
+	}
+
+	void setOutput(String output) {
+		this.output = output;
+	}
+}
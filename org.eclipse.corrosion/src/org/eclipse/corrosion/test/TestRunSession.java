@@ -0,0 +1,208 @@
+/*********************************************************************
+ * Copyright (c) 2019 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Red Hat Inc. - Initial implementation
+ *******************************************************************************/
+package org.eclipse.corrosion.test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.corrosion.test.TestResult.Status;
+
+/**
+ * The results of a test launch, filled as the output of the test binaries is
+ * parsed by {@link LibtestOutputParser}. Tests are identified by their suite
+ * and name, since the same test name can appear in several test binaries.
+ */
+public class TestRunSession {
+	private static volatile TestRunSession current;
+
+	private final String name;
+	private final IProject project;
+	private final long startTime = System.currentTimeMillis();
+	private final Map<String, TestResult> results = new LinkedHashMap<>();
+	private volatile long endTime = -1;
+	private int expectedCount;
+	private int passedCount;
+	private int failedCount;
+	private int ignoredCount;
+	private long modificationCount;
+	private boolean durationsEstimated;
+
+	public TestRunSession(String name, IProject project) {
+		this.name = name;
+		this.project = project;
+	}
+
+	/**
+	 * Makes the given session the one shown to the user.
+	 */
+	public static void setCurrent(TestRunSession session) {
+		current = session;
+	}
+
+	/**
+	 * @return the session of the latest test launch, <code>null</code> if none
+	 */
+	public static TestRunSession getCurrent() {
+		return current;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public IProject getProject() {
+		return project;
+	}
+
+	synchronized void addExpectedCount(int count) {
+		expectedCount += count;
+		modificationCount++;
+	}
+
+	synchronized TestResult testStarted(String suite, String testName) {
+		return results.computeIfAbsent(key(suite, testName), k -> {
+			TestResult result = new TestResult(suite, testName);
+			result.setModificationCount(++modificationCount);
+			return result;
+		});
+	}
+
+	/**
+	 * @param durationMillis
+	 *            the duration reported by libtest, <code>-1</code> to use the time
+	 *            elapsed since the test was started, if known
+	 */
+	synchronized TestResult testFinished(String suite, String testName, Status status, long durationMillis) {
+		String key = key(suite, testName);
+		TestResult result = results.get(key);
+		long duration = durationMillis;
+		if (result == null) {
+			result = new TestResult(suite, testName);
+			results.put(key, result);
+		} else if (duration < 0) {
+			duration = System.currentTimeMillis() - result.getStartTime();
+		}
+		if (result.getStatus() == Status.RUNNING) {
+			switch (status) {
+			case PASSED:
+				passedCount++;
+				break;
+			case FAILED:
+				failedCount++;
+				break;
+			case IGNORED:
+				ignoredCount++;
+				break;
+			default:
+				break;
+			}
+		}
+		result.finish(status, duration);
+		result.setModificationCount(++modificationCount);
+		return result;
+	}
+
+	/**
+	 * Notes that some durations were not reported by libtest but estimated.
+	 */
+	synchronized void markDurationsEstimated() {
+		durationsEstimated = true;
+	}
+
+	/**
+	 * @return whether some durations were estimated from the time between the
+	 *         results, the text format of libtest not reporting them
+	 */
+	public synchronized boolean hasEstimatedDurations() {
+		return durationsEstimated;
+	}
+
+	synchronized void setOutput(String suite, String testName, String output) {
+		TestResult result = results.get(key(suite, testName));
+		if (result != null) {
+			result.setOutput(output);
+			result.setModificationCount(++modificationCount);
+		}
+	}
+
+	/**
+	 * Marks the end of the run, once all test processes terminated.
+	 */
+	public synchronized void finish() {
+		endTime = System.currentTimeMillis();
+		modificationCount++;
+	}
+
+	public boolean isFinished() {
+		return endTime >= 0;
+	}
+
+	public long getElapsedMillis() {
+		long end = endTime;
+		return (end >= 0 ? end : System.currentTimeMillis()) - startTime;
+	}
+
+	public synchronized TestResult[] getResults() {
+		return results.values().toArray(new TestResult[results.size()]);
+	}
+
+	/**
+	 * @param since
+	 *            a value of {@link #getModificationCount()}
+	 * @return the results added or changed after the given modification count,
+	 *         in the order they were started
+	 */
+	public synchronized List<TestResult> getResultsChangedSince(long since) {
+		List<TestResult> changed = new ArrayList<>();
+		for (TestResult result : results.values()) {
+			if (result.getModificationCount() > since) {
+				changed.add(result);
+			}
+		}
+		return changed;
+	}
+
+	/**
+	 * @return the number of tests announced by the test binaries so far
+	 */
+	public synchronized int getExpectedCount() {
+		return expectedCount;
+	}
+
+	public synchronized int getPassedCount() {
+		return passedCount;
+	}
+
+	public synchronized int getFailedCount() {
+		return failedCount;
+	}
+
+	public synchronized int getIgnoredCount() {
+		return ignoredCount;
+	}
+
+	/**
+	 * @return a counter incremented on every change, so that views only refresh
+	 *         when needed
+	 */
+	public synchronized long getModificationCount() {
+		return modificationCount;
+	}
+
+	private static String key(String suite, String testName) {
+		return suite + '\0' + testName;
+	}
+}
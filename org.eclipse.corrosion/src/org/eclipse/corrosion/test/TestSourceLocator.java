@@ -0,0 +1,155 @@
+/*********************************************************************
+ * Copyright (c) 2019 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Red Hat Inc. - Initial implementation
+ *******************************************************************************/
+package org.eclipse.corrosion.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceProxy;
+import org.eclipse.core.resources.IResourceProxyVisitor;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.corrosion.CorrosionPlugin;
+import org.eclipse.corrosion.cargo.core.CargoTools;
+
+/**
+ * Finds the source location of a test result: the location of the panic for
+ * failures, otherwise the definition of the test function.
+ */
+public class TestSourceLocator {
+	private static final Pattern LOCATION_PATTERN = Pattern.compile("([^\\s'\"(),]+\\.rs):(\\d+)(?::\\d+)?"); //$NON-NLS-1$
+	private static final Pattern DOC_TEST_PATTERN = Pattern.compile("(.+\\.rs) - .*\\(line (\\d+)\\)"); //$NON-NLS-1$
+
+	private TestSourceLocator() {
+		throw new IllegalStateException("Utility class"); //$NON-NLS-1$
+	}
+
+	/**
+	 * A line of a workspace file.
+	 */
+	public static class SourceLocation {
+		private final IFile file;
+		private final int line;
+
+		SourceLocation(IFile file, int line) {
+			this.file = file;
+			this.line = line;
+		}
+
+		public IFile getFile() {
+			return file;
+		}
+
+		/**
+		 * @return the 1-based line number
+		 */
+		public int getLine() {
+			return line;
+		}
+	}
+
+	/**
+	 * @return the location of the given test, <code>null</code> if it could not
+	 *         be found
+	 */
+	public static SourceLocation find(TestResult result, IProject project) {
+		File root = CargoTools.findWorkspaceRoot(project.getLocation().toFile());
+		SourceLocation location = findInOutput(result.getOutput(), root);
+		if (location != null) {
+			return location;
+		}
+		Matcher docTest = DOC_TEST_PATTERN.matcher(result.getName());
+		if (docTest.matches()) {
+			IFile file = toWorkspaceFile(new File(project.getLocation().toFile(), docTest.group(1)));
+			return file != null ? new SourceLocation(file, Integer.parseInt(docTest.group(2))) : null;
+		}
+		return findDefinition(project, result.getName());
+	}
+
+	/**
+	 * @return the first location of a file of the workspace mentioned in the
+	 *         given output, such as the location of a panic
+	 */
+	static SourceLocation findInOutput(String output, File workspaceRoot) {
+		Matcher matcher = LOCATION_PATTERN.matcher(output);
+		while (matcher.find()) {
+			File file = new File(matcher.group(1));
+			if (!file.isAbsolute()) {
+				file = new File(workspaceRoot, matcher.group(1));
+			}
+			IFile workspaceFile = toWorkspaceFile(file);
+			if (workspaceFile != null) {
+				return new SourceLocation(workspaceFile, Integer.parseInt(matcher.group(2)));
+			}
+		}
+		return null;
+	}
+
+	private static SourceLocation findDefinition(IProject project, String testName) {
+		String functionName = testName.substring(testName.lastIndexOf(':') + 1);
+		Pattern definition = Pattern.compile("\\bfn\\s+" + Pattern.quote(functionName) + "\\b"); //$NON-NLS-1$ //$NON-NLS-2$
+		List<IFile> sources = new ArrayList<>();
+		try {
+			project.accept(new IResourceProxyVisitor() {
+				@Override
+				public boolean visit(IResourceProxy proxy) {
+					if (proxy.getType() == IResource.FOLDER) {
+						return !proxy.getName().equals("target") && !proxy.getName().startsWith("."); //$NON-NLS-1$ //$NON-NLS-2$
+					}
+					if (proxy.getType() == IResource.FILE && proxy.getName().endsWith(".rs")) { //$NON-NLS-1$
+						sources.add((IFile) proxy.requestResource());
+					}
+					return true;
+				}
+			}, IResource.NONE);
+		} catch (CoreException e) {
+			CorrosionPlugin.logError(e);
+			return null;
+		}
+		for (IFile source : sources) {
+			try {
+				List<String> lines = Files.readAllLines(source.getLocation().toFile().toPath(), StandardCharsets.UTF_8);
+				for (int i = 0; i < lines.size(); i++) {
+					if (definition.matcher(lines.get(i)).find()) {
+						return new SourceLocation(source, i + 1);
+					}
+				}
+			} catch (IOException e) {
+				// unreadable or not UTF-8, cannot contain the test
+			}
+		}
+		return null;
+	}
+
+	private static IFile toWorkspaceFile(File file) {
+		if (!file.isFile()) {
+			return null;
+		}
+		for (IFile workspaceFile : ResourcesPlugin.getWorkspace().getRoot()
+				.findFilesForLocationURI(file.getAbsoluteFile().toURI())) {
+			if (workspaceFile.isAccessible()) {
+				return workspaceFile;
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,162 @@
+/*********************************************************************
+ * Copyright (c) 2019 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Red Hat Inc. - Initial implementation
+ *******************************************************************************/
+package org.eclipse.corrosion.ui;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.function.Function;
+
+import org.eclipse.corrosion.CorrosionPlugin;
+import org.eclipse.corrosion.CorrosionPreferenceInitializer;
+import org.eclipse.corrosion.Messages;
+import org.eclipse.corrosion.edit.LanguageServerStatistics;
+import org.eclipse.corrosion.edit.LanguageServerStatistics.MethodStatistics;
+import org.eclipse.jface.action.Action;
+import org.eclipse.jface.action.IToolBarManager;
+import org.eclipse.jface.viewers.ArrayContentProvider;
+import org.eclipse.jface.viewers.ColumnLabelProvider;
+import org.eclipse.jface.viewers.TableViewer;
+import org.eclipse.jface.viewers.TableViewerColumn;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.FileDialog;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.ui.part.ViewPart;
+
+/**
+ * Shows the latency and size of the JSON-RPC traffic recorded by
+ * {@link LanguageServerStatistics}, refreshed every second.
+ */
+public class LanguageServerStatisticsView extends ViewPart {
+	public static final String VIEW_ID = "org.eclipse.corrosion.ui.languageServerStatistics"; //$NON-NLS-1$
+	private static final int REFRESH_INTERVAL = 1000;
+
+	private TableViewer viewer;
+	private Label disabledLabel;
+	private final Runnable refresh = this::refresh;
+
+	@Override
+	public void createPartControl(Composite parent) {
+		Composite container = new Composite(parent, SWT.NONE);
+		GridLayout layout = new GridLayout(1, false);
+		layout.marginWidth = 0;
+		layout.marginHeight = 0;
+		container.setLayout(layout);
+
+		disabledLabel = new Label(container, SWT.WRAP);
+		disabledLabel.setText(Messages.LanguageServerStatisticsView_disabled);
+		disabledLabel.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+
+		viewer = new TableViewer(container, SWT.FULL_SELECTION | SWT.H_SCROLL | SWT.V_SCROLL);
+		viewer.getTable().setHeaderVisible(true);
+		viewer.getTable().setLinesVisible(true);
+		viewer.getTable().setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true));
+		viewer.setContentProvider(ArrayContentProvider.getInstance());
+		createColumn(Messages.LanguageServerStatisticsView_method, 250, MethodStatistics::getMethod);
+		createColumn(Messages.LanguageServerStatisticsView_requests, 80, s -> Long.toString(s.getRequestCount()));
+		createColumn(Messages.LanguageServerStatisticsView_notifications, 80,
+				s -> Long.toString(s.getNotificationCount()));
+		createColumn(Messages.LanguageServerStatisticsView_inFlight, 70, s -> Long.toString(s.getInFlightCount()));
+		createColumn(Messages.LanguageServerStatisticsView_mean, 80,
+				s -> String.format(Locale.ROOT, "%.1f", s.getMeanMillis())); //$NON-NLS-1$
+		createColumn(Messages.LanguageServerStatisticsView_p50, 70, s -> Long.toString(s.getPercentileMillis(0.5)));
+		createColumn(Messages.LanguageServerStatisticsView_p90, 70, s -> Long.toString(s.getPercentileMillis(0.9)));
+		createColumn(Messages.LanguageServerStatisticsView_p99, 70, s -> Long.toString(s.getPercentileMillis(0.99)));
+		createColumn(Messages.LanguageServerStatisticsView_max, 80,
+				s -> String.format(Locale.ROOT, "%.1f", s.getMaxMillis())); //$NON-NLS-1$
+		createColumn(Messages.LanguageServerStatisticsView_bytesSent, 100, s -> Long.toString(s.getBytesSent()));
+		createColumn(Messages.LanguageServerStatisticsView_bytesReceived, 100,
+				s -> Long.toString(s.getBytesReceived()));
+
+		IToolBarManager toolBar = getViewSite().getActionBars().getToolBarManager();
+		toolBar.add(new Action(Messages.LanguageServerStatisticsView_reset) {
+			@Override
+			public void run() {
+				LanguageServerStatistics.getInstance().reset();
+				refresh();
+			}
+		});
+		toolBar.add(new Action(Messages.LanguageServerStatisticsView_export) {
+			@Override
+			public void run() {
+				export();
+			}
+		});
+		refresh();
+	}
+
+	private void createColumn(String title, int width, Function<MethodStatistics, String> text) {
+		TableViewerColumn column = new TableViewerColumn(viewer, SWT.NONE);
+		column.getColumn().setText(title);
+		column.getColumn().setWidth(width);
+		column.setLabelProvider(new ColumnLabelProvider() {
+			@Override
+			public String getText(Object element) {
+				return text.apply((MethodStatistics) element);
+			}
+		});
+	}
+
+	private void refresh() {
+		if (viewer.getControl().isDisposed()) {
+			return;
+		}
+		boolean enabled = CorrosionPlugin.getDefault().getPreferenceStore()
+				.getBoolean(CorrosionPreferenceInitializer.LANGUAGE_SERVER_STATISTICS_PREFERENCE);
+		GridData labelData = (GridData) disabledLabel.getLayoutData();
+		if (labelData.exclude != enabled) {
+			labelData.exclude = enabled;
+			disabledLabel.setVisible(!enabled);
+			disabledLabel.getParent().layout();
+		}
+		viewer.setInput(LanguageServerStatistics.getInstance().getMethodStatistics());
+		viewer.getControl().getDisplay().timerExec(REFRESH_INTERVAL, refresh);
+	}
+
+	private void export() {
+		FileDialog dialog = new FileDialog(viewer.getControl().getShell(), SWT.SAVE);
+		dialog.setFilterExtensions(new String[] { "*.csv", "*.json" }); //$NON-NLS-1$ //$NON-NLS-2$
+		dialog.setFileName("language-server-statistics.csv"); //$NON-NLS-1$
+		dialog.setOverwrite(true);
+		String path = dialog.open();
+		if (path == null) {
+			return;
+		}
+		LanguageServerStatistics statistics = LanguageServerStatistics.getInstance();
+		String content = path.toLowerCase(Locale.ROOT).endsWith(".json") ? statistics.toJSON() //$NON-NLS-1$
+				: statistics.toCSV();
+		try {
+			Files.write(Paths.get(path), content.getBytes(StandardCharsets.UTF_8));
+		} catch (IOException e) {
+			CorrosionPlugin.showError(Messages.LanguageServerStatisticsView_exportFailed, path, e);
+		}
+	}
+
+	@Override
+	public void setFocus() {
+		viewer.getControl().setFocus();
+	}
+
+	@Override
+	public void dispose() {
+		if (viewer != null && !viewer.getControl().isDisposed()) {
+			viewer.getControl().getDisplay().timerExec(-1, refresh);
+		}
+		super.dispose();
+	}
+}
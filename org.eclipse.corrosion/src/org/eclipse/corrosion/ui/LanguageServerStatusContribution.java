@@ -0,0 +1,77 @@
+/*********************************************************************
+ * Copyright (c) 2019 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Red Hat Inc. - Initial implementation
+ *******************************************************************************/
+package org.eclipse.corrosion.ui;
+
+import java.util.Collection;
+
+import org.eclipse.corrosion.Messages;
+import org.eclipse.corrosion.edit.LanguageServerWatchdog;
+import org.eclipse.corrosion.edit.LanguageServerWatchdog.Sample;
+import org.eclipse.osgi.util.NLS;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.ui.menus.WorkbenchWindowControlContribution;
+
+/**
+ * Shows the memory and CPU use of the running Rust language servers in the
+ * status line.
+ */
+public class LanguageServerStatusContribution extends WorkbenchWindowControlContribution {
+	private Label label;
+	private final Runnable listener = this::scheduleUpdate;
+
+	@Override
+	protected Control createControl(Composite parent) {
+		Composite container = new Composite(parent, SWT.NONE);
+		GridLayout layout = new GridLayout(1, false);
+		layout.marginHeight = 0;
+		container.setLayout(layout);
+		label = new Label(container, SWT.NONE);
+		label.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, true));
+		update(label);
+		LanguageServerWatchdog.addListener(listener);
+		label.addDisposeListener(e -> LanguageServerWatchdog.removeListener(listener));
+		return container;
+	}
+
+	private void scheduleUpdate() {
+		Label currentLabel = label;
+		if (currentLabel != null && !currentLabel.isDisposed()) {
+			currentLabel.getDisplay().asyncExec(() -> update(currentLabel));
+		}
+	}
+
+	private static void update(Label label) {
+		if (label.isDisposed()) {
+			return;
+		}
+		Collection<Sample> samples = LanguageServerWatchdog.getSamples();
+		long rssKilobytes = 0;
+		double cpuPercent = 0;
+		for (Sample sample : samples) {
+			rssKilobytes += sample.getRssKilobytes();
+			cpuPercent += sample.getCpuPercent();
+		}
+		String text = samples.isEmpty() ? "" //$NON-NLS-1$
+				: NLS.bind(Messages.LanguageServerStatusContribution_status, rssKilobytes / 1024,
+						Math.round(cpuPercent));
+		if (!text.equals(label.getText())) {
+			label.setText(text);
+			label.getParent().getParent().layout(true, true);
+		}
+	}
+}
@@ -0,0 +1,234 @@
+/*********************************************************************
+ * Copyright (c) 2019 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Red Hat Inc. - Initial implementation
+ *******************************************************************************/
+package org.eclipse.corrosion.ui;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.corrosion.Messages;
+import org.eclipse.corrosion.test.TestDurationHistory;
+import org.eclipse.corrosion.test.TestDurationHistory.TestDurations;
+import org.eclipse.corrosion.test.TestRunSession;
+import org.eclipse.jface.action.Action;
+import org.eclipse.jface.viewers.ArrayContentProvider;
+import org.eclipse.jface.viewers.ColumnLabelProvider;
+import org.eclipse.jface.viewers.TableViewer;
+import org.eclipse.jface.viewers.TableViewerColumn;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.events.SelectionAdapter;
+import org.eclipse.swt.events.SelectionEvent;
+import org.eclipse.swt.graphics.Color;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Combo;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Spinner;
+import org.eclipse.ui.part.ViewPart;
+
+/**
+ * Reports the test durations recorded in the {@link TestDurationHistory} of a
+ * project: slowest tests first, with their trend over the latest runs and the
+ * tests whose latest duration regressed beyond a threshold highlighted.
+ */
+public class TestDurationReportView extends ViewPart {
+	public static final String VIEW_ID = "org.eclipse.corrosion.ui.testDurations"; //$NON-NLS-1$
+	private static final int REFRESH_INTERVAL = 1000;
+	private static final int DEFAULT_THRESHOLD_PERCENT = 50;
+	private static final char[] TREND_BARS = { '\u2581', '\u2582', '\u2583', '\u2584', '\u2585', '\u2586', '\u2587',
+			'\u2588' };
+
+	private Combo projectCombo;
+	private Spinner thresholdSpinner;
+	private Button regressionsOnlyButton;
+	private TableViewer viewer;
+	private Label skippedLabel;
+	private final Runnable refresh = this::refresh;
+	private TestDurationHistory shownHistory;
+	private long shownModificationCount = -1;
+
+	@Override
+	public void createPartControl(Composite parent) {
+		Composite container = new Composite(parent, SWT.NONE);
+		GridLayout layout = new GridLayout(5, false);
+		layout.marginWidth = 0;
+		layout.marginHeight = 0;
+		container.setLayout(layout);
+
+		new Label(container, SWT.NONE).setText(Messages.TestDurationReportView_project);
+		projectCombo = new Combo(container, SWT.READ_ONLY);
+		projectCombo.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+		projectCombo.addModifyListener(e -> update());
+		new Label(container, SWT.NONE).setText(Messages.TestDurationReportView_threshold);
+		thresholdSpinner = new Spinner(container, SWT.BORDER);
+		thresholdSpinner.setValues(DEFAULT_THRESHOLD_PERCENT, 0, 10000, 0, 10, 50);
+		thresholdSpinner.addModifyListener(e -> update());
+		regressionsOnlyButton = new Button(container, SWT.CHECK);
+		regressionsOnlyButton.setText(Messages.TestDurationReportView_regressionsOnly);
+		regressionsOnlyButton.addSelectionListener(new SelectionAdapter() {
+			@Override
+			public void widgetSelected(SelectionEvent e) {
+				update();
+			}
+		});
+
+		skippedLabel = new Label(container, SWT.WRAP);
+		skippedLabel.setText(Messages.TestDurationReportView_latestRunSkipped);
+		GridData skippedData = new GridData(SWT.FILL, SWT.CENTER, true, false, 5, 1);
+		skippedData.exclude = true;
+		skippedLabel.setLayoutData(skippedData);
+		skippedLabel.setVisible(false);
+
+		viewer = new TableViewer(container, SWT.FULL_SELECTION | SWT.H_SCROLL | SWT.V_SCROLL);
+		viewer.getTable().setHeaderVisible(true);
+		viewer.getTable().setLinesVisible(true);
+		viewer.getTable().setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true, 5, 1));
+		viewer.setContentProvider(ArrayContentProvider.getInstance());
+		createColumn(Messages.TestDurationReportView_test, 350, TestDurations::getName);
+		createColumn(Messages.TestDurationReportView_latest, 90, d -> Long.toString(d.getLatest()));
+		createColumn(Messages.TestDurationReportView_mean, 90, d -> String.format(Locale.ROOT, "%.1f", d.getMean())); //$NON-NLS-1$
+		createColumn(Messages.TestDurationReportView_min, 80, d -> Long.toString(d.getMin()));
+		createColumn(Messages.TestDurationReportView_max, 80, d -> Long.toString(d.getMax()));
+		createColumn(Messages.TestDurationReportView_change, 90, TestDurationReportView::formatChange);
+		createColumn(Messages.TestDurationReportView_trend, 180, TestDurationReportView::formatTrend);
+
+		getViewSite().getActionBars().getToolBarManager().add(new Action(Messages.TestDurationReportView_refresh) {
+			@Override
+			public void run() {
+				updateProjects();
+			}
+		});
+		updateProjects();
+		refresh();
+	}
+
+	private void createColumn(String title, int width, Function<TestDurations, String> text) {
+		TableViewerColumn column = new TableViewerColumn(viewer, SWT.NONE);
+		column.getColumn().setText(title);
+		column.getColumn().setWidth(width);
+		column.setLabelProvider(new ColumnLabelProvider() {
+			@Override
+			public String getText(Object element) {
+				return text.apply((TestDurations) element);
+			}
+
+			@Override
+			public Color getForeground(Object element) {
+				return ((TestDurations) element).isRegressed(thresholdSpinner.getSelection())
+						? viewer.getControl().getDisplay().getSystemColor(SWT.COLOR_RED)
+						: null;
+			}
+		});
+	}
+
+	private static String formatChange(TestDurations durations) {
+		double change = durations.getChangePercent();
+		if (Double.isNaN(change)) {
+			return ""; //$NON-NLS-1$
+		}
+		return Double.isInfinite(change) ? "+\u221e" : String.format(Locale.ROOT, "%+.0f%%", change); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/**
+	 * @return the durations drawn as a sparkline of block characters
+	 */
+	private static String formatTrend(TestDurations durations) {
+		long min = durations.getMin();
+		long range = durations.getMax() - min;
+		StringBuilder trend = new StringBuilder();
+		for (long duration : durations.getDurations()) {
+			int bar = range == 0 ? 0 : (int) ((duration - min) * (TREND_BARS.length - 1) / range);
+			trend.append(TREND_BARS[bar]);
+		}
+		return trend.toString();
+	}
+
+	private void updateProjects() {
+		String selected = projectCombo.getText();
+		TestRunSession session = TestRunSession.getCurrent();
+		if (selected.isEmpty() && session != null && session.getProject() != null) {
+			selected = session.getProject().getName();
+		}
+		List<String> names = new ArrayList<>();
+		for (IProject project : ResourcesPlugin.getWorkspace().getRoot().getProjects()) {
+			if (project.isOpen() && project.getFile("Cargo.toml").exists()) { //$NON-NLS-1$
+				names.add(project.getName());
+			}
+		}
+		projectCombo.setItems(names.toArray(new String[names.size()]));
+		int index = names.indexOf(selected);
+		if (index >= 0) {
+			projectCombo.select(index);
+		} else if (!names.isEmpty()) {
+			projectCombo.select(0);
+		}
+		update();
+	}
+
+	private void refresh() {
+		if (viewer.getControl().isDisposed()) {
+			return;
+		}
+		if (shownHistory != null && shownHistory.getModificationCount() != shownModificationCount) {
+			update();
+		}
+		viewer.getControl().getDisplay().timerExec(REFRESH_INTERVAL, refresh);
+	}
+
+	private void update() {
+		String projectName = projectCombo.getText();
+		if (projectName.isEmpty()) {
+			shownHistory = null;
+			showSkipped(false);
+			viewer.setInput(new Object[0]);
+			return;
+		}
+		shownHistory = TestDurationHistory.get(projectName);
+		shownModificationCount = shownHistory.getModificationCount();
+		showSkipped(shownHistory.isLatestRunSkipped());
+		int threshold = thresholdSpinner.getSelection();
+		boolean regressionsOnly = regressionsOnlyButton.getSelection();
+		viewer.setInput(shownHistory.getTestDurations().stream()
+				.filter(durations -> !regressionsOnly || durations.isRegressed(threshold))
+				.sorted(Comparator.comparingLong(TestDurations::getLatest).reversed())
+				.collect(Collectors.toList()));
+	}
+
+	private void showSkipped(boolean skipped) {
+		if (skippedLabel.getVisible() != skipped) {
+			skippedLabel.setVisible(skipped);
+			((GridData) skippedLabel.getLayoutData()).exclude = !skipped;
+			skippedLabel.getParent().layout();
+		}
+	}
+
+	@Override
+	public void setFocus() {
+		viewer.getControl().setFocus();
+	}
+
+	@Override
+	public void dispose() {
+		if (viewer != null && !viewer.getControl().isDisposed()) {
+			viewer.getControl().getDisplay().timerExec(-1, refresh);
+		}
+		super.dispose();
+	}
+}
@@ -0,0 +1,331 @@
+/*********************************************************************
+ * Copyright (c) 2019 Red Hat Inc. and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *  Red Hat Inc. - Initial implementation
+ *******************************************************************************/
+package org.eclipse.corrosion.ui;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.corrosion.CorrosionPlugin;
+import org.eclipse.corrosion.Messages;
+import org.eclipse.corrosion.test.TestResult;
+import org.eclipse.corrosion.test.TestResult.Status;
+import org.eclipse.corrosion.test.TestRunSession;
+import org.eclipse.corrosion.test.TestSourceLocator;
+import org.eclipse.corrosion.test.TestSourceLocator.SourceLocation;
+import org.eclipse.jface.action.Action;
+import org.eclipse.jface.action.IAction;
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.viewers.ArrayContentProvider;
+import org.eclipse.jface.viewers.ColumnLabelProvider;
+import org.eclipse.jface.viewers.IStructuredSelection;
+import org.eclipse.jface.viewers.TableViewer;
+import org.eclipse.jface.viewers.TableViewerColumn;
+import org.eclipse.jface.viewers.Viewer;
+import org.eclipse.jface.viewers.ViewerFilter;
+import org.eclipse.osgi.util.NLS;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.custom.SashForm;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.ProgressBar;
+import org.eclipse.swt.widgets.Text;
+import org.eclipse.ui.IEditorPart;
+import org.eclipse.ui.ide.IDE;
+import org.eclipse.ui.part.ViewPart;
+import org.eclipse.ui.texteditor.ITextEditor;
+
+/**
+ * Shows the results of the latest cargo test launch while it runs: live
+ * counts, per-test status and duration, and the output of the selected test.
+ * Double-clicking a test opens its source.
+ */
+public class TestResultsView extends ViewPart {
+	public static final String VIEW_ID = "org.eclipse.corrosion.ui.testResults"; //$NON-NLS-1$
+	private static final int REFRESH_INTERVAL = 250;
+	private static final String STATUS_PROPERTY = "status"; //$NON-NLS-1$
+
+	private Label summaryLabel;
+	private ProgressBar progressBar;
+	private TableViewer viewer;
+	private Text outputText;
+	private final Runnable refresh = this::refresh;
+	private TestRunSession shownSession;
+	private long shownModificationCount = -1;
+	/**
+	 * The results of the shown session, the input of the viewer.
+	 */
+	private final List<TestResult> shownResults = new ArrayList<>();
+	private final Set<TestResult> shownResultSet = new HashSet<>();
+	private boolean failuresOnly;
+	private Job locateSourceJob;
+	private String durationsNote = ""; //$NON-NLS-1$
+
+	@Override
+	public void createPartControl(Composite parent) {
+		Composite container = new Composite(parent, SWT.NONE);
+		GridLayout layout = new GridLayout(1, false);
+		layout.marginWidth = 0;
+		layout.marginHeight = 0;
+		container.setLayout(layout);
+
+		summaryLabel = new Label(container, SWT.NONE);
+		summaryLabel.setText(Messages.TestResultsView_noSession);
+		summaryLabel.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+		progressBar = new ProgressBar(container, SWT.HORIZONTAL | SWT.SMOOTH);
+		progressBar.setLayoutData(new GridData(SWT.FILL, SWT.CENTER, true, false));
+
+		SashForm sash = new SashForm(container, SWT.VERTICAL);
+		sash.setLayoutData(new GridData(SWT.FILL, SWT.FILL, true, true));
+		viewer = new TableViewer(sash, SWT.FULL_SELECTION | SWT.H_SCROLL | SWT.V_SCROLL);
+		viewer.getTable().setHeaderVisible(true);
+		viewer.getTable().setLinesVisible(true);
+		viewer.setContentProvider(ArrayContentProvider.getInstance());
+		createColumn(Messages.TestResultsView_status, 80, result -> getStatusLabel(result.getStatus()));
+		createColumn(Messages.TestResultsView_test, 400, TestResult::getName);
+		createColumn(Messages.TestResultsView_duration, 100,
+				result -> result.getDurationMillis() < 0 ? "" : Long.toString(result.getDurationMillis())); //$NON-NLS-1$
+		createColumn(Messages.TestResultsView_suite, 150, TestResult::getSuite);
+		viewer.addFilter(new ViewerFilter() {
+			@Override
+			public boolean select(Viewer filteredViewer, Object parentElement, Object element) {
+				return !failuresOnly || ((TestResult) element).getStatus() == Status.FAILED;
+			}
+
+			@Override
+			public boolean isFilterProperty(Object element, String property) {
+				return failuresOnly && STATUS_PROPERTY.equals(property);
+			}
+		});
+		viewer.setInput(shownResults);
+		viewer.addSelectionChangedListener(event -> showOutput());
+		viewer.addDoubleClickListener(event -> openSource());
+
+		outputText = new Text(sash, SWT.MULTI | SWT.READ_ONLY | SWT.H_SCROLL | SWT.V_SCROLL);
+		sash.setWeights(new int[] { 3, 1 });
+
+		getViewSite().getActionBars().getToolBarManager()
+				.add(new Action(Messages.TestResultsView_failuresOnly, IAction.AS_CHECK_BOX) {
+					@Override
+					public void run() {
+						failuresOnly = isChecked();
+						viewer.refresh();
+					}
+				});
+		refresh();
+	}
+
+	private void createColumn(String title, int width, Function<TestResult, String> text) {
+		TableViewerColumn column = new TableViewerColumn(viewer, SWT.NONE);
+		column.getColumn().setText(title);
+		column.getColumn().setWidth(width);
+		column.setLabelProvider(new ColumnLabelProvider() {
+			@Override
+			public String getText(Object element) {
+				return text.apply((TestResult) element);
+			}
+		});
+	}
+
+	private static String getStatusLabel(Status status) {
+		switch (status) {
+		case PASSED:
+			return Messages.TestResultsView_passed;
+		case FAILED:
+			return Messages.TestResultsView_failed;
+		case IGNORED:
+			return Messages.TestResultsView_ignored;
+		default:
+			return Messages.TestResultsView_running;
+		}
+	}
+
+	private void refresh() {
+		if (viewer.getControl().isDisposed()) {
+			return;
+		}
+		TestRunSession session = TestRunSession.getCurrent();
+		if (session != null) {
+			long modificationCount = session.getModificationCount();
+			boolean changed = session != shownSession || modificationCount != shownModificationCount;
+			if (changed || !session.isFinished()) {
+				// the elapsed time changes while running
+				update(session, changed);
+			}
+		}
+		viewer.getControl().getDisplay().timerExec(REFRESH_INTERVAL, refresh);
+	}
+
+	private void update(TestRunSession session, boolean resultsChanged) {
+		int run = session.getPassedCount() + session.getFailedCount() + session.getIgnoredCount();
+		int expected = Math.max(run, session.getExpectedCount());
+		String summary = NLS.bind(Messages.TestResultsView_summary,
+				new Object[] { session.getName(), run, expected, session.getPassedCount(), session.getFailedCount(),
+						session.getIgnoredCount(),
+						String.format(Locale.ROOT, "%.1f", session.getElapsedMillis() / 1000.0) }); //$NON-NLS-1$
+		if (resultsChanged) {
+			durationsNote = getDurationsNote(session);
+		}
+		summaryLabel.setText(durationsNote.isEmpty() ? summary : summary + durationsNote);
+		progressBar.setMaximum(Math.max(1, expected));
+		progressBar.setSelection(run);
+		progressBar.setState(session.getFailedCount() > 0 ? SWT.ERROR : SWT.NORMAL);
+		if (resultsChanged) {
+			updateResults(session);
+			showOutput();
+		}
+	}
+
+	/**
+	 * Adds the new results to the table and updates the changed ones, the table
+	 * is only rebuilt for a new session.
+	 */
+	private void updateResults(TestRunSession session) {
+		long modificationCount = session.getModificationCount();
+		if (session != shownSession) {
+			shownSession = session;
+			shownResults.clear();
+			shownResultSet.clear();
+			List<TestResult> results = Arrays.asList(session.getResults());
+			shownResults.addAll(results);
+			shownResultSet.addAll(results);
+			viewer.refresh();
+		} else {
+			List<TestResult> added = new ArrayList<>();
+			List<TestResult> updated = new ArrayList<>();
+			for (TestResult result : session.getResultsChangedSince(shownModificationCount)) {
+				if (shownResultSet.add(result)) {
+					added.add(result);
+				} else {
+					updated.add(result);
+				}
+			}
+			if (!added.isEmpty()) {
+				shownResults.addAll(added);
+				viewer.add(added.toArray());
+			}
+			if (!updated.isEmpty()) {
+				viewer.update(updated.toArray(), new String[] { STATUS_PROPERTY });
+			}
+		}
+		shownModificationCount = modificationCount;
+	}
+
+	private TestResult getSelectedResult() {
+		Object selected = ((IStructuredSelection) viewer.getSelection()).getFirstElement();
+		return selected instanceof TestResult ? (TestResult) selected : null;
+	}
+
+	private void showOutput() {
+		TestResult result = getSelectedResult();
+		String output = result != null ? result.getOutput() : ""; //$NON-NLS-1$
+		if (!output.equals(outputText.getText())) {
+			outputText.setText(output);
+		}
+	}
+
+	private static String getDurationsNote(TestRunSession session) {
+		if (session.hasEstimatedDurations()) {
+			return Messages.TestResultsView_durationsEstimated;
+		}
+		for (TestResult result : session.getResults()) {
+			if (result.getStatus() != Status.RUNNING && result.getStatus() != Status.IGNORED
+					&& result.getDurationMillis() < 0) {
+				return Messages.TestResultsView_durationsUnavailable;
+			}
+		}
+		return ""; //$NON-NLS-1$
+	}
+
+	private void openSource() {
+		TestResult result = getSelectedResult();
+		if (result == null || shownSession == null) {
+			return;
+		}
+		IProject project = shownSession.getProject();
+		Display display = viewer.getControl().getDisplay();
+		if (locateSourceJob != null) {
+			locateSourceJob.cancel();
+		}
+		// Looking for the test definition reads the sources of the whole project
+		locateSourceJob = new Job(NLS.bind(Messages.TestResultsView_locatingSource, result.getName())) {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				SourceLocation location = TestSourceLocator.find(result, project);
+				if (monitor.isCanceled()) {
+					return org.eclipse.core.runtime.Status.CANCEL_STATUS;
+				}
+				if (!display.isDisposed()) {
+					display.asyncExec(() -> {
+						if (!viewer.getControl().isDisposed()) {
+							openSource(result, location);
+						}
+					});
+				}
+				return org.eclipse.core.runtime.Status.OK_STATUS;
+			}
+		};
+		locateSourceJob.setSystem(true);
+		locateSourceJob.schedule();
+	}
+
+	private void openSource(TestResult result, SourceLocation location) {
+		if (location == null) {
+			getViewSite().getActionBars().getStatusLineManager()
+					.setErrorMessage(NLS.bind(Messages.TestResultsView_sourceNotFound, result.getName()));
+			return;
+		}
+		getViewSite().getActionBars().getStatusLineManager().setErrorMessage(null);
+		try {
+			IEditorPart editor = IDE.openEditor(getSite().getPage(), location.getFile());
+			if (editor instanceof ITextEditor) {
+				ITextEditor textEditor = (ITextEditor) editor;
+				IDocument document = textEditor.getDocumentProvider().getDocument(textEditor.getEditorInput());
+				if (document != null && location.getLine() <= document.getNumberOfLines()) {
+					textEditor.selectAndReveal(document.getLineOffset(location.getLine() - 1), 0);
+				}
+			}
+		} catch (CoreException | BadLocationException e) {
+			CorrosionPlugin.logError(e);
+		}
+	}
+
+	@Override
+	public void setFocus() {
+		viewer.getControl().setFocus();
+	}
+
+	@Override
+	public void dispose() {
+		if (locateSourceJob != null) {
+			locateSourceJob.cancel();
+		}
+		if (viewer != null && !viewer.getControl().isDisposed()) {
+			viewer.getControl().getDisplay().timerExec(-1, refresh);
+		}
+		super.dispose();
+	}
+}